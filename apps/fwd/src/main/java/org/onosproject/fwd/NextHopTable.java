@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.fwd;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Path;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.topology.Topology;
+import org.onosproject.net.topology.TopologyService;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Table of the egress ports leading from a device towards another device
+ * along shortest paths, for a single topology snapshot. Entries are computed
+ * on first use, so paths between the same pair of devices are only computed
+ * once per topology.
+ */
+final class NextHopTable {
+
+    private final TopologyService topologyService;
+    private final Topology topology;
+    private final ConcurrentMap<DeviceId, ConcurrentMap<DeviceId, List<PortNumber>>> ports =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty next-hop table for the given topology.
+     *
+     * @param topologyService topology service used to compute paths
+     * @param topology topology snapshot
+     */
+    NextHopTable(TopologyService topologyService, Topology topology) {
+        this.topologyService = topologyService;
+        this.topology = topology;
+    }
+
+    /**
+     * Returns the topology snapshot the table was computed for.
+     *
+     * @return topology
+     */
+    Topology topology() {
+        return topology;
+    }
+
+    /**
+     * Returns the first-hop egress ports of the shortest paths from the
+     * source device to the destination device, in path order.
+     *
+     * @param src source device
+     * @param dst destination device
+     * @return egress ports on the source device; empty if there is no path
+     */
+    List<PortNumber> egressPorts(DeviceId src, DeviceId dst) {
+        return ports.computeIfAbsent(src, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(dst, k -> compute(src, dst));
+    }
+
+    private List<PortNumber> compute(DeviceId src, DeviceId dst) {
+        ImmutableList.Builder<PortNumber> egress = ImmutableList.builder();
+        for (Path path : topologyService.getPaths(topology, src, dst)) {
+            egress.add(path.src().port());
+        }
+        return egress.build();
+    }
+}
@@ -16,6 +16,9 @@
 package org.onosproject.fwd;
 
 import org.onlab.packet.MacAddress;
+
+import java.util.concurrent.TimeUnit;
+
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 /**
@@ -28,6 +31,16 @@ public class ReactiveForwardMetrics {
     private Long forwardedPacket = null;
     private MacAddress macAddress;
 
+    // Per-stage processing time, in nanoseconds, and number of samples
+    private long hostLookupTime = 0;
+    private long hostLookupCount = 0;
+    private long pathLookupTime = 0;
+    private long pathLookupCount = 0;
+    private long installTime = 0;
+    private long installCount = 0;
+    private long packetOutTime = 0;
+    private long packetOutCount = 0;
+
     ReactiveForwardMetrics(Long replyPacket, Long inPacket, Long droppedPacket,
                            Long forwardedPacket, MacAddress macAddress) {
         this.replyPacket = replyPacket;
@@ -54,6 +67,47 @@ public class ReactiveForwardMetrics {
         forwardedPacket++;
     }
 
+    /**
+     * Records the time spent looking up the destination host of a packet.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void addHostLookupTime(long nanos) {
+        hostLookupTime += nanos;
+        hostLookupCount++;
+    }
+
+    /**
+     * Records the time spent looking up the egress port towards the
+     * destination device of a packet.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void addPathLookupTime(long nanos) {
+        pathLookupTime += nanos;
+        pathLookupCount++;
+    }
+
+    /**
+     * Records the time spent building and sending a forwarding objective.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void addInstallTime(long nanos) {
+        installTime += nanos;
+        installCount++;
+    }
+
+    /**
+     * Records the time spent sending a packet out.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void addPacketOutTime(long nanos) {
+        packetOutTime += nanos;
+        packetOutCount++;
+    }
+
     public MacAddress getMacAddress() {
         return macAddress;
     }
@@ -64,6 +118,14 @@ public class ReactiveForwardMetrics {
             .add("inpktCounter ", inPacket)
             .add("replypktCounter ", replyPacket)
             .add("forwardpktCounter ", forwardedPacket)
-            .add("droppktCounter ", droppedPacket).toString();
+            .add("droppktCounter ", droppedPacket)
+            .add("hostLookupAvgUs ", averageMicros(hostLookupTime, hostLookupCount))
+            .add("pathLookupAvgUs ", averageMicros(pathLookupTime, pathLookupCount))
+            .add("installAvgUs ", averageMicros(installTime, installCount))
+            .add("packetOutAvgUs ", averageMicros(packetOutTime, packetOutCount)).toString();
+    }
+
+    private static long averageMicros(long nanos, long count) {
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanos / count);
     }
 }
@@ -15,6 +15,8 @@
  */
 package org.onosproject.fwd;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -63,6 +65,9 @@ import org.onosproject.net.flow.instructions.Instructions;
 import org.onosproject.net.flowobjective.DefaultForwardingObjective;
 import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.flowobjective.ForwardingObjective;
+import org.onosproject.net.flowobjective.Objective;
+import org.onosproject.net.flowobjective.ObjectiveContext;
+import org.onosproject.net.flowobjective.ObjectiveError;
 import org.onosproject.net.host.HostService;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.packet.InboundPacket;
@@ -70,6 +75,7 @@ import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.packet.PacketPriority;
 import org.onosproject.net.packet.PacketProcessor;
 import org.onosproject.net.packet.PacketService;
+import org.onosproject.net.topology.Topology;
 import org.onosproject.net.topology.TopologyEvent;
 import org.onosproject.net.topology.TopologyListener;
 import org.onosproject.net.topology.TopologyService;
@@ -88,6 +94,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
@@ -102,6 +109,9 @@ public class ReactiveForwarding {
 
     private static final int DEFAULT_TIMEOUT = 10;
     private static final int DEFAULT_PRIORITY = 10;
+    // how long a sent forwarding objective suppresses identical ones if
+    // it is not acknowledged
+    private static final int PENDING_INSTALL_TIMEOUT_MS = 1000;
 
     private final Logger log = getLogger(getClass());
 
@@ -204,6 +214,14 @@ public class ReactiveForwarding {
 
     private ExecutorService blackHoleExecutor;
 
+    // Egress ports between devices for the current topology, reset whenever
+    // the topology changes
+    private volatile NextHopTable nextHops;
+
+    // Forwarding objectives sent to devices and not yet acknowledged
+    private final Cache<PendingInstall, Boolean> pendingInstalls = CacheBuilder.newBuilder()
+            .expireAfterWrite(PENDING_INSTALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .build();
 
     @Activate
     public void activate(ComponentContext context) {
@@ -490,7 +508,9 @@ public class ReactiveForwarding {
             }
 
             // Do we know who this is for? If not, flood and bail.
+            long start = System.nanoTime();
             Host dst = hostService.getHost(id);
+            hostLookup(macMetrics, start);
             if (dst == null) {
                 flood(context, macMetrics);
                 return;
@@ -505,13 +525,14 @@ public class ReactiveForwarding {
                 return;
             }
 
-            // Otherwise, get a set of paths that lead from here to the
-            // destination edge switch.
-            Set<Path> paths =
-                    topologyService.getPaths(topologyService.currentTopology(),
-                                             pkt.receivedFrom().deviceId(),
-                                             dst.location().deviceId());
-            if (paths.isEmpty()) {
+            // Otherwise, get the egress ports of the paths that lead from
+            // here to the destination edge switch.
+            start = System.nanoTime();
+            List<PortNumber> ports = nextHops().egressPorts(pkt.receivedFrom().deviceId(),
+                                                            dst.location().deviceId());
+            PortNumber port = pickForwardPortIfPossible(ports, pkt.receivedFrom().port());
+            pathLookup(macMetrics, start);
+            if (ports.isEmpty()) {
                 // If there are no paths, flood and bail.
                 flood(context, macMetrics);
                 return;
@@ -519,8 +540,7 @@ public class ReactiveForwarding {
 
             // Otherwise, pick a path that does not lead back to where we
             // came from; if no such path, flood and bail.
-            Path path = pickForwardPathIfPossible(paths, pkt.receivedFrom().port());
-            if (path == null) {
+            if (port == null) {
                 log.warn("Don't know where to go from here {} for {} -> {}",
                          pkt.receivedFrom(), ethPkt.getSourceMAC(), ethPkt.getDestinationMAC());
                 flood(context, macMetrics);
@@ -528,7 +548,7 @@ public class ReactiveForwarding {
             }
 
             // Otherwise forward and be done with it.
-            installRule(context, path.src().port(), macMetrics);
+            installRule(context, port, macMetrics);
         }
 
     }
@@ -544,17 +564,28 @@ public class ReactiveForwarding {
         return eth.getEtherType() == Ethernet.TYPE_IPV6 && eth.isMulticast();
     }
 
-    // Selects a path from the given set that does not lead back to the
-    // specified port if possible.
-    private Path pickForwardPathIfPossible(Set<Path> paths, PortNumber notToPort) {
-        for (Path path : paths) {
-            if (!path.src().port().equals(notToPort)) {
-                return path;
+    // Selects a port from the given egress ports of paths that does not lead
+    // back to the specified port if possible.
+    private PortNumber pickForwardPortIfPossible(List<PortNumber> ports, PortNumber notToPort) {
+        for (PortNumber port : ports) {
+            if (!port.equals(notToPort)) {
+                return port;
             }
         }
         return null;
     }
 
+    // Returns the next-hop table of the current topology.
+    private NextHopTable nextHops() {
+        Topology topology = topologyService.currentTopology();
+        NextHopTable table = nextHops;
+        if (table == null || table.topology() != topology) {
+            table = new NextHopTable(topologyService, topology);
+            nextHops = table;
+        }
+        return table;
+    }
+
     // Floods the specified packet if permissible.
     private void flood(PacketContext context, ReactiveForwardMetrics macMetrics) {
         if (topologyService.isBroadcastPoint(topologyService.currentTopology(),
@@ -567,9 +598,11 @@ public class ReactiveForwarding {
 
     // Sends a packet out the specified port.
     private void packetOut(PacketContext context, PortNumber portNumber, ReactiveForwardMetrics macMetrics) {
-        replyPacket(macMetrics);
+        long start = System.nanoTime();
         context.treatmentBuilder().setOutput(portNumber);
         context.send();
+        packetOutStage(macMetrics, start);
+        replyPacket(macMetrics);
     }
 
     // Install a rule forwarding the packet to the specified port.
@@ -587,6 +620,8 @@ public class ReactiveForwarding {
             return;
         }
 
+        long start = System.nanoTime();
+
         //
         // If matchDstMacOnly
         //    Create flows matching dstMac only
@@ -689,22 +724,32 @@ public class ReactiveForwarding {
                 }
             }
         }
-        TrafficTreatment treatment = DefaultTrafficTreatment.builder()
-                .setOutput(portNumber)
-                .build();
-
-        ForwardingObjective forwardingObjective = DefaultForwardingObjective.builder()
-                .withSelector(selectorBuilder.build())
-                .withTreatment(treatment)
-                .withPriority(flowPriority)
-                .withFlag(ForwardingObjective.Flag.VERSATILE)
-                .fromApp(appId)
-                .makeTemporary(flowTimeout)
-                .add();
-
-        flowObjectiveService.forward(context.inPacket().receivedFrom().deviceId(),
-                                     forwardingObjective);
-        forwardPacket(macMetrics);
+        DeviceId deviceId = context.inPacket().receivedFrom().deviceId();
+        TrafficSelector selector = selectorBuilder.build();
+
+        // Skip the objective if an identical one is still being installed,
+        // as happens when packets of the same flow arrive in a burst
+        PendingInstall pending = new PendingInstall(deviceId, selector, portNumber);
+        if (pendingInstalls.asMap().putIfAbsent(pending, Boolean.TRUE) == null) {
+            TrafficTreatment treatment = DefaultTrafficTreatment.builder()
+                    .setOutput(portNumber)
+                    .build();
+
+            ForwardingObjective forwardingObjective = DefaultForwardingObjective.builder()
+                    .withSelector(selector)
+                    .withTreatment(treatment)
+                    .withPriority(flowPriority)
+                    .withFlag(ForwardingObjective.Flag.VERSATILE)
+                    .fromApp(appId)
+                    .makeTemporary(flowTimeout)
+                    .add(new PendingInstallContext(pending));
+
+            flowObjectiveService.forward(deviceId, forwardingObjective);
+            forwardPacket(macMetrics);
+        } else {
+            log.trace("Objective for {} on {} already pending", selector, deviceId);
+        }
+        installStage(macMetrics, start);
         //
         // If packetOutOfppTable
         //  Send packet back to the OpenFlow pipeline to match installed flow
@@ -722,6 +767,7 @@ public class ReactiveForwarding {
     private class InternalTopologyListener implements TopologyListener {
         @Override
         public void event(TopologyEvent event) {
+            nextHops = null;
             List<Event> reasons = event.reasons();
             if (reasons != null) {
                 reasons.forEach(re -> {
@@ -777,10 +823,8 @@ public class ReactiveForwarding {
                     cleanFlowRules(sd, curDevice);
                 }
 
-                Set<Path> pathsFromCurDevice =
-                        topologyService.getPaths(topologyService.currentTopology(),
-                                                 curDevice, dstId);
-                if (pickForwardPathIfPossible(pathsFromCurDevice, curLink.src().port()) != null) {
+                List<PortNumber> portsFromCurDevice = nextHops().egressPorts(curDevice, dstId);
+                if (pickForwardPortIfPossible(portsFromCurDevice, curLink.src().port()) != null) {
                     break;
                 } else {
                     if (i + 1 == pathLinks.size()) {
@@ -873,6 +917,32 @@ public class ReactiveForwarding {
         }
     }
 
+    // Stage latencies are recorded in place and published to the metrics
+    // map along with the next counter update of the same MAC
+    private void hostLookup(ReactiveForwardMetrics macmetrics, long startNanos) {
+        if (recordMetrics && macmetrics != null) {
+            macmetrics.addHostLookupTime(System.nanoTime() - startNanos);
+        }
+    }
+
+    private void pathLookup(ReactiveForwardMetrics macmetrics, long startNanos) {
+        if (recordMetrics && macmetrics != null) {
+            macmetrics.addPathLookupTime(System.nanoTime() - startNanos);
+        }
+    }
+
+    private void installStage(ReactiveForwardMetrics macmetrics, long startNanos) {
+        if (recordMetrics && macmetrics != null) {
+            macmetrics.addInstallTime(System.nanoTime() - startNanos);
+        }
+    }
+
+    private void packetOutStage(ReactiveForwardMetrics macmetrics, long startNanos) {
+        if (recordMetrics && macmetrics != null) {
+            macmetrics.addPacketOutTime(System.nanoTime() - startNanos);
+        }
+    }
+
     private void droppedPacket(ReactiveForwardMetrics macmetrics) {
         if (recordMetrics) {
             macmetrics.incrementDroppedPacket();
@@ -913,6 +983,58 @@ public class ReactiveForwarding {
         return builder.build();
     }
 
+    // Forwarding objective identity used to suppress duplicate installs
+    private static final class PendingInstall {
+        private final DeviceId deviceId;
+        private final TrafficSelector selector;
+        private final PortNumber output;
+
+        private PendingInstall(DeviceId deviceId, TrafficSelector selector, PortNumber output) {
+            this.deviceId = deviceId;
+            this.selector = selector;
+            this.output = output;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PendingInstall that = (PendingInstall) o;
+            return Objects.equals(deviceId, that.deviceId) &&
+                    Objects.equals(selector, that.selector) &&
+                    Objects.equals(output, that.output);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(deviceId, selector, output);
+        }
+    }
+
+    // Clears the pending install once the device has acknowledged it
+    private final class PendingInstallContext implements ObjectiveContext {
+        private final PendingInstall pending;
+
+        private PendingInstallContext(PendingInstall pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void onSuccess(Objective objective) {
+            pendingInstalls.invalidate(pending);
+        }
+
+        @Override
+        public void onError(Objective objective, ObjectiveError error) {
+            log.debug("Failed to install objective on {}: {}", pending.deviceId, error);
+            pendingInstalls.invalidate(pending);
+        }
+    }
+
     // Wrapper class for a source and destination pair of MAC addresses
     private final class SrcDstPair {
         final MacAddress src;
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.fwd;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Path;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.topology.Topology;
+import org.onosproject.net.topology.TopologyServiceAdapter;
+
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.onosproject.net.NetTestTools.createPath;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for NextHopTable.
+ */
+public class NextHopTableTest {
+
+    private TestTopologyService topologyService;
+    private NextHopTable table;
+
+    @Before
+    public void setUp() {
+        topologyService = new TestTopologyService();
+        table = new NextHopTable(topologyService, null);
+    }
+
+    /**
+     * Tests the egress ports are those of the first hops of the paths.
+     */
+    @Test
+    public void testEgressPorts() {
+        assertThat(table.egressPorts(did("a"), did("c")), contains(PortNumber.portNumber(2)));
+        assertThat(table.egressPorts(did("c"), did("a")), is(empty()));
+    }
+
+    /**
+     * Tests paths between the same pair of devices are only computed once.
+     */
+    @Test
+    public void testPathsComputedOnce() {
+        table.egressPorts(did("a"), did("c"));
+        table.egressPorts(did("a"), did("c"));
+        assertThat(topologyService.pathQueries, is(1));
+
+        table.egressPorts(did("b"), did("c"));
+        assertThat(topologyService.pathQueries, is(2));
+
+        // a new table is computed from scratch
+        new NextHopTable(topologyService, null).egressPorts(did("a"), did("c"));
+        assertThat(topologyService.pathQueries, is(3));
+    }
+
+    private static class TestTopologyService extends TopologyServiceAdapter {
+        private int pathQueries;
+
+        @Override
+        public Set<Path> getPaths(Topology topology, DeviceId src, DeviceId dst) {
+            pathQueries++;
+            if (src.equals(did("a")) && dst.equals(did("c"))) {
+                return ImmutableSet.of(createPath("a", "b", "c"));
+            }
+            if (src.equals(did("b")) && dst.equals(did("c"))) {
+                return ImmutableSet.of(createPath("b", "c"));
+            }
+            return ImmutableSet.of();
+        }
+    }
+}
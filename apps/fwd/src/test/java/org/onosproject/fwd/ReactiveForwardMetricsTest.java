@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.fwd;
+
+import org.junit.Test;
+import org.onlab.packet.MacAddress;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * Unit tests for ReactiveForwardMetrics.
+ */
+public class ReactiveForwardMetricsTest {
+
+    private static final MacAddress MAC = MacAddress.valueOf("00:00:00:00:00:01");
+
+    /**
+     * Tests the stage latencies are averaged over their samples.
+     */
+    @Test
+    public void testStageLatencies() {
+        ReactiveForwardMetrics metrics = new ReactiveForwardMetrics(0L, 0L, 0L, 0L, MAC);
+        metrics.addHostLookupTime(1_000);
+        metrics.addHostLookupTime(3_000);
+        metrics.addPathLookupTime(5_000);
+        metrics.addInstallTime(10_000);
+        metrics.addInstallTime(20_000);
+        metrics.addInstallTime(30_000);
+
+        String summary = metrics.toString();
+        assertThat(summary, containsString("hostLookupAvgUs =2"));
+        assertThat(summary, containsString("pathLookupAvgUs =5"));
+        assertThat(summary, containsString("installAvgUs =20"));
+        // no sample yet
+        assertThat(summary, containsString("packetOutAvgUs =0"));
+    }
+}
@@ -19,6 +19,8 @@ package org.onosproject.intentsync;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.intent.Intent;
 
+import java.util.Collection;
+
 /**
  * Submits and withdraws intents to the IntentService from a single point in
  * the cluster at any one time. The provided intents will be synchronized with
@@ -56,6 +58,32 @@ public interface IntentSynchronizationService {
      */
     void withdraw(Intent intent);
 
+    /**
+     * Submits a batch of intents to the synchronizer.
+     * <p>
+     * Equivalent to submitting each intent in turn, but allows the
+     * synchronizer to handle the whole batch at once.
+     * </p>
+     *
+     * @param intents intents to submit
+     */
+    default void submit(Collection<? extends Intent> intents) {
+        intents.forEach(this::submit);
+    }
+
+    /**
+     * Withdraws a batch of intents from the synchronizer.
+     * <p>
+     * Equivalent to withdrawing each intent in turn, but allows the
+     * synchronizer to handle the whole batch at once.
+     * </p>
+     *
+     * @param intents intents to withdraw
+     */
+    default void withdraw(Collection<? extends Intent> intents) {
+        intents.forEach(this::withdraw);
+    }
+
     /**
      * Withdraws intents by app Id.
      *
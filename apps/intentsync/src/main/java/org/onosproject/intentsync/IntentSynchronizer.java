@@ -37,6 +37,7 @@ import org.onosproject.net.intent.Key;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -184,6 +185,34 @@ public class IntentSynchronizer implements IntentSynchronizationService,
         }
     }
 
+    @Override
+    public void submit(Collection<? extends Intent> batch) {
+        synchronized (this) {
+            boolean push = isElectedLeader && isActivatedLeader;
+            for (Intent intent : batch) {
+                intents.put(intent.key(), intent);
+                if (push) {
+                    intentService.submit(intent);
+                }
+            }
+            log.trace("{} {} intents", push ? "Submitted" : "Stored", batch.size());
+        }
+    }
+
+    @Override
+    public void withdraw(Collection<? extends Intent> batch) {
+        synchronized (this) {
+            boolean push = isElectedLeader && isActivatedLeader;
+            for (Intent intent : batch) {
+                intents.remove(intent.key(), intent);
+                if (push) {
+                    intentService.withdraw(intent);
+                }
+            }
+            log.trace("{} {} intents", push ? "Withdrew" : "Removed", batch.size());
+        }
+    }
+
     /**
      * Signals the synchronizer that the leadership has changed.
      *
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openstacknetworking.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.openstacknetworking.api.InstancePort;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of the instance ports of the OpenStack switching host provider by
+ * OpenStack port ID, and of its hosts by node integration bridge.
+ * It is kept up to date from instance port and host events, so that the
+ * provider does not need to scan every host or port of the system to find
+ * the ones of a single port or node.
+ */
+final class OpenstackHostIndex {
+
+    private final TreeMap<String, InstancePort> instPortsById = new TreeMap<>();
+
+    private final Map<HostId, Host> hosts = new HashMap<>();
+    private final Map<DeviceId, Set<HostId>> hostIdsByDevice = new HashMap<>();
+
+    /**
+     * Adds or updates the given instance port.
+     *
+     * @param instPort instance port
+     */
+    synchronized void updateInstancePort(InstancePort instPort) {
+        instPortsById.put(instPort.portId(), instPort);
+    }
+
+    /**
+     * Removes the instance port with the given OpenStack port ID.
+     *
+     * @param portId OpenStack port ID
+     */
+    synchronized void removeInstancePort(String portId) {
+        instPortsById.remove(portId);
+    }
+
+    /**
+     * Returns the instance port whose OpenStack port ID starts with the
+     * given prefix, as found in the name of the port of a VM interface.
+     *
+     * @param portIdPrefix prefix of the OpenStack port ID
+     * @return instance port, or null if no or several ports match
+     */
+    synchronized InstancePort instancePortByPrefix(String portIdPrefix) {
+        Map.Entry<String, InstancePort> first = instPortsById.ceilingEntry(portIdPrefix);
+        if (first == null || !first.getKey().startsWith(portIdPrefix)) {
+            return null;
+        }
+        Map.Entry<String, InstancePort> next = instPortsById.higherEntry(first.getKey());
+        if (next != null && next.getKey().startsWith(portIdPrefix)) {
+            return null;
+        }
+        return first.getValue();
+    }
+
+    /**
+     * Adds or updates the given host.
+     *
+     * @param host host
+     */
+    synchronized void updateHost(Host host) {
+        removeHost(host.id());
+        hosts.put(host.id(), host);
+        for (HostLocation location : host.locations()) {
+            hostIdsByDevice.computeIfAbsent(location.deviceId(), d -> new HashSet<>())
+                    .add(host.id());
+        }
+    }
+
+    /**
+     * Removes the host with the given identifier.
+     *
+     * @param hostId host identifier
+     */
+    synchronized void removeHost(HostId hostId) {
+        Host old = hosts.remove(hostId);
+        if (old == null) {
+            return;
+        }
+        for (HostLocation location : old.locations()) {
+            removeFrom(hostIdsByDevice, location.deviceId(), hostId);
+        }
+    }
+
+    /**
+     * Returns the hosts having a location at the given device.
+     *
+     * @param deviceId integration bridge device identifier
+     * @return set of hosts
+     */
+    synchronized Set<Host> hosts(DeviceId deviceId) {
+        ImmutableSet.Builder<Host> builder = ImmutableSet.builder();
+        hostIdsByDevice.getOrDefault(deviceId, ImmutableSet.of())
+                .forEach(hostId -> builder.add(hosts.get(hostId)));
+        return builder.build();
+    }
+
+    /**
+     * Returns the devices at which at least one host is located.
+     *
+     * @return set of device identifiers
+     */
+    synchronized Set<DeviceId> hostDevices() {
+        return ImmutableSet.copyOf(hostIdsByDevice.keySet());
+    }
+
+    /**
+     * Removes all instance ports and hosts from the index.
+     */
+    synchronized void clear() {
+        instPortsById.clear();
+        hosts.clear();
+        hostIdsByDevice.clear();
+    }
+
+    private static <K, V> void removeFrom(Map<K, Set<V>> index, K key, V value) {
+        Set<V> values = index.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -16,7 +16,9 @@
 
 package org.onosproject.openstacknetworking.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.felix.scr.annotations.Activate;
@@ -26,6 +28,9 @@ import org.apache.felix.scr.annotations.Modified;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.IPv4;
 import org.onlab.packet.Ip4Address;
@@ -85,13 +90,17 @@ import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.openstacknetworking.api.Constants.ACL_TABLE;
 import static org.onosproject.openstacknetworking.api.Constants.CT_TABLE;
@@ -159,6 +168,9 @@ public class OpenstackSecurityGroupHandler {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService storageService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private static final KryoNamespace SERIALIZER_PORT = KryoNamespace.newBuilder()
             .register(KryoNamespaces.API)
             .register(Port.class)
@@ -178,6 +190,8 @@ public class OpenstackSecurityGroupHandler {
                                         new InternalOpenstackPortListener();
     private final OpenstackSecurityGroupListener securityGroupListener =
                                         new InternalSecurityGroupListener();
+    private final OpenstackSecurityGroupListener ruleSetListener =
+                                        new InternalRuleSetListener();
     private final OpenstackNodeListener osNodeListener = new InternalNodeListener();
 
     private ConsistentMap<String, Port> removedOsPortStore;
@@ -188,6 +202,28 @@ public class OpenstackSecurityGroupHandler {
     private final ExecutorService eventExecutor = newSingleThreadExecutor(
             groupedThreads(this.getClass().getSimpleName(), "event-handler"));
 
+    // Rules of an instance port are always handled by the same worker, so
+    // that installs and removals of a single port are kept in order while
+    // distinct ports are handled in parallel. This includes the rules set
+    // on a port as the remote port of a remote group rule of another port.
+    private static final int PORT_WORKERS = 8;
+    private final ExecutorService[] portExecutors = new ExecutorService[PORT_WORKERS];
+
+    // Compiled rules keyed by security group ID, shared by all the ports
+    // of the security group until the group changes. Entries are always
+    // compiled from the security group read from the service within the
+    // map computation, so that an invalidation cannot be overridden by a
+    // rule set compiled from an older version of the group.
+    private final Map<String, List<CompiledRule>> ruleSets = new ConcurrentHashMap<>();
+
+    private static final String METRICS_COMPONENT = "OpenstackNetworking";
+    private static final String METRICS_FEATURE = "securityGroup";
+    private static final String RESET_EVENT = "SECURITY_GROUP_RESET";
+
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+    private final Map<String, Timer> eventTimers = new ConcurrentHashMap<>();
+
     private static final String PROTO_ICMP = "ICMP";
     private static final String PROTO_TCP = "TCP";
     private static final String PROTO_UDP = "UDP";
@@ -214,7 +250,16 @@ public class OpenstackSecurityGroupHandler {
     protected void activate() {
         appId = coreService.registerApplication(OPENSTACK_NETWORKING_APP_ID);
         localNodeId = clusterService.getLocalNode().id();
+        for (int i = 0; i < PORT_WORKERS; i++) {
+            portExecutors[i] = newSingleThreadExecutor(
+                    groupedThreads(this.getClass().getSimpleName(), "port-handler-" + i));
+        }
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+            metricsFeature = metricsComponent.registerFeature(METRICS_FEATURE);
+        }
         instancePortService.addListener(instancePortListener);
+        securityGroupService.addListener(ruleSetListener);
         securityGroupService.addListener(securityGroupListener);
         osNetService.addListener(osPortListener);
         osNetService.addListener(osNetworkListener);
@@ -234,11 +279,21 @@ public class OpenstackSecurityGroupHandler {
     protected void deactivate() {
         instancePortService.removeListener(instancePortListener);
         securityGroupService.removeListener(securityGroupListener);
+        securityGroupService.removeListener(ruleSetListener);
         osNetService.removeListener(osNetworkListener);
         osNetService.removeListener(osPortListener);
         configService.unregisterProperties(getClass(), false);
         osNodeService.removeListener(osNodeListener);
         eventExecutor.shutdown();
+        for (ExecutorService portExecutor : portExecutors) {
+            portExecutor.shutdown();
+        }
+        if (metricsService != null && metricsComponent != null) {
+            eventTimers.keySet().forEach(name ->
+                    metricsService.removeMetric(metricsComponent, metricsFeature, name));
+        }
+        eventTimers.clear();
+        ruleSets.clear();
 
         log.info("Stopped");
     }
@@ -259,9 +314,90 @@ public class OpenstackSecurityGroupHandler {
         }
 
         securityGroupService.setSecurityGroupEnabled(useSecurityGroup);
+        ruleSets.clear();
         resetSecurityGroupRules();
     }
 
+    /**
+     * Executes the given task on the worker dedicated to the given instance
+     * port, timing it under the given event type.
+     *
+     * @param portId instance port ID
+     * @param eventType event type used to name the timer
+     * @param task task to execute
+     */
+    private void executeForPort(String portId, String eventType, Runnable task) {
+        executeTimed(portExecutor(portId), eventType, task);
+    }
+
+    private ExecutorService portExecutor(String portId) {
+        return portExecutors[Math.floorMod(portId.hashCode(), PORT_WORKERS)];
+    }
+
+    private void executeTimed(ExecutorService executor, String eventType, Runnable task) {
+        Timer timer = eventTimer(eventType);
+        executor.execute(() -> {
+            Timer.Context context = startTimer(timer);
+            try {
+                task.run();
+            } finally {
+                stopTimer(context);
+            }
+        });
+    }
+
+    private Timer eventTimer(String eventType) {
+        if (metricsService == null || metricsComponent == null) {
+            return null;
+        }
+        return eventTimers.computeIfAbsent(eventType, name ->
+                metricsService.createTimer(metricsComponent, metricsFeature, name));
+    }
+
+    /**
+     * Returns the compiled rules of the given security group, compiling
+     * them on first use.
+     *
+     * @param sgId security group ID
+     * @return compiled rules, or null if the security group is not found
+     */
+    private List<CompiledRule> ruleSet(String sgId) {
+        return ruleSets.computeIfAbsent(sgId, id -> {
+            SecurityGroup sg = securityGroupService.securityGroup(id);
+            if (sg == null) {
+                return null;
+            }
+            return sg.getRules().stream()
+                    .map(this::compileRule)
+                    .collect(ImmutableList.toImmutableList());
+        });
+    }
+
+    private CompiledRule compileRule(SecurityGroupRule sgRule) {
+        Map<TpPort, TpPort> portRanges = Collections.emptyMap();
+        if (sgRule.getPortRangeMax() != null && sgRule.getPortRangeMin() != null &&
+                sgRule.getPortRangeMin() < sgRule.getPortRangeMax()) {
+            portRanges = buildPortRangeMatches(sgRule.getPortRangeMin(),
+                    sgRule.getPortRangeMax());
+        }
+
+        if (sgRule.getRemoteGroupId() != null && !sgRule.getRemoteGroupId().isEmpty()) {
+            SecurityGroupRule rSgRule =
+                    new NeutronSecurityGroupRule
+                            .SecurityGroupRuleConcreteBuilder()
+                    .from(sgRule)
+                    .direction(sgRule.getDirection().toUpperCase()
+                            .equals(EGRESS) ? INGRESS : EGRESS)
+                    .build();
+            return new CompiledRule(sgRule, null, portRanges,
+                    new CompiledRule(rSgRule, null, portRanges, null));
+        }
+
+        IpPrefix remoteIp = sgRule.getRemoteIpPrefix() == null ? IP_PREFIX_ANY :
+                IpPrefix.valueOf(sgRule.getRemoteIpPrefix());
+        return new CompiledRule(sgRule, remoteIp, portRanges, null);
+    }
+
     private void initializeConnTrackTable(DeviceId deviceId, boolean install) {
 
         //table=1,ip,ct_state=-trk, actions=ct(table:2)
@@ -300,58 +436,51 @@ public class OpenstackSecurityGroupHandler {
         final Port finalPort = port;
 
         port.getSecurityGroups().forEach(sgId -> {
-            SecurityGroup sg = securityGroupService.securityGroup(sgId);
-            if (sg == null) {
+            List<CompiledRule> rules = ruleSet(sgId);
+            if (rules == null) {
                 log.error("Security Group Not Found : {}", sgId);
                 return;
             }
-            sg.getRules().forEach(sgRule ->
-                    updateSecurityGroupRule(instPort, finalPort, sgRule, install));
+            rules.forEach(rule ->
+                    updateSecurityGroupRule(instPort, finalPort, rule, install));
             final String action = install ? "Installed " : "Removed ";
             log.debug(action + "security group rule ID : " + sgId);
         });
     }
 
     private void updateSecurityGroupRule(InstancePort instPort, Port port,
-                                         SecurityGroupRule sgRule, boolean install) {
+                                         CompiledRule rule, boolean install) {
 
-        if (instPort == null || port == null || sgRule == null) {
+        if (instPort == null || port == null || rule == null) {
             return;
         }
 
-        if (sgRule.getRemoteGroupId() != null && !sgRule.getRemoteGroupId().isEmpty()) {
-            getRemoteInstPorts(port.getTenantId(), sgRule.getRemoteGroupId(), install)
+        if (rule.reverse != null) {
+            getRemoteInstPorts(port.getTenantId(), rule.sgRule.getRemoteGroupId(), install)
                     .forEach(rInstPort -> {
-                        populateSecurityGroupRule(sgRule, instPort, port,
+                        populateSecurityGroupRule(rule, instPort, port,
                                 rInstPort.ipAddress().toIpPrefix(), install);
-                        populateSecurityGroupRule(sgRule, rInstPort, port,
-                                instPort.ipAddress().toIpPrefix(), install);
-
-                        SecurityGroupRule rSgRule =
-                                new NeutronSecurityGroupRule
-                                        .SecurityGroupRuleConcreteBuilder()
-                                .from(sgRule)
-                                .direction(sgRule.getDirection().toUpperCase()
-                                            .equals(EGRESS) ? INGRESS : EGRESS)
-                                .build();
-                        populateSecurityGroupRule(rSgRule, instPort, port,
+                        populateSecurityGroupRule(rule.reverse, instPort, port,
                                 rInstPort.ipAddress().toIpPrefix(), install);
-                        populateSecurityGroupRule(rSgRule, rInstPort, port,
-                                instPort.ipAddress().toIpPrefix(), install);
+                        // rules of the remote port are handled by its own worker
+                        portExecutor(rInstPort.portId()).execute(() -> {
+                            populateSecurityGroupRule(rule, rInstPort, port,
+                                    instPort.ipAddress().toIpPrefix(), install);
+                            populateSecurityGroupRule(rule.reverse, rInstPort, port,
+                                    instPort.ipAddress().toIpPrefix(), install);
+                        });
                     });
         } else {
-            populateSecurityGroupRule(sgRule, instPort, port,
-                    sgRule.getRemoteIpPrefix() == null ? IP_PREFIX_ANY :
-                    IpPrefix.valueOf(sgRule.getRemoteIpPrefix()), install);
+            populateSecurityGroupRule(rule, instPort, port, rule.remoteIp, install);
         }
     }
 
-    private void populateSecurityGroupRule(SecurityGroupRule sgRule,
+    private void populateSecurityGroupRule(CompiledRule rule,
                                            InstancePort instPort,
                                            Port port,
                                            IpPrefix remoteIp,
                                            boolean install) {
-        Set<TrafficSelector> selectors = buildSelectors(sgRule,
+        Set<TrafficSelector> selectors = buildSelectors(rule,
                 Ip4Address.valueOf(instPort.ipAddress().toInetAddress()), remoteIp, port);
         if (selectors == null || selectors.isEmpty()) {
             return;
@@ -462,7 +591,7 @@ public class OpenstackSecurityGroupHandler {
         return Collections.unmodifiableSet(remoteInstPorts);
     }
 
-    private Set<TrafficSelector> buildSelectors(SecurityGroupRule sgRule,
+    private Set<TrafficSelector> buildSelectors(CompiledRule rule,
                                                 Ip4Address vmIp,
                                                 IpPrefix remoteIp,
                                                 Port port) {
@@ -473,15 +602,12 @@ public class OpenstackSecurityGroupHandler {
 
         Set<TrafficSelector> selectorSet = Sets.newHashSet();
 
+        SecurityGroupRule sgRule = rule.sgRule;
         TrafficSelector.Builder sBuilder = DefaultTrafficSelector.builder();
         buildMatches(sBuilder, sgRule, vmIp, remoteIp, port);
 
-        if (sgRule.getPortRangeMax() != null && sgRule.getPortRangeMin() != null &&
-                sgRule.getPortRangeMin() < sgRule.getPortRangeMax()) {
-            Map<TpPort, TpPort> portRangeMatchMap =
-                    buildPortRangeMatches(sgRule.getPortRangeMin(),
-                    sgRule.getPortRangeMax());
-            portRangeMatchMap.entrySet().forEach(entry -> {
+        if (!rule.portRanges.isEmpty()) {
+            rule.portRanges.entrySet().forEach(entry -> {
 
                         if (sgRule.getProtocol().toUpperCase().equals(PROTO_TCP)) {
                             if (sgRule.getDirection().toUpperCase().equals(EGRESS)) {
@@ -609,7 +735,8 @@ public class OpenstackSecurityGroupHandler {
                     .forEach(node -> osFlowRuleService
                             .setUpTableMissEntry(node.intgBridge(), ACL_TABLE));
             securityGroupService.securityGroups().forEach(securityGroup ->
-                    securityGroup.getRules().forEach(this::securityGroupRuleAdded));
+                    securityGroup.getRules().forEach(sgRule ->
+                            securityGroupRuleAdded(sgRule, RESET_EVENT)));
             osNodeService.nodes().stream()
                     .filter(node -> node.type().equals(OpenstackNode.NodeType.COMPUTE))
                     .forEach(node -> initializeConnTrackTable(node .intgBridge(), true));
@@ -618,7 +745,8 @@ public class OpenstackSecurityGroupHandler {
                     .forEach(node -> osFlowRuleService
                             .connectTables(node.intgBridge(), ACL_TABLE, JUMP_TABLE));
             securityGroupService.securityGroups().forEach(securityGroup ->
-                    securityGroup.getRules().forEach(this::securityGroupRuleRemoved));
+                    securityGroup.getRules().forEach(sgRule ->
+                            securityGroupRuleRemoved(sgRule, RESET_EVENT)));
             osNodeService.nodes().stream()
                     .filter(node -> node.type().equals(OpenstackNode.NodeType.COMPUTE))
                     .forEach(node -> initializeConnTrackTable(node.intgBridge(), false));
@@ -628,32 +756,34 @@ public class OpenstackSecurityGroupHandler {
                     (useSecurityGroup ? " with " : " without") + " Security Group");
     }
 
-    private void securityGroupRuleAdded(SecurityGroupRule sgRule) {
+    private void securityGroupRuleAdded(SecurityGroupRule sgRule, String eventType) {
+        CompiledRule rule = compileRule(sgRule);
         osNetService.ports().stream()
                 .filter(port -> port.getSecurityGroups()
                                     .contains(sgRule.getSecurityGroupId()))
-                .forEach(port -> {
+                .forEach(port -> executeForPort(port.getId(), eventType, () -> {
                     updateSecurityGroupRule(
                             instancePortService.instancePort(port.getId()),
-                            port, sgRule, true);
+                            port, rule, true);
                     log.debug("Applied security group rule {} to port {}",
                             sgRule.getId(), port.getId());
-                });
+                }));
     }
 
-    private void securityGroupRuleRemoved(SecurityGroupRule sgRule) {
+    private void securityGroupRuleRemoved(SecurityGroupRule sgRule, String eventType) {
+        CompiledRule rule = compileRule(sgRule);
         Set<Port> removedPorts = new HashSet<>(removedOsPortStore.asJavaMap().values());
 
         Sets.union(osNetService.ports(), removedPorts).stream()
                 .filter(port -> port.getSecurityGroups()
                                     .contains(sgRule.getSecurityGroupId()))
-                .forEach(port -> {
+                .forEach(port -> executeForPort(port.getId(), eventType, () -> {
                     updateSecurityGroupRule(
                             instancePortService.instancePort(port.getId()),
-                            port, sgRule, false);
+                            port, rule, false);
                     log.debug("Removed security group rule {} from port {}",
                             sgRule.getId(), port.getId());
-                });
+                }));
     }
 
     private int binLower(String binStr, int bits) {
@@ -758,7 +888,7 @@ public class OpenstackSecurityGroupHandler {
                     break;
                 case OPENSTACK_INSTANCE_PORT_VANISHED:
                     Port osPort = removedOsPortStore.asJavaMap().get(instPort.portId());
-                    eventExecutor.execute(() ->
+                    executeForPort(instPort.portId(), event.type().name(), () ->
                             setSecurityGroupRules(instPort, osPort, false)
                     );
                     removedOsPortStore.remove(instPort.portId());
@@ -766,7 +896,7 @@ public class OpenstackSecurityGroupHandler {
                 case OPENSTACK_INSTANCE_MIGRATION_ENDED:
                     InstancePort revisedInstPort = swapStaleLocation(instPort);
                     Port port = osNetService.port(instPort.portId());
-                    eventExecutor.execute(() ->
+                    executeForPort(instPort.portId(), event.type().name(), () ->
                             setSecurityGroupRules(revisedInstPort, port, false));
                     break;
                 default:
@@ -779,7 +909,7 @@ public class OpenstackSecurityGroupHandler {
             log.debug("Instance port detected/updated MAC:{} IP:{}",
                     instPort.macAddress(),
                     instPort.ipAddress());
-            eventExecutor.execute(() -> {
+            executeForPort(instPort.portId(), event.type().name(), () -> {
                 setSecurityGroupRules(instPort,
                         osNetService.port(event.subject().portId()), true);
             });
@@ -841,22 +971,32 @@ public class OpenstackSecurityGroupHandler {
             log.debug("security group event received {}", event);
             Port osPort = event.port();
             InstancePort instPort = instancePortService.instancePort(osPort.getId());
-            SecurityGroup osSg = securityGroupService.securityGroup(event.securityGroupId());
+            String sgId = event.securityGroupId();
 
             switch (event.type()) {
                 case OPENSTACK_PORT_SECURITY_GROUP_ADDED:
-                    eventExecutor.execute(() -> {
-                        osSg.getRules().forEach(sgRule -> {
-                            updateSecurityGroupRule(instPort, osPort, sgRule, true);
+                    executeForPort(osPort.getId(), event.type().name(), () -> {
+                        List<CompiledRule> rules = ruleSet(sgId);
+                        if (rules == null) {
+                            log.error("Security Group Not Found : {}", sgId);
+                            return;
+                        }
+                        rules.forEach(rule -> {
+                            updateSecurityGroupRule(instPort, osPort, rule, true);
                         });
                         log.info("Added security group {} to port {}",
                                 event.securityGroupId(), event.port().getId());
                     });
                     break;
                 case OPENSTACK_PORT_SECURITY_GROUP_REMOVED:
-                    eventExecutor.execute(() -> {
-                        osSg.getRules().forEach(sgRule -> {
-                            updateSecurityGroupRule(instPort, osPort, sgRule, false);
+                    executeForPort(osPort.getId(), event.type().name(), () -> {
+                        List<CompiledRule> rules = ruleSet(sgId);
+                        if (rules == null) {
+                            log.error("Security Group Not Found : {}", sgId);
+                            return;
+                        }
+                        rules.forEach(rule -> {
+                            updateSecurityGroupRule(instPort, osPort, rule, false);
                         });
                         log.info("Removed security group {} from port {}",
                                 event.securityGroupId(), event.port().getId());
@@ -886,8 +1026,8 @@ public class OpenstackSecurityGroupHandler {
             switch (event.type()) {
                 case OPENSTACK_SECURITY_GROUP_RULE_CREATED:
                     SecurityGroupRule securityGroupRuleToAdd = event.securityGroupRule();
-                    eventExecutor.execute(() -> {
-                        securityGroupRuleAdded(securityGroupRuleToAdd);
+                    executeTimed(eventExecutor, event.type().name(), () -> {
+                        securityGroupRuleAdded(securityGroupRuleToAdd, event.type().name());
                         log.info("Applied new security group rule {} to ports",
                                 securityGroupRuleToAdd.getId());
                     });
@@ -895,8 +1035,8 @@ public class OpenstackSecurityGroupHandler {
 
                 case OPENSTACK_SECURITY_GROUP_RULE_REMOVED:
                     SecurityGroupRule securityGroupRuleToRemove = event.securityGroupRule();
-                    eventExecutor.execute(() -> {
-                        securityGroupRuleRemoved(securityGroupRuleToRemove);
+                    executeTimed(eventExecutor, event.type().name(), () -> {
+                        securityGroupRuleRemoved(securityGroupRuleToRemove, event.type().name());
                         log.info("Removed security group rule {} from ports",
                                 securityGroupRuleToRemove.getId());
                     });
@@ -910,6 +1050,48 @@ public class OpenstackSecurityGroupHandler {
         }
     }
 
+    /**
+     * Drops the compiled rules of a security group whenever the group or
+     * its rules change, regardless of leadership, so that every instance
+     * keeps an up-to-date rule set cache.
+     */
+    private class InternalRuleSetListener implements OpenstackSecurityGroupListener {
+
+        @Override
+        public void event(OpenstackSecurityGroupEvent event) {
+            if (event.subject() != null) {
+                ruleSets.remove(event.subject().getId());
+            }
+        }
+    }
+
+    /**
+     * Security group rule pre-processed independently of the ports it is
+     * applied to.
+     */
+    private static final class CompiledRule {
+        private final SecurityGroupRule sgRule;
+        private final IpPrefix remoteIp;
+        private final Map<TpPort, TpPort> portRanges;
+        private final CompiledRule reverse;
+
+        /**
+         * Creates a compiled rule.
+         *
+         * @param sgRule security group rule
+         * @param remoteIp remote IP prefix; null for a remote group rule
+         * @param portRanges port/mask matches of the rule port range
+         * @param reverse rule of opposite direction; only for a remote group rule
+         */
+        private CompiledRule(SecurityGroupRule sgRule, IpPrefix remoteIp,
+                             Map<TpPort, TpPort> portRanges, CompiledRule reverse) {
+            this.sgRule = sgRule;
+            this.remoteIp = remoteIp;
+            this.portRanges = portRanges;
+            this.reverse = reverse;
+        }
+    }
+
     private class InternalNodeListener implements OpenstackNodeListener {
 
         @Override
@@ -928,7 +1110,7 @@ public class OpenstackSecurityGroupHandler {
 
             switch (event.type()) {
                 case OPENSTACK_NODE_COMPLETE:
-                    eventExecutor.execute(() -> {
+                    executeTimed(eventExecutor, event.type().name(), () -> {
                         try {
                             if (useSecurityGroup) {
                                 initializeConnTrackTable(osNode.intgBridge(), true);
@@ -31,6 +31,7 @@ import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
@@ -40,6 +41,8 @@ import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.host.DefaultHostDescription;
 import org.onosproject.net.host.HostDescription;
+import org.onosproject.net.host.HostEvent;
+import org.onosproject.net.host.HostListener;
 import org.onosproject.net.host.HostProvider;
 import org.onosproject.net.host.HostProviderRegistry;
 import org.onosproject.net.host.HostProviderService;
@@ -47,6 +50,10 @@ import org.onosproject.net.host.HostService;
 import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.openstacknetworking.api.Constants;
+import org.onosproject.openstacknetworking.api.InstancePort;
+import org.onosproject.openstacknetworking.api.InstancePortEvent;
+import org.onosproject.openstacknetworking.api.InstancePortListener;
+import org.onosproject.openstacknetworking.api.InstancePortService;
 import org.onosproject.openstacknetworking.api.OpenstackNetworkService;
 import org.onosproject.openstacknode.api.OpenstackNode;
 import org.onosproject.openstacknode.api.OpenstackNodeEvent;
@@ -107,6 +114,9 @@ public final class OpenstackSwitchingHostProvider
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected OpenstackNodeService osNodeService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected InstancePortService instancePortService;
+
     private HostProviderService hostProviderService;
 
     private final ExecutorService executor =
@@ -115,6 +125,12 @@ public final class OpenstackSwitchingHostProvider
             new InternalDeviceListener();
     private final InternalOpenstackNodeListener internalNodeListener =
             new InternalOpenstackNodeListener();
+    private final InternalHostListener internalHostListener =
+            new InternalHostListener();
+    private final InternalInstancePortListener internalInstancePortListener =
+            new InternalInstancePortListener();
+
+    private final OpenstackHostIndex hostIndex = new OpenstackHostIndex();
 
     /**
      * Creates OpenStack switching host provider.
@@ -126,6 +142,16 @@ public final class OpenstackSwitchingHostProvider
     @Activate
     void activate() {
         coreService.registerApplication(OPENSTACK_NETWORKING_APP_ID);
+
+        // listeners are added first so that no update is missed; the
+        // index updates are idempotent
+        hostService.addListener(internalHostListener);
+        instancePortService.addListener(internalInstancePortListener);
+        Tools.stream(hostService.getHosts())
+                .filter(this::isOpenstackHost)
+                .forEach(hostIndex::updateHost);
+        instancePortService.instancePorts().forEach(hostIndex::updateInstancePort);
+
         deviceService.addListener(internalDeviceListener);
         osNodeService.addListener(internalNodeListener);
         hostProviderService = hostProviderRegistry.register(this);
@@ -138,8 +164,11 @@ public final class OpenstackSwitchingHostProvider
         hostProviderRegistry.unregister(this);
         osNodeService.removeListener(internalNodeListener);
         deviceService.removeListener(internalDeviceListener);
+        instancePortService.removeListener(internalInstancePortListener);
+        hostService.removeListener(internalHostListener);
 
         executor.shutdown();
+        hostIndex.clear();
 
         log.info("Stopped");
     }
@@ -185,7 +214,7 @@ public final class OpenstackSwitchingHostProvider
      */
     protected void processPortAdded(Port port) {
         // TODO check the node state is COMPLETE
-        org.openstack4j.model.network.Port osPort = osNetworkService.port(port);
+        org.openstack4j.model.network.Port osPort = osPort(port);
         if (osPort == null) {
             log.warn(ERR_ADD_HOST + "OpenStack port for {} not found", port);
             return;
@@ -267,6 +296,35 @@ public final class OpenstackSwitchingHostProvider
         }
     }
 
+    /**
+     * Returns the OpenStack port bound to the given port. The port ID is
+     * resolved from the index of the known instance ports when possible,
+     * and from the OpenStack network service otherwise.
+     *
+     * @param port ONOS port
+     * @return OpenStack port, or null if not found
+     */
+    private org.openstack4j.model.network.Port osPort(Port port) {
+        String portName = port.annotations().value(PORT_NAME);
+        if (!Strings.isNullOrEmpty(portName) &&
+                vnicType(portName) == Constants.VnicType.NORMAL) {
+            InstancePort instPort = hostIndex.instancePortByPrefix(
+                    portName.substring(PORT_NAME_PREFIX_VM.length()));
+            if (instPort != null) {
+                org.openstack4j.model.network.Port osPort =
+                        osNetworkService.port(instPort.portId());
+                if (osPort != null) {
+                    return osPort;
+                }
+            }
+        }
+        return osNetworkService.port(port);
+    }
+
+    private boolean isOpenstackHost(Host host) {
+        return host.annotations().value(ANNOTATION_PORT_ID) != null;
+    }
+
     /**
      * Processes port removal event.
      * Once a port removal event is detected, it tries to look for a host
@@ -400,7 +458,13 @@ public final class OpenstackSwitchingHostProvider
                         processPortAdded(port);
                     });
 
-            Tools.stream(hostService.getHosts())
+            // the hosts of every node are checked, as a port removal may have
+            // been missed on any of them; only the openstack hosts are indexed
+            hostIndex.hostDevices().forEach(this::removeStaleHosts);
+        }
+
+        private void removeStaleHosts(DeviceId deviceId) {
+            hostIndex.hosts(deviceId).stream()
                     .filter(host -> deviceService.getPort(
                             host.location().deviceId(),
                             host.location().port()) == null)
@@ -410,4 +474,51 @@ public final class OpenstackSwitchingHostProvider
                     });
         }
     }
+
+    /**
+     * An internal host listener which keeps the hosts of the host index
+     * up to date.
+     */
+    private class InternalHostListener implements HostListener {
+
+        @Override
+        public boolean isRelevant(HostEvent event) {
+            return isOpenstackHost(event.subject());
+        }
+
+        @Override
+        public void event(HostEvent event) {
+            switch (event.type()) {
+                case HOST_ADDED:
+                case HOST_UPDATED:
+                case HOST_MOVED:
+                    hostIndex.updateHost(event.subject());
+                    break;
+                case HOST_REMOVED:
+                    hostIndex.removeHost(event.subject().id());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * An internal instance port listener which keeps the instance ports of
+     * the host index up to date.
+     */
+    private class InternalInstancePortListener implements InstancePortListener {
+
+        @Override
+        public void event(InstancePortEvent event) {
+            switch (event.type()) {
+                case OPENSTACK_INSTANCE_PORT_VANISHED:
+                    hostIndex.removeInstancePort(event.subject().portId());
+                    break;
+                default:
+                    hostIndex.updateInstancePort(event.subject());
+                    break;
+            }
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openstacknetworking.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DefaultAnnotations;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.openstacknetworking.api.InstancePort;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.onosproject.openstacknetworking.api.Constants.ANNOTATION_CREATE_TIME;
+import static org.onosproject.openstacknetworking.api.Constants.ANNOTATION_NETWORK_ID;
+import static org.onosproject.openstacknetworking.api.Constants.ANNOTATION_PORT_ID;
+import static org.onosproject.openstacknetworking.api.InstancePort.State.ACTIVE;
+
+/**
+ * Unit tests for the OpenStack host index.
+ */
+public class OpenstackHostIndexTest {
+
+    private static final MacAddress MAC_1 = MacAddress.valueOf("11:22:33:44:55:66");
+    private static final MacAddress MAC_2 = MacAddress.valueOf("77:88:99:AA:BB:CC");
+
+    private static final DeviceId DEV_ID_1 = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId DEV_ID_2 = DeviceId.deviceId("of:0000000000000002");
+
+    private static final String PORT_ID_1 = "65c0ee9f-d634-4522-8954-51021b570b0d";
+    private static final String PORT_ID_2 = "65c0ee9f-d6aa-4522-8954-51021b570b0e";
+
+    private static final String NETWORK_ID = "396f12f8-521e-4b91-8e21-2e003500433a";
+
+    private Host host1;
+    private Host host2;
+    private InstancePort instPort1;
+    private InstancePort instPort2;
+
+    private OpenstackHostIndex index;
+
+    /**
+     * Initial setup for this unit test.
+     */
+    @Before
+    public void setUp() {
+        host1 = host(MAC_1, PORT_ID_1, new HostLocation(DEV_ID_1, PortNumber.portNumber(1), 0));
+        host2 = host(MAC_2, PORT_ID_2, new HostLocation(DEV_ID_2, PortNumber.portNumber(1), 0));
+        instPort1 = DefaultInstancePort.from(host1, ACTIVE);
+        instPort2 = DefaultInstancePort.from(host2, ACTIVE);
+        index = new OpenstackHostIndex();
+    }
+
+    /**
+     * Tests the lookup of instance ports by the port ID prefix of a port name.
+     */
+    @Test
+    public void testInstancePortByPrefix() {
+        index.updateInstancePort(instPort1);
+        index.updateInstancePort(instPort2);
+
+        assertThat(index.instancePortByPrefix("65c0ee9f-d6"), nullValue());
+        assertThat(index.instancePortByPrefix("65c0ee9f-d63"), is(instPort1));
+        assertThat(index.instancePortByPrefix("65c0ee9f-d6a"), is(instPort2));
+        assertThat(index.instancePortByPrefix("65c0ee9f-d6b"), nullValue());
+
+        index.removeInstancePort(PORT_ID_1);
+        assertThat(index.instancePortByPrefix("65c0ee9f-d63"), nullValue());
+        // the remaining port is now the only match of the shorter prefix
+        assertThat(index.instancePortByPrefix("65c0ee9f-d6"), is(instPort2));
+    }
+
+    /**
+     * Tests that an updated instance port replaces the previous one.
+     */
+    @Test
+    public void testInstancePortUpdate() {
+        index.updateInstancePort(instPort1);
+        InstancePort migrated = DefaultInstancePort.builder()
+                .networkId(instPort1.networkId())
+                .portId(instPort1.portId())
+                .macAddress(instPort1.macAddress())
+                .ipAddress(instPort1.ipAddress())
+                .deviceId(DEV_ID_2)
+                .portNumber(PortNumber.portNumber(2))
+                .state(ACTIVE)
+                .build();
+        index.updateInstancePort(migrated);
+
+        assertThat(index.instancePortByPrefix("65c0ee9f-d63"), is(migrated));
+    }
+
+    /**
+     * Tests the lookup of hosts by device.
+     */
+    @Test
+    public void testHostLookup() {
+        index.updateHost(host1);
+        index.updateHost(host2);
+
+        assertThat(index.hosts(DEV_ID_1), is(ImmutableSet.of(host1)));
+        assertThat(index.hostDevices(), is(ImmutableSet.of(DEV_ID_1, DEV_ID_2)));
+
+        Host moved = host(MAC_1, PORT_ID_1, new HostLocation(DEV_ID_2, PortNumber.portNumber(2), 0));
+        index.updateHost(moved);
+        assertThat(index.hosts(DEV_ID_2), is(ImmutableSet.of(host2, moved)));
+        assertThat(index.hostDevices(), is(ImmutableSet.of(DEV_ID_2)));
+
+        index.removeHost(host2.id());
+        assertThat(index.hosts(DEV_ID_2), is(ImmutableSet.of(moved)));
+
+        index.clear();
+        assertThat(index.hosts(DEV_ID_2).isEmpty(), is(true));
+        assertThat(index.hostDevices().isEmpty(), is(true));
+    }
+
+    private static Host host(MacAddress mac, String portId, HostLocation location) {
+        DefaultAnnotations annotations = DefaultAnnotations.builder()
+                .set(ANNOTATION_NETWORK_ID, NETWORK_ID)
+                .set(ANNOTATION_PORT_ID, portId)
+                .set(ANNOTATION_CREATE_TIME, "0")
+                .build();
+        return new DefaultHost(ProviderId.NONE, HostId.hostId(mac), mac, VlanId.NONE,
+                location, ImmutableSet.of(IpAddress.valueOf("10.10.10.2")), annotations);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openstacknetworking.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.LeadershipServiceAdapter;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.openstacknetworking.api.InstancePort;
+import org.onosproject.openstacknetworking.api.InstancePortEvent;
+import org.onosproject.openstacknetworking.api.InstancePortListener;
+import org.onosproject.openstacknetworking.api.OpenstackSecurityGroupEvent;
+import org.onosproject.openstacknetworking.api.OpenstackSecurityGroupListener;
+import org.onosproject.openstacknetworking.api.OpenstackSecurityGroupService;
+import org.onosproject.store.service.TestStorageService;
+import org.openstack4j.model.network.Port;
+import org.openstack4j.model.network.SecurityGroup;
+import org.openstack4j.model.network.SecurityGroupRule;
+import org.openstack4j.openstack.networking.domain.NeutronPort;
+import org.openstack4j.openstack.networking.domain.NeutronSecurityGroup;
+import org.openstack4j.openstack.networking.domain.NeutronSecurityGroupRule;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onosproject.openstacknetworking.api.InstancePort.State.ACTIVE;
+import static org.onosproject.openstacknetworking.api.InstancePortEvent.Type.OPENSTACK_INSTANCE_PORT_DETECTED;
+import static org.onosproject.openstacknetworking.api.OpenstackSecurityGroupEvent.Type.OPENSTACK_SECURITY_GROUP_RULE_CREATED;
+
+/**
+ * Unit tests for the security group rule handling of OpenstackSecurityGroupHandler.
+ */
+public class OpenstackSecurityGroupHandlerTest {
+
+    private static final String TENANT_ID = "tenant-1";
+    private static final String NETWORK_ID = "net-1";
+    private static final String SG_ID = "sg-1";
+
+    // port IDs handled by distinct workers
+    private static final String PORT_ID_A = "port-a";
+    private static final String PORT_ID_B = "port-b";
+    private static final String PORT_ID_C = "port-c";
+
+    private static final DeviceId DEV_A = DeviceId.deviceId("of:000000000000000a");
+    private static final DeviceId DEV_B = DeviceId.deviceId("of:000000000000000b");
+    private static final DeviceId DEV_C = DeviceId.deviceId("of:000000000000000c");
+
+    private static final int WAIT_MS = 2000;
+
+    private OpenstackSecurityGroupHandler target;
+
+    private final Map<String, Port> osPorts = Maps.newConcurrentMap();
+    private final Map<String, InstancePort> instancePorts = Maps.newConcurrentMap();
+    private final Map<String, SecurityGroup> securityGroups = Maps.newConcurrentMap();
+    private final List<FlowRequest> flowRequests = new CopyOnWriteArrayList<>();
+
+    private InstancePortListener instancePortListener;
+    private final List<OpenstackSecurityGroupListener> securityGroupListeners =
+            new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        target = new OpenstackSecurityGroupHandler();
+        target.coreService = new TestCoreService();
+        target.instancePortService = new TestInstancePortService();
+        target.mastershipService = new TestMastershipService();
+        target.osNetService = new TestOpenstackNetworkService();
+        target.securityGroupService = new TestSecurityGroupService();
+        target.osFlowRuleService = new TestOpenstackFlowRuleService();
+        target.configService = new ComponentConfigAdapter();
+        target.osNodeService = new OpenstackNodeServiceAdapter();
+        target.leadershipService = new LeadershipServiceAdapter();
+        target.clusterService = new ClusterServiceAdapter();
+        target.storageService = new TestStorageService();
+        target.activate();
+    }
+
+    @After
+    public void tearDown() {
+        target.deactivate();
+    }
+
+    /**
+     * Tests the rules set on a port as the remote port of a remote group
+     * rule are always set by the worker of that port.
+     */
+    @Test
+    public void testRemotePortRulesOnRemotePortWorker() {
+        addSecurityGroup(SG_ID, remoteGroupRule("rule-1", SG_ID));
+        addPort(PORT_ID_A, DEV_A, "10.10.10.1");
+        addPort(PORT_ID_B, DEV_B, "10.10.10.2");
+
+        portDetected(PORT_ID_A);
+        portDetected(PORT_ID_B);
+
+        // each port event sets the rule and its reverse on both ports
+        assertAfter(WAIT_MS, () -> assertEquals(8, flowRequests.size()));
+
+        Set<String> threadsA = threads(DEV_A);
+        Set<String> threadsB = threads(DEV_B);
+        assertEquals(1, threadsA.size());
+        assertEquals(1, threadsB.size());
+        assertNotEquals(threadsA, threadsB);
+    }
+
+    /**
+     * Tests the compiled rules of a security group are reused until the
+     * security group changes.
+     */
+    @Test
+    public void testRuleSetCachedUntilGroupChanges() {
+        addSecurityGroup(SG_ID, tcpRule("rule-22", SG_ID, 22));
+        addPort(PORT_ID_A, DEV_A, "10.10.10.1");
+        addPort(PORT_ID_B, DEV_B, "10.10.10.2");
+        addPort(PORT_ID_C, DEV_C, "10.10.10.3");
+
+        portDetected(PORT_ID_A);
+        assertAfter(WAIT_MS, () -> assertEquals(ImmutableSet.of(22), tcpPorts(DEV_A)));
+
+        // the group changes without notification, the cached rules are used
+        SecurityGroupRule rule80 = tcpRule("rule-80", SG_ID, 80);
+        addSecurityGroup(SG_ID, rule80);
+        portDetected(PORT_ID_B);
+        assertAfter(WAIT_MS, () -> assertEquals(ImmutableSet.of(22), tcpPorts(DEV_B)));
+
+        // once notified, the rules are compiled again from the new group
+        securityGroupListeners.forEach(listener -> listener.event(new OpenstackSecurityGroupEvent(
+                OPENSTACK_SECURITY_GROUP_RULE_CREATED, securityGroups.get(SG_ID), rule80)));
+        assertAfter(WAIT_MS, () -> assertEquals(ImmutableSet.of(22, 80), tcpPorts(DEV_B)));
+
+        portDetected(PORT_ID_C);
+        assertAfter(WAIT_MS, () -> assertEquals(ImmutableSet.of(80), tcpPorts(DEV_C)));
+    }
+
+    private void addSecurityGroup(String sgId, SecurityGroupRule... rules) {
+        SecurityGroup sg = NeutronSecurityGroup.builder()
+                .id(sgId)
+                .tenantId(TENANT_ID)
+                .build();
+        TestUtils.setField(sg, "rules", Lists.newArrayList(rules));
+        securityGroups.put(sgId, sg);
+    }
+
+    private static SecurityGroupRule tcpRule(String ruleId, String sgId, int tpPort) {
+        return NeutronSecurityGroupRule.builder()
+                .id(ruleId)
+                .securityGroupId(sgId)
+                .tenantId(TENANT_ID)
+                .direction("ingress")
+                .ethertype("IPv4")
+                .protocol("tcp")
+                .portRangeMin(tpPort)
+                .portRangeMax(tpPort)
+                .build();
+    }
+
+    private static SecurityGroupRule remoteGroupRule(String ruleId, String sgId) {
+        return NeutronSecurityGroupRule.builder()
+                .id(ruleId)
+                .securityGroupId(sgId)
+                .tenantId(TENANT_ID)
+                .remoteGroupId(sgId)
+                .direction("ingress")
+                .ethertype("IPv4")
+                .protocol("tcp")
+                .build();
+    }
+
+    private void addPort(String portId, DeviceId deviceId, String ip) {
+        Port osPort = NeutronPort.builder()
+                .tenantId(TENANT_ID)
+                .networkId(NETWORK_ID)
+                .securityGroup(SG_ID)
+                .build();
+        osPort.setId(portId);
+        osPorts.put(portId, osPort);
+
+        instancePorts.put(portId, DefaultInstancePort.builder()
+                .networkId(NETWORK_ID)
+                .portId(portId)
+                .macAddress(MacAddress.valueOf("00:00:00:00:00:0" + (instancePorts.size() + 1)))
+                .ipAddress(IpAddress.valueOf(ip))
+                .deviceId(deviceId)
+                .portNumber(PortNumber.portNumber(1))
+                .state(ACTIVE)
+                .build());
+    }
+
+    private void portDetected(String portId) {
+        instancePortListener.event(new InstancePortEvent(
+                OPENSTACK_INSTANCE_PORT_DETECTED, instancePorts.get(portId)));
+    }
+
+    private Set<String> threads(DeviceId deviceId) {
+        return flowRequests.stream()
+                .filter(request -> request.deviceId.equals(deviceId))
+                .map(request -> request.thread)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Integer> tcpPorts(DeviceId deviceId) {
+        return flowRequests.stream()
+                .filter(request -> request.deviceId.equals(deviceId))
+                .map(request -> (TcpPortCriterion) request.selector.getCriterion(Criterion.Type.TCP_DST))
+                .filter(criterion -> criterion != null)
+                .map(criterion -> criterion.tcpPort().toInt())
+                .collect(Collectors.toSet());
+    }
+
+    private static final class FlowRequest {
+        private final DeviceId deviceId;
+        private final TrafficSelector selector;
+        private final String thread;
+
+        private FlowRequest(DeviceId deviceId, TrafficSelector selector) {
+            this.deviceId = deviceId;
+            this.selector = selector;
+            this.thread = Thread.currentThread().getName();
+        }
+    }
+
+    private class TestOpenstackFlowRuleService extends OpenstackFlowRuleServiceAdapter {
+        @Override
+        public void setRule(ApplicationId appId, DeviceId deviceId, TrafficSelector selector,
+                            TrafficTreatment treatment, int priority, int tableType,
+                            boolean install) {
+            flowRequests.add(new FlowRequest(deviceId, selector));
+        }
+    }
+
+    private class TestInstancePortService extends InstancePortAdminServiceAdapter {
+        @Override
+        public InstancePort instancePort(String osPortId) {
+            return instancePorts.get(osPortId);
+        }
+
+        @Override
+        public void addListener(InstancePortListener listener) {
+            instancePortListener = listener;
+        }
+    }
+
+    private class TestOpenstackNetworkService extends OpenstackNetworkServiceAdapter {
+        @Override
+        public Port port(String portId) {
+            return osPorts.get(portId);
+        }
+
+        @Override
+        public Set<Port> ports() {
+            return ImmutableSet.copyOf(osPorts.values());
+        }
+    }
+
+    private class TestSecurityGroupService implements OpenstackSecurityGroupService {
+        @Override
+        public Set<SecurityGroup> securityGroups() {
+            return ImmutableSet.copyOf(securityGroups.values());
+        }
+
+        @Override
+        public SecurityGroup securityGroup(String sgId) {
+            return securityGroups.get(sgId);
+        }
+
+        @Override
+        public boolean isSecurityGroupEnabled() {
+            return true;
+        }
+
+        @Override
+        public void setSecurityGroupEnabled(boolean option) {
+        }
+
+        @Override
+        public void addListener(OpenstackSecurityGroupListener listener) {
+            securityGroupListeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(OpenstackSecurityGroupListener listener) {
+            securityGroupListeners.remove(listener);
+        }
+    }
+
+    private static class TestMastershipService extends MastershipServiceAdapter {
+        @Override
+        public boolean isLocalMaster(DeviceId deviceId) {
+            return true;
+        }
+    }
+
+    private static class TestCoreService extends CoreServiceAdapter {
+        @Override
+        public ApplicationId registerApplication(String name) {
+            return new DefaultApplicationId(100, "securityGroupTestApp");
+        }
+    }
+}
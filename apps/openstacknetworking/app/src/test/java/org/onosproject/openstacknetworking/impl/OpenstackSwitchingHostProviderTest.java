@@ -135,6 +135,7 @@ public class OpenstackSwitchingHostProviderTest {
         TestUtils.setField(target, "mastershipService", new TestMastershipService());
         TestUtils.setField(target, "osNodeService", new TestOpenstackNodeService());
         TestUtils.setField(target, "osNetworkService", new TestOpenstackNetworkService());
+        TestUtils.setField(target, "instancePortService", new InstancePortServiceAdapter());
         TestUtils.setField(target, "hostProviderRegistry", new TestHostProviderRegistry());
         TestUtils.setField(target, "executor", MoreExecutors.newDirectExecutorService());
 
@@ -260,6 +261,11 @@ public class OpenstackSwitchingHostProviderTest {
             return hostMap.get(hostId);
         }
 
+        @Override
+        public Iterable<Host> getHosts() {
+            return ImmutableSet.copyOf(hostMap.values());
+        }
+
         @Override
         public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
             return ImmutableSet.copyOf(hostMap.values());
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.routeservice;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listener for route events that receives events in batches.
+ * <p>
+ * Events queued for the listener are drained in bulk, and events that are
+ * superseded by a later event for the same prefix within a batch are
+ * collapsed, so that the listener only observes the net change for each
+ * prefix. Events for different prefixes retain their relative order.
+ * </p>
+ */
+public interface BatchRouteListener extends RouteListener {
+
+    /**
+     * Reacts to a batch of route events.
+     *
+     * @param events route events, at most one per prefix
+     */
+    void events(List<RouteEvent> events);
+
+    @Override
+    default void event(RouteEvent event) {
+        events(Collections.singletonList(event));
+    }
+}
@@ -16,16 +16,12 @@
 
 package org.onosproject.routeservice.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
-import com.googlecode.concurrenttrees.common.KeyValuePair;
-import com.googlecode.concurrenttrees.radix.node.concrete.DefaultByteArrayNodeFactory;
-import com.googlecode.concurrenttrees.radixinverted.ConcurrentInvertedRadixTree;
-import com.googlecode.concurrenttrees.radixinverted.InvertedRadixTree;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
-import org.onlab.util.GuavaCollectors;
-import org.onlab.util.Tools;
+import org.onlab.util.IpPrefixTrie;
 import org.onosproject.routeservice.ResolvedRoute;
 import org.onosproject.routeservice.RouteEvent;
 import org.onosproject.routeservice.RouteTableId;
@@ -37,8 +33,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import static org.onosproject.routeservice.RouteTools.createBinaryString;
-
 /**
  * Stores routes that have been resolved.
  */
@@ -54,8 +48,8 @@ public class DefaultResolvedRouteStore implements ResolvedRouteStore {
     public DefaultResolvedRouteStore() {
         routeTables = new ConcurrentHashMap<>();
 
-        routeTables.put(IPV4, new RouteTable());
-        routeTables.put(IPV6, new RouteTable());
+        routeTables.put(IPV4, new RouteTable(IpAddress.Version.INET));
+        routeTables.put(IPV6, new RouteTable(IpAddress.Version.INET6));
     }
 
     @Override
@@ -111,17 +105,18 @@ public class DefaultResolvedRouteStore implements ResolvedRouteStore {
      * Route table into which routes can be placed.
      */
     private class RouteTable {
-        private final InvertedRadixTree<ResolvedRoute> routeTable;
+        private final IpPrefixTrie<ResolvedRoute> routeTable;
         private final Map<IpPrefix, Set<ResolvedRoute>> alternativeRoutes;
 
         /**
          * Creates a new route table.
+         *
+         * @param version IP version of the routes in the table
          */
-        public RouteTable() {
-            routeTable = new ConcurrentInvertedRadixTree<>(
-                    new DefaultByteArrayNodeFactory());
+        public RouteTable(IpAddress.Version version) {
+            routeTable = new IpPrefixTrie<>(version);
 
-            alternativeRoutes = Maps.newHashMap();
+            alternativeRoutes = Maps.newConcurrentMap();
         }
 
         /**
@@ -134,7 +129,7 @@ public class DefaultResolvedRouteStore implements ResolvedRouteStore {
             Set<ResolvedRoute> immutableAlternatives = checkAlternatives(route, alternatives);
 
             synchronized (this) {
-                ResolvedRoute oldRoute = routeTable.put(createBinaryString(route.prefix()), route);
+                ResolvedRoute oldRoute = routeTable.put(route.prefix(), route);
                 Set<ResolvedRoute> oldRoutes = alternativeRoutes.put(route.prefix(), immutableAlternatives);
 
                 if (!route.equals(oldRoute)) {
@@ -182,13 +177,10 @@ public class DefaultResolvedRouteStore implements ResolvedRouteStore {
          */
         public RouteEvent remove(IpPrefix prefix) {
             synchronized (this) {
-                String key = createBinaryString(prefix);
-
-                ResolvedRoute route = routeTable.getValueForExactKey(key);
+                ResolvedRoute route = routeTable.remove(prefix);
                 Set<ResolvedRoute> alternatives = alternativeRoutes.remove(prefix);
 
                 if (route != null) {
-                    routeTable.remove(key);
                     return new RouteEvent(RouteEvent.Type.ROUTE_REMOVED, route, alternatives);
                 }
                 return null;
@@ -201,9 +193,7 @@ public class DefaultResolvedRouteStore implements ResolvedRouteStore {
          * @return all routes
          */
         public Collection<ResolvedRoute> getRoutes() {
-            return Tools.stream(routeTable.getKeyValuePairsForKeysStartingWith(""))
-                    .map(KeyValuePair::getValue)
-                    .collect(GuavaCollectors.toImmutableList());
+            return ImmutableList.copyOf(routeTable.values());
         }
 
         /**
@@ -213,7 +203,7 @@ public class DefaultResolvedRouteStore implements ResolvedRouteStore {
          * @return best route
          */
         public Optional<ResolvedRoute> getRoute(IpPrefix prefix) {
-            return Optional.ofNullable(routeTable.getValueForExactKey(createBinaryString(prefix)));
+            return Optional.ofNullable(routeTable.get(prefix));
         }
 
         public Collection<ResolvedRoute> getAllRoutes(IpPrefix prefix) {
@@ -227,8 +217,7 @@ public class DefaultResolvedRouteStore implements ResolvedRouteStore {
          * @return most specific prefix containing the given
          */
         public Optional<ResolvedRoute> longestPrefixMatch(IpAddress ip) {
-            return Tools.stream(routeTable.getValuesForKeysPrefixing(createBinaryString(ip.toIpPrefix())))
-                    .reduce((a, b) -> b); // reduces to the last element in the stream
+            return Optional.ofNullable(routeTable.longestPrefixMatch(ip));
         }
     }
 }
@@ -40,4 +40,13 @@ interface ListenerQueue {
      * Halts event delivery to the listener.
      */
     void stop();
+
+    /**
+     * Returns the number of events waiting to be delivered to the listener.
+     *
+     * @return number of queued events
+     */
+    default int size() {
+        return 0;
+    }
 }
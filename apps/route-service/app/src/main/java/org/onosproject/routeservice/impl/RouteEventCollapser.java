@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.routeservice.impl;
+
+import org.onlab.packet.IpPrefix;
+import org.onosproject.routeservice.ResolvedRoute;
+import org.onosproject.routeservice.RouteEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.onosproject.routeservice.RouteEvent.Type.ALTERNATIVE_ROUTES_CHANGED;
+import static org.onosproject.routeservice.RouteEvent.Type.ROUTE_ADDED;
+import static org.onosproject.routeservice.RouteEvent.Type.ROUTE_REMOVED;
+import static org.onosproject.routeservice.RouteEvent.Type.ROUTE_UPDATED;
+
+/**
+ * Collapses a batch of route events into at most one event per prefix,
+ * describing the net change between the state before the first event and
+ * the state after the last event for that prefix.
+ */
+final class RouteEventCollapser {
+
+    // avoid instantiation
+    private RouteEventCollapser() {
+    }
+
+    /**
+     * Collapses the given events. Prefixes keep the position of their first
+     * event in the batch, unless their events cancel out and a later event
+     * re-introduces them.
+     *
+     * @param events route events in the order they were posted
+     * @return collapsed route events
+     */
+    static List<RouteEvent> collapse(List<RouteEvent> events) {
+        if (events.size() < 2) {
+            return events;
+        }
+        Map<IpPrefix, RouteEvent> pending = new LinkedHashMap<>();
+        for (RouteEvent event : events) {
+            IpPrefix prefix = event.subject().prefix();
+            RouteEvent previous = pending.get(prefix);
+            RouteEvent merged = previous == null ? event : merge(previous, event);
+            if (merged == null) {
+                pending.remove(prefix);
+            } else {
+                pending.put(prefix, merged);
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Merges two consecutive events for the same prefix.
+     *
+     * @param first earlier event
+     * @param second later event
+     * @return merged event, or null if the events cancel each other out
+     */
+    private static RouteEvent merge(RouteEvent first, RouteEvent second) {
+        switch (first.type()) {
+        case ROUTE_ADDED:
+            if (second.type() == ROUTE_REMOVED) {
+                return null;
+            }
+            // the listener has not seen the prefix yet
+            return new RouteEvent(ROUTE_ADDED, second.subject(), second.alternatives());
+        case ROUTE_UPDATED:
+            if (second.type() == ROUTE_REMOVED) {
+                return new RouteEvent(ROUTE_REMOVED, first.prevSubject(), second.alternatives());
+            }
+            if (second.type() == ROUTE_ADDED) {
+                break;
+            }
+            return change(second, first.prevSubject(), first.prevAlternatives());
+        case ROUTE_REMOVED:
+            if (second.type() == ROUTE_ADDED) {
+                return change(second, first.subject(), first.alternatives());
+            }
+            break;
+        case ALTERNATIVE_ROUTES_CHANGED:
+            if (second.type() == ALTERNATIVE_ROUTES_CHANGED || second.type() == ROUTE_UPDATED) {
+                return change(second, first.subject(), first.prevAlternatives());
+            }
+            break;
+        default:
+            break;
+        }
+        return second;
+    }
+
+    /**
+     * Returns the event describing the change from the given previous state
+     * to the state after the given event.
+     *
+     * @param event latest event
+     * @param prevSubject route known to the listener before the batch
+     * @param prevAlternatives alternatives known to the listener before the batch
+     * @return update or alternatives changed event, or null if nothing changed
+     */
+    private static RouteEvent change(RouteEvent event, ResolvedRoute prevSubject,
+                                     Collection<ResolvedRoute> prevAlternatives) {
+        if (!Objects.equals(event.subject(), prevSubject)) {
+            return new RouteEvent(ROUTE_UPDATED, event.subject(), prevSubject,
+                                  event.alternatives(), prevAlternatives);
+        }
+        if (!Objects.equals(event.alternatives(), prevAlternatives)) {
+            return new RouteEvent(ALTERNATIVE_ROUTES_CHANGED, event.subject(), null,
+                                  event.alternatives(), prevAlternatives);
+        }
+        return null;
+    }
+}
@@ -16,6 +16,9 @@
 
 package org.onosproject.routeservice.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -23,9 +26,13 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
 import org.onosproject.cluster.ClusterService;
+import org.onosproject.routeservice.BatchRouteListener;
 import org.onosproject.routeservice.InternalRouteEvent;
 import org.onosproject.routeservice.ResolvedRoute;
 import org.onosproject.routeservice.Route;
@@ -47,9 +54,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.concurrent.GuardedBy;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -62,6 +71,8 @@ import java.util.concurrent.ThreadFactory;
 import java.util.stream.Collectors;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 
 /**
@@ -73,6 +84,15 @@ public class RouteManager implements RouteService, RouteAdminService {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private static final String METRICS_COMPONENT = "RouteService";
+    private static final String METRICS_FEATURE = "listenerQueue";
+    private static final String QUEUE_DEPTH = "queueDepth";
+    private static final String DRAIN_LATENCY = "drainLatency";
+    private static final String BATCH_SIZE = "batchSize";
+
+    // upper bound on the number of events handed to a batch listener at once
+    private static final int MAX_BATCH_SIZE = 10000;
+
     private RouteStoreDelegate delegate = new InternalRouteStoreDelegate();
     private InternalHostListener hostListener = new InternalHostListener();
 
@@ -88,6 +108,9 @@ public class RouteManager implements RouteService, RouteAdminService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService storageService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private ResolvedRouteStore resolvedRouteStore;
 
     private RouteMonitor routeMonitor;
@@ -97,6 +120,11 @@ public class RouteManager implements RouteService, RouteAdminService {
 
     private ThreadFactory threadFactory;
 
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+    private Timer drainTimer;
+    private Histogram batchSizeHistogram;
+
     protected Executor hostEventExecutor = newSingleThreadExecutor(
         groupedThreads("rm-event-host", "%d", log));
 
@@ -106,6 +134,7 @@ public class RouteManager implements RouteService, RouteAdminService {
         threadFactory = groupedThreads("onos/route", "listener-%d", log);
 
         resolvedRouteStore = new DefaultResolvedRouteStore();
+        registerMetrics();
 
         routeStore.setDelegate(delegate);
         hostService.addListener(hostListener);
@@ -124,6 +153,43 @@ public class RouteManager implements RouteService, RouteAdminService {
 
         routeStore.unsetDelegate(delegate);
         hostService.removeListener(hostListener);
+        removeMetrics();
+    }
+
+    /**
+     * Registers the listener queue metrics, if the metrics service is
+     * available.
+     */
+    private void registerMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+        metricsFeature = metricsComponent.registerFeature(METRICS_FEATURE);
+        metricsService.registerMetric(metricsComponent, metricsFeature, QUEUE_DEPTH,
+                                      (Gauge<Integer>) this::queueDepth);
+        drainTimer = metricsService.createTimer(metricsComponent, metricsFeature, DRAIN_LATENCY);
+        batchSizeHistogram = metricsService.createHistogram(metricsComponent, metricsFeature, BATCH_SIZE);
+    }
+
+    private void removeMetrics() {
+        if (metricsService == null || metricsComponent == null) {
+            return;
+        }
+        metricsService.removeMetric(metricsComponent, metricsFeature, QUEUE_DEPTH);
+        metricsService.removeMetric(metricsComponent, metricsFeature, DRAIN_LATENCY);
+        metricsService.removeMetric(metricsComponent, metricsFeature, BATCH_SIZE);
+        drainTimer = null;
+        batchSizeHistogram = null;
+    }
+
+    /**
+     * Returns the number of events waiting to be delivered to listeners.
+     *
+     * @return total listener queue depth
+     */
+    private synchronized int queueDepth() {
+        return listeners.values().stream().mapToInt(ListenerQueue::size).sum();
     }
 
     /**
@@ -313,6 +379,9 @@ public class RouteManager implements RouteService, RouteAdminService {
      * @return listener queue
      */
     ListenerQueue createListenerQueue(RouteListener listener) {
+        if (listener instanceof BatchRouteListener) {
+            return new BatchListenerQueue((BatchRouteListener) listener);
+        }
         return new DefaultListenerQueue(listener);
     }
 
@@ -322,7 +391,7 @@ public class RouteManager implements RouteService, RouteAdminService {
     private class DefaultListenerQueue implements ListenerQueue {
 
         private final ExecutorService executorService;
-        private final BlockingQueue<RouteEvent> queue;
+        protected final BlockingQueue<RouteEvent> queue;
         private final RouteListener listener;
 
         /**
@@ -351,10 +420,21 @@ public class RouteManager implements RouteService, RouteAdminService {
             executorService.shutdown();
         }
 
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
         private void poll() {
             while (true) {
                 try {
-                    listener.event(queue.take());
+                    RouteEvent event = queue.take();
+                    final Timer.Context timer = startTimer(drainTimer);
+                    try {
+                        dispatch(event);
+                    } finally {
+                        stopTimer(timer);
+                    }
                 } catch (InterruptedException e) {
                     log.info("Route listener event thread shutting down: {}", e.getMessage());
                     Thread.currentThread().interrupt();
@@ -364,6 +444,51 @@ public class RouteManager implements RouteService, RouteAdminService {
                 }
             }
         }
+
+        /**
+         * Delivers an event taken from the queue to the listener.
+         *
+         * @param event route event
+         */
+        protected void dispatch(RouteEvent event) {
+            listener.event(event);
+        }
+    }
+
+    /**
+     * Route listener queue that drains all pending events at once and
+     * delivers them to a batch listener, collapsing superseded events for
+     * the same prefix.
+     */
+    private class BatchListenerQueue extends DefaultListenerQueue {
+
+        private final BatchRouteListener listener;
+
+        /**
+         * Creates a new batch listener queue.
+         *
+         * @param listener batch route listener to queue updates for
+         */
+        public BatchListenerQueue(BatchRouteListener listener) {
+            super(listener);
+            this.listener = listener;
+        }
+
+        @Override
+        protected void dispatch(RouteEvent event) {
+            List<RouteEvent> events = new ArrayList<>();
+            events.add(event);
+            queue.drainTo(events, MAX_BATCH_SIZE - 1);
+
+            List<RouteEvent> collapsed = RouteEventCollapser.collapse(events);
+            log.trace("Delivering {} route events collapsed from {}", collapsed.size(), events.size());
+            if (batchSizeHistogram != null) {
+                batchSizeHistogram.update(events.size());
+            }
+            if (!collapsed.isEmpty()) {
+                listener.events(collapsed);
+            }
+        }
     }
 
     /**
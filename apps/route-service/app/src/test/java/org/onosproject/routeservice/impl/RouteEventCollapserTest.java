@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.routeservice.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.Ip4Prefix;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.routeservice.ResolvedRoute;
+import org.onosproject.routeservice.Route;
+import org.onosproject.routeservice.RouteEvent;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.routeservice.RouteEvent.Type.ALTERNATIVE_ROUTES_CHANGED;
+import static org.onosproject.routeservice.RouteEvent.Type.ROUTE_ADDED;
+import static org.onosproject.routeservice.RouteEvent.Type.ROUTE_REMOVED;
+import static org.onosproject.routeservice.RouteEvent.Type.ROUTE_UPDATED;
+
+/**
+ * Unit tests for the route event collapser.
+ */
+public class RouteEventCollapserTest {
+
+    private static final IpPrefix PREFIX1 = Ip4Prefix.valueOf("1.1.1.0/24");
+    private static final IpPrefix PREFIX2 = Ip4Prefix.valueOf("2.2.2.0/24");
+
+    private static final ResolvedRoute R1A = route(PREFIX1, "192.168.10.1", "00:00:00:00:00:01");
+    private static final ResolvedRoute R1B = route(PREFIX1, "192.168.20.1", "00:00:00:00:00:02");
+    private static final ResolvedRoute R1C = route(PREFIX1, "192.168.30.1", "00:00:00:00:00:03");
+    private static final ResolvedRoute R2A = route(PREFIX2, "192.168.10.1", "00:00:00:00:00:01");
+
+    private static ResolvedRoute route(IpPrefix prefix, String nextHop, String mac) {
+        return new ResolvedRoute(new Route(Route.Source.STATIC, prefix, Ip4Address.valueOf(nextHop)),
+                                 MacAddress.valueOf(mac), VlanId.NONE);
+    }
+
+    private static RouteEvent added(ResolvedRoute route) {
+        return new RouteEvent(ROUTE_ADDED, route, ImmutableSet.of(route));
+    }
+
+    private static RouteEvent removed(ResolvedRoute route) {
+        return new RouteEvent(ROUTE_REMOVED, route, ImmutableSet.of(route));
+    }
+
+    private static RouteEvent updated(ResolvedRoute route, ResolvedRoute prev) {
+        return new RouteEvent(ROUTE_UPDATED, route, prev, ImmutableSet.of(route), ImmutableSet.of(prev));
+    }
+
+    @Test
+    public void testDistinctPrefixesUnchanged() {
+        List<RouteEvent> events = ImmutableList.of(added(R1A), added(R2A));
+        assertEquals(events, RouteEventCollapser.collapse(events));
+    }
+
+    @Test
+    public void testAddThenRemoveCancels() {
+        List<RouteEvent> collapsed = RouteEventCollapser.collapse(
+                ImmutableList.of(added(R1A), added(R2A), removed(R1A)));
+        assertEquals(ImmutableList.of(added(R2A)), collapsed);
+    }
+
+    @Test
+    public void testAddThenUpdate() {
+        List<RouteEvent> collapsed = RouteEventCollapser.collapse(
+                ImmutableList.of(added(R1A), updated(R1B, R1A), updated(R1C, R1B)));
+        assertEquals(ImmutableList.of(added(R1C)), collapsed);
+    }
+
+    @Test
+    public void testUpdatesKeepFirstPrevious() {
+        List<RouteEvent> collapsed = RouteEventCollapser.collapse(
+                ImmutableList.of(updated(R1B, R1A), updated(R1C, R1B)));
+        assertEquals(ImmutableList.of(updated(R1C, R1A)), collapsed);
+    }
+
+    @Test
+    public void testUpdateThenRemove() {
+        List<RouteEvent> collapsed = RouteEventCollapser.collapse(
+                ImmutableList.of(updated(R1B, R1A), removed(R1B)));
+        assertEquals(ImmutableList.of(new RouteEvent(ROUTE_REMOVED, R1A, ImmutableSet.of(R1B))),
+                     collapsed);
+    }
+
+    @Test
+    public void testRemoveThenAdd() {
+        // a withdrawn and re-announced route is a no-op
+        assertTrue(RouteEventCollapser.collapse(
+                ImmutableList.of(removed(R1A), added(R1A))).isEmpty());
+
+        // re-announced with a different next hop
+        assertEquals(ImmutableList.of(updated(R1B, R1A)), RouteEventCollapser.collapse(
+                ImmutableList.of(removed(R1A), added(R1B))));
+    }
+
+    @Test
+    public void testAlternativesChanged() {
+        RouteEvent alt1 = new RouteEvent(ALTERNATIVE_ROUTES_CHANGED, R1A, null,
+                                         ImmutableSet.of(R1A, R1B), ImmutableSet.of(R1A));
+        RouteEvent alt2 = new RouteEvent(ALTERNATIVE_ROUTES_CHANGED, R1A, null,
+                                         ImmutableSet.of(R1A, R1B, R1C), ImmutableSet.of(R1A, R1B));
+        RouteEvent alt3 = new RouteEvent(ALTERNATIVE_ROUTES_CHANGED, R1A, null,
+                                         ImmutableSet.of(R1A), ImmutableSet.of(R1A, R1B, R1C));
+
+        assertEquals(ImmutableList.of(new RouteEvent(ALTERNATIVE_ROUTES_CHANGED, R1A, null,
+                                                     ImmutableSet.of(R1A, R1B, R1C), ImmutableSet.of(R1A))),
+                     RouteEventCollapser.collapse(ImmutableList.of(alt1, alt2)));
+        assertTrue(RouteEventCollapser.collapse(ImmutableList.of(alt1, alt2, alt3)).isEmpty());
+    }
+}
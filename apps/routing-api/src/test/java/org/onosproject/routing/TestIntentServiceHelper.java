@@ -20,6 +20,12 @@ import org.easymock.IArgumentMatcher;
 import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Helper class for testing operations submitted to the IntentService.
  */
@@ -42,6 +48,18 @@ public final class TestIntentServiceHelper {
         return intent;
     }
 
+    /**
+     * Matcher method to set the expected batch of intents to match against,
+     * in any order (ignoring the intent IDs).
+     *
+     * @param intents the expected intents
+     * @return the submitted intents
+     */
+    public static Collection<Intent> eqExceptIds(Intent... intents) {
+        EasyMock.reportMatcher(new IdAgnosticIntentsMatcher(Arrays.asList(intents)));
+        return Arrays.asList(intents);
+    }
+
     /*
      * EasyMock matcher that matches {@link Intent} but
      * ignores the {@link IntentId} when matching.
@@ -87,4 +105,53 @@ public final class TestIntentServiceHelper {
         }
     }
 
+    /*
+     * EasyMock matcher that matches a collection of {@link Intent}s, in any
+     * order, ignoring the {@link IntentId}s when matching.
+     */
+    private static final class IdAgnosticIntentsMatcher implements
+                IArgumentMatcher {
+
+        private final List<Intent> intents;
+        private String providedString;
+
+        /**
+         * Constructor taking the expected intents to match against.
+         *
+         * @param intents the expected intents
+         */
+        public IdAgnosticIntentsMatcher(List<Intent> intents) {
+            this.intents = intents;
+        }
+
+        @Override
+        public void appendTo(StringBuffer strBuffer) {
+            strBuffer.append("IntentsMatcher unable to match: "
+                    + providedString);
+        }
+
+        @Override
+        public boolean matches(Object object) {
+            if (!(object instanceof Collection)) {
+                return false;
+            }
+
+            List<Object> provided = new ArrayList<>((Collection<?>) object);
+            providedString = provided.toString();
+            if (provided.size() != intents.size()) {
+                return false;
+            }
+            for (Intent intent : intents) {
+                Optional<Object> match = provided.stream()
+                        .filter(p -> p instanceof Intent &&
+                                IntentUtils.intentsAreEqual(intent, (Intent) p))
+                        .findFirst();
+                if (!match.isPresent()) {
+                    return false;
+                }
+                provided.remove(match.get());
+            }
+            return true;
+        }
+    }
 }
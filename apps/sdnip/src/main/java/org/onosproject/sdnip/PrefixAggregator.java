@@ -0,0 +1,280 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.sdnip;
+
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Maintains the forwarding entries needed for a set of routes, optionally
+ * aggregating sibling prefixes that share the same next hop into their
+ * covering prefix.
+ * <p>
+ * Two prefixes are siblings if they only differ in their last bit, in which
+ * case together they cover exactly their parent prefix. When both siblings
+ * resolve to the same next hop and the parent is not itself a route, they
+ * are replaced by a single entry for the parent. Aggregation is applied
+ * recursively, and never changes the next hop chosen by longest prefix match
+ * for any address.
+ * </p>
+ * <p>
+ * Changes are reported as the entries to be added or replaced, mapped to
+ * their next hop, and the entries to be removed, mapped to an empty value.
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @param <T> type of the next hop
+ */
+final class PrefixAggregator<T> {
+
+    private final Map<IpPrefix, T> routes = new HashMap<>();
+    // routes and aggregates of sibling entries, installed or not
+    private final Map<IpPrefix, Entry<T>> entries = new HashMap<>();
+    private boolean enabled;
+
+    /**
+     * Creates a new prefix aggregator.
+     *
+     * @param enabled whether sibling prefixes should be aggregated
+     */
+    PrefixAggregator(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether sibling prefixes are aggregated.
+     *
+     * @return true if aggregation is enabled
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the forwarding entries currently needed for the routes.
+     *
+     * @return next hops keyed by entry prefix
+     */
+    Map<IpPrefix, T> entries() {
+        Map<IpPrefix, T> installed = new HashMap<>();
+        entries.keySet().forEach(prefix -> {
+            T value = installed(prefix);
+            if (value != null) {
+                installed.put(prefix, value);
+            }
+        });
+        return installed;
+    }
+
+    /**
+     * Adds or updates a route.
+     *
+     * @param prefix route prefix
+     * @param nextHop route next hop
+     * @return changes to the forwarding entries
+     */
+    Map<IpPrefix, Optional<T>> put(IpPrefix prefix, T nextHop) {
+        Map<IpPrefix, T> before = new LinkedHashMap<>();
+        routes.put(prefix, nextHop);
+        refresh(prefix, before);
+        return changes(before);
+    }
+
+    /**
+     * Removes a route.
+     *
+     * @param prefix route prefix
+     * @return changes to the forwarding entries
+     */
+    Map<IpPrefix, Optional<T>> remove(IpPrefix prefix) {
+        Map<IpPrefix, T> before = new LinkedHashMap<>();
+        if (routes.remove(prefix) != null) {
+            refresh(prefix, before);
+        }
+        return changes(before);
+    }
+
+    /**
+     * Enables or disables aggregation, recomputing all entries.
+     *
+     * @param enabled whether sibling prefixes should be aggregated
+     * @return changes to the forwarding entries
+     */
+    Map<IpPrefix, Optional<T>> setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return new LinkedHashMap<>();
+        }
+        Map<IpPrefix, T> before = entries();
+        this.enabled = enabled;
+        entries.clear();
+        // most specific first, so that aggregates are built bottom-up
+        routes.keySet().stream()
+                .sorted(Comparator.comparingInt(IpPrefix::prefixLength).reversed())
+                .forEach(prefix -> refresh(prefix, null));
+
+        Map<IpPrefix, T> after = entries();
+        Map<IpPrefix, Optional<T>> changes = new LinkedHashMap<>();
+        before.keySet().stream()
+                .filter(prefix -> !after.containsKey(prefix))
+                .forEach(prefix -> changes.put(prefix, Optional.empty()));
+        after.forEach((prefix, value) -> {
+            if (!value.equals(before.get(prefix))) {
+                changes.put(prefix, Optional.of(value));
+            }
+        });
+        return changes;
+    }
+
+    /**
+     * Recomputes the entry of the given prefix and of its ancestors, for as
+     * long as they change.
+     *
+     * @param prefix changed prefix
+     * @param before collects the installed value, prior to the refresh, of
+     *               every prefix whose installed value may change; ignored
+     *               if null
+     */
+    private void refresh(IpPrefix prefix, Map<IpPrefix, T> before) {
+        IpPrefix node = prefix;
+        while (true) {
+            Entry<T> entry = compute(node);
+            if (Objects.equals(entry, entries.get(node))) {
+                return;
+            }
+            if (before != null) {
+                // the children of a node are hidden while it is an aggregate
+                snapshot(node, before);
+                if (node.prefixLength() < maxLength(node)) {
+                    snapshot(child(node, 0), before);
+                    snapshot(child(node, 1), before);
+                }
+            }
+            if (entry == null) {
+                entries.remove(node);
+            } else {
+                entries.put(node, entry);
+            }
+            if (!enabled || node.prefixLength() == 0) {
+                return;
+            }
+            node = parent(node);
+        }
+    }
+
+    private Entry<T> compute(IpPrefix prefix) {
+        T route = routes.get(prefix);
+        if (route != null) {
+            return new Entry<>(route, false);
+        }
+        if (!enabled || prefix.prefixLength() == maxLength(prefix)) {
+            return null;
+        }
+        Entry<T> left = entries.get(child(prefix, 0));
+        Entry<T> right = entries.get(child(prefix, 1));
+        if (left != null && right != null && left.value.equals(right.value)) {
+            return new Entry<>(left.value, true);
+        }
+        return null;
+    }
+
+    private void snapshot(IpPrefix prefix, Map<IpPrefix, T> before) {
+        if (!before.containsKey(prefix)) {
+            before.put(prefix, installed(prefix));
+        }
+    }
+
+    private Map<IpPrefix, Optional<T>> changes(Map<IpPrefix, T> before) {
+        Map<IpPrefix, Optional<T>> changes = new LinkedHashMap<>();
+        before.forEach((prefix, old) -> {
+            T value = installed(prefix);
+            if (!Objects.equals(old, value)) {
+                changes.put(prefix, Optional.ofNullable(value));
+            }
+        });
+        return changes;
+    }
+
+    // Returns the next hop of the entry for the prefix if it is installed,
+    // that is if it is not hidden by an aggregate of its parent.
+    private T installed(IpPrefix prefix) {
+        Entry<T> entry = entries.get(prefix);
+        if (entry == null) {
+            return null;
+        }
+        if (enabled && prefix.prefixLength() > 0) {
+            Entry<T> parent = entries.get(parent(prefix));
+            if (parent != null && parent.aggregate) {
+                return null;
+            }
+        }
+        return entry.value;
+    }
+
+    private static int maxLength(IpPrefix prefix) {
+        return prefix.isIp4() ? IpPrefix.MAX_INET_MASK_LENGTH : IpPrefix.MAX_INET6_MASK_LENGTH;
+    }
+
+    private static IpPrefix parent(IpPrefix prefix) {
+        return IpPrefix.valueOf(prefix.address(), prefix.prefixLength() - 1);
+    }
+
+    private static IpPrefix child(IpPrefix prefix, int bit) {
+        int length = prefix.prefixLength();
+        byte[] octets = prefix.address().toOctets();
+        if (bit != 0) {
+            octets[length / Byte.SIZE] |= 1 << (Byte.SIZE - 1 - length % Byte.SIZE);
+        }
+        return IpPrefix.valueOf(IpAddress.valueOf(prefix.version(), octets), length + 1);
+    }
+
+    /**
+     * Candidate forwarding entry.
+     */
+    private static final class Entry<T> {
+        private final T value;
+        private final boolean aggregate;
+
+        private Entry(T value, boolean aggregate) {
+            this.value = value;
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value, aggregate);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry<?> that = (Entry<?>) obj;
+            return aggregate == that.aggregate && Objects.equals(value, that.value);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.onosproject.sdnip;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import org.apache.felix.scr.annotations.Activate;
@@ -23,6 +24,9 @@ import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
@@ -34,9 +38,9 @@ import org.onosproject.net.intf.Interface;
 import org.onosproject.net.intf.InterfaceEvent;
 import org.onosproject.net.intf.InterfaceListener;
 import org.onosproject.net.intf.InterfaceService;
+import org.onosproject.routeservice.BatchRouteListener;
 import org.onosproject.routeservice.ResolvedRoute;
 import org.onosproject.routeservice.RouteEvent;
-import org.onosproject.routeservice.RouteListener;
 import org.onosproject.routeservice.RouteService;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.EncapsulationType;
@@ -50,6 +54,10 @@ import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.intent.ConnectivityIntent;
 import org.onosproject.net.intent.Constraint;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentEvent;
+import org.onosproject.net.intent.IntentListener;
+import org.onosproject.net.intent.IntentService;
 import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.MultiPointToSinglePointIntent;
 import org.onosproject.net.intent.constraint.EncapsulationConstraint;
@@ -60,10 +68,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.onosproject.net.EncapsulationType.NONE;
 
@@ -89,7 +101,14 @@ public class SdnIpFib {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected RouteService routeService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected IntentService intentService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private final InternalRouteListener routeListener = new InternalRouteListener();
+    private final InternalIntentListener intentListener = new InternalIntentListener();
     private final InternalInterfaceListener interfaceListener = new InternalInterfaceListener();
     private final InternalNetworkConfigListener networkConfigListener =
             new InternalNetworkConfigListener();
@@ -99,14 +118,43 @@ public class SdnIpFib {
     protected static final ImmutableList<Constraint> CONSTRAINTS
             = ImmutableList.of(new PartialFailureConstraint());
 
+    private static final String METRICS_COMPONENT = "SdnIp";
+    private static final String METRICS_FEATURE = "fib";
+    private static final String CONVERGENCE_TIME = "convergenceTime";
+    private static final long DEFAULT_CONVERGENCE_TIMEOUT = TimeUnit.MINUTES.toNanos(1);
+
+    // Intents keyed by the prefix they forward, which is either the prefix of
+    // a route or the aggregate of sibling route prefixes with the same next hop
     private final Map<IpPrefix, MultiPointToSinglePointIntent> routeIntents
             = new ConcurrentHashMap<>();
 
+    private final PrefixAggregator<NextHop> fib = new PrefixAggregator<>(false);
+
+    // Keys of the submitted or withdrawn intents not yet installed or withdrawn.
+    // Intents are only pushed by the leader and events can be missed, so a
+    // convergence period still pending after the timeout is abandoned.
+    private final Set<Key> pendingIntents = ConcurrentHashMap.newKeySet();
+    private long convergenceStart;
+    protected long convergenceTimeout = DEFAULT_CONVERGENCE_TIMEOUT;
+
     private ApplicationId appId;
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+    private Timer convergenceTimer;
 
     @Activate
     public void activate() {
         appId = coreService.getAppId(SdnIp.SDN_IP_APP);
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+            metricsFeature = metricsComponent.registerFeature(METRICS_FEATURE);
+            convergenceTimer = metricsService.createTimer(metricsComponent, metricsFeature,
+                                                          CONVERGENCE_TIME);
+        }
+        synchronized (this) {
+            fib.setEnabled(aggregateRoutes());
+        }
+        intentService.addListener(intentListener);
         interfaceService.addListener(interfaceListener);
         networkConfigService.addListener(networkConfigListener);
         routeService.addListener(routeListener);
@@ -116,38 +164,133 @@ public class SdnIpFib {
     public void deactivate() {
         interfaceService.removeListener(interfaceListener);
         routeService.removeListener(routeListener);
+        intentService.removeListener(intentListener);
+        pendingIntents.clear();
+        if (metricsService != null) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, CONVERGENCE_TIME);
+        }
     }
 
-    private void update(ResolvedRoute route) {
+    /**
+     * Applies a batch of route events, submitting and withdrawing the
+     * resulting intents in bulk.
+     *
+     * @param events route events
+     */
+    private void routesChanged(List<RouteEvent> events) {
         synchronized (this) {
-            IpPrefix prefix = route.prefix();
-            EncapsulationType encap = encap();
-            MultiPointToSinglePointIntent intent =
-                    generateRouteIntent(prefix,
-                                        route.nextHop(),
-                                        route.nextHopMac(),
-                                        encap);
-
-            if (intent == null) {
-                log.debug("No interface found for route {}", route);
-                return;
+            Map<IpPrefix, Optional<NextHop>> changes = new LinkedHashMap<>();
+            for (RouteEvent event : events) {
+                ResolvedRoute route = event.subject();
+                switch (event.type()) {
+                case ROUTE_ADDED:
+                case ROUTE_UPDATED:
+                    changes.putAll(fib.put(route.prefix(), new NextHop(route)));
+                    break;
+                case ROUTE_REMOVED:
+                    changes.putAll(fib.remove(route.prefix()));
+                    break;
+                default:
+                    break;
+                }
+            }
+            apply(changes);
+        }
+    }
+
+    /**
+     * Generates, submits and withdraws the intents for the given changes to
+     * the forwarding entries.
+     *
+     * @param changes next hops keyed by prefix, empty for removed entries
+     */
+    private void apply(Map<IpPrefix, Optional<NextHop>> changes) {
+        EncapsulationType encap = encap();
+        List<Intent> toSubmit = new ArrayList<>();
+        List<Intent> toWithdraw = new ArrayList<>();
+
+        changes.forEach((prefix, nextHop) -> {
+            if (nextHop.isPresent()) {
+                MultiPointToSinglePointIntent intent =
+                        generateRouteIntent(prefix,
+                                            nextHop.get().ip,
+                                            nextHop.get().mac,
+                                            encap);
+                if (intent == null) {
+                    log.debug("No interface found for prefix {} via {}", prefix, nextHop.get().ip);
+                    return;
+                }
+                routeIntents.put(prefix, intent);
+                toSubmit.add(intent);
+            } else {
+                MultiPointToSinglePointIntent intent = routeIntents.remove(prefix);
+                if (intent == null) {
+                    log.trace("No intent in routeIntents to delete for prefix: {}",
+                              prefix);
+                    return;
+                }
+                toWithdraw.add(intent);
             }
+        });
+        withdraw(toWithdraw);
+        submit(toSubmit);
+    }
 
-            routeIntents.put(prefix, intent);
-            intentSynchronizer.submit(intent);
+    private void submit(List<Intent> intents) {
+        if (!intents.isEmpty()) {
+            track(intents);
+            intentSynchronizer.submit(intents);
         }
     }
 
-    private void withdraw(ResolvedRoute route) {
-        synchronized (this) {
-            IpPrefix prefix = route.prefix();
-            MultiPointToSinglePointIntent intent = routeIntents.remove(prefix);
-            if (intent == null) {
-                log.trace("No intent in routeIntents to delete for prefix: {}",
-                          prefix);
+    private void withdraw(List<Intent> intents) {
+        if (!intents.isEmpty()) {
+            track(intents);
+            intentSynchronizer.withdraw(intents);
+        }
+    }
+
+    /**
+     * Records the given intents as pending, starting a convergence period if
+     * none is in progress or if the one in progress timed out.
+     *
+     * @param intents submitted or withdrawn intents
+     */
+    private void track(List<Intent> intents) {
+        synchronized (pendingIntents) {
+            long now = System.nanoTime();
+            if (!pendingIntents.isEmpty() && now - convergenceStart > convergenceTimeout) {
+                log.debug("Abandoning convergence period, {} route intents still pending",
+                          pendingIntents.size());
+                pendingIntents.clear();
+            }
+            if (pendingIntents.isEmpty()) {
+                convergenceStart = now;
+            }
+            intents.forEach(intent -> pendingIntents.add(intent.key()));
+        }
+    }
+
+    /**
+     * Marks the intent with the given key as settled, ending the convergence
+     * period once no intent is pending anymore.
+     *
+     * @param key intent key
+     */
+    private void settled(Key key) {
+        synchronized (pendingIntents) {
+            if (!pendingIntents.remove(key) || !pendingIntents.isEmpty()) {
+                return;
+            }
+            long elapsed = System.nanoTime() - convergenceStart;
+            if (elapsed > convergenceTimeout) {
+                // leftover of an abandoned period
                 return;
             }
-            intentSynchronizer.withdraw(intent);
+            if (convergenceTimer != null) {
+                convergenceTimer.update(elapsed, TimeUnit.NANOSECONDS);
+            }
+            log.info("Route intents converged in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
         }
     }
 
@@ -232,6 +375,7 @@ public class SdnIpFib {
 
     private void addInterface(Interface intf) {
         synchronized (this) {
+            List<Intent> toSubmit = new ArrayList<>();
             for (Map.Entry<IpPrefix, MultiPointToSinglePointIntent> entry : routeIntents.entrySet()) {
                 // Retrieve the IP prefix and affected intent
                 IpPrefix prefix = entry.getKey();
@@ -257,8 +401,9 @@ public class SdnIpFib {
                                 .build();
 
                 routeIntents.put(entry.getKey(), newIntent);
-                intentSynchronizer.submit(newIntent);
+                toSubmit.add(newIntent);
             }
+            submit(toSubmit);
         }
     }
 
@@ -267,6 +412,8 @@ public class SdnIpFib {
      */
     private void removeInterface(Interface intf) {
         synchronized (this) {
+            List<Intent> toSubmit = new ArrayList<>();
+            List<Intent> toWithdraw = new ArrayList<>();
             for (Map.Entry<IpPrefix, MultiPointToSinglePointIntent> entry : routeIntents.entrySet()) {
                 // Retrieve the IP prefix and intent possibly affected
                 IpPrefix prefix = entry.getKey();
@@ -291,7 +438,7 @@ public class SdnIpFib {
                      // The interface is an egress interface for the intent.
                      // This intent just lost its head. Remove it and let higher
                      // layer routing reroute
-                    intentSynchronizer.withdraw(routeIntents.remove(entry.getKey()));
+                    toWithdraw.add(routeIntents.remove(entry.getKey()));
                 } else {
                     if (intent.filteredIngressPoints().contains(removedIngressFilteredCP)) {
                          // The FilteredConnectPoint is an ingress
@@ -311,15 +458,17 @@ public class SdnIpFib {
                                             .build();
 
                             routeIntents.put(entry.getKey(), newIntent);
-                            intentSynchronizer.submit(newIntent);
+                            toSubmit.add(newIntent);
                         } else {
                              // No more ingress FilteredConnectPoint. Withdraw
                              //the intent
-                            intentSynchronizer.withdraw(routeIntents.remove(entry.getKey()));
+                            toWithdraw.add(routeIntents.remove(entry.getKey()));
                         }
                     }
                 }
             }
+            withdraw(toWithdraw);
+            submit(toSubmit);
         }
     }
 
@@ -384,7 +533,7 @@ public class SdnIpFib {
         synchronized (this) {
             // Get the encapsulation type just set from the configuration
             EncapsulationType encap = encap();
-
+            List<Intent> toSubmit = new ArrayList<>();
 
             for (Map.Entry<IpPrefix, MultiPointToSinglePointIntent> entry : routeIntents.entrySet()) {
                 // Get each intent currently registered by SDN-IP
@@ -409,9 +558,25 @@ public class SdnIpFib {
                             intentBuilder.build();
 
                     routeIntents.put(entry.getKey(), newIntent);
-                    intentSynchronizer.submit(newIntent);
+                    toSubmit.add(newIntent);
                 }
             }
+            submit(toSubmit);
+        }
+    }
+
+    /*
+     * Triggered when the network configuration is modified. It checks if
+     * route aggregation has been enabled or disabled, and in case replaces
+     * the route intents.
+     */
+    private void aggregationUpdate() {
+        synchronized (this) {
+            boolean aggregate = aggregateRoutes();
+            if (aggregate != fib.isEnabled()) {
+                log.info("{} route aggregation", aggregate ? "Enabling" : "Disabling");
+                apply(fib.setEnabled(aggregate));
+            }
         }
     }
 
@@ -444,6 +609,12 @@ public class SdnIpFib {
         builder.constraints(ImmutableList.copyOf(newConstraints));
     }
 
+    private boolean aggregateRoutes() {
+        SdnIpConfig sdnIpConfig =
+                networkConfigService.getConfig(appId, SdnIpConfig.class);
+        return sdnIpConfig != null && sdnIpConfig.aggregateRoutes();
+    }
+
     private EncapsulationType encap() {
         SdnIpConfig sdnIpConfig =
                 networkConfigService.getConfig(appId, SdnIpConfig.class);
@@ -456,16 +627,57 @@ public class SdnIpFib {
         }
     }
 
-    private class InternalRouteListener implements RouteListener {
+    /**
+     * Next hop of a route, as used to build the route intents.
+     */
+    private static final class NextHop {
+        private final IpAddress ip;
+        private final MacAddress mac;
+
+        private NextHop(ResolvedRoute route) {
+            this.ip = route.nextHop();
+            this.mac = route.nextHopMac();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ip, mac);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof NextHop)) {
+                return false;
+            }
+            NextHop that = (NextHop) obj;
+            return Objects.equals(ip, that.ip) && Objects.equals(mac, that.mac);
+        }
+    }
+
+    private class InternalRouteListener implements BatchRouteListener {
+        @Override
+        public void events(List<RouteEvent> events) {
+            routesChanged(events);
+        }
+    }
+
+    private class InternalIntentListener implements IntentListener {
         @Override
-        public void event(RouteEvent event) {
+        public boolean isRelevant(IntentEvent event) {
+            return event.subject().appId().equals(appId);
+        }
+
+        @Override
+        public void event(IntentEvent event) {
             switch (event.type()) {
-            case ROUTE_ADDED:
-            case ROUTE_UPDATED:
-                update(event.subject());
-                break;
-            case ROUTE_REMOVED:
-                withdraw(event.subject());
+            case INSTALLED:
+            case WITHDRAWN:
+            case FAILED:
+            case CORRUPT:
+                settled(event.subject().key());
                 break;
             default:
                 break;
@@ -486,6 +698,7 @@ public class SdnIpFib {
                 case CONFIG_REMOVED:
                     if (event.configClass() == SdnIpConfig.class) {
                         encapUpdate();
+                        aggregationUpdate();
                     }
                     break;
                 default:
@@ -29,6 +29,8 @@ public class SdnIpConfig extends Config<ApplicationId> {
 
     public static final String ENCAPSULTATION = "encap";
 
+    public static final String AGGREGATE_ROUTES = "aggregateRoutes";
+
     /**
      * Retrieves the encapsulation type set.
      *
@@ -52,4 +54,24 @@ public class SdnIpConfig extends Config<ApplicationId> {
     public void setEncap(EncapsulationType encap) {
         object.put(ENCAPSULTATION, encap.toString());
     }
+
+    /**
+     * Retrieves whether sibling route prefixes with the same next hop should
+     * be aggregated into a single intent.
+     *
+     * @return true if route aggregation is enabled, false by default
+     */
+    public boolean aggregateRoutes() {
+        return object.path(AGGREGATE_ROUTES).asBoolean(false);
+    }
+
+    /**
+     * Sets whether sibling route prefixes with the same next hop should be
+     * aggregated into a single intent.
+     *
+     * @param aggregate true to enable route aggregation
+     */
+    public void setAggregateRoutes(boolean aggregate) {
+        object.put(AGGREGATE_ROUTES, aggregate);
+    }
 }
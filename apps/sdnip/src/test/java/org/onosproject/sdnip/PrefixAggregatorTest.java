@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.sdnip;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the prefix aggregator.
+ */
+public class PrefixAggregatorTest {
+
+    private static final IpPrefix P24 = IpPrefix.valueOf("10.0.0.0/24");
+    private static final IpPrefix P25A = IpPrefix.valueOf("10.0.0.0/25");
+    private static final IpPrefix P25B = IpPrefix.valueOf("10.0.0.128/25");
+    private static final IpPrefix P23 = IpPrefix.valueOf("10.0.0.0/23");
+    private static final IpPrefix P24B = IpPrefix.valueOf("10.0.1.0/24");
+
+    @Test
+    public void testDisabled() {
+        PrefixAggregator<String> fib = new PrefixAggregator<>(false);
+        assertEquals(ImmutableMap.of(P25A, Optional.of("a")), fib.put(P25A, "a"));
+        assertEquals(ImmutableMap.of(P25B, Optional.of("a")), fib.put(P25B, "a"));
+        assertEquals(ImmutableMap.of(P25A, "a", P25B, "a"), fib.entries());
+        assertEquals(ImmutableMap.of(P25A, Optional.empty()), fib.remove(P25A));
+    }
+
+    @Test
+    public void testSiblingsAggregated() {
+        PrefixAggregator<String> fib = new PrefixAggregator<>(true);
+        fib.put(P25A, "a");
+        assertEquals(ImmutableMap.of(P25A, Optional.empty(), P24, Optional.of("a")),
+                     fib.put(P25B, "a"));
+        assertEquals(ImmutableMap.of(P24, "a"), fib.entries());
+
+        // aggregates are aggregated recursively
+        assertEquals(ImmutableMap.of(P24, Optional.empty(), P23, Optional.of("a")),
+                     fib.put(P24B, "a"));
+        assertEquals(ImmutableMap.of(P23, "a"), fib.entries());
+
+        // a different next hop splits the aggregates again
+        fib.put(P25B, "b");
+        assertEquals(ImmutableMap.of(P25A, "a", P25B, "b", P24B, "a"), fib.entries());
+
+        fib.remove(P25B);
+        assertEquals(ImmutableMap.of(P25A, "a", P24B, "a"), fib.entries());
+    }
+
+    @Test
+    public void testParentRouteNotReplaced() {
+        PrefixAggregator<String> fib = new PrefixAggregator<>(true);
+        fib.put(P24, "b");
+        fib.put(P25A, "a");
+        assertTrue(fib.put(P25B, "a").keySet().contains(P25B));
+        assertEquals(ImmutableMap.of(P24, "b", P25A, "a", P25B, "a"), fib.entries());
+
+        // once the parent route is withdrawn the siblings can be aggregated
+        assertEquals(ImmutableMap.of(P24, Optional.of("a"), P25A, Optional.empty(),
+                                     P25B, Optional.empty()),
+                     fib.remove(P24));
+    }
+
+    @Test
+    public void testToggle() {
+        PrefixAggregator<String> fib = new PrefixAggregator<>(false);
+        fib.put(P25A, "a");
+        fib.put(P25B, "a");
+        fib.put(P24B, "a");
+
+        assertEquals(ImmutableMap.of(P25A, Optional.empty(), P25B, Optional.empty(),
+                                     P24B, Optional.empty(), P23, Optional.of("a")),
+                     fib.setEnabled(true));
+        assertEquals(ImmutableMap.of(P23, "a"), fib.entries());
+        fib.setEnabled(false);
+        assertEquals(ImmutableMap.of(P25A, "a", P25B, "a", P24B, "a"), fib.entries());
+    }
+
+    /**
+     * Checks that aggregation preserves the longest prefix match result of
+     * every address, and that the reported changes track the entries, over
+     * random route updates and withdrawals.
+     */
+    @Test
+    public void testRandomPreservesForwarding() {
+        Random random = new Random(7);
+        PrefixAggregator<String> fib = new PrefixAggregator<>(true);
+        Map<IpPrefix, String> routes = new HashMap<>();
+        Map<IpPrefix, String> installed = new HashMap<>();
+
+        for (int i = 0; i < 3000; i++) {
+            IpPrefix prefix = IpPrefix.valueOf(0x0a000000 | random.nextInt(64) << 2,
+                                               24 + random.nextInt(7));
+            Map<IpPrefix, Optional<String>> changes;
+            if (random.nextInt(3) == 0) {
+                routes.remove(prefix);
+                changes = fib.remove(prefix);
+            } else {
+                String nextHop = random.nextBoolean() ? "a" : "b";
+                routes.put(prefix, nextHop);
+                changes = fib.put(prefix, nextHop);
+            }
+            changes.forEach((p, v) -> {
+                if (v.isPresent()) {
+                    installed.put(p, v.get());
+                } else {
+                    installed.remove(p);
+                }
+            });
+            assertEquals(fib.entries(), installed);
+            assertTrue(installed.size() <= routes.size());
+
+            for (int host = 0; host < 256; host++) {
+                IpAddress address = IpAddress.valueOf(0x0a000000 | host);
+                assertEquals(lookup(routes, address), lookup(installed, address));
+            }
+        }
+    }
+
+    private static String lookup(Map<IpPrefix, String> table, IpAddress address) {
+        IpPrefix best = null;
+        for (IpPrefix prefix : table.keySet()) {
+            if (prefix.contains(address) &&
+                    (best == null || prefix.prefixLength() > best.prefixLength())) {
+                best = prefix;
+            }
+        }
+        return best == null ? null : table.get(best);
+    }
+}
@@ -16,12 +16,14 @@
 
 package org.onosproject.sdnip;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.Ip4Address;
 import org.onlab.packet.Ip4Prefix;
@@ -37,6 +39,7 @@ import org.onosproject.net.intf.InterfaceEvent;
 import org.onosproject.net.intf.InterfaceListener;
 import org.onosproject.net.intf.InterfaceService;
 import org.onosproject.net.intf.InterfaceServiceAdapter;
+import org.onosproject.routeservice.BatchRouteListener;
 import org.onosproject.routeservice.ResolvedRoute;
 import org.onosproject.routeservice.Route;
 import org.onosproject.routeservice.RouteEvent;
@@ -49,6 +52,8 @@ import org.onosproject.net.FilteredConnectPoint;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.config.Config;
 import org.onosproject.net.config.ConfigApplyDelegate;
+import org.onosproject.net.config.NetworkConfigEvent;
+import org.onosproject.net.config.NetworkConfigListener;
 import org.onosproject.net.config.NetworkConfigServiceAdapter;
 import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
@@ -56,16 +61,22 @@ import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.host.InterfaceIpAddress;
 import org.onosproject.net.intent.AbstractIntentTest;
+import org.onosproject.net.intent.IntentEvent;
+import org.onosproject.net.intent.IntentListener;
+import org.onosproject.net.intent.IntentServiceAdapter;
 import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.MultiPointToSinglePointIntent;
 import org.onosproject.sdnip.config.SdnIpConfig;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.easymock.EasyMock.*;
-import static org.onosproject.routing.TestIntentServiceHelper.eqExceptId;
+import static org.junit.Assert.assertEquals;
+import static org.onosproject.routing.TestIntentServiceHelper.eqExceptIds;
 
 /**
  * Unit tests for SdnIpFib.
@@ -114,6 +125,8 @@ public class SdnIpFibTest extends AbstractIntentTest {
 
     private static final IpPrefix PREFIX1 = Ip4Prefix.valueOf("1.1.1.0/24");
     private static final IpPrefix PREFIX2 = Ip4Prefix.valueOf("1.1.2.0/24");
+    private static final IpPrefix PREFIX3 = Ip4Prefix.valueOf("1.1.0.0/24");
+    private static final IpPrefix AGGREGATE = Ip4Prefix.valueOf("1.1.0.0/23");
 
     private SdnIpFib sdnipFib;
     private IntentSynchronizationService intentSynchronizer;
@@ -123,6 +136,10 @@ public class SdnIpFibTest extends AbstractIntentTest {
 
     private RouteListener routeListener;
     private InterfaceListener interfaceListener;
+    private IntentListener intentListener;
+    private NetworkConfigListener networkConfigListener;
+    private MetricsManager metricsService;
+    private boolean aggregateRoutes;
 
     @Before
     public void setUp() {
@@ -146,6 +163,9 @@ public class SdnIpFibTest extends AbstractIntentTest {
         sdnipFib.networkConfigService = new TestNetworkConfigService();
         sdnipFib.interfaceService = interfaceService;
         sdnipFib.intentSynchronizer = intentSynchronizer;
+        sdnipFib.intentService = new TestIntentService();
+        metricsService = new MetricsManager();
+        sdnipFib.metricsService = metricsService;
 
         sdnipFib.activate();
     }
@@ -199,7 +219,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
                 createIntentToThreeSrcOneTwo(PREFIX1);
 
         // Setup the expected intents
-        intentSynchronizer.submit(eqExceptId(intent));
+        intentSynchronizer.submit(eqExceptIds(intent));
         replay(intentSynchronizer);
 
         // Send in the added event
@@ -222,7 +242,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
         MultiPointToSinglePointIntent intent = createIntentToOne(PREFIX2);
 
         // Setup the expected intents
-        intentSynchronizer.submit(eqExceptId(intent));
+        intentSynchronizer.submit(eqExceptIds(intent));
         replay(intentSynchronizer);
 
         // Send in the added event
@@ -256,7 +276,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
         reset(intentSynchronizer);
 
         // Setup the expected intents
-        intentSynchronizer.submit(eqExceptId(newPrefixOneIntent));
+        intentSynchronizer.submit(eqExceptIds(newPrefixOneIntent));
         replay(intentSynchronizer);
 
         // Send in the update events
@@ -292,7 +312,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
         reset(intentSynchronizer);
 
         // Setup the expected intents
-        intentSynchronizer.submit(eqExceptId(newPrefixIntent));
+        intentSynchronizer.submit(eqExceptIds(newPrefixIntent));
         replay(intentSynchronizer);
 
         // Send in the update events
@@ -323,7 +343,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
         // Set up expectation
         reset(intentSynchronizer);
         // Setup the expected intents
-        intentSynchronizer.withdraw(eqExceptId(removedIntent));
+        intentSynchronizer.withdraw(eqExceptIds(removedIntent));
         replay(intentSynchronizer);
 
         // Send in the removed event
@@ -349,7 +369,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
 
         reset(intentSynchronizer);
 
-        intentSynchronizer.submit(eqExceptId(addedIntent));
+        intentSynchronizer.submit(eqExceptIds(addedIntent));
         expectLastCall().once();
 
         replay(intentSynchronizer);
@@ -386,7 +406,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
 
         reset(intentSynchronizer);
 
-        intentSynchronizer.submit(eqExceptId(remainingIntent));
+        intentSynchronizer.submit(eqExceptIds(remainingIntent));
         expectLastCall().once();
 
         replay(intentSynchronizer);
@@ -423,7 +443,7 @@ public class SdnIpFibTest extends AbstractIntentTest {
         // Set up expectation
         reset(intentSynchronizer);
         // Setup the expected intents
-        intentSynchronizer.withdraw(eqExceptId(removedIntent));
+        intentSynchronizer.withdraw(eqExceptIds(removedIntent));
         replay(intentSynchronizer);
 
         // Define the existing egress interface and remove it
@@ -437,6 +457,103 @@ public class SdnIpFibTest extends AbstractIntentTest {
         verify(intentSynchronizer);
     }
 
+    /**
+     * Tests sibling routes with the same next hop are forwarded by a single
+     * intent for their covering prefix when route aggregation is enabled.
+     */
+    @Test
+    public void testRouteAggregation() {
+        aggregateRoutes = true;
+        networkConfigListener.event(new NetworkConfigEvent(
+                NetworkConfigEvent.Type.CONFIG_UPDATED, APPID, SdnIpConfig.class));
+
+        MultiPointToSinglePointIntent intent = createIntentToThreeSrcOneTwo(AGGREGATE);
+
+        // A single intent is submitted for both routes
+        intentSynchronizer.submit(eqExceptIds(intent));
+        replay(intentSynchronizer);
+
+        ((BatchRouteListener) routeListener).events(Lists.newArrayList(
+                new RouteEvent(RouteEvent.Type.ROUTE_ADDED, createRoute(PREFIX3, IP3, MAC3)),
+                new RouteEvent(RouteEvent.Type.ROUTE_ADDED, createRoute(PREFIX1, IP3, MAC3))));
+
+        verify(intentSynchronizer);
+
+        // Removing one route splits the aggregate again
+        reset(intentSynchronizer);
+        intentSynchronizer.withdraw(eqExceptIds(intent));
+        intentSynchronizer.submit(eqExceptIds(createIntentToThreeSrcOneTwo(PREFIX1)));
+        replay(intentSynchronizer);
+
+        routeListener.event(new RouteEvent(RouteEvent.Type.ROUTE_REMOVED,
+                                           createRoute(PREFIX3, IP3, MAC3)));
+
+        verify(intentSynchronizer);
+    }
+
+    /**
+     * Tests the convergence time is recorded once all the submitted intents
+     * are installed.
+     */
+    @Test
+    public void testConvergenceTime() {
+        MultiPointToSinglePointIntent intent1 = createIntentToThreeSrcOneTwo(PREFIX1);
+        MultiPointToSinglePointIntent intent2 = createIntentToOne(PREFIX2);
+        intentSynchronizer.submit(eqExceptIds(intent1));
+        intentSynchronizer.submit(eqExceptIds(intent2));
+        replay(intentSynchronizer);
+
+        routeListener.event(new RouteEvent(RouteEvent.Type.ROUTE_ADDED,
+                                           createRoute(PREFIX1, IP3, MAC3)));
+        routeListener.event(new RouteEvent(RouteEvent.Type.ROUTE_ADDED,
+                                           createRoute(PREFIX2, IP1, MAC1)));
+
+        intentListener.event(new IntentEvent(IntentEvent.Type.INSTALLED, intent1));
+        assertEquals(0, convergenceTimer().getCount());
+        intentListener.event(new IntentEvent(IntentEvent.Type.INSTALLED, intent2));
+        assertEquals(1, convergenceTimer().getCount());
+
+        verify(intentSynchronizer);
+    }
+
+    /**
+     * Tests a convergence period whose intents are never all installed, for
+     * instance on a node which is not the leader, is abandoned after the
+     * timeout so that later periods are still reported.
+     */
+    @Test
+    public void testConvergenceTimeout() throws InterruptedException {
+        MultiPointToSinglePointIntent intent1 = createIntentToThreeSrcOneTwo(PREFIX1);
+        MultiPointToSinglePointIntent intent2 = createIntentToOne(PREFIX2);
+        intentSynchronizer.submit(eqExceptIds(intent1));
+        intentSynchronizer.submit(eqExceptIds(intent2));
+        replay(intentSynchronizer);
+
+        sdnipFib.convergenceTimeout = TimeUnit.MILLISECONDS.toNanos(1);
+        routeListener.event(new RouteEvent(RouteEvent.Type.ROUTE_ADDED,
+                                           createRoute(PREFIX1, IP3, MAC3)));
+        Thread.sleep(10);
+        // intent1 is never reported as installed
+        routeListener.event(new RouteEvent(RouteEvent.Type.ROUTE_ADDED,
+                                           createRoute(PREFIX2, IP1, MAC1)));
+        sdnipFib.convergenceTimeout = TimeUnit.MINUTES.toNanos(1);
+
+        intentListener.event(new IntentEvent(IntentEvent.Type.INSTALLED, intent2));
+        assertEquals(1, convergenceTimer().getCount());
+
+        // late event of the abandoned period
+        intentListener.event(new IntentEvent(IntentEvent.Type.INSTALLED, intent1));
+        assertEquals(1, convergenceTimer().getCount());
+
+        verify(intentSynchronizer);
+    }
+
+    private Timer convergenceTimer() {
+        Collection<Timer> timers = metricsService.getMetricRegistry().getTimers().values();
+        assertEquals(1, timers.size());
+        return timers.iterator().next();
+    }
+
     /*
      * Builds a MultiPointToSinglePointIntent with dest sw1 (VLAN Id) and src
      * sw2, sw3.
@@ -644,12 +761,25 @@ public class SdnIpFibTest extends AbstractIntentTest {
         }
     }
 
+    private class TestIntentService extends IntentServiceAdapter {
+        @Override
+        public void addListener(IntentListener listener) {
+            SdnIpFibTest.this.intentListener = listener;
+        }
+    }
+
     private class TestNetworkConfigService extends NetworkConfigServiceAdapter {
+        @Override
+        public void addListener(NetworkConfigListener listener) {
+            SdnIpFibTest.this.networkConfigListener = listener;
+        }
+
         /**
-         * Returns an empty BGP network configuration to be able to correctly
-         * return the encapsulation parameter when needed.
+         * Returns a BGP network configuration which is empty unless route
+         * aggregation is enabled, to be able to correctly return the
+         * encapsulation parameter when needed.
          *
-         * @return an empty BGP network configuration object
+         * @return a BGP network configuration object
          */
         @Override
         public <S, C extends Config<S>> C getConfig(S subject, Class<C> configClass) {
@@ -658,11 +788,14 @@ public class SdnIpFibTest extends AbstractIntentTest {
 
             ObjectMapper mapper = new ObjectMapper();
             ConfigApplyDelegate delegate = new MockCfgDelegate();
-            JsonNode emptyTree = new ObjectMapper().createObjectNode();
+            ObjectNode tree = new ObjectMapper().createObjectNode();
+            if (aggregateRoutes) {
+                tree.put(SdnIpConfig.AGGREGATE_ROUTES, true);
+            }
 
             SdnIpConfig sdnIpConfig = new SdnIpConfig();
 
-            sdnIpConfig.init(appId, "sdnip-test", emptyTree, mapper, delegate);
+            sdnIpConfig.init(appId, "sdnip-test", tree, mapper, delegate);
 
             return (C) sdnIpConfig;
         }
@@ -238,17 +238,15 @@ public class DefaultRoutingHandler {
 
             // take a snapshot of the topology
             updatedEcmpSpgMap = new HashMap<>();
+            EcmpLinkSnapshot links = EcmpLinkSnapshot.snapshot(srManager);
             Set<EdgePair> edgePairs = new HashSet<>();
             Set<ArrayList<DeviceId>> routeChanges = new HashSet<>();
             for (DeviceId dstSw : srManager.deviceConfiguration.getRouters()) {
-                EcmpShortestPathGraph ecmpSpgUpdated =
-                        new EcmpShortestPathGraph(dstSw, srManager);
-                updatedEcmpSpgMap.put(dstSw, ecmpSpgUpdated);
+                updateEcmpSpg(dstSw, links);
                 Optional<DeviceId> pairDev = srManager.getPairDeviceId(dstSw);
                 if (pairDev.isPresent()) {
                     // pairDev may not be available yet, but we still need to add
-                    ecmpSpgUpdated = new EcmpShortestPathGraph(pairDev.get(), srManager);
-                    updatedEcmpSpgMap.put(pairDev.get(), ecmpSpgUpdated);
+                    updateEcmpSpg(pairDev.get(), links);
                     edgePairs.add(new EdgePair(dstSw, pairDev.get()));
                 }
 
@@ -453,21 +451,27 @@ public class DefaultRoutingHandler {
                 return;
             }
 
-            // Take snapshots of the topology
+            // Take snapshots of the topology. Graphs of root switches whose
+            // shortest paths are unaffected by the change are carried over.
             updatedEcmpSpgMap = new HashMap<>();
+            EcmpLinkSnapshot links = EcmpLinkSnapshot.snapshot(srManager);
             Set<EdgePair> edgePairs = new HashSet<>();
             for (Device sw : srManager.deviceService.getDevices()) {
-                EcmpShortestPathGraph ecmpSpgUpdated =
-                        new EcmpShortestPathGraph(sw.id(), srManager);
-                updatedEcmpSpgMap.put(sw.id(), ecmpSpgUpdated);
+                updateEcmpSpg(sw.id(), links);
                 Optional<DeviceId> pairDev = srManager.getPairDeviceId(sw.id());
                 if (pairDev.isPresent()) {
                     // pairDev may not be available yet, but we still need to add
-                    ecmpSpgUpdated = new EcmpShortestPathGraph(pairDev.get(), srManager);
-                    updatedEcmpSpgMap.put(pairDev.get(), ecmpSpgUpdated);
+                    updateEcmpSpg(pairDev.get(), links);
                     edgePairs.add(new EdgePair(sw.id(), pairDev.get()));
                 }
             }
+            if (log.isDebugEnabled()) {
+                long unchanged = updatedEcmpSpgMap.entrySet().stream()
+                        .filter(e -> e.getValue() == currentEcmpSpgMap.get(e.getKey()))
+                        .count();
+                log.debug("ECMPspg changed for {} root switch(es), unchanged for {}",
+                          updatedEcmpSpgMap.size() - unchanged, unchanged);
+            }
 
             log.info("Starting to populate routing rules from Topology change");
 
@@ -1406,6 +1410,30 @@ public class DefaultRoutingHandler {
     //  Routing helper methods and classes
     //////////////////////////////////////
 
+    /**
+     * Computes the ECMP shortest-path graph for the given root switch from the
+     * given link snapshot, and stores it in the updated graph map. If the
+     * resulting graph is equivalent to the current graph of the root switch,
+     * the current graph is stored instead, so that later comparisons between
+     * the current and updated graphs find no route changes for this root.
+     *
+     * @param rootSw the root switch
+     * @param links snapshot of the links usable for routing
+     */
+    private void updateEcmpSpg(DeviceId rootSw, EcmpLinkSnapshot links) {
+        if (updatedEcmpSpgMap.containsKey(rootSw)) {
+            return;
+        }
+        EcmpShortestPathGraph ecmpSpgUpdated =
+                new EcmpShortestPathGraph(rootSw, srManager, links);
+        EcmpShortestPathGraph ecmpSpgCurrent = currentEcmpSpgMap.get(rootSw);
+        if (ecmpSpgUpdated.isEquivalent(ecmpSpgCurrent)) {
+            log.trace("ECMPspg unchanged for root switch {}", rootSw);
+            ecmpSpgUpdated = ecmpSpgCurrent;
+        }
+        updatedEcmpSpgMap.put(rootSw, ecmpSpgUpdated);
+    }
+
     /**
      * Computes set of affected routes due to failed link. Assumes previous ecmp
      * shortest-path graph exists for a switch in order to compute affected
@@ -1475,6 +1503,15 @@ public class DefaultRoutingHandler {
                                     ||
                                     (alink.get(0).equals(linkFail.dst().deviceId()) &&
                                          alink.get(1).equals(linkFail.src().deviceId()))) {
+                                EcmpShortestPathGraph updatedSpg = updatedEcmpSpgMap.get(rootSw);
+                                if (updatedSpg != null && getNextHops(targetSw, rootSw, ecmpSpg)
+                                        .equals(getNextHops(targetSw, rootSw, updatedSpg))) {
+                                    // path changed further downstream, but the
+                                    // hash-group at the target is unaffected
+                                    log.debug("Route:{}->{} has unchanged next-hops",
+                                              targetSw, rootSw);
+                                    break;
+                                }
                                 log.debug("Impacted route:{}->{}", targetSw, rootSw);
                                 ArrayList<DeviceId> aRoute = new ArrayList<>();
                                 aRoute.add(targetSw); // switch with rules to populate
@@ -1586,13 +1623,17 @@ public class DefaultRoutingHandler {
      *             from the root node
      * @param comp the graph that the base graph is compared to
      * @param rootSw  both ecmp graphs are calculated for the root node
-     * @return all the routes that have changed in the base graph
+     * @return all the routes whose next-hops have changed in the base graph
      */
     private Set<ArrayList<DeviceId>> compareGraphs(EcmpShortestPathGraph base,
                                                    EcmpShortestPathGraph comp,
                                                    DeviceId rootSw) {
         ImmutableSet.Builder<ArrayList<DeviceId>> changedRoutesBuilder =
                 ImmutableSet.builder();
+        if (base == comp) {
+            // graph was carried over as the topology change did not affect it
+            return changedRoutesBuilder.build();
+        }
         HashMap<Integer, HashMap<DeviceId, ArrayList<ArrayList<DeviceId>>>> baseMap =
                 base.getAllLearnedSwitchesAndVia();
         HashMap<Integer, HashMap<DeviceId, ArrayList<ArrayList<DeviceId>>>> compMap =
@@ -1603,7 +1644,10 @@ public class DefaultRoutingHandler {
             for (DeviceId targetSw : baseViaMap.keySet()) {
                 ArrayList<ArrayList<DeviceId>> basePath = baseViaMap.get(targetSw);
                 ArrayList<ArrayList<DeviceId>> compPath = getVia(compMap, targetSw);
-                if ((compPath == null) || !basePath.equals(compPath)) {
+                // only the next-hops determine the rules at the target switch
+                if ((compPath == null) || (!basePath.equals(compPath) &&
+                        !getNextHops(targetSw, rootSw, base)
+                                .equals(getNextHops(targetSw, rootSw, comp)))) {
                     log.trace("Impacted route:{} -> {}", targetSw, rootSw);
                     ArrayList<DeviceId> route = new ArrayList<>();
                     route.add(targetSw); // switch with rules to populate
@@ -1775,6 +1819,20 @@ public class DefaultRoutingHandler {
      * @return set of next hop deviceIds, could be empty if no next hops are found
      */
     private Set<DeviceId> getNextHops(DeviceId targetSw, DeviceId dstSw) {
+        return getNextHops(targetSw, dstSw, updatedEcmpSpgMap.get(dstSw));
+    }
+
+    /**
+     * Returns the set of deviceIds which are the next hops from the targetSw
+     * to the dstSw according to the given ECMP spg.
+     *
+     * @param targetSw the switch for which the next-hops are desired
+     * @param dstSw the switch to which the next-hops lead to from the targetSw
+     * @param ecmpSpg the ECMP spg rooted at the dstSw, may be null
+     * @return set of next hop deviceIds, could be empty if no next hops are found
+     */
+    private Set<DeviceId> getNextHops(DeviceId targetSw, DeviceId dstSw,
+                                      EcmpShortestPathGraph ecmpSpg) {
         boolean targetIsEdge = false;
         try {
             targetIsEdge = srManager.deviceConfiguration.isEdgeDevice(targetSw);
@@ -1783,7 +1841,6 @@ public class DefaultRoutingHandler {
                     + "continuing to getNextHops", targetSw);
         }
 
-        EcmpShortestPathGraph ecmpSpg = updatedEcmpSpgMap.get(dstSw);
         if (ecmpSpg == null) {
             log.debug("No ecmpSpg found for dstSw: {}", dstSw);
             return ImmutableSet.of();
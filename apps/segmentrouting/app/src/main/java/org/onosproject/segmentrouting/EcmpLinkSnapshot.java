@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.segmentrouting;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, int-indexed adjacency of the links usable for ECMP shortest-path
+ * graph computation. A single snapshot is taken per routing change and shared
+ * by the BFS of every root device, so that the link store is walked once
+ * instead of once per device per root.
+ */
+final class EcmpLinkSnapshot {
+    private static final int[] NO_NEIGHBORS = new int[0];
+    private static final Link[] NO_LINKS = new Link[0];
+
+    private final Map<DeviceId, Integer> index = new HashMap<>();
+    private final List<DeviceId> devices = new ArrayList<>();
+    private final int[][] neighbors;
+    private final Link[][] links;
+
+    /**
+     * Creates a snapshot from the given links. Only one link between an
+     * ordered pair of devices is retained, the one with the lowest source
+     * port, so that snapshots of the same topology are identical whatever
+     * the order of the links; additional links between the same pair of
+     * devices (LAG) are ignored.
+     *
+     * @param egressLinks links that are up, bidirectional and not avoided
+     */
+    EcmpLinkSnapshot(Collection<Link> egressLinks) {
+        Map<Integer, Map<Integer, Link>> adjacency = new HashMap<>();
+        for (Link link : egressLinks) {
+            int src = indexOf(link.src().deviceId());
+            int dst = indexOf(link.dst().deviceId());
+            adjacency.computeIfAbsent(src, k -> new HashMap<>())
+                    .merge(dst, link, EcmpLinkSnapshot::preferred);
+        }
+        neighbors = new int[devices.size()][];
+        links = new Link[devices.size()][];
+        for (int i = 0; i < devices.size(); i++) {
+            Map<Integer, Link> adjacent = adjacency.get(i);
+            if (adjacent == null) {
+                neighbors[i] = NO_NEIGHBORS;
+                links[i] = NO_LINKS;
+                continue;
+            }
+            neighbors[i] = new int[adjacent.size()];
+            links[i] = new Link[adjacent.size()];
+            int j = 0;
+            for (Map.Entry<Integer, Link> entry : adjacent.entrySet()) {
+                neighbors[i][j] = entry.getKey();
+                links[i][j] = entry.getValue();
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the links currently seen by the link handler,
+     * excluding the links that should be avoided for routing.
+     *
+     * @param srManager SegmentRoutingManager object
+     * @return snapshot of the usable links
+     */
+    static EcmpLinkSnapshot snapshot(SegmentRoutingManager srManager) {
+        List<Link> usable = new ArrayList<>();
+        for (Link link : srManager.linkHandler.getEgressLinks()) {
+            if (!srManager.linkHandler.avoidLink(link)) {
+                usable.add(link);
+            }
+        }
+        return new EcmpLinkSnapshot(usable);
+    }
+
+    private static Link preferred(Link link1, Link link2) {
+        int compare = Long.compare(link1.src().port().toLong(), link2.src().port().toLong());
+        if (compare == 0) {
+            compare = Long.compare(link1.dst().port().toLong(), link2.dst().port().toLong());
+        }
+        return compare <= 0 ? link1 : link2;
+    }
+
+    private int indexOf(DeviceId deviceId) {
+        Integer i = index.get(deviceId);
+        if (i == null) {
+            i = devices.size();
+            index.put(deviceId, i);
+            devices.add(deviceId);
+        }
+        return i;
+    }
+
+    /**
+     * Returns the number of devices in the snapshot.
+     *
+     * @return number of devices
+     */
+    int size() {
+        return devices.size();
+    }
+
+    /**
+     * Returns the index of the given device.
+     *
+     * @param deviceId device identifier
+     * @return index of the device, or -1 if the device has no usable links
+     */
+    int index(DeviceId deviceId) {
+        Integer i = index.get(deviceId);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Returns the device at the given index.
+     *
+     * @param i device index
+     * @return device identifier
+     */
+    DeviceId device(int i) {
+        return devices.get(i);
+    }
+
+    /**
+     * Returns the indexes of the devices reachable over one link from the
+     * device at the given index.
+     *
+     * @param i device index
+     * @return neighbor indexes; must not be modified
+     */
+    int[] neighbors(int i) {
+        return neighbors[i];
+    }
+
+    /**
+     * Returns the links towards the neighbors of the device at the given
+     * index, in the same order as {@link #neighbors(int)}.
+     *
+     * @param i device index
+     * @return egress links; must not be modified
+     */
+    Link[] links(int i) {
+        return links[i];
+    }
+}
@@ -26,12 +26,10 @@ import org.onosproject.net.provider.ProviderId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Sets;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * This class creates breadth-first-search (BFS) tree for a given root device
@@ -39,14 +37,14 @@ import java.util.Set;
  * The paths are snapshot paths at the point of the class instantiation.
  */
 public class EcmpShortestPathGraph {
-    LinkedList<DeviceId> deviceQueue = new LinkedList<>();
-    LinkedList<Integer> distanceQueue = new LinkedList<>();
     HashMap<DeviceId, Integer> deviceSearched = new HashMap<>();
     HashMap<DeviceId, ArrayList<Link>> upstreamLinks = new HashMap<>();
     HashMap<DeviceId, ArrayList<Path>> paths = new HashMap<>();
     HashMap<Integer, ArrayList<DeviceId>> distanceDeviceMap = new HashMap<>();
     DeviceId rootDevice;
     private SegmentRoutingManager srManager;
+    private volatile HashMap<Integer, HashMap<DeviceId,
+            ArrayList<ArrayList<DeviceId>>>> learnedSwitchesAndVia;
     private static final Logger log = LoggerFactory.getLogger(EcmpShortestPathGraph.class);
 
     /**
@@ -56,70 +54,106 @@ public class EcmpShortestPathGraph {
      * @param srManager SegmentRoutingManager object
      */
     public EcmpShortestPathGraph(DeviceId rootDevice, SegmentRoutingManager srManager) {
+        this(rootDevice, srManager, EcmpLinkSnapshot.snapshot(srManager));
+    }
+
+    /**
+     * Constructor using a snapshot of the links shared with other graphs.
+     *
+     * @param rootDevice root of the BFS tree
+     * @param srManager SegmentRoutingManager object
+     * @param links snapshot of the links usable for routing
+     */
+    EcmpShortestPathGraph(DeviceId rootDevice, SegmentRoutingManager srManager,
+                          EcmpLinkSnapshot links) {
         this.rootDevice = rootDevice;
         this.srManager = srManager;
-        calcECMPShortestPathGraph();
+        calcECMPShortestPathGraph(links);
     }
 
     /**
      * Calculates the BFS tree.
+     *
+     * @param links snapshot of the links usable for routing
      */
-   private void calcECMPShortestPathGraph() {
-        deviceQueue.add(rootDevice);
-        int currDistance = 0;
-        distanceQueue.add(currDistance);
-        deviceSearched.put(rootDevice, currDistance);
-        while (!deviceQueue.isEmpty()) {
-            DeviceId sw = deviceQueue.poll();
-            Set<DeviceId> prevSw = Sets.newHashSet();
-            currDistance = distanceQueue.poll();
-
-            for (Link link : srManager.linkHandler.getDeviceEgressLinks(sw)) {
-                if (srManager.linkHandler.avoidLink(link)) {
-                    continue;
-                }
-                DeviceId reachedDevice = link.dst().deviceId();
-                if (prevSw.contains(reachedDevice)) {
-                    // Ignore LAG links between the same set of Devices
-                    continue;
-                } else  {
-                    prevSw.add(reachedDevice);
-                }
+    private void calcECMPShortestPathGraph(EcmpLinkSnapshot links) {
+        deviceSearched.put(rootDevice, 0);
+        int root = links.index(rootDevice);
+        if (root < 0) {
+            // root has no usable links
+            return;
+        }
+        int[] distance = new int[links.size()];
+        Arrays.fill(distance, -1);
+        int[] deviceQueue = new int[links.size()];
+        int head = 0;
+        int tail = 0;
+        deviceQueue[tail++] = root;
+        distance[root] = 0;
+        while (head < tail) {
+            int sw = deviceQueue[head++];
+            int currDistance = distance[sw];
+            int[] neighbors = links.neighbors(sw);
+            Link[] egressLinks = links.links(sw);
 
-                Integer distance = deviceSearched.get(reachedDevice);
-                if ((distance != null) && (distance < (currDistance + 1))) {
+            // LAG links between the same set of Devices are already
+            // collapsed in the snapshot
+            for (int i = 0; i < neighbors.length; i++) {
+                int reached = neighbors[i];
+                if (distance[reached] >= 0 && distance[reached] < (currDistance + 1)) {
                     continue;
                 }
-                if (distance == null) {
+                DeviceId reachedDevice = links.device(reached);
+                if (distance[reached] < 0) {
                     // First time visiting this Device node
-                    deviceQueue.add(reachedDevice);
-                    distanceQueue.add(currDistance + 1);
+                    deviceQueue[tail++] = reached;
+                    distance[reached] = currDistance + 1;
                     deviceSearched.put(reachedDevice, currDistance + 1);
-
-                    ArrayList<DeviceId> distanceSwArray = distanceDeviceMap
-                            .get(currDistance + 1);
-                    if (distanceSwArray == null) {
-                        distanceSwArray = new ArrayList<>();
-                        distanceSwArray.add(reachedDevice);
-                        distanceDeviceMap.put(currDistance + 1, distanceSwArray);
-                    } else {
-                        distanceSwArray.add(reachedDevice);
-                    }
+                    distanceDeviceMap.computeIfAbsent(currDistance + 1, k -> new ArrayList<>())
+                            .add(reachedDevice);
                 }
 
-                ArrayList<Link> upstreamLinkArray =
-                        upstreamLinks.get(reachedDevice);
-                if (upstreamLinkArray == null) {
-                    upstreamLinkArray = new ArrayList<>();
-                    upstreamLinkArray.add(copyDefaultLink(link));
-                    //upstreamLinkArray.add(link);
-                    upstreamLinks.put(reachedDevice, upstreamLinkArray);
-                } else {
-                    // ECMP links
-                    upstreamLinkArray.add(copyDefaultLink(link));
-                }
+                // ECMP links
+                upstreamLinks.computeIfAbsent(reachedDevice, k -> new ArrayList<>())
+                        .add(copyDefaultLink(egressLinks[i]));
+            }
+        }
+    }
+
+    /**
+     * Returns the distance, in hops, from the root Device to a given Device.
+     *
+     * @param targetDevice the target Device
+     * @return the distance, or null if the target is not reachable
+     */
+    Integer getDistance(DeviceId targetDevice) {
+        return deviceSearched.get(targetDevice);
+    }
+
+    /**
+     * Determines whether the given graph has the same root, the same distances
+     * and the same upstream ECMP links as this graph, in which case the route
+     * paths computed from both graphs are identical.
+     *
+     * @param other the graph to compare to
+     * @return true if both graphs yield identical route paths
+     */
+    boolean isEquivalent(EcmpShortestPathGraph other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null || !rootDevice.equals(other.rootDevice)
+                || !deviceSearched.equals(other.deviceSearched)) {
+            return false;
+        }
+        for (Map.Entry<DeviceId, ArrayList<Link>> entry : upstreamLinks.entrySet()) {
+            ArrayList<Link> otherLinks = other.upstreamLinks.get(entry.getKey());
+            if (otherLinks == null || otherLinks.size() != entry.getValue().size()
+                    || !otherLinks.containsAll(entry.getValue())) {
+                return false;
             }
         }
+        return true;
     }
 
     private void getDFSPaths(DeviceId dstDeviceDeviceId, Path path, ArrayList<Path> paths) {
@@ -207,8 +241,13 @@ public class EcmpShortestPathGraph {
      */
     public HashMap<Integer, HashMap<DeviceId,
             ArrayList<ArrayList<DeviceId>>>> getAllLearnedSwitchesAndVia() {
-
-        HashMap<Integer, HashMap<DeviceId, ArrayList<ArrayList<DeviceId>>>> deviceViaMap = new HashMap<>();
+        // the graph does not change once computed, so neither does its view
+        HashMap<Integer, HashMap<DeviceId, ArrayList<ArrayList<DeviceId>>>> deviceViaMap =
+                learnedSwitchesAndVia;
+        if (deviceViaMap != null) {
+            return deviceViaMap;
+        }
+        deviceViaMap = new HashMap<>();
 
         for (Integer itrIndx : distanceDeviceMap.keySet()) {
             HashMap<DeviceId, ArrayList<ArrayList<DeviceId>>> swMap = new HashMap<>();
@@ -232,6 +271,7 @@ public class EcmpShortestPathGraph {
             }
             deviceViaMap.put(itrIndx, swMap);
         }
+        learnedSwitchesAndVia = deviceViaMap;
         return deviceViaMap;
     }
 
@@ -709,4 +709,17 @@ public class LinkHandler {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Returns all links that are UP in the seenLinks store. The returned
+     * links are also confirmed to be bidirectional.
+     *
+     * @return set of egress links from all devices
+     */
+    Set<Link> getEgressLinks() {
+        return seenLinks.keySet().stream()
+                .filter(link -> seenLinks.get(link))
+                .filter(link -> isBidirectionalLinkUp(link))
+                .collect(Collectors.toSet());
+    }
+
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.segmentrouting;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for EcmpShortestPathGraph.
+ */
+public class EcmpShortestPathGraphTest {
+    private static final ProviderId PID = new ProviderId("of", "foo");
+    private static final DeviceId LEAF1 = DeviceId.deviceId("of:1");
+    private static final DeviceId LEAF2 = DeviceId.deviceId("of:2");
+    private static final DeviceId SPINE1 = DeviceId.deviceId("of:11");
+    private static final DeviceId SPINE2 = DeviceId.deviceId("of:12");
+    private static final DeviceId ISOLATED = DeviceId.deviceId("of:99");
+
+    private static Link link(DeviceId src, long srcPort, DeviceId dst, long dstPort) {
+        return DefaultLink.builder()
+                .providerId(PID)
+                .src(new ConnectPoint(src, PortNumber.portNumber(srcPort)))
+                .dst(new ConnectPoint(dst, PortNumber.portNumber(dstPort)))
+                .type(Link.Type.DIRECT)
+                .build();
+    }
+
+    private static void addBidirectional(List<Link> links, DeviceId a, long aPort,
+                                         DeviceId b, long bPort) {
+        links.add(link(a, aPort, b, bPort));
+        links.add(link(b, bPort, a, aPort));
+    }
+
+    private static List<Link> leafSpine() {
+        List<Link> links = new ArrayList<>();
+        addBidirectional(links, LEAF1, 1, SPINE1, 1);
+        addBidirectional(links, LEAF1, 2, SPINE2, 1);
+        addBidirectional(links, LEAF2, 1, SPINE1, 2);
+        addBidirectional(links, LEAF2, 2, SPINE2, 2);
+        return links;
+    }
+
+    @Test
+    public void testLeafSpine() {
+        EcmpShortestPathGraph spg = new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(leafSpine()));
+
+        assertEquals(Integer.valueOf(0), spg.getDistance(LEAF1));
+        assertEquals(Integer.valueOf(1), spg.getDistance(SPINE1));
+        assertEquals(Integer.valueOf(1), spg.getDistance(SPINE2));
+        assertEquals(Integer.valueOf(2), spg.getDistance(LEAF2));
+        assertNull(spg.getDistance(ISOLATED));
+
+        assertEquals(2, spg.getECMPPaths(LEAF2).size());
+        assertEquals(1, spg.getECMPPaths(SPINE1).size());
+        assertNull(spg.getECMPPaths(ISOLATED));
+
+        ArrayList<ArrayList<DeviceId>> via = spg.getAllLearnedSwitchesAndVia().get(2).get(LEAF2);
+        assertEquals(2, via.size());
+        assertTrue(via.contains(Lists.newArrayList(SPINE1)));
+        assertTrue(via.contains(Lists.newArrayList(SPINE2)));
+    }
+
+    @Test
+    public void testParallelLinksIgnored() {
+        List<Link> links = leafSpine();
+        addBidirectional(links, LEAF1, 3, SPINE1, 3);
+        EcmpShortestPathGraph spg = new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(links));
+
+        assertEquals(1, spg.getECMPPaths(SPINE1).size());
+        assertEquals(2, spg.getECMPPaths(LEAF2).size());
+    }
+
+    @Test
+    public void testParallelLinkChoiceIsStable() {
+        List<Link> links = leafSpine();
+        addBidirectional(links, LEAF1, 3, SPINE1, 3);
+        List<Link> reversed = Lists.reverse(links);
+        EcmpShortestPathGraph spg = new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(links));
+        EcmpShortestPathGraph spgReversed = new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(reversed));
+
+        // the link with the lowest port is retained whatever the link order
+        assertTrue(spg.isEquivalent(spgReversed));
+        assertEquals(link(LEAF1, 1, SPINE1, 1),
+                     spgReversed.getECMPPaths(SPINE1).get(0).links().get(0));
+    }
+
+    @Test
+    public void testRootWithoutLinks() {
+        EcmpShortestPathGraph spg = new EcmpShortestPathGraph(
+                ISOLATED, null, new EcmpLinkSnapshot(leafSpine()));
+
+        assertEquals(Integer.valueOf(0), spg.getDistance(ISOLATED));
+        assertNull(spg.getDistance(LEAF1));
+        assertTrue(spg.getAllLearnedSwitchesAndVia().isEmpty());
+    }
+
+    @Test
+    public void testEquivalence() {
+        List<Link> links = leafSpine();
+        EcmpShortestPathGraph spg = new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(links));
+
+        // same topology, recomputed
+        assertTrue(spg.isEquivalent(new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(leafSpine()))));
+        // different root
+        assertFalse(spg.isEquivalent(new EcmpShortestPathGraph(
+                LEAF2, null, new EcmpLinkSnapshot(links))));
+        assertFalse(spg.isEquivalent(null));
+
+        // a parallel link does not change the shortest paths
+        List<Link> parallel = leafSpine();
+        addBidirectional(parallel, LEAF2, 3, SPINE2, 3);
+        assertTrue(spg.isEquivalent(new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(parallel))));
+
+        // losing a spine uplink of the other leaf removes one ECMP path
+        List<Link> failed = leafSpine();
+        failed.remove(link(LEAF2, 2, SPINE2, 2));
+        failed.remove(link(SPINE2, 2, LEAF2, 2));
+        EcmpShortestPathGraph spgFailed = new EcmpShortestPathGraph(
+                LEAF1, null, new EcmpLinkSnapshot(failed));
+        assertFalse(spg.isEquivalent(spgFailed));
+        assertEquals(1, spgFailed.getECMPPaths(LEAF2).size());
+    }
+}
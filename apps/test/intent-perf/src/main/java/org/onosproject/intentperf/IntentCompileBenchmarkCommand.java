@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentperf;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.apache.karaf.shell.commands.Argument;
+import org.apache.karaf.shell.commands.Command;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.cli.AbstractShellCommand;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.CoreService;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.FilteredConnectPoint;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.intent.FlowRuleIntent;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentCompiler;
+import org.onosproject.net.intent.IntentExtensionService;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.LinkCollectionIntent;
+import org.onosproject.net.provider.ProviderId;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.onosproject.net.Link.Type.DIRECT;
+
+/**
+ * Measures the compilation throughput of the link collection intents
+ * generated by a synthetic VPLS scenario over the available devices.
+ * <p>
+ * Every VPLS has one interface per device, each with its own VLAN and a
+ * single host behind it. As VPLS does, a multi point to single point
+ * intent is created towards every host and a single point to multi point
+ * intent for the broadcast traffic from every interface. The first device
+ * acts as core, linked to all the others.
+ * </p>
+ */
+@Command(scope = "onos", name = "intent-compile-benchmark",
+        description = "Measures link collection intent compilation throughput")
+public class IntentCompileBenchmarkCommand extends AbstractShellCommand {
+
+    private static final String FMT = "pass=%d, intents=%d, rules=%d, time=%dms, rate=%.1f intents/s";
+    private static final ProviderId PID = new ProviderId("bench", "org.onosproject.intentperf");
+    private static final int CORE_PORT_BASE = 1000;
+    private static final int KEY_BASE = 0x10000000;
+
+    @Argument(index = 0, name = "intentCount", description = "Number of intents")
+    int intentCount = 10_000;
+
+    @Argument(index = 1, name = "interfaceCount", description = "Number of interfaces per VPLS")
+    int interfaceCount = 4;
+
+    @Argument(index = 2, name = "passes", description = "Number of compilation passes")
+    int passes = 3;
+
+    @Override
+    protected void execute() {
+        @SuppressWarnings("unchecked")
+        IntentCompiler<LinkCollectionIntent> compiler = (IntentCompiler<LinkCollectionIntent>)
+                get(IntentExtensionService.class).getCompilers().get(LinkCollectionIntent.class);
+        if (compiler == null) {
+            print("No compiler registered for link collection intents");
+            return;
+        }
+        List<DeviceId> devices = Lists.newArrayList();
+        for (Device device : get(DeviceService.class).getAvailableDevices()) {
+            devices.add(device.id());
+        }
+        if (devices.isEmpty()) {
+            print("No available devices");
+            return;
+        }
+        Collections.sort(devices, (a, b) -> a.toString().compareTo(b.toString()));
+
+        ApplicationId appId = get(CoreService.class).registerApplication("org.onosproject.intentperf");
+        List<LinkCollectionIntent> intents = vplsIntents(appId, devices);
+
+        for (int pass = 1; pass <= passes; pass++) {
+            long rules = 0;
+            long start = System.nanoTime();
+            for (LinkCollectionIntent intent : intents) {
+                for (Intent compiled : compiler.compile(intent, Collections.emptyList())) {
+                    if (compiled instanceof FlowRuleIntent) {
+                        rules += ((FlowRuleIntent) compiled).flowRules().size();
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            print(FMT, pass, intents.size(), rules, elapsed / 1_000_000,
+                  intents.size() * 1e9 / Math.max(elapsed, 1));
+        }
+    }
+
+    private List<LinkCollectionIntent> vplsIntents(ApplicationId appId, List<DeviceId> devices) {
+        int perVpls = Math.max(interfaceCount, 1);
+        List<LinkCollectionIntent> intents = Lists.newArrayListWithCapacity(intentCount);
+        for (int vpls = 0; intents.size() < intentCount; vpls++) {
+            List<FilteredConnectPoint> interfaces = Lists.newArrayList();
+            for (int i = 0; i < perVpls; i++) {
+                int index = vpls * perVpls + i;
+                DeviceId deviceId = devices.get(index % devices.size());
+                PortNumber port = PortNumber.portNumber(1 + index / devices.size());
+                TrafficSelector vlan = DefaultTrafficSelector.builder()
+                        .matchVlanId(VlanId.vlanId((short) (1 + index % 4000)))
+                        .build();
+                interfaces.add(new FilteredConnectPoint(new ConnectPoint(deviceId, port), vlan));
+            }
+            for (int i = 0; i < perVpls && intents.size() < intentCount; i++) {
+                FilteredConnectPoint point = interfaces.get(i);
+                Set<FilteredConnectPoint> others = interfaces.stream()
+                        .filter(other -> !other.equals(point))
+                        .collect(Collectors.toSet());
+                MacAddress host = MacAddress.valueOf(((long) vpls << 16) | i);
+
+                // unicast towards the host behind the interface
+                intents.add(intent(appId, intents.size(),
+                                   DefaultTrafficSelector.builder().matchEthDst(host).build(),
+                                   others, ImmutableSet.of(point), false, devices));
+                if (intents.size() < intentCount) {
+                    // broadcast from the interface
+                    intents.add(intent(appId, intents.size(),
+                                       DefaultTrafficSelector.builder()
+                                               .matchEthDst(MacAddress.BROADCAST).build(),
+                                       ImmutableSet.of(point), others, true, devices));
+                }
+            }
+        }
+        return intents;
+    }
+
+    private LinkCollectionIntent intent(ApplicationId appId, int index, TrafficSelector selector,
+                                        Set<FilteredConnectPoint> ingress,
+                                        Set<FilteredConnectPoint> egress,
+                                        boolean broadcast, List<DeviceId> devices) {
+        DeviceId core = devices.get(0);
+        Set<Link> links = ImmutableSet.<Link>builder()
+                .addAll(ingress.stream()
+                                .map(p -> p.connectPoint().deviceId())
+                                .filter(deviceId -> !deviceId.equals(core))
+                                .map(deviceId -> link(deviceId, core, devices))
+                                .collect(Collectors.toSet()))
+                .addAll(egress.stream()
+                                .map(p -> p.connectPoint().deviceId())
+                                .filter(deviceId -> !deviceId.equals(core))
+                                .map(deviceId -> link(core, deviceId, devices))
+                                .collect(Collectors.toSet()))
+                .build();
+        return LinkCollectionIntent.builder()
+                .appId(appId)
+                .key(Key.of(KEY_BASE + index, appId))
+                .selector(selector)
+                .treatment(DefaultTrafficTreatment.emptyTreatment())
+                .filteredIngressPoints(ingress)
+                .filteredEgressPoints(egress)
+                .links(links)
+                .applyTreatmentOnEgress(broadcast)
+                .build();
+    }
+
+    // The core reaches the i-th device through port CORE_PORT_BASE + i, the
+    // other devices reach the core through port CORE_PORT_BASE
+    private Link link(DeviceId src, DeviceId dst, List<DeviceId> devices) {
+        DeviceId core = devices.get(0);
+        PortNumber srcPort = PortNumber.portNumber(
+                CORE_PORT_BASE + (src.equals(core) ? devices.indexOf(dst) : 0));
+        PortNumber dstPort = PortNumber.portNumber(
+                CORE_PORT_BASE + (dst.equals(core) ? devices.indexOf(src) : 0));
+        return DefaultLink.builder()
+                .providerId(PID)
+                .src(new ConnectPoint(src, srcPort))
+                .dst(new ConnectPoint(dst, dstPort))
+                .type(DIRECT)
+                .build();
+    }
+}
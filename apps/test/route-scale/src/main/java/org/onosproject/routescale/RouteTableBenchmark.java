@@ -0,0 +1,207 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.routescale;
+
+import com.googlecode.concurrenttrees.radix.node.concrete.DefaultByteArrayNodeFactory;
+import com.googlecode.concurrenttrees.radixinverted.ConcurrentInvertedRadixTree;
+import com.googlecode.concurrenttrees.radixinverted.InvertedRadixTree;
+import org.apache.karaf.shell.commands.Argument;
+import org.apache.karaf.shell.commands.Command;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+import org.onlab.util.IpPrefixTrie;
+import org.onosproject.cli.AbstractShellCommand;
+import org.onosproject.routeservice.RouteTools;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the route table structures used by the route stores for loading,
+ * longest prefix match lookups and churn of a synthetic routing table.
+ */
+@Command(scope = "onos", name = "route-table-benchmark",
+        description = "Compares route table structures for load, lookup and churn")
+public class RouteTableBenchmark extends AbstractShellCommand {
+
+    private static final String FMT = "%-6s %-10s %10s %12s %12s %12s";
+    private static final String HEADER = String.format(FMT, "family", "structure",
+            "routes", "load ns/op", "lpm ns/op", "churn ns/op") + String.format(" %10s", "heap MB");
+    private static final long SEED = 1234L;
+    private static final double MB = 1024.0 * 1024.0;
+
+    @Argument(index = 0, name = "ip4Count", description = "Number of IPv4 routes")
+    int ip4Count = 900_000;
+
+    @Argument(index = 1, name = "ip6Count", description = "Number of IPv6 routes")
+    int ip6Count = 150_000;
+
+    @Argument(index = 2, name = "lookupCount", description = "Number of lookups and updates")
+    int opCount = 1_000_000;
+
+    @Override
+    protected void execute() {
+        print(HEADER);
+        run(IpAddress.Version.INET, ip4Count);
+        run(IpAddress.Version.INET6, ip6Count);
+    }
+
+    private void run(IpAddress.Version version, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Random random = new Random(SEED);
+        List<IpPrefix> prefixes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            prefixes.add(randomPrefix(random, version));
+        }
+        List<IpAddress> addresses = new ArrayList<>(opCount);
+        for (int i = 0; i < opCount; i++) {
+            IpPrefix prefix = prefixes.get(random.nextInt(count));
+            addresses.add(randomAddressIn(random, prefix));
+        }
+
+        measure(version, "radix-tree", prefixes, addresses, new RadixTreeTable());
+        measure(version, "ip-trie", prefixes, addresses, new TrieTable(version));
+    }
+
+    private void measure(IpAddress.Version version, String name, List<IpPrefix> prefixes,
+                         List<IpAddress> addresses, Table table) {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        for (IpPrefix prefix : prefixes) {
+            table.put(prefix);
+        }
+        long load = System.nanoTime() - start;
+        long heap = usedHeap() - heapBefore;
+
+        int matched = 0;
+        start = System.nanoTime();
+        for (IpAddress address : addresses) {
+            if (table.lookup(address) != null) {
+                matched++;
+            }
+        }
+        long lookup = System.nanoTime() - start;
+
+        // each churn operation withdraws a route and announces it again
+        start = System.nanoTime();
+        for (int i = 0; i < addresses.size(); i++) {
+            IpPrefix prefix = prefixes.get(i % prefixes.size());
+            table.remove(prefix);
+            table.put(prefix);
+        }
+        long churn = System.nanoTime() - start;
+
+        if (matched != addresses.size()) {
+            print("%s matched %d of %d lookups", name, matched, addresses.size());
+        }
+        print(FMT + " %10.1f", version == IpAddress.Version.INET ? "ipv4" : "ipv6", name,
+              prefixes.size(), load / prefixes.size(), lookup / addresses.size(),
+              churn / (2 * addresses.size()), heap / MB);
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Generates prefix lengths roughly following the distribution of a
+    // full Internet routing table.
+    private IpPrefix randomPrefix(Random random, IpAddress.Version version) {
+        int length;
+        int p = random.nextInt(100);
+        if (version == IpAddress.Version.INET) {
+            length = p < 60 ? 24 : p < 95 ? 16 + random.nextInt(8) : 8 + random.nextInt(8);
+        } else {
+            length = p < 45 ? 48 : p < 90 ? 29 + random.nextInt(19) : 49 + random.nextInt(16);
+        }
+        byte[] octets = new byte[IpAddress.byteLength(version)];
+        random.nextBytes(octets);
+        return IpPrefix.valueOf(IpAddress.valueOf(version, octets), length);
+    }
+
+    private IpAddress randomAddressIn(Random random, IpPrefix prefix) {
+        byte[] octets = prefix.address().toOctets();
+        for (int i = prefix.prefixLength(); i < octets.length * Byte.SIZE; i++) {
+            if (random.nextBoolean()) {
+                octets[i / Byte.SIZE] |= 1 << (Byte.SIZE - 1 - i % Byte.SIZE);
+            }
+        }
+        return IpAddress.valueOf(prefix.version(), octets);
+    }
+
+    private interface Table {
+        void put(IpPrefix prefix);
+
+        void remove(IpPrefix prefix);
+
+        IpPrefix lookup(IpAddress address);
+    }
+
+    // Mirrors the use of the radix tree by the route stores prior to the trie
+    private static final class RadixTreeTable implements Table {
+        private final InvertedRadixTree<IpPrefix> tree =
+                new ConcurrentInvertedRadixTree<>(new DefaultByteArrayNodeFactory());
+
+        @Override
+        public void put(IpPrefix prefix) {
+            tree.put(RouteTools.createBinaryString(prefix), prefix);
+        }
+
+        @Override
+        public void remove(IpPrefix prefix) {
+            tree.remove(RouteTools.createBinaryString(prefix));
+        }
+
+        @Override
+        public IpPrefix lookup(IpAddress address) {
+            Iterator<IpPrefix> it = tree.getValuesForKeysPrefixing(
+                    RouteTools.createBinaryString(address.toIpPrefix())).iterator();
+            IpPrefix match = null;
+            while (it.hasNext()) {
+                match = it.next();
+            }
+            return match;
+        }
+    }
+
+    private static final class TrieTable implements Table {
+        private final IpPrefixTrie<IpPrefix> trie;
+
+        private TrieTable(IpAddress.Version version) {
+            trie = new IpPrefixTrie<>(version);
+        }
+
+        @Override
+        public void put(IpPrefix prefix) {
+            trie.put(prefix, prefix);
+        }
+
+        @Override
+        public void remove(IpPrefix prefix) {
+            trie.remove(prefix);
+        }
+
+        @Override
+        public IpPrefix lookup(IpAddress address) {
+            return trie.longestPrefixMatch(address);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.onosproject.cli;
 
 import org.apache.karaf.shell.commands.Command;
+import org.apache.karaf.shell.commands.Option;
 import org.onosproject.mastership.MastershipAdminService;
 
 /**
@@ -25,9 +26,26 @@ import org.onosproject.mastership.MastershipAdminService;
         description = "Forces device mastership rebalancing")
 public class BalanceMastersCommand extends AbstractShellCommand {
 
+    @Option(name = "-c", aliases = "--cancel",
+            description = "Cancel the rebalancing in progress",
+            required = false, multiValued = false)
+    private boolean cancel = false;
+
+    @Option(name = "-r", aliases = "--resume",
+            description = "Resume the last cancelled rebalancing",
+            required = false, multiValued = false)
+    private boolean resume = false;
+
     @Override
     protected void execute() {
-        get(MastershipAdminService.class).balanceRoles();
+        MastershipAdminService service = get(MastershipAdminService.class);
+        if (cancel) {
+            service.cancelBalanceRoles();
+        } else if (resume) {
+            service.resumeBalanceRoles();
+        } else {
+            service.balanceRoles();
+        }
     }
 
 }
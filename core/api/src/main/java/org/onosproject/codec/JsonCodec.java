@@ -15,10 +15,12 @@
  */
 package org.onosproject.codec;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -40,6 +42,27 @@ public abstract class JsonCodec<T> {
         throw new UnsupportedOperationException("encode() not supported");
     }
 
+    /**
+     * Encodes the specified entity straight to the given JSON generator.
+     * <p>
+     * The default implementation writes the JSON node returned by
+     * {@link #encode(Object, CodecContext)}. Codecs of entities which are
+     * encoded in large numbers may override it to write the entity without
+     * building the node.
+     * </p>
+     *
+     * @param entity    entity to encode
+     * @param generator JSON generator to write to
+     * @param context   encoding context
+     * @throws IOException if the generator fails to write
+     * @throws java.lang.UnsupportedOperationException if the codec does not
+     *                                                 support encode operations
+     */
+    public void encode(T entity, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        context.mapper().writeTree(generator, encode(entity, context));
+    }
+
     /**
      * Decodes the specified entity from JSON.
      *
@@ -70,6 +93,26 @@ public abstract class JsonCodec<T> {
         return result;
     }
 
+    /**
+     * Encodes the collection of the specified entities straight to the given
+     * JSON generator, as a JSON array.
+     *
+     * @param entities  collection of entities to encode
+     * @param generator JSON generator to write to
+     * @param context   encoding context
+     * @throws IOException if the generator fails to write
+     * @throws java.lang.UnsupportedOperationException if the codec does not
+     *                                                 support encode operations
+     */
+    public void encode(Iterable<T> entities, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        generator.writeStartArray();
+        for (T entity : entities) {
+            encode(entity, generator, context);
+        }
+        generator.writeEndArray();
+    }
+
     /**
      * Decodes the specified JSON array into a collection of entities.
      *
@@ -58,4 +58,18 @@ public interface MastershipAdminService {
      */
     void balanceRoles();
 
+    /**
+     * Cancels the mastership balancing in progress, if any. The mastership
+     * changes already applied are kept.
+     */
+    default void cancelBalanceRoles() {
+    }
+
+    /**
+     * Resumes the last cancelled mastership balancing, applying the
+     * mastership changes that remained when it was cancelled.
+     */
+    default void resumeBalanceRoles() {
+    }
+
 }
@@ -15,6 +15,7 @@
  */
 package org.onosproject.codec.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.onosproject.codec.CodecContext;
@@ -23,6 +24,8 @@ import org.onosproject.net.Annotated;
 import org.onosproject.net.Annotations;
 import org.onosproject.net.DefaultAnnotations;
 
+import java.io.IOException;
+
 /**
  * Base JSON codec for annotated entities.
  */
@@ -44,6 +47,23 @@ public abstract class AnnotatedCodec<T extends Annotated> extends JsonCodec<T> {
         return node;
     }
 
+    /**
+     * Writes the JSON encoding of the given item annotations as a field of
+     * the object being written by the specified generator.
+     *
+     * @param generator generator writing the entity object
+     * @param entity    annotated entity
+     * @param context   encode context
+     * @throws IOException if the generator fails to write
+     */
+    protected void annotate(JsonGenerator generator, T entity, CodecContext context)
+            throws IOException {
+        if (!entity.annotations().keys().isEmpty()) {
+            generator.writeFieldName("annotations");
+            context.codec(Annotations.class).encode(entity.annotations(), generator, context);
+        }
+    }
+
     /**
      * Extracts annotations of given Object.
      *
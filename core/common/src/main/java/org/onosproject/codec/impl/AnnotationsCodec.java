@@ -15,6 +15,7 @@
  */
 package org.onosproject.codec.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.onosproject.codec.CodecContext;
@@ -23,6 +24,7 @@ import org.onosproject.net.Annotations;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DefaultAnnotations.Builder;
 
+import java.io.IOException;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -41,6 +43,16 @@ public final class AnnotationsCodec extends JsonCodec<Annotations> {
         return result;
     }
 
+    @Override
+    public void encode(Annotations annotations, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        generator.writeStartObject();
+        for (String key : new TreeSet<>(annotations.keys())) {
+            generator.writeStringField(key, annotations.value(key));
+        }
+        generator.writeEndObject();
+    }
+
     @Override
     public Annotations decode(ObjectNode json, CodecContext context) {
         Builder builder = DefaultAnnotations.builder();
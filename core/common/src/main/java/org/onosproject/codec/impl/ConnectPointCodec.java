@@ -15,6 +15,7 @@
  */
 package org.onosproject.codec.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.onosproject.codec.CodecContext;
@@ -25,6 +26,8 @@ import org.onosproject.net.ElementId;
 import org.onosproject.net.HostId;
 import org.onosproject.net.PortNumber;
 
+import java.io.IOException;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onosproject.net.PortNumber.portNumber;
 
@@ -53,6 +56,22 @@ public final class ConnectPointCodec extends JsonCodec<ConnectPoint> {
         return root;
     }
 
+    @Override
+    public void encode(ConnectPoint point, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        checkNotNull(point, "Connect point cannot be null");
+        generator.writeStartObject();
+        generator.writeStringField(PORT, point.port().toString());
+
+        if (point.elementId() instanceof DeviceId) {
+            generator.writeStringField(ELEMENT_DEVICE, point.deviceId().toString());
+        } else if (point.elementId() instanceof HostId) {
+            generator.writeStringField(ELEMENT_HOST, point.hostId().toString());
+        }
+
+        generator.writeEndObject();
+    }
+
     @Override
     public ConnectPoint decode(ObjectNode json, CodecContext context) {
         if (json == null || !json.isObject()) {
@@ -15,6 +15,7 @@
  */
 package org.onosproject.codec.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.onosproject.codec.CodecContext;
 import org.onosproject.codec.JsonCodec;
@@ -24,6 +25,8 @@ import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
 
+import java.io.IOException;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -72,5 +75,43 @@ public final class FlowEntryCodec extends JsonCodec<FlowEntry> {
         return result;
     }
 
-}
+    @Override
+    public void encode(FlowEntry flowEntry, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        checkNotNull(flowEntry, "Flow entry cannot be null");
+
+        CoreService service = context.getService(CoreService.class);
+
+        ApplicationId appId = service.getAppId(flowEntry.appId());
+
+        String strAppId = (appId == null) ? "<none>" : appId.name();
 
+        generator.writeStartObject();
+        generator.writeStringField("id", Long.toString(flowEntry.id().value()));
+        generator.writeStringField("tableId", flowEntry.table().toString());
+        generator.writeStringField("appId", strAppId);
+        generator.writeNumberField("groupId", flowEntry.groupId().id());
+        generator.writeNumberField("priority", flowEntry.priority());
+        generator.writeNumberField("timeout", flowEntry.timeout());
+        generator.writeBooleanField("isPermanent", flowEntry.isPermanent());
+        generator.writeStringField("deviceId", flowEntry.deviceId().toString());
+        generator.writeStringField("state", flowEntry.state().toString());
+        generator.writeNumberField("life", flowEntry.life());
+        generator.writeNumberField("packets", flowEntry.packets());
+        generator.writeNumberField("bytes", flowEntry.bytes());
+        generator.writeStringField("liveType", flowEntry.liveType().toString());
+        generator.writeNumberField("lastSeen", flowEntry.lastSeen());
+
+        if (flowEntry.treatment() != null) {
+            generator.writeFieldName("treatment");
+            context.codec(TrafficTreatment.class).encode(flowEntry.treatment(), generator, context);
+        }
+
+        if (flowEntry.selector() != null) {
+            generator.writeFieldName("selector");
+            context.codec(TrafficSelector.class).encode(flowEntry.selector(), generator, context);
+        }
+
+        generator.writeEndObject();
+    }
+}
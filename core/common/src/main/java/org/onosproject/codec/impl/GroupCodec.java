@@ -15,6 +15,7 @@
  */
 package org.onosproject.codec.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -35,6 +36,7 @@ import org.onosproject.net.group.GroupDescription;
 import org.onosproject.net.group.GroupKey;
 import org.slf4j.Logger;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -101,6 +103,37 @@ public final class GroupCodec extends JsonCodec<Group> {
         return result;
     }
 
+    @Override
+    public void encode(Group group, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        checkNotNull(group, "Group cannot be null");
+        generator.writeStartObject();
+        generator.writeStringField(ID, group.id().id().toString());
+        generator.writeStringField(STATE, group.state().toString());
+        generator.writeNumberField(LIFE, group.life());
+        generator.writeNumberField(PACKETS, group.packets());
+        generator.writeNumberField(BYTES, group.bytes());
+        generator.writeNumberField(REFERENCE_COUNT, group.referenceCount());
+        generator.writeStringField(TYPE, group.type().toString());
+        generator.writeStringField(DEVICE_ID, group.deviceId().toString());
+
+        if (group.appId() != null) {
+            generator.writeStringField(APP_ID, group.appId().name());
+        }
+
+        if (group.appCookie() != null) {
+            generator.writeStringField(APP_COOKIE, group.appCookie().toString());
+        }
+
+        if (group.givenGroupId() != null) {
+            generator.writeStringField(GIVEN_GROUP_ID, group.givenGroupId().toString());
+        }
+
+        generator.writeFieldName(BUCKETS);
+        context.codec(GroupBucket.class).encode(group.buckets().buckets(), generator, context);
+        generator.writeEndObject();
+    }
+
     @Override
     public Group decode(ObjectNode json, CodecContext context) {
         if (json == null || !json.isObject()) {
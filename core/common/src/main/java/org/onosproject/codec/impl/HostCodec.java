@@ -21,9 +21,12 @@ import org.onosproject.codec.JsonCodec;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostLocation;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -59,5 +62,30 @@ public final class HostCodec extends AnnotatedCodec<Host> {
         return annotate(result, host, context);
     }
 
+    @Override
+    public void encode(Host host, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        checkNotNull(host, "Host cannot be null");
+        generator.writeStartObject();
+        generator.writeStringField("id", host.id().toString());
+        generator.writeStringField("mac", host.mac().toString());
+        generator.writeStringField("vlan", host.vlan().toString());
+        generator.writeStringField("innerVlan", host.innerVlan().toString());
+        generator.writeStringField("outerTpid", host.tpid().toString());
+        generator.writeBooleanField("configured", host.configured());
+
+        generator.writeArrayFieldStart("ipAddresses");
+        for (final IpAddress ipAddress : host.ipAddresses()) {
+            generator.writeString(ipAddress.toString());
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("locations");
+        context.codec(HostLocation.class).encode(host.locations(), generator, context);
+
+        annotate(generator, host, context);
+        generator.writeEndObject();
+    }
+
 }
 
@@ -19,8 +19,11 @@ import org.onosproject.codec.CodecContext;
 import org.onosproject.codec.JsonCodec;
 import org.onosproject.net.HostLocation;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -36,4 +39,14 @@ public final class HostLocationCodec extends JsonCodec<HostLocation> {
                 .put("port", hostLocation.port().toString());
     }
 
+    @Override
+    public void encode(HostLocation hostLocation, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        checkNotNull(hostLocation, "Host location cannot be null");
+        generator.writeStartObject();
+        generator.writeStringField("elementId", hostLocation.elementId().toString());
+        generator.writeStringField("port", hostLocation.port().toString());
+        generator.writeEndObject();
+    }
+
 }
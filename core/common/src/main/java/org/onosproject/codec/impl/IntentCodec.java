@@ -15,6 +15,7 @@
  */
 package org.onosproject.codec.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -23,6 +24,7 @@ import org.onosproject.codec.CodecContext;
 import org.onosproject.codec.JsonCodec;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.Link;
+import org.onosproject.net.NetworkResource;
 import org.onosproject.net.ResourceGroup;
 import org.onosproject.net.intent.HostToHostIntent;
 import org.onosproject.net.intent.Intent;
@@ -33,6 +35,8 @@ import org.onosproject.net.intent.PointToPointIntent;
 import org.onosproject.net.intent.SinglePointToMultiPointIntent;
 import org.onosproject.net.intent.MultiPointToSinglePointIntent;
 
+import java.io.IOException;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.nullIsIllegal;
 import static org.onlab.util.Tools.nullIsNotFound;
@@ -89,6 +93,40 @@ public final class IntentCodec extends JsonCodec<Intent> {
         return result;
     }
 
+    @Override
+    public void encode(Intent intent, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        checkNotNull(intent, "Intent cannot be null");
+        generator.writeStartObject();
+        generator.writeStringField(TYPE, intent.getClass().getSimpleName());
+        generator.writeStringField(ID, intent.id().toString());
+        generator.writeStringField(KEY, intent.key().toString());
+        generator.writeStringField(APP_ID, UrlEscapers.urlPathSegmentEscaper()
+                .escape(intent.appId().name()));
+        if (intent.resourceGroup() != null) {
+            generator.writeStringField(RESOURCE_GROUP, intent.resourceGroup().toString());
+        }
+
+        generator.writeArrayFieldStart(RESOURCES);
+        JsonCodec<Link> linkCodec = context.codec(Link.class);
+        for (NetworkResource resource : intent.resources()) {
+            if (resource instanceof Link) {
+                linkCodec.encode((Link) resource, generator, context);
+            } else {
+                generator.writeString(resource.toString());
+            }
+        }
+        generator.writeEndArray();
+
+        IntentService service = context.getService(IntentService.class);
+        IntentState state = service.getIntentState(intent.key());
+        if (state != null) {
+            generator.writeStringField(STATE, state.toString());
+        }
+
+        generator.writeEndObject();
+    }
+
     @Override
     public Intent decode(ObjectNode json, CodecContext context) {
         checkNotNull(json, "JSON cannot be null");
@@ -15,6 +15,7 @@
  */
 package org.onosproject.codec.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.onlab.packet.ChassisId;
@@ -30,6 +31,8 @@ import org.onosproject.net.Port.Type;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.provider.ProviderId;
 
+import java.io.IOException;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -59,6 +62,20 @@ public final class PortCodec extends AnnotatedCodec<Port> {
         return annotate(result, port, context);
     }
 
+    @Override
+    public void encode(Port port, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        checkNotNull(port, "Port cannot be null");
+        generator.writeStartObject();
+        generator.writeStringField(ELEMENT, port.element().id().toString());
+        generator.writeStringField(PORT_NAME, portName(port.number()));
+        generator.writeBooleanField(IS_ENABLED, port.isEnabled());
+        generator.writeStringField(TYPE, port.type().toString().toLowerCase());
+        generator.writeNumberField(PORT_SPEED, port.portSpeed());
+        annotate(generator, port, context);
+        generator.writeEndObject();
+    }
+
     private String portName(PortNumber port) {
         return port.equals(PortNumber.LOCAL) ? PORT_NAME_LOCAL : port.toString();
     }
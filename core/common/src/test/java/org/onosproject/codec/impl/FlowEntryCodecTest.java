@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.codec.impl;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.MacAddress;
+import org.onosproject.codec.JsonCodec;
+import org.onosproject.core.CoreService;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+
+import static org.easymock.EasyMock.anyShort;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.onosproject.codec.impl.JsonCodecUtils.assertGeneratorEncodingMatches;
+
+/**
+ * Unit tests for FlowEntryCodec.
+ */
+public class FlowEntryCodecTest {
+
+    private final CoreService mockCoreService = createMock(CoreService.class);
+    private MockCodecContext context;
+    private JsonCodec<FlowEntry> flowEntryCodec;
+
+    private final FlowRule rule = DefaultFlowRule.builder()
+            .forDevice(DeviceId.deviceId("of:000000000000000a"))
+            .forTable(1)
+            .withCookie(1)
+            .withPriority(10)
+            .makePermanent()
+            .withSelector(DefaultTrafficSelector.builder()
+                                  .matchInPort(PortNumber.portNumber(1))
+                                  .matchEthType(Ethernet.TYPE_IPV4)
+                                  .build())
+            .withTreatment(DefaultTrafficTreatment.builder()
+                                   .setEthDst(MacAddress.BROADCAST)
+                                   .setOutput(PortNumber.portNumber(2))
+                                   .build())
+            .build();
+
+    @Before
+    public void setUp() {
+        context = new MockCodecContext();
+        flowEntryCodec = context.codec(FlowEntry.class);
+        assertThat(flowEntryCodec, notNullValue());
+
+        expect(mockCoreService.getAppId(anyShort()))
+                .andReturn(new DefaultApplicationId(1, "app")).anyTimes();
+        replay(mockCoreService);
+        context.registerService(CoreService.class, mockCoreService);
+    }
+
+    /**
+     * Tests encoding of a flow entry.
+     */
+    @Test
+    public void testFlowEntryEncode() {
+        FlowEntry entry = new DefaultFlowEntry(rule, FlowEntry.FlowEntryState.ADDED, 5, 7, 11);
+        ObjectNode json = flowEntryCodec.encode(entry, context);
+
+        assertThat(json.get("id").asText(), is(Long.toString(entry.id().value())));
+        assertThat(json.get("deviceId").asText(), is("of:000000000000000a"));
+        assertThat(json.get("appId").asText(), is("app"));
+        assertThat(json.get("state").asText(), is("ADDED"));
+        assertThat(json.get("packets").asLong(), is(7L));
+        assertThat(json.get("bytes").asLong(), is(11L));
+        assertThat(json.get("selector").get("criteria").size(), is(2));
+        assertThat(json.get("treatment").get("instructions").size(), is(2));
+    }
+
+    /**
+     * Tests encoding a flow entry to a JSON generator matches the encoding
+     * to a JSON node.
+     */
+    @Test
+    public void testFlowEntryGeneratorEncode() throws Exception {
+        assertGeneratorEncodingMatches(context, flowEntryCodec,
+                new DefaultFlowEntry(rule, FlowEntry.FlowEntryState.PENDING_ADD, 5, 7, 11));
+        assertGeneratorEncodingMatches(context, flowEntryCodec,
+                new DefaultFlowEntry(DefaultFlowRule.builder()
+                                             .forDevice(DeviceId.deviceId("of:1"))
+                                             .withCookie(2)
+                                             .withPriority(1)
+                                             .makeTemporary(10)
+                                             .build()));
+    }
+}
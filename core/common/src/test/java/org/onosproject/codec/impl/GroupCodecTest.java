@@ -30,6 +30,8 @@ import org.onosproject.net.flow.instructions.Instruction;
 import org.onosproject.net.flow.instructions.Instructions;
 import org.onosproject.net.group.DefaultGroup;
 import org.onosproject.net.group.DefaultGroupBucket;
+import org.onosproject.net.group.DefaultGroupDescription;
+import org.onosproject.net.group.DefaultGroupKey;
 import org.onosproject.net.group.Group;
 import org.onosproject.net.group.GroupBucket;
 import org.onosproject.net.group.GroupBuckets;
@@ -104,6 +106,25 @@ public class GroupCodecTest {
         assertThat(groupJsonIndirect, matchesGroup(group1));
     }
 
+    @Test
+    public void codecGeneratorEncodeTest() throws IOException {
+        GroupBucket bucket1 = DefaultGroupBucket
+                .createSelectGroupBucket(DefaultTrafficTreatment.builder()
+                                                 .setOutput(PortNumber.portNumber(2))
+                                                 .build());
+        GroupBucket bucket2 = DefaultGroupBucket
+                .createSelectGroupBucket(DefaultTrafficTreatment.emptyTreatment());
+        GroupBuckets buckets = new GroupBuckets(ImmutableList.of(bucket1, bucket2));
+
+        DefaultGroup group = new DefaultGroup(
+                new GroupId(1),
+                new DefaultGroupDescription(NetTestTools.did("d1"), SELECT, buckets,
+                                            new DefaultGroupKey(new byte[] {1, 2, 3}),
+                                            1, APP_ID));
+
+        JsonCodecUtils.assertGeneratorEncodingMatches(context, groupCodec, group);
+    }
+
     @Test
     public void codecDecodeTest() throws IOException {
         Group group = getGroup("simple-group.json");
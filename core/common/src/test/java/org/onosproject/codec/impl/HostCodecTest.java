@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.codec.impl;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.codec.JsonCodec;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.onosproject.codec.impl.JsonCodecUtils.assertGeneratorEncodingMatches;
+
+/**
+ * Unit test for HostCodec.
+ */
+public class HostCodecTest {
+
+    private static final MacAddress MAC = MacAddress.valueOf("00:00:11:00:00:01");
+
+    private final Host host = new DefaultHost(JsonCodecUtils.PID,
+                                              HostId.hostId(MAC, VlanId.vlanId((short) 10)),
+                                              MAC,
+                                              VlanId.vlanId((short) 10),
+                                              ImmutableSet.of(new HostLocation(JsonCodecUtils.CP1, 0),
+                                                              new HostLocation(JsonCodecUtils.CP2, 0)),
+                                              ImmutableSet.of(IpAddress.valueOf("10.0.0.1"),
+                                                              IpAddress.valueOf("10.0.0.2")),
+                                              true,
+                                              JsonCodecUtils.A1);
+
+    @Test
+    public void hostCodecEncodeTest() {
+        final MockCodecContext context = new MockCodecContext();
+        final JsonCodec<Host> codec = context.codec(Host.class);
+        assertThat(codec, is(notNullValue()));
+
+        final ObjectNode json = codec.encode(host, context);
+        assertThat(json.get("id").asText(), is(host.id().toString()));
+        assertThat(json.get("configured").asBoolean(), is(true));
+        assertThat(json.get("ipAddresses").size(), is(2));
+        assertThat(json.get("locations").size(), is(2));
+        assertThat(json.get("annotations"), is(notNullValue()));
+    }
+
+    @Test
+    public void hostCodecGeneratorTest() throws IOException {
+        final MockCodecContext context = new MockCodecContext();
+        final JsonCodec<Host> codec = context.codec(Host.class);
+
+        assertGeneratorEncodingMatches(context, codec, host);
+    }
+}
@@ -35,11 +35,14 @@ import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.FilteredConnectPoint;
 import org.onosproject.net.GridType;
+import org.onosproject.net.DefaultLink;
 import org.onosproject.net.HostId;
 import org.onosproject.net.Lambda;
+import org.onosproject.net.Link;
 import org.onosproject.net.NetTestTools;
 import org.onosproject.net.OchSignalType;
 import org.onosproject.net.PortNumber;
+import org.onosproject.net.ResourceGroup;
 import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.TrafficSelector;
@@ -54,6 +57,7 @@ import org.onosproject.net.intent.HostToHostIntent;
 import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentService;
 import org.onosproject.net.intent.IntentServiceAdapter;
+import org.onosproject.net.intent.LinkCollectionIntent;
 import org.onosproject.net.intent.PointToPointIntent;
 import org.onosproject.net.intent.constraint.AnnotationConstraint;
 import org.onosproject.net.intent.constraint.AsymmetricPathConstraint;
@@ -65,6 +69,7 @@ import org.onosproject.net.intent.constraint.WaypointConstraint;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
@@ -75,6 +80,7 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.onosproject.codec.impl.IntentJsonMatcher.matchesIntent;
+import static org.onosproject.codec.impl.JsonCodecUtils.assertGeneratorEncodingMatches;
 import static org.onosproject.net.NetTestTools.did;
 import static org.onosproject.net.NetTestTools.hid;
 import static org.onosproject.net.flow.instructions.L2ModificationInstruction.ModEtherInstruction;
@@ -149,6 +155,38 @@ public class IntentCodecTest extends AbstractIntentTest {
         assertThat(intentJson, matchesIntent(intent));
     }
 
+    /**
+     * Tests the generator encoding of an intent holding link resources.
+     */
+    @Test
+    public void intentGeneratorEncode() throws IOException {
+        ConnectPoint ingress = NetTestTools.connectPoint("ingress", 1);
+        ConnectPoint egress = NetTestTools.connectPoint("egress", 2);
+        Link link = DefaultLink.builder()
+                .providerId(JsonCodecUtils.PID)
+                .src(ingress)
+                .dst(egress)
+                .type(Link.Type.DIRECT)
+                .annotations(JsonCodecUtils.A1)
+                .build();
+
+        final LinkCollectionIntent intent =
+                LinkCollectionIntent.builder()
+                        .appId(appId)
+                        .selector(emptySelector)
+                        .treatment(emptyTreatment)
+                        .resourceGroup(ResourceGroup.of(1L))
+                        .filteredIngressPoints(ImmutableSet.of(new FilteredConnectPoint(ingress)))
+                        .filteredEgressPoints(ImmutableSet.of(new FilteredConnectPoint(egress)))
+                        .links(ImmutableSet.of(link))
+                        .build();
+
+        final JsonCodec<Intent> intentCodec = context.codec(Intent.class);
+        assertThat(intentCodec, notNullValue());
+
+        assertGeneratorEncodingMatches(context, intentCodec, intent);
+    }
+
     /**
      * Tests the encoding of an intent with treatment, selector and constraints
      * specified.
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.codec.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.codec.JsonCodec;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.Link;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.onosproject.net.DeviceId.deviceId;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Compares the throughput and allocation of encoding large collections as
+ * JSON trees and straight to a JSON generator.
+ */
+public class JsonCodecEncodePerfTest {
+
+    private static final int ENTITIES = 100_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    private final MockCodecContext context = new MockCodecContext();
+
+    private interface Encoder {
+        void encode(OutputStream output) throws IOException;
+    }
+
+    private static Link link(int i) {
+        return DefaultLink.builder()
+                .providerId(JsonCodecUtils.PID)
+                .src(new ConnectPoint(deviceId("of:" + i), portNumber(1)))
+                .dst(new ConnectPoint(deviceId("of:" + (i + 1)), portNumber(2)))
+                .type(Link.Type.DIRECT)
+                .state(Link.State.ACTIVE)
+                .annotations(JsonCodecUtils.A1)
+                .build();
+    }
+
+    private static Host host(int i) {
+        MacAddress mac = MacAddress.valueOf((long) i);
+        return new DefaultHost(JsonCodecUtils.PID, HostId.hostId(mac), mac, VlanId.NONE,
+                               new HostLocation(deviceId("of:" + i), portNumber(1), 0),
+                               ImmutableSet.of(IpAddress.valueOf(i)), JsonCodecUtils.A1);
+    }
+
+    private <T> void compare(String name, JsonCodec<T> codec, List<T> entities) throws IOException {
+        Encoder tree = output -> context.mapper().writeTree(
+                context.mapper().getFactory().createGenerator(output),
+                codec.encode(entities, context));
+        Encoder generator = output -> {
+            try (JsonGenerator jsonGenerator = context.mapper().getFactory().createGenerator(output)) {
+                codec.encode(entities, jsonGenerator, context);
+            }
+        };
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            tree.encode(ByteStreams.nullOutputStream());
+            generator.encode(ByteStreams.nullOutputStream());
+        }
+        report(name + " tree", measure(tree));
+        report(name + " generator", measure(generator));
+    }
+
+    private long[] measure(Encoder encoder) throws IOException {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = bean.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            encoder.encode(ByteStreams.nullOutputStream());
+        }
+        return new long[] {System.nanoTime() - start, bean.getThreadAllocatedBytes(thread) - bytes};
+    }
+
+    private static void report(String name, long[] result) {
+        long entities = (long) ENTITIES * ROUNDS;
+        System.out.println(String.format("%-16s %10.0f entities/s %8d bytes/entity", name,
+                                         entities * 1e9 / result[0], result[1] / entities));
+    }
+
+    @Test
+    @Ignore
+    public void linksPerf() throws IOException {
+        compare("links", context.codec(Link.class),
+                IntStream.range(0, ENTITIES).mapToObj(JsonCodecEncodePerfTest::link)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    @Ignore
+    public void hostsPerf() throws IOException {
+        compare("hosts", context.codec(Host.class),
+                IntStream.range(0, ENTITIES).mapToObj(JsonCodecEncodePerfTest::host)
+                        .collect(Collectors.toList()));
+    }
+}
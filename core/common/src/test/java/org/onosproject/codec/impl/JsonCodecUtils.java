@@ -32,8 +32,12 @@ import org.onosproject.net.PortNumber;
 import org.onosproject.net.SparseAnnotations;
 import org.onosproject.net.provider.ProviderId;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 /**
  * JsonCodec test utilities.
  */
@@ -60,6 +64,28 @@ public abstract class JsonCodecUtils {
         assertEquals(pojoIn, pojoOut);
     }
 
+    /**
+     * Checks if encoding the given Object straight to a JSON generator
+     * yields the same JSON as encoding it to a JSON node.
+     *
+     * @param context CodecContext
+     * @param codec JsonCodec
+     * @param pojo Java Object to encode
+     * @throws IOException if the generator fails to write
+     */
+    public static <T> void assertGeneratorEncodingMatches(final CodecContext context,
+                                                          final JsonCodec<T> codec,
+                                                          final T pojo) throws IOException {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = context.mapper().getFactory().createGenerator(writer)) {
+            codec.encode(pojo, generator, context);
+        }
+
+        // compares the parsed texts, as numeric node types may differ
+        final String expected = context.mapper().writeValueAsString(codec.encode(pojo, context));
+        assertEquals(context.mapper().readTree(expected), context.mapper().readTree(writer.toString()));
+    }
+
     static final ProviderId PID = new ProviderId("of", "foo");
     static final ProviderId PIDA = new ProviderId("of", "bar", true);
     static final DeviceId DID1 = deviceId("of:foo");
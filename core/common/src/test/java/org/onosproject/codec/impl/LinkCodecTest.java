@@ -19,6 +19,7 @@ package org.onosproject.codec.impl;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.onosproject.codec.impl.JsonCodecUtils.assertGeneratorEncodingMatches;
 import static org.onosproject.codec.impl.JsonCodecUtils.assertJsonEncodable;
 
 import org.junit.Test;
@@ -28,6 +29,8 @@ import org.onosproject.net.Link;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.device.DeviceServiceAdapter;
 
+import java.io.IOException;
+
 /**
  * Unit test for LinkCodec.
  */
@@ -53,4 +56,12 @@ public class LinkCodecTest {
 
         assertJsonEncodable(context, codec, pojoIn);
     }
+
+    @Test
+    public void linkCodecGeneratorTest() throws IOException {
+        final MockCodecContext context = new MockCodecContext();
+        final JsonCodec<Link> codec = context.codec(Link.class);
+
+        assertGeneratorEncodingMatches(context, codec, link);
+    }
 }
@@ -19,6 +19,7 @@ package org.onosproject.codec.impl;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.onosproject.codec.impl.JsonCodecUtils.assertGeneratorEncodingMatches;
 import static org.onosproject.codec.impl.JsonCodecUtils.assertJsonEncodable;
 
 import org.junit.Test;
@@ -30,6 +31,8 @@ import org.onosproject.net.Port;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.device.DeviceServiceAdapter;
 
+import java.io.IOException;
+
 /**
  * Unit test for PortCodec.
  */
@@ -63,4 +66,12 @@ public class PortCodecTest {
         assertJsonEncodable(context, codec, pojoIn);
     }
 
+    @Test
+    public void portCodecGeneratorTest() throws IOException {
+        final MockCodecContext context = new MockCodecContext();
+        final JsonCodec<Port> codec = context.codec(Port.class);
+
+        assertGeneratorEncodingMatches(context, codec, port);
+    }
+
 }
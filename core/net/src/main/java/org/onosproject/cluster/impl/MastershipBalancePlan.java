@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.cluster.impl;
+
+import com.google.common.collect.ImmutableMap;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plan of the mastership changes balancing the devices between nodes with
+ * the fewest possible moves.
+ * <p>
+ * The plan works on a copy of the device mastership; each balancing step
+ * updates the copy, so that steps applied to overlapping sets of nodes (e.g.
+ * regions) see the effect of the previous ones.
+ * </p>
+ */
+final class MastershipBalancePlan {
+
+    private final Map<NodeId, Set<DeviceId>> buckets = new HashMap<>();
+    private final Map<DeviceId, NodeId> masters = new HashMap<>();
+    private final Map<DeviceId, NodeId> originalMasters = new HashMap<>();
+    private final Map<DeviceId, NodeId> moves = new LinkedHashMap<>();
+
+    /**
+     * Creates a plan starting from the given mastership.
+     *
+     * @param mastership devices mastered by each node
+     */
+    MastershipBalancePlan(Map<NodeId, ? extends Collection<DeviceId>> mastership) {
+        mastership.forEach((node, devices) -> {
+            buckets.put(node, new HashSet<>(devices));
+            devices.forEach(device -> {
+                masters.put(device, node);
+                originalMasters.put(device, node);
+            });
+        });
+    }
+
+    /**
+     * Returns the devices mastered by the given node once the plan is applied.
+     *
+     * @param node node identifier
+     * @return devices of the node
+     */
+    Set<DeviceId> devicesOf(NodeId node) {
+        return buckets.computeIfAbsent(node, n -> new HashSet<>());
+    }
+
+    /**
+     * Balances the devices of the given nodes, together with the given
+     * orphaned devices, between these nodes. Each node ends up with the
+     * average number of devices, rounded up for the nodes having the most
+     * devices to begin with, so that the number of moved devices is minimal.
+     *
+     * @param nodes nodes to balance
+     * @param orphans devices to be assigned to one of the nodes
+     */
+    void balance(Collection<NodeId> nodes, Collection<DeviceId> orphans) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        List<NodeId> sorted = new ArrayList<>(nodes);
+        // largest buckets first; ties broken by node identifier for a stable plan
+        sorted.sort(Comparator.comparingInt((NodeId n) -> devicesOf(n).size()).reversed()
+                            .thenComparing(NodeId::id));
+
+        int total = orphans.size();
+        for (NodeId node : sorted) {
+            total += devicesOf(node).size();
+        }
+        int base = total / sorted.size();
+        int extra = total % sorted.size();
+
+        Deque<DeviceId> pool = new ArrayDeque<>(orphans);
+        Map<NodeId, Integer> targets = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            NodeId node = sorted.get(i);
+            int target = base + (i < extra ? 1 : 0);
+            targets.put(node, target);
+            Iterator<DeviceId> it = devicesOf(node).iterator();
+            for (int surplus = devicesOf(node).size() - target; surplus > 0; surplus--) {
+                DeviceId device = it.next();
+                it.remove();
+                pool.add(device);
+            }
+        }
+
+        // hand out the pool round robin, spreading the moves over the receiving nodes
+        boolean assigned = true;
+        while (!pool.isEmpty() && assigned) {
+            assigned = false;
+            for (NodeId node : sorted) {
+                if (devicesOf(node).size() < targets.get(node) && !pool.isEmpty()) {
+                    move(pool.poll(), node);
+                    assigned = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns the given device to the given node.
+     *
+     * @param device device identifier
+     * @param node node identifier
+     */
+    void move(DeviceId device, NodeId node) {
+        NodeId previous = masters.put(device, node);
+        if (previous != null && !previous.equals(node)) {
+            devicesOf(previous).remove(device);
+        }
+        devicesOf(node).add(device);
+        if (node.equals(originalMasters.get(device))) {
+            moves.remove(device);
+        } else {
+            moves.put(device, node);
+        }
+    }
+
+    /**
+     * Returns the new master of each device changing master, in the order
+     * the changes were planned.
+     *
+     * @return new master of the moved devices
+     */
+    Map<DeviceId, NodeId> moves() {
+        return ImmutableMap.copyOf(moves);
+    }
+}
@@ -15,8 +15,10 @@
  */
 package org.onosproject.cluster.impl;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
@@ -28,6 +30,8 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
 import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cfg.ConfigProperty;
@@ -55,17 +59,17 @@ import org.onosproject.upgrade.UpgradeEventListener;
 import org.onosproject.upgrade.UpgradeService;
 import org.slf4j.Logger;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
@@ -118,6 +122,12 @@ public class MastershipManager
 
     private NodeId localNodeId;
     private Timer requestRoleTimer;
+    private Timer balanceRolesGapTimer;
+
+    private final AtomicReference<RoleBalancer> roleBalancer = new AtomicReference<>();
+    private final AtomicReference<RoleBalancer> cancelledBalancer = new AtomicReference<>();
+    // incremented each time a new balancing starts, so that an older cancelled one is not resumed
+    private final AtomicLong balanceGeneration = new AtomicLong();
 
     static final boolean DEFAULT_USE_REGION_FOR_BALANCE_ROLES = false;
     @Property(name = "useRegionForBalanceRoles", boolValue = DEFAULT_USE_REGION_FOR_BALANCE_ROLES,
@@ -130,12 +140,19 @@ public class MastershipManager
             label = "Automatically rebalance roles following an upgrade")
     protected boolean rebalanceRolesOnUpgrade = DEFAULT_REBALANCE_ROLES_ON_UPGRADE;
 
+    private static final int DEFAULT_BALANCE_ROLES_WAVE_SIZE = 50;
+    @Property(name = "balanceRolesWaveSize", intValue = DEFAULT_BALANCE_ROLES_WAVE_SIZE,
+            label = "Maximum number of concurrent mastership changes when balancing roles")
+    protected int balanceRolesWaveSize = DEFAULT_BALANCE_ROLES_WAVE_SIZE;
+
     @Activate
     public void activate() {
         cfgService.registerProperties(getClass());
         modified();
 
         requestRoleTimer = createTimer("Mastership", "requestRole", "responseTime");
+        balanceRolesGapTimer = createTimer("Mastership", "balanceRoles", "mastershipGap");
+        registerBalanceRolesGauge();
         localNodeId = clusterService.getLocalNode().id();
         upgradeService.addListener(upgradeEventListener);
         eventDispatcher.addSink(MastershipEvent.class, listenerRegistry);
@@ -149,12 +166,16 @@ public class MastershipManager
         for (ConfigProperty property : configProperties) {
             if ("useRegionForBalanceRoles".equals(property.name())) {
                 useRegionForBalanceRoles = property.asBoolean();
+            } else if ("balanceRolesWaveSize".equals(property.name()) && property.asInteger() > 0) {
+                balanceRolesWaveSize = property.asInteger();
             }
         }
     }
 
     @Deactivate
     public void deactivate() {
+        cancelBalanceRoles();
+        unregisterBalanceRolesGauge();
         eventDispatcher.removeSink(MastershipEvent.class);
         upgradeService.removeListener(upgradeEventListener);
         store.unsetDelegate(delegate);
@@ -257,199 +278,126 @@ public class MastershipManager
         return metricsService;
     }
 
-    @Override
-    public void balanceRoles() {
-        List<ControllerNode> nodes = newArrayList(clusterService.getNodes());
-        Map<ControllerNode, Set<DeviceId>> controllerDevices = new HashMap<>();
-        Set<DeviceId> orphanedDevices = Sets.newHashSet();
-        int deviceCount = 0;
-
-        // Create buckets reflecting current ownership; do this irrespective of
-        // whether the node is active.
-        for (ControllerNode node : nodes) {
-            Set<DeviceId> devicesOf = new HashSet<>(getDevicesOf(node.id()));
-            if (clusterService.getState(node.id()).isActive()) {
-                log.info("Node {} has {} devices.", node.id(), devicesOf.size());
-                deviceCount += devicesOf.size();
-                controllerDevices.put(node, devicesOf);
-            } else if (!devicesOf.isEmpty()) {
-                log.warn("Inactive node {} has {} orphaned devices.", node.id(), devicesOf.size());
-                orphanedDevices.addAll(getDevicesOf(node.id()));
-            }
+    // Publishes the number of devices left to move by the balancing in progress.
+    private void registerBalanceRolesGauge() {
+        if (metricsService == null) {
+            return;
         }
+        MetricsComponent component = metricsService.registerComponent("Mastership");
+        MetricsFeature feature = component.registerFeature("balanceRoles");
+        metricsService.registerMetric(component, feature, "pendingMoves", (Gauge<Integer>) () -> {
+            RoleBalancer balancer = roleBalancer.get();
+            return balancer == null ? 0 : balancer.pendingCount();
+        });
+    }
 
-        if (useRegionForBalanceRoles && balanceRolesUsingRegions(controllerDevices)) {
+    private void unregisterBalanceRolesGauge() {
+        if (metricsService == null) {
             return;
         }
+        MetricsComponent component = metricsService.registerComponent("Mastership");
+        MetricsFeature feature = component.registerFeature("balanceRoles");
+        metricsService.removeMetric(component, feature, "pendingMoves");
+    }
 
-        List<CompletableFuture<Void>> balanceBucketsFutures = Lists.newLinkedList();
-
-        // First re-balance the buckets until they are roughly even.
-        balanceControllerNodes(controllerDevices, deviceCount, balanceBucketsFutures);
-
-        // Then attempt to distribute any orphaned devices among the buckets.
-        distributeOrphanedDevices(controllerDevices, orphanedDevices, balanceBucketsFutures);
-
-        CompletableFuture<Void> balanceRolesFuture =
-                allOf(balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-        Futures.getUnchecked(balanceRolesFuture);
+    @Override
+    public void balanceRoles() {
+        // only the running balancer increments the generation
+        RoleBalancer balancer = new RoleBalancer(planBalance().moves(), balanceGeneration.get() + 1);
+        if (!roleBalancer.compareAndSet(null, balancer)) {
+            log.info("Mastership balancing already in progress");
+            return;
+        }
+        balanceGeneration.incrementAndGet();
+        cancelledBalancer.set(null);
+        balancer.run();
     }
 
-    /**
-     * Balances the nodes specified in controllerDevices.
-     *
-     * @param controllerDevices controller nodes to devices map
-     * @param deviceCount       number of devices mastered by controller nodes
-     * @param futures           list of setRole futures for "moved" devices
-     */
-    private void balanceControllerNodes(Map<ControllerNode, Set<DeviceId>> controllerDevices,
-                                        int deviceCount,
-                                        List<CompletableFuture<Void>> futures) {
-        // Now re-balance the buckets until they are roughly even.
-        int rounds = controllerDevices.keySet().size();
-        for (int i = 0; i < rounds; i++) {
-            // Iterate over the buckets and find the smallest and the largest.
-            ControllerNode smallest = findBucket(true, controllerDevices);
-            ControllerNode largest = findBucket(false, controllerDevices);
-            futures.add(balanceBuckets(smallest, largest, controllerDevices, deviceCount));
+    @Override
+    public void cancelBalanceRoles() {
+        RoleBalancer balancer = roleBalancer.get();
+        if (balancer != null) {
+            balancer.cancel();
         }
     }
 
-    /**
-     * Uses the set of orphaned devices to even out the load among the controllers.
-     *
-     * @param controllerDevices controller nodes to devices map
-     * @param orphanedDevices   set of orphaned devices without an active master
-     * @param futures           list of completable future to track the progress of the balancing operation
-     */
-    private void distributeOrphanedDevices(Map<ControllerNode, Set<DeviceId>> controllerDevices,
-                                           Set<DeviceId> orphanedDevices,
-                                           List<CompletableFuture<Void>> futures) {
-        // Now re-distribute the orphaned devices into buckets until they are roughly even.
-        while (!orphanedDevices.isEmpty()) {
-            // Iterate over the buckets and find the smallest bucket.
-            ControllerNode smallest = findBucket(true, controllerDevices);
-            changeMastership(smallest, controllerDevices.get(smallest),
-                             orphanedDevices, 1, futures);
+    @Override
+    public void resumeBalanceRoles() {
+        RoleBalancer balancer = cancelledBalancer.getAndSet(null);
+        if (balancer == null) {
+            log.info("No cancelled mastership balancing to resume");
+            return;
+        }
+        if (balancer.generation != balanceGeneration.get()) {
+            log.info("Cancelled mastership balancing superseded by a newer one, dropping it");
+            return;
+        }
+        RoleBalancer resumed = new RoleBalancer(balancer.remaining(), balancer.generation);
+        if (!roleBalancer.compareAndSet(null, resumed)) {
+            cancelledBalancer.compareAndSet(null, balancer);
+            log.info("Mastership balancing already in progress");
+            return;
         }
+        resumed.run();
     }
 
     /**
-     * Finds node with the minimum/maximum devices from a list of nodes.
+     * Computes the mastership changes balancing the devices between the
+     * active nodes, without applying them.
      *
-     * @param min               true: minimum, false: maximum
-     * @param controllerDevices controller nodes to devices map
-     * @return controller node with minimum/maximum devices
+     * @return plan of the mastership changes
      */
+    private MastershipBalancePlan planBalance() {
+        List<ControllerNode> nodes = newArrayList(clusterService.getNodes());
+        Map<NodeId, Set<DeviceId>> controllerDevices = new HashMap<>();
+        Set<DeviceId> orphanedDevices = Sets.newHashSet();
 
-    private ControllerNode findBucket(boolean min,
-                                      Map<ControllerNode, Set<DeviceId>> controllerDevices) {
-        int xSize = min ? Integer.MAX_VALUE : -1;
-        ControllerNode xNode = null;
-        for (ControllerNode node : controllerDevices.keySet()) {
-            int size = controllerDevices.get(node).size();
-            if ((min && size < xSize) || (!min && size > xSize)) {
-                xSize = size;
-                xNode = node;
+        // Create buckets reflecting current ownership; do this irrespective of
+        // whether the node is active.
+        for (ControllerNode node : nodes) {
+            Set<DeviceId> devicesOf = new HashSet<>(getDevicesOf(node.id()));
+            if (clusterService.getState(node.id()).isActive()) {
+                log.info("Node {} has {} devices.", node.id(), devicesOf.size());
+                controllerDevices.put(node.id(), devicesOf);
+            } else if (!devicesOf.isEmpty()) {
+                log.warn("Inactive node {} has {} orphaned devices.", node.id(), devicesOf.size());
+                orphanedDevices.addAll(devicesOf);
             }
         }
-        return xNode;
-    }
 
-    /**
-     * Balance the node buckets by moving devices from largest to smallest node.
-     *
-     * @param smallest          node that is master of the smallest number of devices
-     * @param largest           node that is master of the largest number of devices
-     * @param controllerDevices controller nodes to devices map
-     * @param deviceCount       number of devices mastered by controller nodes
-     * @return list of setRole futures for "moved" devices
-     */
-    private CompletableFuture<Void> balanceBuckets(ControllerNode smallest, ControllerNode largest,
-                                                   Map<ControllerNode, Set<DeviceId>> controllerDevices,
-                                                   int deviceCount) {
-        Collection<DeviceId> minBucket = controllerDevices.get(smallest);
-        Collection<DeviceId> maxBucket = controllerDevices.get(largest);
-        int bucketCount = controllerDevices.keySet().size();
-
-        int delta = (maxBucket.size() - minBucket.size()) / 2;
-        delta = Math.min(deviceCount / bucketCount, delta);
-
-        List<CompletableFuture<Void>> setRoleFutures = Lists.newLinkedList();
-
-        if (delta > 0) {
-            log.info("Attempting to move {} nodes from {} to {}...", delta,
-                     largest.id(), smallest.id());
-            changeMastership(smallest, minBucket, maxBucket, delta, setRoleFutures);
+        MastershipBalancePlan plan = new MastershipBalancePlan(controllerDevices);
+        if (useRegionForBalanceRoles && planBalanceUsingRegions(plan, controllerDevices.keySet())) {
+            return plan;
         }
 
-        return allOf(setRoleFutures.toArray(new CompletableFuture[setRoleFutures.size()]));
-    }
-
-    /**
-     * Changes mastership for the specified number of devices in the given source
-     * bucket to the specified node and ads those devices to the given target
-     * bucket. Also adds the futures for tracking the role reassignment progress.
-     *
-     * @param toNode     target controller node
-     * @param toBucket   target bucket
-     * @param fromBucket source bucket
-     * @param count      number of devices
-     * @param futures    futures for tracking operation progress
-     */
-    private void changeMastership(ControllerNode toNode, Collection<DeviceId> toBucket,
-                                  Collection<DeviceId> fromBucket, int count,
-                                  List<CompletableFuture<Void>> futures) {
-        int i = 0;
-        Iterator<DeviceId> it = fromBucket.iterator();
-        while (it.hasNext() && i < count) {
-            DeviceId deviceId = it.next();
-            log.info("Setting {} as the master for {}", toNode.id(), deviceId);
-            futures.add(setRole(toNode.id(), deviceId, MASTER));
-            toBucket.add(deviceId);
-            it.remove();
-            i++;
-        }
+        // Re-balance the buckets, distributing the orphaned devices among them.
+        plan.balance(controllerDevices.keySet(), orphanedDevices);
+        return plan;
     }
 
     /**
      * Balances the nodes considering Region information.
      *
-     * @param allControllerDevices controller nodes to devices map
+     * @param plan        plan of the mastership changes
+     * @param activeNodes active controller nodes
      * @return true: nodes balanced; false: nodes not balanced
      */
-    private boolean balanceRolesUsingRegions(Map<ControllerNode, Set<DeviceId>> allControllerDevices) {
+    private boolean planBalanceUsingRegions(MastershipBalancePlan plan, Set<NodeId> activeNodes) {
         Set<Region> regions = regionService.getRegions();
         if (regions.isEmpty()) {
             return false; // no balancing was done using regions.
         }
 
         // Handle nodes belonging to regions
-        Set<ControllerNode> nodesInRegions = Sets.newHashSet();
+        Set<NodeId> nodesInRegions = Sets.newHashSet();
         for (Region region : regions) {
-            Map<ControllerNode, Set<DeviceId>> activeRegionControllers =
-                    balanceRolesInRegion(region, allControllerDevices);
-            nodesInRegions.addAll(activeRegionControllers.keySet());
+            nodesInRegions.addAll(planBalanceInRegion(plan, region));
         }
 
         // Handle nodes not belonging to any region
-        Set<ControllerNode> nodesNotInRegions = Sets.difference(allControllerDevices.keySet(), nodesInRegions);
+        Set<NodeId> nodesNotInRegions = Sets.difference(activeNodes, nodesInRegions);
         if (!nodesNotInRegions.isEmpty()) {
-            int deviceCount = 0;
-            Map<ControllerNode, Set<DeviceId>> controllerDevicesNotInRegions = new HashMap<>();
-            for (ControllerNode controllerNode : nodesNotInRegions) {
-                controllerDevicesNotInRegions.put(controllerNode, allControllerDevices.get(controllerNode));
-                deviceCount += allControllerDevices.get(controllerNode).size();
-            }
-            // Now re-balance the buckets until they are roughly even.
-            List<CompletableFuture<Void>> balanceBucketsFutures = Lists.newArrayList();
-            balanceControllerNodes(controllerDevicesNotInRegions, deviceCount, balanceBucketsFutures);
-
-            CompletableFuture<Void> balanceRolesFuture = allOf(
-                    balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-            Futures.getUnchecked(balanceRolesFuture);
+            plan.balance(nodesNotInRegions, ImmutableSet.of());
         }
         return true; // balancing was done using regions.
     }
@@ -457,104 +405,137 @@ public class MastershipManager
     /**
      * Balances the nodes in specified region.
      *
-     * @param region               region in which nodes are to be balanced
-     * @param allControllerDevices controller nodes to devices map
+     * @param plan   plan of the mastership changes
+     * @param region region in which nodes are to be balanced
      * @return controller nodes that were balanced
      */
-    private Map<ControllerNode, Set<DeviceId>>
-            balanceRolesInRegion(Region region,
-                                 Map<ControllerNode, Set<DeviceId>> allControllerDevices) {
-
+    private Set<NodeId> planBalanceInRegion(MastershipBalancePlan plan, Region region) {
         // Retrieve all devices associated with specified region
         Set<DeviceId> devicesInRegion = regionService.getRegionDevices(region.id());
         log.info("Region {} has {} devices.", region.id(), devicesInRegion.size());
         if (devicesInRegion.isEmpty()) {
-            return new HashMap<>(); // no devices in this region, so nothing to balance.
+            return ImmutableSet.of(); // no devices in this region, so nothing to balance.
         }
 
         List<Set<NodeId>> mastersList = region.masters();
         log.info("Region {} has {} sets of masters.", region.id(), mastersList.size());
         if (mastersList.isEmpty()) {
             // TODO handle devices that belong to a region, which has no masters defined
-            return new HashMap<>(); // for now just leave devices alone
+            return ImmutableSet.of(); // for now just leave devices alone
         }
 
         // Get the region's preferred set of masters
-        Set<DeviceId> devicesInMasters = Sets.newHashSet();
-        Map<ControllerNode, Set<DeviceId>> regionalControllerDevices =
-                getRegionsPreferredMasters(region, devicesInMasters, allControllerDevices);
-
-        // Now re-balance the buckets until they are roughly even.
-        List<CompletableFuture<Void>> balanceBucketsFutures = Lists.newArrayList();
-        balanceControllerNodes(regionalControllerDevices, devicesInMasters.size(), balanceBucketsFutures);
-
-        // Handle devices that are not currently mastered by the master node set
-        Set<DeviceId> devicesNotMasteredWithControllers = Sets.difference(devicesInRegion, devicesInMasters);
-        if (!devicesNotMasteredWithControllers.isEmpty()) {
-            // active controllers in master node set are already balanced, just
-            // assign device mastership in sequence
-            List<ControllerNode> sorted = new ArrayList<>(regionalControllerDevices.keySet());
-            Collections.sort(sorted, Comparator.comparingInt(o -> (regionalControllerDevices.get(o)).size()));
-            int deviceIndex = 0;
-            for (DeviceId deviceId : devicesNotMasteredWithControllers) {
-                ControllerNode cnode = sorted.get(deviceIndex % sorted.size());
-                balanceBucketsFutures.add(setRole(cnode.id(), deviceId, MASTER));
-                regionalControllerDevices.get(cnode).add(deviceId);
-                deviceIndex++;
-            }
+        Set<NodeId> regionMasters = getRegionsPreferredMasters(region);
+        if (regionMasters.isEmpty()) {
+            return regionMasters;
         }
 
-        CompletableFuture<Void> balanceRolesFuture =
-                allOf(balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-        Futures.getUnchecked(balanceRolesFuture);
-
-        // Update the map before returning
-        regionalControllerDevices.forEach((controllerNode, deviceIds) -> {
-            regionalControllerDevices.put(controllerNode, new HashSet<>(getDevicesOf(controllerNode.id())));
-        });
-
-        return regionalControllerDevices;
+        // Devices that are not currently mastered by the master node set
+        // are distributed among the master node set while balancing it.
+        Set<DeviceId> devicesInMasters = Sets.newHashSet();
+        regionMasters.forEach(node -> devicesInMasters.addAll(plan.devicesOf(node)));
+        plan.balance(regionMasters, Sets.difference(devicesInRegion, devicesInMasters).immutableCopy());
+        return regionMasters;
     }
 
     /**
      * Get region's preferred set of master nodes - the first master node set that has at
      * least one active node.
      *
-     * @param region               region for which preferred set of master nodes is requested
-     * @param devicesInMasters     device set to track devices in preferred set of master nodes
-     * @param allControllerDevices controller nodes to devices map
-     * @return region's preferred master nodes (and devices that use them as masters)
+     * @param region region for which preferred set of master nodes is requested
+     * @return active nodes of the region's preferred master nodes
      */
-    private Map<ControllerNode, Set<DeviceId>>
-            getRegionsPreferredMasters(Region region,
-                                       Set<DeviceId> devicesInMasters,
-                                       Map<ControllerNode, Set<DeviceId>> allControllerDevices) {
-        Map<ControllerNode, Set<DeviceId>> regionalControllerDevices = new HashMap<>();
+    private Set<NodeId> getRegionsPreferredMasters(Region region) {
         int listIndex = 0;
         for (Set<NodeId> masterSet : region.masters()) {
             log.info("Region {} masters set {} has {} nodes.",
                      region.id(), listIndex, masterSet.size());
-            if (masterSet.isEmpty()) { // nothing on this level
-                listIndex++;
-                continue;
-            }
-            // Create buckets reflecting current ownership.
+            Set<NodeId> activeMasters = Sets.newHashSet();
             for (NodeId nodeId : masterSet) {
                 if (clusterService.getState(nodeId).isActive()) {
-                    ControllerNode controllerNode = clusterService.getNode(nodeId);
-                    Set<DeviceId> devicesOf = new HashSet<>(allControllerDevices.get(controllerNode));
-                    regionalControllerDevices.put(controllerNode, devicesOf);
-                    devicesInMasters.addAll(devicesOf);
-                    log.info("Active Node {} has {} devices.", nodeId, devicesOf.size());
+                    activeMasters.add(nodeId);
                 }
             }
-            if (!regionalControllerDevices.isEmpty()) {
-                break; // now have a set of >0 active controllers
+            if (!activeMasters.isEmpty()) {
+                return activeMasters; // now have a set of >0 active controllers
             }
             listIndex++; // keep on looking
         }
-        return regionalControllerDevices;
+        return ImmutableSet.of();
+    }
+
+    /**
+     * Applies the mastership changes of a balancing plan in waves of bounded
+     * size, so that the nodes and devices are not flooded with role requests.
+     * The balancing can be cancelled between two waves.
+     */
+    private final class RoleBalancer {
+        private final Deque<Map.Entry<DeviceId, NodeId>> pending;
+        private final int total;
+        private final long generation;
+        private volatile boolean cancelled;
+        private int moved;
+
+        private RoleBalancer(Map<DeviceId, NodeId> moves, long generation) {
+            this.pending = new ConcurrentLinkedDeque<>(moves.entrySet());
+            this.total = moves.size();
+            this.generation = generation;
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+
+        private Map<DeviceId, NodeId> remaining() {
+            Map<DeviceId, NodeId> remaining = new LinkedHashMap<>();
+            pending.forEach(move -> remaining.put(move.getKey(), move.getValue()));
+            return remaining;
+        }
+
+        private int pendingCount() {
+            return pending.size();
+        }
+
+        private void run() {
+            try {
+                log.info("Balancing mastership: {} devices to move in waves of {}",
+                         total, balanceRolesWaveSize);
+                while (!pending.isEmpty()) {
+                    if (cancelled) {
+                        cancelledBalancer.set(this);
+                        log.info("Mastership balancing cancelled after moving {} of {} devices",
+                                 moved, total);
+                        return;
+                    }
+                    List<CompletableFuture<Void>> wave = Lists.newArrayList();
+                    while (wave.size() < balanceRolesWaveSize && !pending.isEmpty()) {
+                        Map.Entry<DeviceId, NodeId> move = pending.poll();
+                        if (isMoveNeeded(move.getKey(), move.getValue())) {
+                            wave.add(moveMastership(move.getKey(), move.getValue()));
+                        }
+                    }
+                    Futures.getUnchecked(allOf(wave.toArray(new CompletableFuture[wave.size()])));
+                    moved += wave.size();
+                    log.debug("Moved {} of {} devices", moved, total);
+                }
+                log.info("Mastership balancing completed; moved {} devices", moved);
+            } finally {
+                roleBalancer.compareAndSet(this, null);
+            }
+        }
+
+        // The mastership may have changed since the plan was computed,
+        // especially when resuming a cancelled balancing.
+        private boolean isMoveNeeded(DeviceId deviceId, NodeId nodeId) {
+            return clusterService.getState(nodeId).isActive()
+                    && !nodeId.equals(store.getMaster(deviceId));
+        }
+
+        private CompletableFuture<Void> moveMastership(DeviceId deviceId, NodeId nodeId) {
+            log.info("Setting {} as the master for {}", nodeId, deviceId);
+            final Context timer = startTimer(balanceRolesGapTimer);
+            return setRole(nodeId, deviceId, MASTER).whenComplete((result, error) -> stopTimer(timer));
+        }
     }
 
     public class InternalDelegate implements MastershipStoreDelegate {
@@ -15,9 +15,8 @@
  */
 package org.onosproject.net.intent.impl;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.SetMultimap;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -25,6 +24,8 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.event.Event;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
@@ -58,10 +59,11 @@ import org.onosproject.net.topology.TopologyService;
 import org.slf4j.Logger;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -69,9 +71,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onlab.util.Tools.isNullOrEmpty;
 import static org.onosproject.net.LinkKey.linkKey;
@@ -87,16 +90,13 @@ import static org.slf4j.LoggerFactory.getLogger;
  */
 @Component(immediate = true)
 @Service
-public class ObjectiveTracker implements ObjectiveTrackerService {
+public class ObjectiveTracker implements ObjectiveTrackerService, MetricsHelper {
 
     private final Logger log = getLogger(getClass());
 
-    private final SetMultimap<LinkKey, Key> intentsByLink =
-            //TODO this could be slow as a point of synchronization
-            synchronizedSetMultimap(HashMultimap.<LinkKey, Key>create());
+    private final TrackedResourceIndex<LinkKey> intentsByLink = new TrackedResourceIndex<>();
 
-    private final SetMultimap<ElementId, Key> intentsByDevice =
-            synchronizedSetMultimap(HashMultimap.<ElementId, Key>create());
+    private final TrackedResourceIndex<ElementId> intentsByDevice = new TrackedResourceIndex<>();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected TopologyService topologyService;
@@ -119,6 +119,9 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected WorkPartitionService partitionService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private ExecutorService executorService =
             newSingleThreadExecutor(groupedThreads("onos/intent", "objectivetracker", log));
     private ScheduledExecutorService executor =
@@ -133,6 +136,13 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     protected final AtomicBoolean updateScheduled = new AtomicBoolean(false);
 
+    // Recompile triggers queued since the last call to the delegate
+    private final Queue<PendingTrigger> pendingTriggers = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean triggersScheduled = new AtomicBoolean(false);
+
+    private Timer handlerTimer;
+    private Timer triggerLatencyTimer;
+
     /**
      * Hook for wiring up optional reference to a service.
      *
@@ -158,6 +168,8 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     @Activate
     public void activate() {
+        handlerTimer = createTimer("IntentService", "objectiveTracker", "handler");
+        triggerLatencyTimer = createTimer("IntentService", "objectiveTracker", "triggerLatency");
         topologyService.addListener(listener);
         resourceService.addListener(resourceListener);
         deviceService.addListener(deviceListener);
@@ -203,6 +215,11 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         this.delegate = null;
     }
 
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
     @Override
     public void addTrackedResources(Key intentKey,
                                     Collection<NetworkResource> resources) {
@@ -222,7 +239,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
             if (resource instanceof Link) {
                 intentsByLink.remove(linkKey((Link) resource), intentKey);
             } else if (resource instanceof ElementId) {
-                intentsByDevice.remove(resource, intentKey);
+                intentsByDevice.remove((ElementId) resource, intentKey);
             }
         }
     }
@@ -243,7 +260,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         if (log.isTraceEnabled()) {
             log.trace("intent {}, old: {}, new: {}, installableCount: {}, resourceCount: {}",
                       key,
-                      intentsByDevice.values().contains(key),
+                      intentsByDevice.containsIntent(key),
                       isLocal && isInstalled,
                       installables.size(),
                       intent.resources().size() +
@@ -275,12 +292,75 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     private class InternalTopologyListener implements TopologyListener {
         @Override
         public void event(TopologyEvent event) {
-            executorService.execute(new TopologyChangeHandler(event));
+            enqueue(new TopologyChangeHandler(event));
+        }
+    }
+
+    /**
+     * Source of intents to recompile. Triggers queued while the delegate is
+     * busy are coalesced into a single call to the delegate.
+     */
+    private interface RecompileTrigger {
+        /**
+         * Adds the keys of the intents to recompile to the given set.
+         *
+         * @param intentsToRecompile set of intent keys being accrued
+         * @return true if all failed intents should be recompiled as well
+         */
+        boolean collect(Set<Key> intentsToRecompile);
+    }
+
+    private static final class PendingTrigger {
+        private final RecompileTrigger trigger;
+        private final long queuedNanos = System.nanoTime();
+
+        private PendingTrigger(RecompileTrigger trigger) {
+            this.trigger = trigger;
+        }
+    }
+
+    private void enqueue(RecompileTrigger trigger) {
+        pendingTriggers.add(new PendingTrigger(trigger));
+        if (triggersScheduled.compareAndSet(false, true)) {
+            executorService.execute(this::processTriggers);
+        }
+    }
+
+    // Drains the queued triggers and hands them to the delegate in one batch.
+    private void processTriggers() {
+        triggersScheduled.set(false);
+        List<PendingTrigger> triggers = Lists.newArrayList();
+        PendingTrigger pending;
+        while ((pending = pendingTriggers.poll()) != null) {
+            triggers.add(pending);
+        }
+        // If there is no delegate, why bother? Just bail.
+        if (triggers.isEmpty() || delegate == null) {
+            return;
+        }
+
+        Timer.Context timer = startTimer(handlerTimer);
+        try {
+            Set<Key> intentsToRecompile = new HashSet<>();
+            boolean compileAllFailed = false;
+            for (PendingTrigger trigger : triggers) {
+                compileAllFailed |= trigger.trigger.collect(intentsToRecompile);
+            }
+            log.debug("{} trigger(s) coalesced into recompile of {} intent(s), all failed: {}",
+                      triggers.size(), intentsToRecompile.size(), compileAllFailed);
+            delegate.triggerCompile(intentsToRecompile, compileAllFailed);
+        } finally {
+            stopTimer(timer);
+            if (triggerLatencyTimer != null) {
+                long now = System.nanoTime();
+                triggers.forEach(t -> triggerLatencyTimer.update(now - t.queuedNanos,
+                                                                 TimeUnit.NANOSECONDS));
+            }
         }
     }
 
     // Re-dispatcher of topology change events.
-    private class TopologyChangeHandler implements Runnable {
+    private class TopologyChangeHandler implements RecompileTrigger {
 
         private final TopologyEvent event;
 
@@ -289,39 +369,30 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         }
 
         @Override
-        public void run() {
-            // If there is no delegate, why bother? Just bail.
-            if (delegate == null) {
-                return;
+        public boolean collect(Set<Key> intentsToRecompile) {
+            if (event.reasons() == null || event.reasons().isEmpty()) {
+                return true;
             }
 
-            if (event.reasons() == null || event.reasons().isEmpty()) {
-                delegate.triggerCompile(Collections.emptySet(), true);
-
-            } else {
-                Set<Key> intentsToRecompile = new HashSet<>();
-                boolean dontRecompileAllFailedIntents = true;
-
-                // Scan through the list of reasons and keep accruing all
-                // intents that need to be recompiled.
-                for (Event reason : event.reasons()) {
-                    if (reason instanceof LinkEvent) {
-                        LinkEvent linkEvent = (LinkEvent) reason;
-                        final LinkKey linkKey = linkKey(linkEvent.subject());
-                        synchronized (intentsByLink) {
-                            Set<Key> intentKeys = intentsByLink.get(linkKey);
-                            log.debug("recompile triggered by LinkEvent {} ({}) for {}",
-                                    linkKey, linkEvent.type(), intentKeys);
-                            intentsToRecompile.addAll(intentKeys);
-                        }
-                        dontRecompileAllFailedIntents = dontRecompileAllFailedIntents &&
-                                (linkEvent.type() == LINK_REMOVED ||
-                                (linkEvent.type() == LINK_UPDATED &&
-                                linkEvent.subject().isExpected()));
-                    }
+            boolean dontRecompileAllFailedIntents = true;
+
+            // Scan through the list of reasons and keep accruing all
+            // intents that need to be recompiled.
+            for (Event reason : event.reasons()) {
+                if (reason instanceof LinkEvent) {
+                    LinkEvent linkEvent = (LinkEvent) reason;
+                    final LinkKey linkKey = linkKey(linkEvent.subject());
+                    Set<Key> intentKeys = intentsByLink.get(linkKey);
+                    log.debug("recompile triggered by LinkEvent {} ({}) for {}",
+                              linkKey, linkEvent.type(), intentKeys);
+                    intentsToRecompile.addAll(intentKeys);
+                    dontRecompileAllFailedIntents = dontRecompileAllFailedIntents &&
+                            (linkEvent.type() == LINK_REMOVED ||
+                            (linkEvent.type() == LINK_UPDATED &&
+                            linkEvent.subject().isExpected()));
                 }
-                delegate.triggerCompile(intentsToRecompile, !dontRecompileAllFailedIntents);
             }
+            return !dontRecompileAllFailedIntents;
         }
     }
 
@@ -329,13 +400,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         @Override
         public void event(ResourceEvent event) {
             if (event.subject().isSubTypeOf(PortNumber.class)) {
-                executorService.execute(() -> {
-                    if (delegate == null) {
-                        return;
-                    }
-
-                    delegate.triggerCompile(Collections.emptySet(), true);
-                });
+                enqueue(intentsToRecompile -> true);
             }
         }
     }
@@ -345,7 +410,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     /*
      * Re-dispatcher of device and host events.
      */
-    private class DeviceAvailabilityHandler implements Runnable {
+    private class DeviceAvailabilityHandler implements RecompileTrigger {
 
         private final ElementId id;
         private final boolean available;
@@ -356,19 +421,10 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         }
 
         @Override
-        public void run() {
-            // If there is no delegate, why bother? Just bail.
-            if (delegate == null) {
-                return;
-            }
-
+        public boolean collect(Set<Key> intentsToRecompile) {
             // TODO should we recompile on available==true?
-
-            final ImmutableSet<Key> snapshot;
-            synchronized (intentsByDevice) {
-                snapshot = ImmutableSet.copyOf(intentsByDevice.get(id));
-            }
-            delegate.triggerCompile(snapshot, available);
+            intentsToRecompile.addAll(intentsByDevice.get(id));
+            return available;
         }
     }
 
@@ -388,7 +444,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                 boolean available = (type == DeviceEvent.Type.DEVICE_AVAILABILITY_CHANGED ||
                         type == DeviceEvent.Type.DEVICE_ADDED ||
                         type == DeviceEvent.Type.DEVICE_UPDATED);
-                executorService.execute(new DeviceAvailabilityHandler(id, available));
+                enqueue(new DeviceAvailabilityHandler(id, available));
                 break;
             case PORT_ADDED:
             case PORT_REMOVED:
@@ -409,7 +465,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                 case HOST_ADDED:
                 case HOST_MOVED:
                 case HOST_REMOVED:
-                    executorService.execute(new DeviceAvailabilityHandler(id, false));
+                    enqueue(new DeviceAvailabilityHandler(id, false));
                     break;
                 case HOST_UPDATED:
                 default:
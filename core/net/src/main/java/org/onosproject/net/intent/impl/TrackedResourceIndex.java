@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.intent.Key;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the intents tracking each network resource.
+ * <p>
+ * Updates lock only the bin of the resource being updated, so registrations
+ * for different resources do not contend with each other or with lookups.
+ * Lookups never block and return a snapshot of the intents registered for
+ * the resource at the time of the call.
+ * </p>
+ *
+ * @param <R> type of the tracked resources
+ */
+final class TrackedResourceIndex<R> {
+
+    private final ConcurrentMap<R, Set<Key>> index = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the given intent as tracking the given resource.
+     *
+     * @param resource tracked resource
+     * @param intentKey intent key
+     */
+    void put(R resource, Key intentKey) {
+        index.compute(resource, (r, keys) -> {
+            Set<Key> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            updated.add(intentKey);
+            return updated;
+        });
+    }
+
+    /**
+     * Unregisters the given intent from tracking the given resource.
+     *
+     * @param resource tracked resource
+     * @param intentKey intent key
+     */
+    void remove(R resource, Key intentKey) {
+        index.computeIfPresent(resource, (r, keys) -> {
+            keys.remove(intentKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Returns a snapshot of the intents tracking the given resource.
+     *
+     * @param resource tracked resource
+     * @return set of intent keys
+     */
+    Set<Key> get(R resource) {
+        Set<Key> keys = index.get(resource);
+        return keys == null ? ImmutableSet.of() : ImmutableSet.copyOf(keys);
+    }
+
+    /**
+     * Returns whether the given intent tracks any resource. This walks the
+     * whole index and is meant for diagnostics only.
+     *
+     * @param intentKey intent key
+     * @return true if the intent tracks at least one resource
+     */
+    boolean containsIntent(Key intentKey) {
+        return index.values().stream().anyMatch(keys -> keys.contains(intentKey));
+    }
+
+    /**
+     * Returns the number of resources tracked by at least one intent.
+     *
+     * @return number of tracked resources
+     */
+    int size() {
+        return index.size();
+    }
+}
@@ -16,6 +16,9 @@
 
 package org.onosproject.net.intent.impl.compiler;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -76,8 +79,10 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.onosproject.net.domain.DomainId.LOCAL;
@@ -196,8 +201,22 @@ public abstract class LinkCollectionCompiler<T> {
      */
     private static final String UNSUPPORTED_INSTRUCTION = "Unknown instruction type";
 
+    /**
+     * Maximum number of treatment fragments kept in the cache.
+     */
+    private static final int FRAGMENT_CACHE_SIZE = 50_000;
+
     private static Logger log = LoggerFactory.getLogger(LinkCollectionCompiler.class);
 
+    /**
+     * Treatments computed for a device, shared by all the intents having
+     * the same filtered points, treatment and output ports on it.
+     */
+    private final Cache<FragmentKey, TrafficTreatment> fragments = CacheBuilder.newBuilder()
+            .maximumSize(FRAGMENT_CACHE_SIZE)
+            .recordStats()
+            .build();
+
     /**
      * Influence compiler behavior.
      *
@@ -521,19 +540,18 @@ public abstract class LinkCollectionCompiler<T> {
 
     /**
      * Manages the Intents with a single ingress point (p2p, sp2mp)
-     * creating properly the selector builder and the treatment builder.
+     * creating properly the selector builder and the treatment.
      *
      * @param selectorBuilder the selector builder to update
-     * @param treatmentBuilder the treatment builder to update
      * @param intent the intent to compile
      * @param deviceId the current device
      * @param outPorts the output ports of this device
+     * @return the treatment for this device
      */
-    private void manageSpIntent(TrafficSelector.Builder selectorBuilder,
-                                TrafficTreatment.Builder treatmentBuilder,
-                                LinkCollectionIntent intent,
-                                DeviceId deviceId,
-                                Set<PortNumber> outPorts) {
+    private TrafficTreatment manageSpIntent(TrafficSelector.Builder selectorBuilder,
+                                            LinkCollectionIntent intent,
+                                            DeviceId deviceId,
+                                            Set<PortNumber> outPorts) {
         /*
          * Sanity check.
          */
@@ -544,64 +562,76 @@ public abstract class LinkCollectionCompiler<T> {
          * For the p2p and sp2mp the transition initial state
          * to final state is performed at the egress.
          */
-        Optional<FilteredConnectPoint> filteredIngressPoint =
-                intent.filteredIngressPoints().stream().findFirst();
+        FilteredConnectPoint filteredIngressPoint =
+                intent.filteredIngressPoints().iterator().next();
         /*
          * We build the final selector, adding the selector
          * of the FIP to the Intent selector and potentially
          * overriding its matches.
          */
-        filteredIngressPoint.get()
-                .trafficSelector()
+        filteredIngressPoint.trafficSelector()
                 .criteria()
                 .forEach(selectorBuilder::add);
         /*
-         * In this scenario, potentially we can have several output
-         * ports. First we have to insert in the treatment the actions
-         * for the core.
+         * The treatment only depends on the FIP and on the points
+         * reached through the output ports, so it can be shared
+         * with the other intents having the same ones.
          */
-        List<FilteredConnectPoint> egressPoints = Lists.newArrayList();
-        for (PortNumber outPort : outPorts) {
-            Optional<FilteredConnectPoint> filteredEgressPoint =
-                    getFilteredConnectPointFromIntent(deviceId, outPort, intent);
-            if (!filteredEgressPoint.isPresent()) {
-                treatmentBuilder.setOutput(outPort);
-            } else {
-                egressPoints.add(filteredEgressPoint.get());
+        List<PortNumber> orderedOutPorts = ImmutableList.copyOf(outPorts);
+        List<Optional<FilteredConnectPoint>> outPoints = orderedOutPorts.stream()
+                .map(outPort -> getFilteredConnectPointFromIntent(deviceId, outPort, intent))
+                .collect(Collectors.toList());
+        FragmentKey key = new FragmentKey(true, intent.treatment(), getEthType(intent.selector()),
+                                          filteredIngressPoint, null, orderedOutPorts, outPoints);
+        return fragment(key, () -> {
+            TrafficTreatment.Builder treatmentBuilder = DefaultTrafficTreatment.builder();
+            /*
+             * In this scenario, potentially we can have several output
+             * ports. First we have to insert in the treatment the actions
+             * for the core.
+             */
+            List<FilteredConnectPoint> egressPoints = Lists.newArrayList();
+            for (int i = 0; i < orderedOutPorts.size(); i++) {
+                Optional<FilteredConnectPoint> filteredEgressPoint = outPoints.get(i);
+                if (!filteredEgressPoint.isPresent()) {
+                    treatmentBuilder.setOutput(orderedOutPorts.get(i));
+                } else {
+                    egressPoints.add(filteredEgressPoint.get());
+                }
             }
-        }
-        /*
-         * The idea is to order the egress points. Before we deal
-         * with the egress points which looks like similar to the ingress
-         * point then the others.
-         */
-        TrafficSelector prevState = filteredIngressPoint.get().trafficSelector();
-        if (optimizeTreatments()) {
-            egressPoints = orderedEgressPoints(prevState, egressPoints);
-        }
-        /*
-         * Then we deal with the egress points.
-         */
-        generateEgressActions(treatmentBuilder, egressPoints, prevState, intent);
+            /*
+             * The idea is to order the egress points. Before we deal
+             * with the egress points which looks like similar to the ingress
+             * point then the others.
+             */
+            TrafficSelector prevState = filteredIngressPoint.trafficSelector();
+            if (optimizeTreatments()) {
+                egressPoints = orderedEgressPoints(prevState, egressPoints);
+            }
+            /*
+             * Then we deal with the egress points.
+             */
+            generateEgressActions(treatmentBuilder, egressPoints, prevState, intent);
+            return treatmentBuilder.build();
+        });
     }
 
     /**
      * Manages the Intents with multiple ingress points creating properly
-     * the selector builder and the treatment builder.
+     * the selector builder and the treatment.
      *
      * @param selectorBuilder the selector builder to update
-     * @param treatmentBuilder the treatment builder to update
      * @param intent the intent to compile
      * @param inPort the input port of the current device
      * @param deviceId the current device
      * @param outPorts the output ports of this device
+     * @return the treatment for this device
      */
-    private void manageMpIntent(TrafficSelector.Builder selectorBuilder,
-                                TrafficTreatment.Builder treatmentBuilder,
-                                LinkCollectionIntent intent,
-                                PortNumber inPort,
-                                DeviceId deviceId,
-                                Set<PortNumber> outPorts) {
+    private TrafficTreatment manageMpIntent(TrafficSelector.Builder selectorBuilder,
+                                            LinkCollectionIntent intent,
+                                            PortNumber inPort,
+                                            DeviceId deviceId,
+                                            Set<PortNumber> outPorts) {
         /*
          * Sanity check
          */
@@ -616,22 +646,13 @@ public abstract class LinkCollectionCompiler<T> {
         /*
          * We retrieve from the Intent the unique egress points.
          */
-        Optional<FilteredConnectPoint> filteredEgressPoint =
-                intent.filteredEgressPoints().stream().findFirst();
+        FilteredConnectPoint filteredEgressPoint =
+                intent.filteredEgressPoints().iterator().next();
+        List<PortNumber> orderedOutPorts = ImmutableList.copyOf(outPorts);
         /*
          * We check if the device is the ingress device
          */
         if (filteredIngressPoint.isPresent()) {
-            /*
-             * We are at ingress, so basically what we have to do is this:
-             * apply a set of operations (treatment, FEP) in order to have
-             * a transition from the initial state to the final state.
-             *
-             * We initialize the treatment with the Intent treatment
-             */
-            intent.treatment().allInstructions().stream()
-                    .filter(inst -> inst.type() != Instruction.Type.NOACTION)
-                    .forEach(treatmentBuilder::add);
             /*
              * We build the final selector, adding the selector
              * of the FIP to the Intent selector and potentially
@@ -642,46 +663,97 @@ public abstract class LinkCollectionCompiler<T> {
                     .criteria()
                     .forEach(selectorBuilder::add);
             /*
-             * We define the transition FIP->FEP, basically
-             * the set of the operations we need for reaching
-             * the final state.
-             */
-            TrafficTreatment forwardingTreatment =
-                    forwardingTreatment(filteredIngressPoint.get().trafficSelector(),
-                                        filteredEgressPoint.get().trafficSelector(),
-                                        getEthType(intent.selector()));
-            /*
-             * We add to the treatment the actions necessary for the
-             * transition, potentially overriding the treatment of the
-             * Intent. The Intent treatment has always a low priority
-             * in respect of the FEP.
-             */
-            forwardingTreatment.allInstructions().stream()
-                    .filter(inst -> inst.type() != Instruction.Type.NOACTION)
-                    .forEach(treatmentBuilder::add);
-        } else {
-            /*
-             * We are in the core or in the egress switch.
-             * The packets are in their final state. We need
-             * to match against this final state.
-             *
-             * we derive the final state defined by the intent
-             * treatment.
-             */
-            updateBuilder(selectorBuilder, intent.treatment());
-            /*
-             * We derive the final state defined by the unique
-             * FEP. We merge the two states.
+             * We are at ingress, so basically what we have to do is this:
+             * apply a set of operations (treatment, FEP) in order to have
+             * a transition from the initial state to the final state.
              */
-            filteredEgressPoint.get()
-                    .trafficSelector()
-                    .criteria()
-                    .forEach(selectorBuilder::add);
+            FragmentKey key = new FragmentKey(false, intent.treatment(), getEthType(intent.selector()),
+                                              filteredIngressPoint.get(), filteredEgressPoint,
+                                              orderedOutPorts, null);
+            return fragment(key, () -> {
+                /*
+                 * We initialize the treatment with the Intent treatment
+                 */
+                TrafficTreatment.Builder treatmentBuilder = DefaultTrafficTreatment.builder();
+                intent.treatment().allInstructions().stream()
+                        .filter(inst -> inst.type() != Instruction.Type.NOACTION)
+                        .forEach(treatmentBuilder::add);
+                /*
+                 * We define the transition FIP->FEP, basically
+                 * the set of the operations we need for reaching
+                 * the final state.
+                 */
+                TrafficTreatment forwardingTreatment =
+                        forwardingTreatment(filteredIngressPoint.get().trafficSelector(),
+                                            filteredEgressPoint.trafficSelector(),
+                                            getEthType(intent.selector()));
+                /*
+                 * We add to the treatment the actions necessary for the
+                 * transition, potentially overriding the treatment of the
+                 * Intent. The Intent treatment has always a low priority
+                 * in respect of the FEP.
+                 */
+                forwardingTreatment.allInstructions().stream()
+                        .filter(inst -> inst.type() != Instruction.Type.NOACTION)
+                        .forEach(treatmentBuilder::add);
+                /*
+                 * Finally we set the output action.
+                 */
+                orderedOutPorts.forEach(treatmentBuilder::setOutput);
+                return treatmentBuilder.build();
+            });
         }
+        /*
+         * We are in the core or in the egress switch.
+         * The packets are in their final state. We need
+         * to match against this final state.
+         *
+         * we derive the final state defined by the intent
+         * treatment.
+         */
+        updateBuilder(selectorBuilder, intent.treatment());
+        /*
+         * We derive the final state defined by the unique
+         * FEP. We merge the two states.
+         */
+        filteredEgressPoint.trafficSelector()
+                .criteria()
+                .forEach(selectorBuilder::add);
         /*
          * Finally we set the output action.
          */
-        outPorts.forEach(treatmentBuilder::setOutput);
+        FragmentKey key = new FragmentKey(false, null, null, null, null, orderedOutPorts, null);
+        return fragment(key, () -> {
+            TrafficTreatment.Builder treatmentBuilder = DefaultTrafficTreatment.builder();
+            orderedOutPorts.forEach(treatmentBuilder::setOutput);
+            return treatmentBuilder.build();
+        });
+    }
+
+    /**
+     * Returns the cached treatment fragment for the given key, computing
+     * and caching it if this is the first time it is needed.
+     *
+     * @param key the fragment key
+     * @param compute the function computing the treatment
+     * @return the treatment fragment
+     */
+    private TrafficTreatment fragment(FragmentKey key, Supplier<TrafficTreatment> compute) {
+        TrafficTreatment treatment = fragments.getIfPresent(key);
+        if (treatment == null) {
+            treatment = compute.get();
+            fragments.put(key, treatment);
+        }
+        return treatment;
+    }
+
+    /**
+     * Returns the statistics of the treatment fragment cache.
+     *
+     * @return the cache statistics
+     */
+    CacheStats fragmentCacheStats() {
+        return fragments.stats();
     }
 
     /**
@@ -700,38 +772,33 @@ public abstract class LinkCollectionCompiler<T> {
                                                                   Set<PortNumber> outPorts) {
 
         /*
-         * We build an empty treatment and we initialize the selector with
-         * the intent selector.
+         * We initialize the selector with the intent selector.
          */
-        TrafficTreatment.Builder treatmentBuilder = DefaultTrafficTreatment
-                .builder();
         TrafficSelector.Builder selectorBuilder = DefaultTrafficSelector
                 .builder(intent.selector())
                 .matchInPort(inPort);
 
+        TrafficTreatment treatment;
         if (!intent.applyTreatmentOnEgress()) {
-            manageMpIntent(selectorBuilder,
-                           treatmentBuilder,
-                           intent,
-                           inPort,
-                           deviceId,
-                           outPorts
+            treatment = manageMpIntent(selectorBuilder,
+                                       intent,
+                                       inPort,
+                                       deviceId,
+                                       outPorts
             );
         } else {
-            manageSpIntent(selectorBuilder,
-                           treatmentBuilder,
-                           intent,
-                           deviceId,
-                           outPorts
+            treatment = manageSpIntent(selectorBuilder,
+                                       intent,
+                                       deviceId,
+                                       outPorts
             );
         }
         /*
          * We return selector and treatment necessary to build the flow rule
          * or the flow objective.
          */
-        return new ForwardingInstructions(treatmentBuilder.build(), selectorBuilder.build());
+        return new ForwardingInstructions(treatment, selectorBuilder.build());
     }
-
     /**
      * Manages the ingress of the Intents (p2p, sp2mp, mp2sp) with encapsulation.
      *
@@ -927,6 +994,67 @@ public abstract class LinkCollectionCompiler<T> {
 
     }
 
+    /**
+     * Key of a treatment fragment. It holds everything the treatment
+     * computed for a device depends on, except the device itself.
+     */
+    private static final class FragmentKey {
+
+        private final boolean applyTreatmentOnEgress;
+        private final TrafficTreatment treatment;
+        private final EthType ethType;
+        private final FilteredConnectPoint ingressPoint;
+        private final FilteredConnectPoint egressPoint;
+        private final List<PortNumber> outPorts;
+        private final List<Optional<FilteredConnectPoint>> outPoints;
+        private final boolean copyTtl;
+        private final int hash;
+
+        private FragmentKey(boolean applyTreatmentOnEgress,
+                            TrafficTreatment treatment,
+                            EthType ethType,
+                            FilteredConnectPoint ingressPoint,
+                            FilteredConnectPoint egressPoint,
+                            List<PortNumber> outPorts,
+                            List<Optional<FilteredConnectPoint>> outPoints) {
+            this.applyTreatmentOnEgress = applyTreatmentOnEgress;
+            this.treatment = treatment;
+            this.ethType = ethType;
+            this.ingressPoint = ingressPoint;
+            this.egressPoint = egressPoint;
+            this.outPorts = outPorts;
+            this.outPoints = outPoints;
+            this.copyTtl = LinkCollectionCompiler.copyTtl;
+            this.hash = Objects.hash(applyTreatmentOnEgress, treatment, ethType, ingressPoint,
+                                     egressPoint, outPorts, outPoints, copyTtl);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof FragmentKey)) {
+                return false;
+            }
+            FragmentKey that = (FragmentKey) obj;
+            return hash == that.hash &&
+                    applyTreatmentOnEgress == that.applyTreatmentOnEgress &&
+                    copyTtl == that.copyTtl &&
+                    Objects.equals(treatment, that.treatment) &&
+                    Objects.equals(ethType, that.ethType) &&
+                    Objects.equals(ingressPoint, that.ingressPoint) &&
+                    Objects.equals(egressPoint, that.egressPoint) &&
+                    Objects.equals(outPorts, that.outPorts) &&
+                    Objects.equals(outPoints, that.outPoints);
+        }
+    }
+
     /**
      * Helper method to compute input and output ports
      * for each device crossed in the path.
@@ -15,6 +15,8 @@
  */
 package org.onosproject.net.intent.impl.compiler;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -68,7 +70,7 @@ public class LinkCollectionIntentCompiler
 
     private static final String UNKNOWN_INSTRUCTION = "Unknown instruction type";
     private static final String UNSUPPORTED_INSTRUCTION = "Unsupported %s instruction";
-
+    private static final int COMPACTED_CACHE_SIZE = 10_000;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected IntentConfigurableRegistrator registrator;
@@ -84,6 +86,10 @@ public class LinkCollectionIntentCompiler
 
     private ApplicationId appId;
 
+    // Compacted treatments, shared by the rules having the same treatment
+    private final Cache<TrafficTreatment, TrafficTreatment> compactedTreatments =
+            CacheBuilder.newBuilder().maximumSize(COMPACTED_CACHE_SIZE).build();
+
     @Activate
     public void activate() {
         appId = coreService.registerApplication("org.onosproject.net.intent");
@@ -173,7 +179,7 @@ public class LinkCollectionIntentCompiler
                 );
 
                 if (optimizeInstructions) {
-                    TrafficTreatment compactedTreatment = compactActions(instructions.treatment());
+                    TrafficTreatment compactedTreatment = compactedActions(instructions.treatment());
                     instructions = new ForwardingInstructions(compactedTreatment, instructions.selector());
                 }
 
@@ -192,6 +198,22 @@ public class LinkCollectionIntentCompiler
         return rules;
     }
 
+    /**
+     * Returns the optimized chain of actions, reusing the result of
+     * a previous optimization of the same treatment if possible.
+     *
+     * @param treatment the treatment to optimize
+     * @return the optimized set of actions
+     */
+    private TrafficTreatment compactedActions(TrafficTreatment treatment) {
+        TrafficTreatment compacted = compactedTreatments.getIfPresent(treatment);
+        if (compacted == null) {
+            compacted = compactActions(treatment);
+            compactedTreatments.put(treatment, compacted);
+        }
+        return compacted;
+    }
+
     /**
      * This method tries to optimize the chain of actions.
      *
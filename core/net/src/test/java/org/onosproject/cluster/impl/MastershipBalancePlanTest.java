@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.cluster.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for MastershipBalancePlan.
+ */
+public class MastershipBalancePlanTest {
+
+    private static final NodeId NID1 = NodeId.nodeId("n1");
+    private static final NodeId NID2 = NodeId.nodeId("n2");
+    private static final NodeId NID3 = NodeId.nodeId("n3");
+
+    private static Set<DeviceId> devices(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> DeviceId.deviceId("of:" + i))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testBalancedUnchanged() {
+        MastershipBalancePlan plan = new MastershipBalancePlan(ImmutableMap.of(
+                NID1, devices(0, 3), NID2, devices(3, 5), NID3, devices(5, 8)));
+        plan.balance(ImmutableSet.of(NID1, NID2, NID3), ImmutableSet.of());
+        assertTrue(plan.moves().isEmpty());
+    }
+
+    @Test
+    public void testMinimalMoves() {
+        MastershipBalancePlan plan = new MastershipBalancePlan(ImmutableMap.of(
+                NID1, devices(0, 1000), NID2, devices(1000, 1100), NID3, ImmutableSet.of()));
+        plan.balance(ImmutableSet.of(NID1, NID2, NID3), devices(2000, 2200));
+
+        // 1300 devices: 434 for the largest node, 433 for the others
+        assertEquals(434, plan.devicesOf(NID1).size());
+        assertEquals(433, plan.devicesOf(NID2).size());
+        assertEquals(433, plan.devicesOf(NID3).size());
+        // the orphans and the devices in excess on n1 are the only moves
+        assertEquals(200 + 1000 - 434, plan.moves().size());
+        assertTrue(devices(0, 1000).containsAll(plan.devicesOf(NID1)));
+        assertTrue(plan.devicesOf(NID2).containsAll(devices(1000, 1100)));
+    }
+
+    @Test
+    public void testSuccessiveSteps() {
+        Map<NodeId, Set<DeviceId>> mastership = new HashMap<>();
+        mastership.put(NID1, devices(0, 4));
+        mastership.put(NID2, ImmutableSet.of());
+        mastership.put(NID3, ImmutableSet.of());
+        MastershipBalancePlan plan = new MastershipBalancePlan(mastership);
+
+        plan.balance(ImmutableSet.of(NID1, NID2), ImmutableSet.of());
+        // a device moved back to its original master is no longer a move
+        DeviceId moved = plan.moves().keySet().iterator().next();
+        plan.move(moved, NID1);
+        assertEquals(1, plan.moves().size());
+
+        plan.balance(ImmutableSet.of(NID1, NID3), ImmutableSet.of());
+
+        assertEquals(2, plan.devicesOf(NID1).size());
+        assertEquals(1, plan.devicesOf(NID2).size());
+        assertEquals(1, plan.devicesOf(NID3).size());
+        assertEquals(2, plan.moves().size());
+    }
+}
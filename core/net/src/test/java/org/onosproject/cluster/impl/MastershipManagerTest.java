@@ -19,20 +19,27 @@ import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
+import com.codahale.metrics.MetricFilter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.junit.TestUtils;
+import org.onlab.metrics.MetricsManager;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.IpAddress;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.DefaultControllerNode;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.common.event.impl.TestEventDispatcher;
+import org.onosproject.mastership.MastershipEvent;
+import org.onosproject.mastership.MastershipListener;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.mastership.MastershipStore;
 import org.onosproject.mastership.MastershipTermService;
@@ -245,6 +252,87 @@ public class MastershipManagerTest {
         assertEquals("incorrect balance for node 3", 3, mgr.getDevicesOf(NID3).size());
     }
 
+    @Test
+    public void balanceWithMinimalMoves() {
+        testClusterService.put(CNODE1, ControllerNode.State.ACTIVE);
+        testClusterService.put(CNODE2, ControllerNode.State.ACTIVE);
+        testClusterService.put(CNODE3, ControllerNode.State.ACTIVE);
+
+        assignRoles(NID1, ImmutableSet.of(DID1, DID2, DID3, DID4));
+        assignRoles(NID3, ImmutableSet.of(DID5, DID6));
+        List<MastershipEvent> events = Lists.newArrayList();
+        mgr.addListener(events::add);
+
+        mgr.balanceRoles();
+
+        // only the two devices in excess on node 1 are moved
+        assertEquals("incorrect balance for node 1", 2, mgr.getDevicesOf(NID1).size());
+        assertEquals("incorrect balance for node 2", 2, mgr.getDevicesOf(NID2).size());
+        assertEquals("incorrect balance for node 3", 2, mgr.getDevicesOf(NID3).size());
+        assertEquals("unexpected moves", ImmutableSet.of(DID5, DID6), mgr.getDevicesOf(NID3));
+        assertEquals("unexpected moves", 2, events.stream()
+                .filter(e -> e.type() == MastershipEvent.Type.MASTER_CHANGED).count());
+    }
+
+    @Test
+    public void cancelAndResumeBalance() {
+        testClusterService.put(CNODE1, ControllerNode.State.ACTIVE);
+        testClusterService.put(CNODE2, ControllerNode.State.ACTIVE);
+        assignRoles(NID1, ImmutableSet.of(DID1, DID2, DID3, DID4, DID5, DID6));
+
+        // move one device per wave, cancelling after the first one
+        mgr.balanceRolesWaveSize = 1;
+        MastershipListener canceller = event -> mgr.cancelBalanceRoles();
+        mgr.addListener(canceller);
+        mgr.balanceRoles();
+        mgr.removeListener(canceller);
+        assertEquals("balancing not cancelled", 1, mgr.getDevicesOf(NID2).size());
+
+        mgr.resumeBalanceRoles();
+        assertEquals("incorrect balance for node 1", 3, mgr.getDevicesOf(NID1).size());
+        assertEquals("incorrect balance for node 2", 3, mgr.getDevicesOf(NID2).size());
+
+        // nothing left to resume
+        mgr.resumeBalanceRoles();
+        assertEquals("incorrect balance for node 2", 3, mgr.getDevicesOf(NID2).size());
+    }
+
+    @Test
+    public void supersededBalanceNotResumed() {
+        testClusterService.put(CNODE1, ControllerNode.State.ACTIVE);
+        testClusterService.put(CNODE2, ControllerNode.State.ACTIVE);
+        assignRoles(NID1, ImmutableSet.of(DID1, DID2, DID3, DID4, DID5, DID6));
+
+        mgr.balanceRolesWaveSize = 1;
+        MastershipListener canceller = event -> mgr.cancelBalanceRoles();
+        mgr.addListener(canceller);
+        mgr.balanceRoles();
+        mgr.removeListener(canceller);
+        assertEquals("balancing not cancelled", 1, mgr.getDevicesOf(NID2).size());
+
+        // a newer balancing across three nodes supersedes the cancelled one
+        testClusterService.put(CNODE3, ControllerNode.State.ACTIVE);
+        mgr.balanceRoles();
+        mgr.resumeBalanceRoles();
+        assertEquals("incorrect balance for node 1", 2, mgr.getDevicesOf(NID1).size());
+        assertEquals("incorrect balance for node 2", 2, mgr.getDevicesOf(NID2).size());
+        assertEquals("incorrect balance for node 3", 2, mgr.getDevicesOf(NID3).size());
+    }
+
+    @Test
+    public void balanceGaugeRemoved() {
+        MetricsService metricsService = new MetricsManager();
+        mgr.deactivate();
+        mgr.cfgService = new ComponentConfigAdapter();
+        mgr.metricsService = metricsService;
+        mgr.activate();
+        assertEquals("gauge not registered", 1, metricsService.getGauges(MetricFilter.ALL).size());
+
+        mgr.deactivate();
+        assertEquals("gauge not removed", 0, metricsService.getGauges(MetricFilter.ALL).size());
+        mgr.activate();
+    }
+
     private void assignRoles(NodeId nid, Set<DeviceId> deviceIds) {
         Set<DeviceId> all = ImmutableSet.of(DID1, DID2, DID3, DID4, DID5, DID6);
         for (DeviceId did : all) {
@@ -44,6 +44,7 @@ import org.onosproject.net.topology.TopologyListener;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -316,5 +317,50 @@ public class ObjectiveTrackerTest extends AbstractIntentTest {
         assertThat(delegate.compileAllFailedFromEvent, is(true));
     }
 
-
+    /**
+     * Tests that triggers queued while the delegate is busy are coalesced
+     * into a single recompile request.
+     *
+     * @throws InterruptedException if the latch wait fails.
+     */
+    @Test
+    public void testTriggersCoalesced() throws InterruptedException {
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        List<List<Key>> calls = new CopyOnWriteArrayList<>();
+        tracker.unsetDelegate(delegate);
+        TopologyChangeDelegate blocking = (intentKeys, compileAllFailed) -> {
+            calls.add(Lists.newArrayList(intentKeys));
+            busy.countDown();
+            try {
+                release.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        };
+        tracker.setDelegate(blocking);
+
+        final Device device1 = device("device1");
+        final Device device2 = device("device2");
+        final Key key1 = Key.of(0x111L, APP_ID);
+        final Key key2 = Key.of(0x222L, APP_ID);
+        tracker.addTrackedResources(key1, ImmutableSet.of(device1.id()));
+        tracker.addTrackedResources(key2, ImmutableSet.of(device2.id()));
+
+        listener.event(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGED, topology, null));
+        assertThat(busy.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        deviceListener.event(new DeviceEvent(DeviceEvent.Type.DEVICE_REMOVED, device1));
+        deviceListener.event(new DeviceEvent(DeviceEvent.Type.DEVICE_REMOVED, device2));
+        release.countDown();
+        assertThat(done.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        assertThat(calls, hasSize(2));
+        assertThat(calls.get(1), containsInAnyOrder(key1, key2));
+
+        tracker.unsetDelegate(blocking);
+        tracker.setDelegate(delegate);
+    }
 }
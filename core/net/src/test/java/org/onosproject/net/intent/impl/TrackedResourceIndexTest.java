@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.intent.AbstractIntentTest;
+import org.onosproject.net.intent.Key;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.onosproject.net.NetTestTools.APP_ID;
+
+/**
+ * Tests for the index of intents by tracked resource.
+ */
+public class TrackedResourceIndexTest extends AbstractIntentTest {
+
+    private static final DeviceId D1 = DeviceId.deviceId("of:1");
+    private static final DeviceId D2 = DeviceId.deviceId("of:2");
+    private static final Key K1 = Key.of(1L, APP_ID);
+    private static final Key K2 = Key.of(2L, APP_ID);
+
+    /**
+     * Tests registering and unregistering intents.
+     */
+    @Test
+    public void testPutRemove() {
+        TrackedResourceIndex<DeviceId> index = new TrackedResourceIndex<>();
+        index.put(D1, K1);
+        index.put(D1, K2);
+        index.put(D2, K2);
+
+        assertThat(index.get(D1), containsInAnyOrder(K1, K2));
+        assertThat(index.get(D2), containsInAnyOrder(K2));
+        assertThat(index.containsIntent(K1), is(true));
+
+        index.remove(D1, K1);
+        index.remove(D2, K2);
+        index.remove(D2, K1);
+        assertThat(index.get(D1), containsInAnyOrder(K2));
+        assertThat(index.get(D2), is(empty()));
+        assertThat(index.containsIntent(K1), is(false));
+        assertThat(index.size(), is(1));
+    }
+
+    /**
+     * Tests that lookups return snapshots unaffected by later updates.
+     */
+    @Test
+    public void testSnapshot() {
+        TrackedResourceIndex<DeviceId> index = new TrackedResourceIndex<>();
+        index.put(D1, K1);
+        Set<Key> snapshot = index.get(D1);
+        index.put(D1, K2);
+        index.remove(D1, K1);
+
+        assertThat(snapshot, containsInAnyOrder(K1));
+        assertThat(index.get(D1), containsInAnyOrder(K2));
+    }
+
+    /**
+     * Tests concurrent registrations for the same and for different resources.
+     *
+     * @throws InterruptedException if the wait for the workers is interrupted
+     */
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        TrackedResourceIndex<DeviceId> index = new TrackedResourceIndex<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 1000;
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    Key key = Key.of(offset + i, APP_ID);
+                    index.put(D1, key);
+                    index.put(D2, key);
+                    index.remove(D2, key);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+        assertThat(index.get(D1).size(), is(4000));
+        assertThat(index.get(D2), is(empty()));
+        assertThat(index.size(), is(1));
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.onosproject.net.intent.impl.compiler;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.hamcrest.core.Is;
 import org.junit.Before;
@@ -418,6 +419,71 @@ public class LinkCollectionIntentCompilerTest extends AbstractLinkCollectionTest
         sut.deactivate();
     }
 
+    /**
+     * Multi point to single point intents sharing their filtered
+     * points but not their selector. Scenario is the follow:
+     *
+     * -1 of1 2-1 of2 2-1 of4 2-
+     *             3
+     * -1 of3 2---/
+     *
+     * We test that the treatments computed for the first intent are
+     * reused for the second one, while the selectors are not.
+     */
+    @Test
+    public void testTreatmentFragmentsShared() {
+        sut.activate();
+        Set<Link> testlinks = ImmutableSet.of(
+                DefaultLink.builder().providerId(PID).src(of1p2).dst(of2p1).type(DIRECT).build(),
+                DefaultLink.builder().providerId(PID).src(of3p2).dst(of2p3).type(DIRECT).build(),
+                DefaultLink.builder().providerId(PID).src(of2p2).dst(of4p1).type(DIRECT).build()
+        );
+
+        Set<FilteredConnectPoint> ingress = ImmutableSet.of(
+                new FilteredConnectPoint(of1p1, vlan100Selector),
+                new FilteredConnectPoint(of3p1, vlan100Selector)
+        );
+
+        Set<FilteredConnectPoint> egress = ImmutableSet.of(
+                new FilteredConnectPoint(of4p2, vlan200Selector)
+        );
+
+        List<FlowRule> rules1 = compileMp(ingress, egress, testlinks, MacAddress.valueOf("00:00:00:00:00:01"));
+        long hits = sut.fragmentCacheStats().hitCount();
+        List<FlowRule> rules2 = compileMp(ingress, egress, testlinks, MacAddress.valueOf("00:00:00:00:00:02"));
+
+        assertThat(rules2, hasSize(rules1.size()));
+        assertThat(sut.fragmentCacheStats().hitCount() - hits, is((long) rules1.size()));
+        for (FlowRule rule1 : rules1) {
+            PortCriterion inPort = (PortCriterion) rule1.selector().getCriterion(IN_PORT);
+            FlowRule rule2 = rules2.stream()
+                    .filter(rule -> rule.deviceId().equals(rule1.deviceId()))
+                    .filter(rule -> rule.selector().getCriterion(IN_PORT).equals(inPort))
+                    .findFirst()
+                    .get();
+            assertThat(rule2.treatment(), sameInstance(rule1.treatment()));
+            assertThat(rule2.selector(), is(not(equalTo(rule1.selector()))));
+        }
+
+        sut.deactivate();
+    }
+
+    private List<FlowRule> compileMp(Set<FilteredConnectPoint> ingress,
+                                     Set<FilteredConnectPoint> egress,
+                                     Set<Link> links, MacAddress dstMac) {
+        LinkCollectionIntent mpIntent = LinkCollectionIntent.builder()
+                .appId(APP_ID)
+                .selector(DefaultTrafficSelector.builder().matchEthDst(dstMac).build())
+                .filteredIngressPoints(ingress)
+                .filteredEgressPoints(egress)
+                .treatment(treatment)
+                .links(links)
+                .build();
+        List<Intent> result = sut.compile(mpIntent, Collections.emptyList());
+        assertThat(result, hasSize(1));
+        return ImmutableList.copyOf(((FlowRuleIntent) result.get(0)).flowRules());
+    }
+
     /**
      * Single point to multi point without filtered connect point case.
      * Scenario is the follow:
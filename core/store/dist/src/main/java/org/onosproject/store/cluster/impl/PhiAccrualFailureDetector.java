@@ -18,17 +18,32 @@ package org.onosproject.store.cluster.impl;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.onosproject.cluster.NodeId;
 
+import com.google.common.base.MoreObjects;
 import com.google.common.collect.Maps;
 
 /**
  * Phi Accrual failure detector.
  * <p>
  * Based on a paper titled: "The φ Accrual Failure Detector" by Hayashibara, et al.
+ * <p>
+ * In adaptive mode, the size of the sample window of each node follows the
+ * variability of its heartbeat inter-arrival times: regular heartbeats are
+ * tracked with a small window, reacting quickly to a change of rate, while
+ * irregular ones use a larger window for a stable estimate. Heartbeats
+ * arriving after a gap that would have been reported as a failure (e.g. a
+ * GC pause on the sender) raise a pause allowance that is subtracted from
+ * the elapsed time before computing phi, effectively raising the threshold
+ * for that node; the allowance decays once pauses are no longer observed.
+ * <p>
+ * Any other message received from a node may be reported as activity of
+ * that node, which delays its suspicion the same way a heartbeat would,
+ * without affecting the inter-arrival statistics.
  */
 public class PhiAccrualFailureDetector {
     private final Map<NodeId, History> states = Maps.newConcurrentMap();
@@ -37,14 +52,28 @@ public class PhiAccrualFailureDetector {
     private static final int DEFAULT_WINDOW_SIZE = 250;
     private static final int DEFAULT_MIN_SAMPLES = 25;
     private static final long DEFAULT_MIN_STANDARD_DEVIATION_MILLIS = 50;
+    private static final double DEFAULT_PHI_THRESHOLD = 8.0;
 
     // If a node does not have any heartbeats, this is the phi
     // value to report. Indicates the node is inactive (from the
     // detectors perspective.
     private static final double DEFAULT_BOOTSTRAP_PHI_VALUE = 100.0;
 
+    // Adaptive window: enough samples to estimate the mean inter-arrival
+    // time within WINDOW_PRECISION at a 95% confidence level
+    private static final int MAX_WINDOW_SIZE = 1000;
+    private static final double WINDOW_CONFIDENCE_Z = 1.96;
+    private static final double WINDOW_PRECISION = 0.05;
+    private static final long MAX_PAUSE_ALLOWANCE_MILLIS = 10_000;
+
+    // Upper bounds of the histogram buckets; the last bucket is unbounded
+    private static final long[] INTERVAL_BUCKETS_MILLIS = {10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+    private static final double[] PHI_BUCKETS = {1, 2, 4, 8, 16};
+
     private final int minSamples;
     private final long minStandardDeviationMillis;
+    private final double phiThreshold;
+    private final boolean adaptive;
     private final double bootstrapPhiValue = DEFAULT_BOOTSTRAP_PHI_VALUE;
 
     public PhiAccrualFailureDetector() {
@@ -56,10 +85,28 @@ public class PhiAccrualFailureDetector {
     }
 
     public PhiAccrualFailureDetector(int minSamples, long minStandardDeviationMillis) {
+        this(minSamples, minStandardDeviationMillis, DEFAULT_PHI_THRESHOLD, false);
+    }
+
+    /**
+     * Creates a failure detector.
+     *
+     * @param minSamples minimum number of samples before phi is computed
+     * @param minStandardDeviationMillis lower bound of the standard deviation
+     *                                   of the inter-arrival times
+     * @param phiThreshold phi value above which a node is suspected
+     * @param adaptive whether the window size and pause allowance adapt to
+     *                 the observed inter-arrival times
+     */
+    public PhiAccrualFailureDetector(int minSamples, long minStandardDeviationMillis,
+                                     double phiThreshold, boolean adaptive) {
         checkArgument(minSamples > 0, "minSamples must be positive");
         checkArgument(minStandardDeviationMillis > 0, "minStandardDeviationMillis must be positive");
+        checkArgument(phiThreshold > 0, "phiThreshold must be positive");
         this.minSamples = minSamples;
         this.minStandardDeviationMillis = minStandardDeviationMillis;
+        this.phiThreshold = phiThreshold;
+        this.adaptive = adaptive;
     }
 
     /**
@@ -93,12 +140,56 @@ public class PhiAccrualFailureDetector {
         synchronized (nodeState) {
             long latestHeartbeat = nodeState.latestHeartbeatTime();
             if (latestHeartbeat != -1) {
-                nodeState.samples().addValue(arrivalTime - latestHeartbeat);
+                long interval = arrivalTime - latestHeartbeat;
+                DescriptiveStatistics samples = nodeState.samples();
+                if (samples.getN() >= minSamples) {
+                    // phi this heartbeat arrived with, ignoring the pause allowance
+                    double phi = computePhi(samples, latestHeartbeat, arrivalTime);
+                    nodeState.recordPhi(phi);
+                    if (adaptive) {
+                        adapt(nodeState, interval, phi > phiThreshold);
+                    }
+                }
+                samples.addValue(interval);
+                nodeState.recordInterval(interval);
             }
             nodeState.setLatestHeartbeatTime(arrivalTime);
         }
     }
 
+    /**
+     * Reports that a message other than a heartbeat was received from the
+     * specified node, which proves the node to be alive as a heartbeat would.
+     * The inter-arrival statistics of the node are left unchanged.
+     *
+     * @param nodeId node id
+     */
+    public void reportActivity(NodeId nodeId) {
+        reportActivity(nodeId, System.currentTimeMillis());
+    }
+
+    /**
+     * Reports that a message other than a heartbeat was received from the
+     * specified node, which proves the node to be alive as a heartbeat would.
+     * The inter-arrival statistics of the node are left unchanged.
+     *
+     * @param nodeId node id
+     * @param arrivalTime arrival time
+     */
+    public void reportActivity(NodeId nodeId, long arrivalTime) {
+        checkNotNull(nodeId, "NodeId must not be null");
+        History nodeState = states.get(nodeId);
+        if (nodeState == null) {
+            // activity alone does not bootstrap the detection of a node
+            return;
+        }
+        synchronized (nodeState) {
+            if (arrivalTime > nodeState.latestActivityTime) {
+                nodeState.latestActivityTime = arrivalTime;
+            }
+        }
+    }
+
     /**
      * Resets the failure detector for the given node.
      *
@@ -114,18 +205,91 @@ public class PhiAccrualFailureDetector {
      * @return phi value
      */
     public double phi(NodeId nodeId) {
+        return phi(nodeId, System.currentTimeMillis());
+    }
+
+    /**
+     * Compute phi for the specified node id at the given time.
+     * @param nodeId node id
+     * @param now current time
+     * @return phi value
+     */
+    public double phi(NodeId nodeId, long now) {
         checkNotNull(nodeId, "NodeId must not be null");
-        if (!states.containsKey(nodeId)) {
+        History nodeState = states.get(nodeId);
+        if (nodeState == null) {
             return bootstrapPhiValue;
         }
-        History nodeState = states.get(nodeId);
         synchronized (nodeState) {
             long latestHeartbeat = nodeState.latestHeartbeatTime();
             DescriptiveStatistics samples = nodeState.samples();
             if (latestHeartbeat == -1 || samples.getN() < minSamples) {
                 return 0.0;
             }
-            return computePhi(samples, latestHeartbeat, System.currentTimeMillis());
+            long latest = Math.max(latestHeartbeat, nodeState.latestActivityTime);
+            return computePhi(samples, latest + nodeState.pauseAllowance, now);
+        }
+    }
+
+    /**
+     * Returns whether the specified node is deemed available, i.e. its phi
+     * is below the threshold.
+     *
+     * @param nodeId node id
+     * @return true if the node is not suspected
+     */
+    public boolean isAvailable(NodeId nodeId) {
+        return phi(nodeId) < phiThreshold;
+    }
+
+    /**
+     * Returns the failure detection statistics of the specified node.
+     *
+     * @param nodeId node id
+     * @return statistics of the node, or null if the node has never been reported
+     */
+    public Statistics statistics(NodeId nodeId) {
+        checkNotNull(nodeId, "NodeId must not be null");
+        History nodeState = states.get(nodeId);
+        if (nodeState == null) {
+            return null;
+        }
+        double phi = phi(nodeId);
+        synchronized (nodeState) {
+            DescriptiveStatistics samples = nodeState.samples();
+            return new Statistics(phi, samples.getMean(), samples.getStandardDeviation(),
+                                  samples.getWindowSize(), nodeState.pauseAllowance,
+                                  nodeState.intervals.clone(), nodeState.phis.clone());
+        }
+    }
+
+    // Must be called with the node state lock held, before the interval is
+    // added to the samples.
+    private void adapt(History nodeState, long interval, boolean suspected) {
+        DescriptiveStatistics samples = nodeState.samples();
+        double mean = samples.getMean();
+        if (suspected) {
+            long pause = Math.round(interval - mean);
+            nodeState.pauseAllowance = Math.min(MAX_PAUSE_ALLOWANCE_MILLIS,
+                                                Math.max(nodeState.pauseAllowance, pause));
+            nodeState.samplesSincePause = 0;
+        } else if (nodeState.pauseAllowance > 0
+                && ++nodeState.samplesSincePause >= samples.getWindowSize()) {
+            // no pause seen for a whole window
+            nodeState.pauseAllowance /= 2;
+            nodeState.samplesSincePause = 0;
+        }
+
+        // resizing is linear in the window size, so only done once in a while
+        if (++nodeState.samplesSinceResize >= minSamples) {
+            nodeState.samplesSinceResize = 0;
+            double cv = Math.max(samples.getStandardDeviation(), minStandardDeviationMillis)
+                    / Math.max(mean, 1.0);
+            double size = Math.pow(WINDOW_CONFIDENCE_Z * cv / WINDOW_PRECISION, 2);
+            int windowSize = (int) Math.min(MAX_WINDOW_SIZE, Math.max(minSamples, Math.ceil(size)));
+            if (windowSize != samples.getWindowSize()) {
+                samples.setWindowSize(windowSize);
+            }
         }
     }
 
@@ -141,9 +305,31 @@ public class PhiAccrualFailureDetector {
         }
     }
 
+    private static int bucket(long[] bounds, long value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int bucket(double[] bounds, double value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        return i;
+    }
+
     private static class History {
         DescriptiveStatistics samples = new DescriptiveStatistics(DEFAULT_WINDOW_SIZE);
         long lastHeartbeatTime = -1;
+        long latestActivityTime = -1;
+        long pauseAllowance;
+        int samplesSincePause;
+        int samplesSinceResize;
+        final long[] intervals = new long[INTERVAL_BUCKETS_MILLIS.length + 1];
+        final long[] phis = new long[PHI_BUCKETS.length + 1];
 
         DescriptiveStatistics samples() {
             return samples;
@@ -156,5 +342,118 @@ public class PhiAccrualFailureDetector {
         void setLatestHeartbeatTime(long value) {
             lastHeartbeatTime = value;
         }
+
+        void recordInterval(long interval) {
+            intervals[bucket(INTERVAL_BUCKETS_MILLIS, interval)]++;
+        }
+
+        void recordPhi(double phi) {
+            phis[bucket(PHI_BUCKETS, phi)]++;
+        }
+    }
+
+    /**
+     * Snapshot of the failure detection statistics of a node.
+     */
+    public static final class Statistics {
+        private final double phi;
+        private final double meanMillis;
+        private final double standardDeviationMillis;
+        private final int windowSize;
+        private final long pauseAllowanceMillis;
+        private final long[] intervalHistogram;
+        private final long[] phiHistogram;
+
+        private Statistics(double phi, double meanMillis, double standardDeviationMillis,
+                           int windowSize, long pauseAllowanceMillis,
+                           long[] intervalHistogram, long[] phiHistogram) {
+            this.phi = phi;
+            this.meanMillis = meanMillis;
+            this.standardDeviationMillis = standardDeviationMillis;
+            this.windowSize = windowSize;
+            this.pauseAllowanceMillis = pauseAllowanceMillis;
+            this.intervalHistogram = intervalHistogram;
+            this.phiHistogram = phiHistogram;
+        }
+
+        /**
+         * Returns the current phi of the node.
+         *
+         * @return phi value
+         */
+        public double phi() {
+            return phi;
+        }
+
+        /**
+         * Returns the mean of the sampled inter-arrival times.
+         *
+         * @return mean inter-arrival time in milliseconds
+         */
+        public double meanMillis() {
+            return meanMillis;
+        }
+
+        /**
+         * Returns the standard deviation of the sampled inter-arrival times.
+         *
+         * @return standard deviation in milliseconds
+         */
+        public double standardDeviationMillis() {
+            return standardDeviationMillis;
+        }
+
+        /**
+         * Returns the size of the sample window.
+         *
+         * @return maximum number of inter-arrival times sampled
+         */
+        public int windowSize() {
+            return windowSize;
+        }
+
+        /**
+         * Returns the pause allowance learned in adaptive mode.
+         *
+         * @return pause allowance in milliseconds
+         */
+        public long pauseAllowanceMillis() {
+            return pauseAllowanceMillis;
+        }
+
+        /**
+         * Returns the number of heartbeats received in each inter-arrival
+         * time bucket, bounded by 10, 20, 50, 100, 200, 500, 1000, 2000 and
+         * 5000 milliseconds, the last bucket holding longer times.
+         *
+         * @return inter-arrival time histogram
+         */
+        public long[] intervalHistogram() {
+            return intervalHistogram.clone();
+        }
+
+        /**
+         * Returns the number of heartbeats received in each bucket of phi
+         * values upon arrival, bounded by 1, 2, 4, 8 and 16, the last bucket
+         * holding higher values.
+         *
+         * @return phi histogram
+         */
+        public long[] phiHistogram() {
+            return phiHistogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("phi", phi)
+                    .add("meanMillis", meanMillis)
+                    .add("standardDeviationMillis", standardDeviationMillis)
+                    .add("windowSize", windowSize)
+                    .add("pauseAllowanceMillis", pauseAllowanceMillis)
+                    .add("intervalHistogram", Arrays.toString(intervalHistogram))
+                    .add("phiHistogram", Arrays.toString(phiHistogram))
+                    .toString();
+        }
     }
-}
\ No newline at end of file
+}
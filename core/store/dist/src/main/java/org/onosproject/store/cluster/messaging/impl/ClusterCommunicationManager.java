@@ -15,15 +15,23 @@
  */
 package org.onosproject.store.cluster.messaging.impl;
 
+import com.codahale.metrics.Counter;
 import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.NodeId;
@@ -34,13 +42,22 @@ import org.onosproject.store.cluster.messaging.Endpoint;
 import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.cluster.messaging.MessagingService;
 import org.onosproject.utils.MeteringAgent;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -49,6 +66,9 @@ import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.CLUSTER_WRITE;
 
@@ -58,8 +78,8 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    private final MeteringAgent subjectMeteringAgent = new MeteringAgent(PRIMITIVE_NAME, SUBJECT_PREFIX, true);
-    private final MeteringAgent endpointMeteringAgent = new MeteringAgent(PRIMITIVE_NAME, ENDPOINT_PREFIX, true);
+    private MeteringAgent subjectMeteringAgent;
+    private MeteringAgent endpointMeteringAgent;
 
     private static final String PRIMITIVE_NAME = "clusterCommunication";
     private static final String SUBJECT_PREFIX = "subject";
@@ -71,25 +91,124 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
     private static final String ROUND_TRIP_SUFFIX = ".rtt";
     private static final String ONE_WAY_SUFFIX = ".oneway";
 
+    private static final String TRAFFIC_FEATURE = "subjectTraffic";
+    private static final String MESSAGES_OUT_SUFFIX = ".messagesOut";
+    private static final String BYTES_OUT_SUFFIX = ".bytesOut";
+    private static final String MESSAGES_IN_SUFFIX = ".messagesIn";
+    private static final String BYTES_IN_SUFFIX = ".bytesIn";
+    private static final String BATCHES_OUT = "batchesOut";
+
+    // transport subject of the frames packing the messages of several subjects
+    static final String BATCH_SUBJECT = "onos-cluster-message-batch";
+
+    private static final boolean BATCHING_ENABLED = false;
+    private static final int BATCH_WINDOW_MICROS = 500;
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+
+    @Property(name = "batchingEnabled", boolValue = BATCHING_ENABLED,
+            label = "Enable batching of one-way messages sent to the same peer; " +
+                    "every node of the cluster must be able to unpack batches")
+    private boolean batchingEnabled = BATCHING_ENABLED;
+
+    @Property(name = "batchWindowMicros", intValue = BATCH_WINDOW_MICROS,
+            label = "Time in microseconds one-way messages are held to be batched")
+    private int batchWindowMicros = BATCH_WINDOW_MICROS;
+
+    @Property(name = "maxBatchBytes", intValue = MAX_BATCH_BYTES,
+            label = "Size in bytes at which a batch is sent without waiting")
+    private int maxBatchBytes = MAX_BATCH_BYTES;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterService clusterService;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected MessagingService messagingService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private NodeId localNodeId;
 
+    // one-way handlers by transport subject, used to dispatch batched messages
+    private final Map<String, BiConsumer<Endpoint, byte[]>> oneWayHandlers = Maps.newConcurrentMap();
+    private final Map<NodeId, PeerBatch> peerBatches = Maps.newConcurrentMap();
+    private ScheduledExecutorService batchExecutor;
+
+    private MetricsComponent metricsComponent;
+    private MetricsFeature trafficFeature;
+    private final Map<String, Counter> trafficCounters = Maps.newConcurrentMap();
+
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
         localNodeId = clusterService.getLocalNode().id();
+        if (cfgService != null) {
+            cfgService.registerProperties(getClass());
+        }
+        modified(context);
+        subjectMeteringAgent = meteringAgent(SUBJECT_PREFIX);
+        endpointMeteringAgent = meteringAgent(ENDPOINT_PREFIX);
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(PRIMITIVE_NAME);
+            trafficFeature = metricsComponent.registerFeature(TRAFFIC_FEATURE);
+        }
+        batchExecutor = Executors.newSingleThreadScheduledExecutor(
+                groupedThreads("onos/cluster", "message-batcher", log));
+        // batches are always accepted so that peers may enable batching
+        messagingService.registerHandler(BATCH_SUBJECT, this::dispatchBatch, Runnable::run);
         log.info("Started");
     }
 
+    // metering is always enabled; overridden by the tests, which run
+    // without the OSGi service directory the agents get metrics from
+    MeteringAgent meteringAgent(String objName) {
+        return new MeteringAgent(PRIMITIVE_NAME, objName, true);
+    }
+
     @Deactivate
     public void deactivate() {
+        messagingService.unregisterHandler(BATCH_SUBJECT);
+        peerBatches.values().forEach(PeerBatch::flush);
+        peerBatches.clear();
+        batchExecutor.shutdown();
+        if (cfgService != null) {
+            cfgService.unregisterProperties(getClass(), false);
+        }
+        if (metricsService != null && metricsComponent != null) {
+            trafficCounters.keySet().forEach(name ->
+                    metricsService.removeMetric(metricsComponent, trafficFeature, name));
+        }
+        trafficCounters.clear();
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : new Properties();
+
+        try {
+            String s = get(properties, "batchingEnabled");
+            batchingEnabled = isNullOrEmpty(s) ? BATCHING_ENABLED : Boolean.parseBoolean(s.trim());
+
+            s = get(properties, "batchWindowMicros");
+            batchWindowMicros = isNullOrEmpty(s) ? BATCH_WINDOW_MICROS : Integer.parseInt(s.trim());
+
+            s = get(properties, "maxBatchBytes");
+            maxBatchBytes = isNullOrEmpty(s) ? MAX_BATCH_BYTES : Integer.parseInt(s.trim());
+        } catch (Exception e) {
+            batchingEnabled = BATCHING_ENABLED;
+            batchWindowMicros = BATCH_WINDOW_MICROS;
+            maxBatchBytes = MAX_BATCH_BYTES;
+        }
+        if (!batchingEnabled) {
+            peerBatches.values().forEach(PeerBatch::flush);
+        }
+        log.info("Configured. Message batching is {}, window {}us, max batch {} bytes",
+                 batchingEnabled ? "enabled" : "disabled", batchWindowMicros, maxBatchBytes);
+    }
+
     @Override
     public <M> void broadcast(M message,
                               MessageSubject subject,
@@ -176,9 +295,76 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
         checkArgument(node != null, "Unknown nodeId: %s", toNodeId);
         Endpoint nodeEp = new Endpoint(node.ip(), node.tcpPort());
         MeteringAgent.Context context = subjectMeteringAgent.startTimer(subject.toString() + ONE_WAY_SUFFIX);
+        countTraffic(subject.toString(), MESSAGES_OUT_SUFFIX, BYTES_OUT_SUFFIX, payload.length);
+        if (batchingEnabled && !toNodeId.equals(localNodeId)) {
+            return peerBatches.computeIfAbsent(toNodeId, PeerBatch::new)
+                    .add(nodeEp, new ClusterMessageBatch.Message(subject.toString(), payload))
+                    .whenComplete((r, e) -> context.stop(e));
+        }
         return messagingService.sendAsync(nodeEp, subject.toString(), payload).whenComplete((r, e) -> context.stop(e));
     }
 
+    /**
+     * Unpacks a batch received from a peer and hands each of its messages
+     * to the handler of its subject.
+     *
+     * @param sender peer endpoint
+     * @param frame batch frame
+     */
+    private void dispatchBatch(Endpoint sender, byte[] frame) {
+        List<ClusterMessageBatch.Message> messages;
+        try {
+            messages = ClusterMessageBatch.decode(frame);
+        } catch (IllegalArgumentException e) {
+            log.warn("Dropping malformed message batch from {}: {}", sender, e.getMessage());
+            return;
+        }
+        for (ClusterMessageBatch.Message message : messages) {
+            BiConsumer<Endpoint, byte[]> handler = oneWayHandlers.get(message.subject());
+            if (handler == null) {
+                log.debug("No handler for batched message of subject {}", message.subject());
+                continue;
+            }
+            try {
+                handler.accept(sender, message.payload());
+            } catch (Exception e) {
+                log.warn("Failed to handle batched message of subject {}", message.subject(), e);
+            }
+        }
+    }
+
+    /**
+     * Registers the handler of the given subject with the messaging service
+     * and records how a one-way message of that subject is to be handled when
+     * received in a batch.
+     *
+     * @param subject message subject
+     * @param oneWayHandler handler of one-way messages of the subject
+     */
+    private void registerOneWayHandler(MessageSubject subject, BiConsumer<Endpoint, byte[]> oneWayHandler) {
+        oneWayHandlers.put(subject.toString(), oneWayHandler);
+    }
+
+    private void countTraffic(String subject, String messagesSuffix, String bytesSuffix, int bytes) {
+        Counter messages = trafficCounter(subject + messagesSuffix);
+        if (messages != null) {
+            messages.inc();
+            trafficCounter(subject + bytesSuffix).inc(bytes);
+        }
+    }
+
+    private Counter trafficCounter(String name) {
+        if (metricsService == null || metricsComponent == null) {
+            return null;
+        }
+        Counter counter = trafficCounters.get(name);
+        if (counter != null) {
+            return counter;
+        }
+        return trafficCounters.computeIfAbsent(name, n ->
+                metricsService.createCounter(metricsComponent, trafficFeature, n));
+    }
+
     private CompletableFuture<byte[]> sendAndReceive(MessageSubject subject, byte[] payload, NodeId toNodeId) {
         ControllerNode node = clusterService.getNode(toNodeId);
         checkArgument(node != null, "Unknown nodeId: %s", toNodeId);
@@ -187,6 +373,7 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                 startTimer(NODE_PREFIX + toNodeId.toString() + ROUND_TRIP_SUFFIX);
         MeteringAgent.Context subjectContext = subjectMeteringAgent.
                 startTimer(subject.toString() + ROUND_TRIP_SUFFIX);
+        countTraffic(subject.toString(), MESSAGES_OUT_SUFFIX, BYTES_OUT_SUFFIX, payload.length);
         return messagingService.sendAndReceive(nodeEp, subject.toString(), payload).
                 whenComplete((bytes, throwable) -> {
                     subjectContext.stop(throwable);
@@ -199,14 +386,15 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                               ClusterMessageHandler subscriber,
                               ExecutorService executor) {
         checkPermission(CLUSTER_WRITE);
-        messagingService.registerHandler(subject.toString(),
-                new InternalClusterMessageHandler(subscriber),
-                executor);
+        InternalClusterMessageHandler handler = new InternalClusterMessageHandler(subject, subscriber);
+        registerOneWayHandler(subject, (sender, bytes) -> executor.execute(() -> handler.apply(sender, bytes)));
+        messagingService.registerHandler(subject.toString(), handler, executor);
     }
 
     @Override
     public void removeSubscriber(MessageSubject subject) {
         checkPermission(CLUSTER_WRITE);
+        oneWayHandlers.remove(subject.toString());
         messagingService.unregisterHandler(subject.toString());
     }
 
@@ -217,8 +405,8 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
             Function<R, byte[]> encoder,
             Executor executor) {
         checkPermission(CLUSTER_WRITE);
-        messagingService.registerHandler(subject.toString(),
-                new InternalMessageResponder<M, R>(decoder, encoder, m -> {
+        InternalMessageResponder<M, R> responder =
+                new InternalMessageResponder<M, R>(subject, decoder, encoder, m -> {
                     CompletableFuture<R> responseFuture = new CompletableFuture<>();
                     executor.execute(() -> {
                         try {
@@ -228,7 +416,9 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                         }
                     });
                     return responseFuture;
-                }));
+                });
+        registerOneWayHandler(subject, responder::apply);
+        messagingService.registerHandler(subject.toString(), responder);
     }
 
     @Override
@@ -237,8 +427,9 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
             Function<M, CompletableFuture<R>> handler,
             Function<R, byte[]> encoder) {
         checkPermission(CLUSTER_WRITE);
-        messagingService.registerHandler(subject.toString(),
-                new InternalMessageResponder<>(decoder, encoder, handler));
+        InternalMessageResponder<M, R> responder = new InternalMessageResponder<>(subject, decoder, encoder, handler);
+        registerOneWayHandler(subject, responder::apply);
+        messagingService.registerHandler(subject.toString(), responder);
     }
 
     @Override
@@ -247,9 +438,9 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
             Consumer<M> handler,
             Executor executor) {
         checkPermission(CLUSTER_WRITE);
-        messagingService.registerHandler(subject.toString(),
-                new InternalMessageConsumer<>(decoder, handler),
-                executor);
+        InternalMessageConsumer<M> consumer = new InternalMessageConsumer<>(subject, decoder, handler);
+        registerOneWayHandler(subject, (sender, bytes) -> executor.execute(() -> consumer.accept(sender, bytes)));
+        messagingService.registerHandler(subject.toString(), consumer, executor);
     }
 
     /**
@@ -286,15 +477,104 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
     }
 
 
+    /**
+     * Batch of one-way messages waiting to be sent to a peer.
+     */
+    private final class PeerBatch {
+        private final NodeId nodeId;
+        private Endpoint endpoint;
+        private List<ClusterMessageBatch.Message> messages = new ArrayList<>();
+        private List<CompletableFuture<Void>> futures = new ArrayList<>();
+        private int size;
+
+        private PeerBatch(NodeId nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        /**
+         * Adds a message to the batch, scheduling the batch to be sent at the
+         * end of the batching window, or sending it right away if it is full.
+         *
+         * @param endpoint peer endpoint
+         * @param message message to add
+         * @return future completed once the batch holding the message is sent
+         */
+        CompletableFuture<Void> add(Endpoint endpoint, ClusterMessageBatch.Message message) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            boolean full;
+            synchronized (this) {
+                this.endpoint = endpoint;
+                if (messages.isEmpty()) {
+                    batchExecutor.schedule(this::flush, batchWindowMicros, TimeUnit.MICROSECONDS);
+                }
+                messages.add(message);
+                futures.add(future);
+                size += message.encodedSize();
+                full = size >= maxBatchBytes;
+            }
+            if (full) {
+                flush();
+            }
+            return future;
+        }
+
+        /**
+         * Sends the pending messages, if any.
+         */
+        void flush() {
+            List<ClusterMessageBatch.Message> batch;
+            List<CompletableFuture<Void>> batchFutures;
+            Endpoint ep;
+            synchronized (this) {
+                if (messages.isEmpty()) {
+                    return;
+                }
+                batch = messages;
+                batchFutures = futures;
+                ep = endpoint;
+                messages = new ArrayList<>();
+                futures = new ArrayList<>();
+                size = 0;
+            }
+
+            CompletableFuture<Void> sent;
+            if (batch.size() == 1) {
+                // a single message does not need the batch framing
+                sent = messagingService.sendAsync(ep, batch.get(0).subject(), batch.get(0).payload());
+            } else {
+                Counter batches = trafficCounter(BATCHES_OUT);
+                if (batches != null) {
+                    batches.inc();
+                }
+                sent = messagingService.sendAsync(ep, BATCH_SUBJECT, ClusterMessageBatch.encode(batch));
+            }
+            sent.whenComplete((r, e) -> {
+                if (e != null) {
+                    log.debug("Failed to send {} messages to {}", batch.size(), nodeId, e);
+                }
+                batchFutures.forEach(f -> {
+                    if (e == null) {
+                        f.complete(null);
+                    } else {
+                        f.completeExceptionally(e);
+                    }
+                });
+            });
+        }
+    }
+
     private class InternalClusterMessageHandler implements BiFunction<Endpoint, byte[], byte[]> {
+        private final String subject;
         private ClusterMessageHandler handler;
 
-        public InternalClusterMessageHandler(ClusterMessageHandler handler) {
+        public InternalClusterMessageHandler(MessageSubject subject, ClusterMessageHandler handler) {
+            this.subject = subject.toString();
             this.handler = handler;
         }
 
         @Override
         public byte[] apply(Endpoint sender, byte[] bytes) {
+            countTraffic(subject, MESSAGES_IN_SUFFIX, BYTES_IN_SUFFIX, bytes.length);
             ClusterMessage message = ClusterMessage.fromBytes(bytes);
             handler.handle(message);
             return message.response();
@@ -302,13 +582,16 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
     }
 
     private class InternalMessageResponder<M, R> implements BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> {
+        private final String subject;
         private final Function<byte[], M> decoder;
         private final Function<R, byte[]> encoder;
         private final Function<M, CompletableFuture<R>> handler;
 
-        public InternalMessageResponder(Function<byte[], M> decoder,
+        public InternalMessageResponder(MessageSubject subject,
+                                        Function<byte[], M> decoder,
                                         Function<R, byte[]> encoder,
                                         Function<M, CompletableFuture<R>> handler) {
+            this.subject = subject.toString();
             this.decoder = decoder;
             this.encoder = encoder;
             this.handler = handler;
@@ -316,6 +599,7 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
 
         @Override
         public CompletableFuture<byte[]> apply(Endpoint sender, byte[] bytes) {
+            countTraffic(subject, MESSAGES_IN_SUFFIX, BYTES_IN_SUFFIX, bytes.length);
             return handler.apply(timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).
                     apply(ClusterMessage.fromBytes(bytes).payload())).
                     thenApply(m -> timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(m));
@@ -323,16 +607,19 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
     }
 
     private class InternalMessageConsumer<M> implements BiConsumer<Endpoint, byte[]> {
+        private final String subject;
         private final Function<byte[], M> decoder;
         private final Consumer<M> consumer;
 
-        public InternalMessageConsumer(Function<byte[], M> decoder, Consumer<M> consumer) {
+        public InternalMessageConsumer(MessageSubject subject, Function<byte[], M> decoder, Consumer<M> consumer) {
+            this.subject = subject.toString();
             this.decoder = decoder;
             this.consumer = consumer;
         }
 
         @Override
         public void accept(Endpoint sender, byte[] bytes) {
+            countTraffic(subject, MESSAGES_IN_SUFFIX, BYTES_IN_SUFFIX, bytes.length);
             consumer.accept(timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).
                     apply(ClusterMessage.fromBytes(bytes).payload()));
         }
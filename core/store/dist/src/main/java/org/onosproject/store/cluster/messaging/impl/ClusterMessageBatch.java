@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging.impl;
+
+import com.google.common.collect.ImmutableList;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Frame packing messages of one or more subjects into a single transport
+ * message.
+ * <p>
+ * A frame is encoded as the number of messages followed, for each message,
+ * by the length and UTF-8 bytes of its subject and the length and bytes of
+ * its payload.
+ * </p>
+ */
+final class ClusterMessageBatch {
+
+    private ClusterMessageBatch() {
+    }
+
+    /**
+     * Single message of a batch.
+     */
+    static final class Message {
+        private final String subject;
+        private final byte[] subjectBytes;
+        private final byte[] payload;
+
+        /**
+         * Creates a message of a batch.
+         *
+         * @param subject transport subject of the message
+         * @param payload message payload
+         */
+        Message(String subject, byte[] payload) {
+            this.subject = checkNotNull(subject);
+            this.subjectBytes = subject.getBytes(StandardCharsets.UTF_8);
+            this.payload = checkNotNull(payload);
+        }
+
+        /**
+         * Returns the transport subject of the message.
+         *
+         * @return message subject
+         */
+        String subject() {
+            return subject;
+        }
+
+        /**
+         * Returns the payload of the message.
+         *
+         * @return message payload
+         */
+        byte[] payload() {
+            return payload;
+        }
+
+        /**
+         * Returns the number of bytes the message takes in a frame.
+         *
+         * @return encoded size in bytes
+         */
+        int encodedSize() {
+            return 2 * Integer.BYTES + subjectBytes.length + payload.length;
+        }
+    }
+
+    /**
+     * Encodes the given messages into a frame.
+     *
+     * @param messages messages to encode
+     * @return frame bytes
+     */
+    static byte[] encode(List<Message> messages) {
+        int size = Integer.BYTES;
+        for (Message message : messages) {
+            size += message.encodedSize();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(messages.size());
+        for (Message message : messages) {
+            buffer.putInt(message.subjectBytes.length);
+            buffer.put(message.subjectBytes);
+            buffer.putInt(message.payload.length);
+            buffer.put(message.payload);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes the messages of the given frame.
+     *
+     * @param frame frame bytes
+     * @return decoded messages, in the order they were encoded
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    static List<Message> decode(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        int count = readLength(buffer);
+        ImmutableList.Builder<Message> messages = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            byte[] subject = new byte[readLength(buffer)];
+            buffer.get(subject);
+            byte[] payload = new byte[readLength(buffer)];
+            buffer.get(payload);
+            messages.add(new Message(new String(subject, StandardCharsets.UTF_8), payload));
+        }
+        checkArgument(!buffer.hasRemaining(), "Trailing bytes in message batch");
+        return messages.build();
+    }
+
+    private static int readLength(ByteBuffer buffer) {
+        checkArgument(buffer.remaining() >= Integer.BYTES, "Truncated message batch");
+        int length = buffer.getInt();
+        checkArgument(length >= 0 && length <= buffer.remaining(),
+                      "Invalid length %s in message batch", length);
+        return length;
+    }
+}
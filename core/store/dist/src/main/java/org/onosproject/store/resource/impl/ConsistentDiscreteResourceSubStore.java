@@ -25,6 +25,8 @@ import org.onosproject.net.resource.ResourceAllocation;
 import org.onosproject.net.resource.ResourceConsumerId;
 import org.onosproject.net.resource.Resources;
 import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.StorageException;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.TransactionContext;
@@ -33,6 +35,7 @@ import org.onosproject.store.service.Versioned;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIALIZER;
@@ -45,6 +48,11 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
     private ConsistentMap<DiscreteResourceId, ResourceConsumerId> consumers;
     private ConsistentMap<DiscreteResourceId, DiscreteResources> childMap;
 
+    // Local view of the allocated resources, following the consumer map
+    private final Set<DiscreteResourceId> allocated = ConcurrentHashMap.newKeySet();
+    private final MapEventListener<DiscreteResourceId, ResourceConsumerId> consumerListener =
+            new InternalConsumerListener();
+
     @SuppressWarnings("ReturnValueIgnored")
     ConsistentDiscreteResourceSubStore(StorageService service) {
         this.consumers = service.<DiscreteResourceId, ResourceConsumerId>consistentMapBuilder()
@@ -62,6 +70,39 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
                 Integer.MAX_VALUE,
                 50
         ).get();
+
+        consumers.addListener(consumerListener);
+        allocated.addAll(consumers.keySet());
+    }
+
+    /**
+     * Stops following the consumer map and clears the local view
+     * of the allocated resources.
+     */
+    void close() {
+        consumers.removeListener(consumerListener);
+        allocated.clear();
+    }
+
+    /**
+     * Returns whether the given resource is known to be allocated, so that
+     * conflicting allocations can be rejected without a transaction.
+     * A false result does not guarantee that the resource is available.
+     *
+     * @param id resource ID
+     * @return true if the resource is allocated
+     */
+    // computational complexity: O(1)
+    boolean isKnownAllocated(DiscreteResourceId id) {
+        if (!allocated.contains(id)) {
+            return false;
+        }
+        // the local view may lag behind the map; confirm before rejecting
+        if (!consumers.containsKey(id)) {
+            allocated.remove(id);
+            return false;
+        }
+        return true;
     }
 
     @Override
@@ -126,4 +167,16 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
                 .map(Map.Entry::getKey)
                 .map(x -> Resources.discrete(x).resource());
     }
+
+    private class InternalConsumerListener
+            implements MapEventListener<DiscreteResourceId, ResourceConsumerId> {
+        @Override
+        public void event(MapEvent<DiscreteResourceId, ResourceConsumerId> event) {
+            if (event.type() == MapEvent.Type.REMOVE) {
+                allocated.remove(event.key());
+            } else {
+                allocated.add(event.key());
+            }
+        }
+    }
 }
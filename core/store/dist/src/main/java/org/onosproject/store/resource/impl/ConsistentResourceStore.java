@@ -15,7 +15,9 @@
  */
 package org.onosproject.store.resource.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -33,6 +35,7 @@ import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableSet;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
@@ -96,6 +99,12 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
     private ConsistentDiscreteResourceSubStore discreteStore;
     private ConsistentContinuousResourceSubStore continuousStore;
 
+    // maximum number of allocation requests committed in a single transaction
+    private static final int MAX_ALLOCATION_BATCH_SIZE = 100;
+
+    private final RequestBatcher<AllocationRequest> allocationBatcher =
+            new RequestBatcher<>(this::allocateAll, MAX_ALLOCATION_BATCH_SIZE);
+
     @Activate
     public void activate() {
         discreteStore = new ConsistentDiscreteResourceSubStore(service);
@@ -104,6 +113,13 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         log.info("Started");
     }
 
+    @Deactivate
+    public void deactivate() {
+        discreteStore.close();
+
+        log.info("Stopped");
+    }
+
     // Computational complexity: O(1) if the resource is discrete type.
     // O(n) if the resource is continuous type where n is the number of the existing allocations for the resource
     @Override
@@ -230,22 +246,77 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         checkNotNull(resources);
         checkNotNull(consumer);
 
+        // reject obvious conflicts without going through a transaction
+        for (Resource resource : resources) {
+            if (resource instanceof DiscreteResource
+                    && discreteStore.isKnownAllocated(((DiscreteResource) resource).id())) {
+                log.trace("Failed to allocate {}: {} is already allocated", resources, resource);
+                return false;
+            }
+        }
+
+        // concurrent allocations are committed together
+        return allocationBatcher.submit(new AllocationRequest(resources, consumer.consumerId()));
+    }
+
+    /**
+     * Allocates the resources of the given requests in as few transactions
+     * as possible. Each request is applied only if all its resources are
+     * available, so that a conflicting request fails without affecting the
+     * others in the batch.
+     *
+     * @param requests allocation requests
+     * @return result of each request, in the same order
+     */
+    List<Boolean> allocateAll(List<AllocationRequest> requests) {
+        if (requests.size() == 1) {
+            return Collections.singletonList(allocate(requests.get(0)));
+        }
+
         while (true) {
             TransactionContext tx = service.transactionContextBuilder().build();
             tx.begin();
 
             TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
             TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
-            for (Resource resource : resources) {
-                if (resource instanceof DiscreteResource) {
-                    if (!discreteTxStore.allocate(consumer.consumerId(), (DiscreteResource) resource)) {
-                        return abortTransaction(tx);
-                    }
-                } else if (resource instanceof ContinuousResource) {
-                    if (!continuousTxStore.allocate(consumer.consumerId(), (ContinuousResource) resource)) {
-                        return abortTransaction(tx);
-                    }
+            List<Boolean> results = new ArrayList<>(requests.size());
+            for (AllocationRequest request : requests) {
+                // reads within the transaction see the allocations of the preceding requests
+                boolean available = request.resources.stream()
+                        .allMatch(x -> isAvailable(discreteTxStore, continuousTxStore, x));
+                if (available && !allocate(discreteTxStore, continuousTxStore, request)) {
+                    // e.g. the same resource requested twice; retry the requests one by one
+                    tx.abort();
+                    return requests.stream().map(this::allocate).collect(Collectors.toList());
                 }
+                results.add(available);
+            }
+
+            if (!results.contains(true)) {
+                tx.abort();
+                return results;
+            }
+
+            try {
+                if (commitTransaction(tx) == CommitStatus.SUCCESS) {
+                    return results;
+                }
+            } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                log.warn("Failed to allocate {} requests: {}", requests.size(), e);
+                return Collections.nCopies(requests.size(), false);
+            }
+        }
+    }
+
+    private boolean allocate(AllocationRequest request) {
+        while (true) {
+            TransactionContext tx = service.transactionContextBuilder().build();
+            tx.begin();
+
+            TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
+            TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
+            if (!allocate(discreteTxStore, continuousTxStore, request)) {
+                return abortTransaction(tx);
             }
 
             try {
@@ -253,12 +324,40 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
                     return true;
                 }
             } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                log.warn("Failed to allocate {}: {}", resources, e);
+                log.warn("Failed to allocate {}: {}", request.resources, e);
                 return false;
             }
         }
     }
 
+    private boolean allocate(TransactionalDiscreteResourceSubStore discreteTxStore,
+                             TransactionalContinuousResourceSubStore continuousTxStore,
+                             AllocationRequest request) {
+        for (Resource resource : request.resources) {
+            if (resource instanceof DiscreteResource) {
+                if (!discreteTxStore.allocate(request.consumerId, (DiscreteResource) resource)) {
+                    return false;
+                }
+            } else if (resource instanceof ContinuousResource) {
+                if (!continuousTxStore.allocate(request.consumerId, (ContinuousResource) resource)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isAvailable(TransactionalDiscreteResourceSubStore discreteTxStore,
+                                TransactionalContinuousResourceSubStore continuousTxStore,
+                                Resource resource) {
+        if (resource instanceof DiscreteResource) {
+            return discreteTxStore.isAvailable((DiscreteResource) resource);
+        } else if (resource instanceof ContinuousResource) {
+            return continuousTxStore.isAvailable((ContinuousResource) resource);
+        }
+        return true;
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         checkNotNull(allocations);
@@ -437,4 +536,17 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         return discreteTxStore.unregister(parent, discreteResources)
                 && continuousTxStore.unregister(parent, continuousResources);
     }
+
+    /**
+     * Request to allocate resources to a consumer.
+     */
+    static final class AllocationRequest {
+        private final List<? extends Resource> resources;
+        private final ResourceConsumerId consumerId;
+
+        AllocationRequest(List<? extends Resource> resources, ResourceConsumerId consumerId) {
+            this.resources = resources;
+            this.consumerId = consumerId;
+        }
+    }
 }
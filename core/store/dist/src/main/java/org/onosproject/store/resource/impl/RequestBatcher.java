@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Executes requests submitted concurrently in batches.
+ * <p>
+ * The first caller that finds no batch in progress executes the pending
+ * requests, including its own, while the others wait for their result.
+ * Requests submitted during the execution of a batch are executed together
+ * in the next one, so that the number of batches adapts to the load
+ * without any added delay when there is no contention.
+ * </p>
+ *
+ * @param <T> type of the requests
+ */
+final class RequestBatcher<T> {
+
+    private final Function<List<T>, List<Boolean>> executor;
+    private final int maxBatchSize;
+    private final Queue<PendingRequest<T>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean executing = new AtomicBoolean(false);
+
+    /**
+     * Creates a new batcher.
+     *
+     * @param executor function executing a batch of requests and returning
+     *                 the result of each request, in the same order
+     * @param maxBatchSize maximum number of requests in a batch
+     */
+    RequestBatcher(Function<List<T>, List<Boolean>> executor, int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "Batch size must be positive");
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Submits a request and waits for its result.
+     *
+     * @param request request to execute
+     * @return result of the request
+     */
+    boolean submit(T request) {
+        PendingRequest<T> pendingRequest = new PendingRequest<>(request);
+        pending.add(pendingRequest);
+        // re-check after releasing the flag, in case a request was queued
+        // by a caller that saw the flag still set
+        while (!pending.isEmpty() && executing.compareAndSet(false, true)) {
+            try {
+                drain();
+            } finally {
+                executing.set(false);
+            }
+        }
+        try {
+            return pendingRequest.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Executes batches until there is no pending request left.
+    private void drain() {
+        List<PendingRequest<T>> batch = Lists.newArrayListWithCapacity(maxBatchSize);
+        PendingRequest<T> next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+            if (batch.size() == maxBatchSize || pending.isEmpty()) {
+                execute(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void execute(List<PendingRequest<T>> batch) {
+        try {
+            List<Boolean> results = executor.apply(Lists.transform(batch, r -> r.request));
+            checkState(results.size() == batch.size(), "Expected %s results, got %s",
+                       batch.size(), results.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(r -> r.result.completeExceptionally(e));
+        }
+    }
+
+    private static final class PendingRequest<T> {
+        private final T request;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private PendingRequest(T request) {
+            this.request = request;
+        }
+    }
+}
@@ -136,6 +136,18 @@ class TransactionalContinuousResourceSubStore
         return allocations != null && !allocations.allocations().isEmpty();
     }
 
+    @Override
+    public boolean isAvailable(ContinuousResource request) {
+        Optional<ContinuousResource> lookedUp = lookup(request.id());
+        if (!lookedUp.isPresent()) {
+            return false;
+        }
+        ContinuousResourceAllocation allocations = consumers.get(request.id());
+        return Optional.ofNullable(allocations)
+                .orElse(ContinuousResourceAllocation.empty(lookedUp.get()))
+                .hasEnoughResource(request);
+    }
+
     @Override
     public boolean allocate(ResourceConsumerId consumerId, ContinuousResource request) {
         // if the resource is not registered, then abort
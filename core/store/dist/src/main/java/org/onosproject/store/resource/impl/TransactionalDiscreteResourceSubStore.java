@@ -119,6 +119,11 @@ class TransactionalDiscreteResourceSubStore
         return consumers.get(id) != null;
     }
 
+    @Override
+    public boolean isAvailable(DiscreteResource resource) {
+        return lookup(resource.id()).isPresent() && !isAllocated(resource.id());
+    }
+
     @Override
     public boolean allocate(ResourceConsumerId consumerId, DiscreteResource resource) {
         // if the resource is not registered, then abort
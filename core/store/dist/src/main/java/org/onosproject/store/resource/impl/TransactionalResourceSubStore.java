@@ -62,6 +62,15 @@ interface TransactionalResourceSubStore<T extends ResourceId, U extends Resource
      */
     boolean isAllocated(T resourceId);
 
+    /**
+     * Returns a boolean indicating whether the given resource is registered
+     * and can be allocated, without modifying the substore.
+     *
+     * @param resource the resource
+     * @return indicates whether the given resource can be allocated
+     */
+    boolean isAvailable(U resource);
+
     /**
      * Allocates the given resource for the given consumer.
      *
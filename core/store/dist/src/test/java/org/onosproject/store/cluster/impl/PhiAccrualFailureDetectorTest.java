@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.impl;
+
+import org.junit.Test;
+import org.onosproject.cluster.NodeId;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for PhiAccrualFailureDetector, including a simulation of
+ * heartbeats subject to jitter and pauses.
+ */
+public class PhiAccrualFailureDetectorTest {
+
+    private static final NodeId NODE = NodeId.nodeId("node1");
+    private static final double THRESHOLD = 8.0;
+    private static final long INTERVAL = 100;
+    private static final long TICK = 10;
+
+    @Test
+    public void testBootstrap() {
+        PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector();
+        assertEquals(100.0, detector.phi(NODE), 0.0);
+        assertNull(detector.statistics(NODE));
+
+        detector.report(NODE, 1000);
+        assertEquals(0.0, detector.phi(NODE, 5000), 0.0);
+    }
+
+    @Test
+    public void testRegularHeartbeats() {
+        PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector();
+        long time = 0;
+        for (int i = 0; i < 100; i++) {
+            time += INTERVAL;
+            detector.report(NODE, time);
+        }
+        assertTrue(detector.phi(NODE, time + INTERVAL) < 1.0);
+        assertTrue(detector.phi(NODE, time + 10 * INTERVAL) > THRESHOLD);
+
+        long[] intervals = detector.statistics(NODE).intervalHistogram();
+        assertEquals(99, intervals[3]);
+        assertEquals(99, Arrays.stream(intervals).sum());
+        assertEquals(100 - 1 - 25, Arrays.stream(detector.statistics(NODE).phiHistogram()).sum());
+        assertEquals(INTERVAL, detector.statistics(NODE).meanMillis(), 0.0);
+        assertEquals(0.0, detector.statistics(NODE).standardDeviationMillis(), 0.0);
+    }
+
+    @Test
+    public void testActivity() {
+        PhiAccrualFailureDetector detector = new PhiAccrualFailureDetector();
+        detector.reportActivity(NODE, 50);
+        assertNull(detector.statistics(NODE));
+
+        long time = 0;
+        for (int i = 0; i < 100; i++) {
+            time += INTERVAL;
+            detector.report(NODE, time);
+        }
+        // other traffic keeps the node alive without heartbeats
+        for (int i = 0; i < 10; i++) {
+            time += INTERVAL;
+            detector.reportActivity(NODE, time);
+        }
+        assertTrue(detector.phi(NODE, time + INTERVAL) < 1.0);
+        // activity is not sampled as inter-arrival time
+        assertEquals(99, Arrays.stream(detector.statistics(NODE).intervalHistogram()).sum());
+        assertEquals(INTERVAL, detector.statistics(NODE).meanMillis(), 0.0);
+    }
+
+    @Test
+    public void testAdaptiveWindow() {
+        PhiAccrualFailureDetector steady = new PhiAccrualFailureDetector(25, 1, THRESHOLD, true);
+        PhiAccrualFailureDetector noisy = new PhiAccrualFailureDetector(25, 1, THRESHOLD, true);
+        Random random = new Random(1);
+        long steadyTime = 0;
+        long noisyTime = 0;
+        for (int i = 0; i < 2000; i++) {
+            steadyTime += INTERVAL + random.nextInt(3);
+            noisyTime += INTERVAL / 2 + random.nextInt((int) INTERVAL);
+            steady.report(NODE, steadyTime);
+            noisy.report(NODE, noisyTime);
+        }
+        assertEquals(25, steady.statistics(NODE).windowSize());
+        assertTrue(noisy.statistics(NODE).windowSize() > 100);
+    }
+
+    /**
+     * Simulates a node sending heartbeats with jitter and occasional pauses,
+     * then crashing, and checks that the adaptive mode reports far fewer
+     * false suspicions while still detecting the crash.
+     */
+    @Test
+    public void testJitterSimulation() {
+        Simulation fixed = new Simulation(new PhiAccrualFailureDetector(25, 50, THRESHOLD, false));
+        Simulation adaptive = new Simulation(new PhiAccrualFailureDetector(25, 50, THRESHOLD, true));
+        fixed.run();
+        adaptive.run();
+
+        assertTrue(fixed.falsePositives > 0);
+        assertTrue("adaptive " + adaptive.falsePositives + " fixed " + fixed.falsePositives,
+                   adaptive.falsePositives * 2 < fixed.falsePositives);
+        assertTrue(adaptive.detectionMillis > 0);
+        assertTrue("detected in " + adaptive.detectionMillis, adaptive.detectionMillis < 5000);
+        assertTrue(adaptive.detector.statistics(NODE).pauseAllowanceMillis() > 0);
+    }
+
+    private static final class Simulation {
+        private static final long DURATION = 30 * 60 * 1000;
+        private static final double PAUSE_PROBABILITY = 0.005;
+
+        private final PhiAccrualFailureDetector detector;
+        private final Random random = new Random(42);
+        private int falsePositives;
+        private long detectionMillis = -1;
+
+        private Simulation(PhiAccrualFailureDetector detector) {
+            this.detector = detector;
+        }
+
+        private void run() {
+            long now = 0;
+            long last = 0;
+            long next = INTERVAL;
+            boolean suspected = false;
+            while (now < DURATION) {
+                now += TICK;
+                if (now >= next) {
+                    detector.report(NODE, now);
+                    last = now;
+                    suspected = false;
+                    next = now + Math.max(TICK, Math.round(INTERVAL + random.nextGaussian() * 20));
+                    if (random.nextDouble() < PAUSE_PROBABILITY) {
+                        // GC pause or load spike on the sender
+                        next += 1000 + random.nextInt(1500);
+                    }
+                }
+                if (!suspected && detector.phi(NODE, now) > THRESHOLD) {
+                    suspected = true;
+                    falsePositives++;
+                }
+            }
+
+            // crash right after the last heartbeat
+            now = last;
+            while (detectionMillis < 0 && now < last + 60_000) {
+                now += TICK;
+                if (detector.phi(NODE, now) > THRESHOLD) {
+                    detectionMillis = now - last;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.cluster.messaging.Endpoint;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingService;
+import org.onosproject.utils.MeteringAgent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.onlab.junit.TestUtils.setField;
+
+/**
+ * Unit tests for the message batching of ClusterCommunicationManager.
+ */
+public class ClusterCommunicationManagerTest {
+
+    private static final MessageSubject SUBJECT_1 = new MessageSubject("subject-1");
+    private static final MessageSubject SUBJECT_2 = new MessageSubject("subject-2");
+
+    private static final ControllerNode NODE_1 =
+            new DefaultControllerNode(new NodeId("node1"), IpAddress.valueOf("10.0.0.1"), 9876);
+    private static final ControllerNode NODE_2 =
+            new DefaultControllerNode(new NodeId("node2"), IpAddress.valueOf("10.0.0.2"), 9876);
+
+    private final Map<Endpoint, TestMessagingService> network = Maps.newConcurrentMap();
+
+    private ClusterCommunicationManager manager1;
+    private ClusterCommunicationManager manager2;
+    private TestMessagingService messaging2;
+
+    private final List<String> received = Lists.newCopyOnWriteArrayList();
+
+    @Before
+    public void setUp() {
+        manager1 = manager(NODE_1, new TestMessagingService(NODE_1));
+        messaging2 = new TestMessagingService(NODE_2);
+        manager2 = manager(NODE_2, messaging2);
+
+        Executor direct = MoreExecutors.directExecutor();
+        manager2.<String>addSubscriber(SUBJECT_1, String::new, m -> received.add("1:" + m), direct);
+        manager2.<String>addSubscriber(SUBJECT_2, String::new, m -> received.add("2:" + m), direct);
+    }
+
+    @After
+    public void tearDown() {
+        manager1.deactivate();
+        manager2.deactivate();
+    }
+
+    private ClusterCommunicationManager manager(ControllerNode node, TestMessagingService messaging) {
+        ClusterCommunicationManager manager = new ClusterCommunicationManager() {
+            @Override
+            MeteringAgent meteringAgent(String objName) {
+                return new MeteringAgent("test", objName, false);
+            }
+        };
+        manager.clusterService = new TestClusterService(node);
+        manager.messagingService = messaging;
+        network.put(new Endpoint(node.ip(), node.tcpPort()), messaging);
+        manager.activate(null);
+        return manager;
+    }
+
+    /**
+     * Tests that messages are sent one by one unless batching is enabled.
+     */
+    @Test
+    public void testUnbatched() {
+        manager1.unicast("a", SUBJECT_1, String::getBytes, NODE_2.id()).join();
+        manager1.unicast("b", SUBJECT_2, String::getBytes, NODE_2.id()).join();
+
+        assertEquals(Lists.newArrayList("subject-1", "subject-2"), messaging2.types);
+        assertEquals(Lists.newArrayList("1:a", "2:b"), received);
+    }
+
+    /**
+     * Tests that messages of several subjects are packed in a single frame
+     * and delivered in order to the handlers of their subjects.
+     */
+    @Test
+    public void testBatched() throws Exception {
+        setField(manager1, "batchingEnabled", true);
+        setField(manager1, "batchWindowMicros", (int) TimeUnit.MILLISECONDS.toMicros(50));
+
+        CompletableFuture<Void> f1 = manager1.unicast("a", SUBJECT_1, String::getBytes, NODE_2.id());
+        CompletableFuture<Void> f2 = manager1.unicast("b", SUBJECT_2, String::getBytes, NODE_2.id());
+        CompletableFuture<Void> f3 = manager1.unicast("c", SUBJECT_1, String::getBytes, NODE_2.id());
+        CompletableFuture.allOf(f1, f2, f3).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Lists.newArrayList(ClusterCommunicationManager.BATCH_SUBJECT), messaging2.types);
+        assertEquals(Lists.newArrayList("1:a", "2:b", "1:c"), received);
+    }
+
+    /**
+     * Tests that a full batch is sent without waiting for the window.
+     */
+    @Test
+    public void testFullBatch() throws Exception {
+        setField(manager1, "batchingEnabled", true);
+        setField(manager1, "batchWindowMicros", (int) TimeUnit.SECONDS.toMicros(60));
+        setField(manager1, "maxBatchBytes", 1);
+
+        manager1.unicast("a", SUBJECT_1, String::getBytes, NODE_2.id()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Lists.newArrayList("subject-1"), messaging2.types);
+        assertEquals(Lists.newArrayList("1:a"), received);
+    }
+
+    /**
+     * Tests that batched messages of unknown subjects are dropped.
+     */
+    @Test
+    public void testUnknownSubject() throws Exception {
+        setField(manager1, "batchingEnabled", true);
+        manager2.removeSubscriber(SUBJECT_2);
+
+        CompletableFuture<Void> f1 = manager1.unicast("a", SUBJECT_2, String::getBytes, NODE_2.id());
+        CompletableFuture<Void> f2 = manager1.unicast("b", SUBJECT_1, String::getBytes, NODE_2.id());
+        CompletableFuture.allOf(f1, f2).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Lists.newArrayList("1:b"), received);
+    }
+
+    private class TestClusterService extends ClusterServiceAdapter {
+        private final ControllerNode localNode;
+
+        TestClusterService(ControllerNode localNode) {
+            this.localNode = localNode;
+        }
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return localNode;
+        }
+
+        @Override
+        public Set<ControllerNode> getNodes() {
+            return ImmutableSet.of(NODE_1, NODE_2);
+        }
+
+        @Override
+        public ControllerNode getNode(NodeId nodeId) {
+            return nodeId.equals(NODE_1.id()) ? NODE_1 : nodeId.equals(NODE_2.id()) ? NODE_2 : null;
+        }
+    }
+
+    /**
+     * Messaging service delivering one-way messages synchronously to the
+     * messaging service of the destination endpoint.
+     */
+    private class TestMessagingService implements MessagingService {
+        private final Endpoint localEp;
+        private final Map<String, BiConsumer<Endpoint, byte[]>> handlers = Maps.newConcurrentMap();
+        private final List<String> types = Lists.newCopyOnWriteArrayList();
+
+        TestMessagingService(ControllerNode node) {
+            this.localEp = new Endpoint(node.ip(), node.tcpPort());
+        }
+
+        @Override
+        public CompletableFuture<Void> sendAsync(Endpoint ep, String type, byte[] payload) {
+            TestMessagingService peer = network.get(ep);
+            peer.types.add(type);
+            BiConsumer<Endpoint, byte[]> handler = peer.handlers.get(type);
+            if (handler != null) {
+                handler.accept(localEp, payload);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload,
+                                                        Executor executor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, Executor executor) {
+            handlers.put(type, (ep, payload) -> executor.execute(() -> handler.accept(ep, payload)));
+        }
+
+        @Override
+        public void registerHandler(String type, BiFunction<Endpoint, byte[], byte[]> handler,
+                                    Executor executor) {
+            handlers.put(type, (ep, payload) -> executor.execute(() -> handler.apply(ep, payload)));
+        }
+
+        @Override
+        public void registerHandler(String type,
+                                    BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler) {
+            handlers.put(type, handler::apply);
+        }
+
+        @Override
+        public void unregisterHandler(String type) {
+            handlers.remove(type);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for ClusterMessageBatch.
+ */
+public class ClusterMessageBatchTest {
+
+    @Test
+    public void testEncodeDecode() {
+        List<ClusterMessageBatch.Message> messages = ImmutableList.of(
+                new ClusterMessageBatch.Message("subject-1", new byte[] {1, 2, 3}),
+                new ClusterMessageBatch.Message("subject-2", new byte[0]),
+                new ClusterMessageBatch.Message("subject-1", new byte[] {4}));
+
+        List<ClusterMessageBatch.Message> decoded =
+                ClusterMessageBatch.decode(ClusterMessageBatch.encode(messages));
+
+        assertEquals(messages.size(), decoded.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i).subject(), decoded.get(i).subject());
+            assertArrayEquals(messages.get(i).payload(), decoded.get(i).payload());
+        }
+    }
+
+    @Test
+    public void testEncodedSize() {
+        List<ClusterMessageBatch.Message> messages = ImmutableList.of(
+                new ClusterMessageBatch.Message("subject-\u00e9\u4e2d", new byte[] {1, 2, 3}),
+                new ClusterMessageBatch.Message("subject", new byte[0]));
+
+        // subjects are sized by their UTF-8 bytes, as they are encoded
+        assertEquals(Integer.BYTES + messages.get(0).encodedSize() + messages.get(1).encodedSize(),
+                     ClusterMessageBatch.encode(messages).length);
+        assertEquals("subject-\u00e9\u4e2d",
+                     ClusterMessageBatch.decode(ClusterMessageBatch.encode(messages)).get(0).subject());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, ClusterMessageBatch.decode(ClusterMessageBatch.encode(ImmutableList.of())).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        byte[] frame = ClusterMessageBatch.encode(ImmutableList.of(
+                new ClusterMessageBatch.Message("subject", new byte[] {1, 2, 3})));
+        ClusterMessageBatch.decode(Arrays.copyOf(frame, frame.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingBytes() {
+        byte[] frame = ClusterMessageBatch.encode(ImmutableList.of(
+                new ClusterMessageBatch.Message("subject", new byte[] {1, 2, 3})));
+        ClusterMessageBatch.decode(Arrays.copyOf(frame, frame.length + 1));
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.net.resource.ResourceConsumerId;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.CommitStatus;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.TestConsistentMap;
+import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionContextBuilder;
+import org.onosproject.store.service.TransactionalMap;
+import org.onosproject.store.service.Versioned;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests of the allocation paths of ConsistentResourceStore.
+ */
+public class ConsistentResourceStoreTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final DiscreteResource DEVICE = Resources.discrete(DID).resource();
+    private static final DiscreteResource PORT1 = Resources.discrete(DID, PortNumber.portNumber(1)).resource();
+    private static final DiscreteResource PORT2 = Resources.discrete(DID, PortNumber.portNumber(2)).resource();
+    private static final IntentId CONSUMER1 = IntentId.valueOf(1L);
+    private static final IntentId CONSUMER2 = IntentId.valueOf(2L);
+
+    private TestResourceStorageService storage;
+    private ConsistentResourceStore store;
+
+    @Before
+    public void setUp() {
+        storage = new TestResourceStorageService();
+        store = new ConsistentResourceStore();
+        store.service = storage;
+        store.activate();
+
+        assertThat(store.register(ImmutableList.of(DEVICE)), is(true));
+        assertThat(store.register(ImmutableList.of(PORT1, PORT2)), is(true));
+    }
+
+    @After
+    public void tearDown() {
+        store.deactivate();
+    }
+
+    /**
+     * Tests that a conflicting request fails on its own within a batch.
+     */
+    @Test
+    public void testAllocateAllWithConflict() {
+        List<Boolean> results = store.allocateAll(ImmutableList.of(
+                request(PORT1, CONSUMER1),
+                request(PORT1, CONSUMER2),
+                request(PORT2, CONSUMER2)));
+
+        assertThat(results, contains(true, false, true));
+        assertThat(consumerOf(PORT1), is(CONSUMER1.consumerId()));
+        assertThat(consumerOf(PORT2), is(CONSUMER2.consumerId()));
+    }
+
+    /**
+     * Tests that a batch where every request conflicts leaves the store as is.
+     */
+    @Test
+    public void testAllocateAllWithoutAvailableResource() {
+        assertThat(store.allocate(ImmutableList.of(PORT1), CONSUMER1), is(true));
+
+        List<Boolean> results = store.allocateAll(ImmutableList.of(
+                request(PORT1, CONSUMER2),
+                request(PORT1, CONSUMER2)));
+
+        assertThat(results, contains(false, false));
+        assertThat(consumerOf(PORT1), is(CONSUMER1.consumerId()));
+    }
+
+    /**
+     * Tests that allocations are rejected while the resource is allocated
+     * and accepted again once it is released.
+     */
+    @Test
+    public void testAllocateReleased() {
+        assertThat(store.allocate(ImmutableList.of(PORT1), CONSUMER1), is(true));
+        assertThat(store.allocate(ImmutableList.of(PORT1, PORT2), CONSUMER2), is(false));
+        assertThat(store.isAvailable(PORT2), is(true));
+
+        assertThat(store.release(store.getResourceAllocations(PORT1.id())), is(true));
+        assertThat(store.allocate(ImmutableList.of(PORT1, PORT2), CONSUMER2), is(true));
+        assertThat(consumerOf(PORT1), is(CONSUMER2.consumerId()));
+    }
+
+    /**
+     * Tests that the local view of the allocated resources follows the
+     * consumer map, and stops doing so once the sub-store is closed.
+     */
+    @Test
+    public void testIsKnownAllocated() {
+        ConsistentDiscreteResourceSubStore discreteStore = new ConsistentDiscreteResourceSubStore(storage);
+        ConsistentMap<Object, Object> consumers = storage.map(MapNames.DISCRETE_CONSUMER_MAP);
+
+        assertThat(discreteStore.isKnownAllocated(PORT1.id()), is(false));
+
+        consumers.put(PORT1.id(), CONSUMER1.consumerId());
+        assertThat(discreteStore.isKnownAllocated(PORT1.id()), is(true));
+
+        consumers.remove(PORT1.id());
+        assertThat(discreteStore.isKnownAllocated(PORT1.id()), is(false));
+
+        discreteStore.close();
+        consumers.put(PORT2.id(), CONSUMER1.consumerId());
+        assertThat(discreteStore.isKnownAllocated(PORT2.id()), is(false));
+    }
+
+    private static ConsistentResourceStore.AllocationRequest request(DiscreteResource resource, IntentId consumer) {
+        return new ConsistentResourceStore.AllocationRequest(ImmutableList.of(resource), consumer.consumerId());
+    }
+
+    private ResourceConsumerId consumerOf(DiscreteResource resource) {
+        List<ResourceAllocation> allocations = store.getResourceAllocations(resource.id());
+        assertThat(allocations.size(), is(1));
+        return allocations.get(0).consumerId();
+    }
+
+    /**
+     * Storage service sharing the maps by name, with transactions
+     * applied to those maps on commit.
+     */
+    private static class TestResourceStorageService extends TestStorageService {
+        private final Map<String, ConsistentMap<?, ?>> maps = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        <K, V> ConsistentMap<K, V> map(String name) {
+            return (ConsistentMap<K, V>) maps.computeIfAbsent(name, n -> {
+                ConsistentMapBuilder<K, V> builder = TestConsistentMap.builder();
+                return builder.withName(n).build();
+            });
+        }
+
+        @Override
+        public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+            return new ConsistentMapBuilder<K, V>() {
+                @Override
+                public ConsistentMap<K, V> build() {
+                    return map(name());
+                }
+
+                @Override
+                public AsyncConsistentMap<K, V> buildAsyncMap() {
+                    throw new UnsupportedOperationException("buildAsyncMap");
+                }
+            };
+        }
+
+        @Override
+        public TransactionContextBuilder transactionContextBuilder() {
+            return new TransactionContextBuilder() {
+                @Override
+                public TransactionContext build() {
+                    return new TestTransactionContext(TestResourceStorageService.this);
+                }
+            };
+        }
+    }
+
+    private static class TestTransactionContext implements TransactionContext {
+        private final TestResourceStorageService storage;
+        private final List<TestTransactionalMap<?, ?>> txMaps = new ArrayList<>();
+        private boolean open;
+
+        TestTransactionContext(TestResourceStorageService storage) {
+            this.storage = storage;
+        }
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public TransactionId transactionId() {
+            return TransactionId.from("test");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void begin() {
+            open = true;
+        }
+
+        @Override
+        public CompletableFuture<CommitStatus> commit() {
+            txMaps.forEach(TestTransactionalMap::apply);
+            open = false;
+            return CompletableFuture.completedFuture(CommitStatus.SUCCESS);
+        }
+
+        @Override
+        public void abort() {
+            open = false;
+        }
+
+        @Override
+        public <K, V> TransactionalMap<K, V> getTransactionalMap(String mapName, Serializer serializer) {
+            TestTransactionalMap<K, V> txMap = new TestTransactionalMap<>(storage.map(mapName));
+            txMaps.add(txMap);
+            return txMap;
+        }
+    }
+
+    private static class TestTransactionalMap<K, V> implements TransactionalMap<K, V> {
+        private final ConsistentMap<K, V> backing;
+        private final Map<K, Optional<V>> updates = new LinkedHashMap<>();
+
+        TestTransactionalMap(ConsistentMap<K, V> backing) {
+            this.backing = backing;
+        }
+
+        void apply() {
+            updates.forEach((key, value) -> {
+                if (value.isPresent()) {
+                    backing.put(key, value.get());
+                } else {
+                    backing.remove(key);
+                }
+            });
+        }
+
+        @Override
+        public V get(K key) {
+            Optional<V> update = updates.get(key);
+            if (update != null) {
+                return update.orElse(null);
+            }
+            return Versioned.valueOrNull(backing.get(key));
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V old = get(key);
+            updates.put(key, Optional.of(value));
+            return old;
+        }
+
+        @Override
+        public V remove(K key) {
+            V old = get(key);
+            updates.put(key, Optional.empty());
+            return old;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V old = get(key);
+            if (old == null) {
+                put(key, value);
+            }
+            return old;
+        }
+
+        @Override
+        public boolean remove(K key, V value) {
+            if (!Objects.equals(get(key), value)) {
+                return false;
+            }
+            remove(key);
+            return true;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            if (!Objects.equals(get(key), oldValue)) {
+                return false;
+            }
+            put(key, newValue);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for RequestBatcher.
+ */
+public class RequestBatcherTest {
+
+    @Test
+    public void testSingleRequest() {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        RequestBatcher<Integer> sut = new RequestBatcher<>(batch -> {
+            batches.add(ImmutableList.copyOf(batch));
+            return batch.stream().map(x -> x % 2 == 0).collect(Collectors.toList());
+        }, 10);
+
+        assertThat(sut.submit(2), is(true));
+        assertThat(sut.submit(3), is(false));
+        assertThat(batches, is(ImmutableList.of(ImmutableList.of(2), ImmutableList.of(3))));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreBatched() throws Exception {
+        int requests = 20;
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        RequestBatcher<Integer> sut = new RequestBatcher<>(batch -> {
+            batches.add(ImmutableList.copyOf(batch));
+            firstBatch.countDown();
+            try {
+                // hold the first batch until all the other requests are queued
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return batch.stream().map(x -> x % 2 == 0).collect(Collectors.toList());
+        }, 8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            Future<Boolean> first = executor.submit(() -> sut.submit(0));
+            assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 1; i < requests; i++) {
+                int request = i;
+                results.add(executor.submit(() -> sut.submit(request)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS), is(true));
+            for (int i = 1; i < requests; i++) {
+                assertThat(results.get(i - 1).get(5, TimeUnit.SECONDS), is(i % 2 == 0));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(batches.stream().mapToInt(List::size).sum(), is(requests));
+        assertThat(batches.stream().allMatch(x -> x.size() <= 8), is(true));
+        assertThat(batches.size(), is(lessThan(requests)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecutorFailure() {
+        RequestBatcher<Integer> sut = new RequestBatcher<>(batch -> {
+            throw new IllegalStateException("failure");
+        }, 10);
+
+        sut.submit(1);
+    }
+}
@@ -0,0 +1,777 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Storage backed by a segmented, memory-mapped append log.
+ * <p>
+ * Every update is appended to the log before being applied to an in-memory
+ * copy of the maps and sets, from which all reads are served. When opened,
+ * the contents are rebuilt from the latest snapshot and the log segments
+ * following it, up to the first torn record. Once most of the log is made
+ * of obsolete records, the contents are written to a new snapshot in the
+ * background and the segments it covers are deleted.
+ * </p>
+ */
+class AppendLogStorage implements PersistentStorage {
+
+    /**
+     * Durability of the updates.
+     */
+    enum Durability {
+        /**
+         * Updates are written to the page cache only; they survive a crash
+         * of the process but not of the system.
+         */
+        NONE,
+
+        /**
+         * Updates are forced to the storage device periodically.
+         */
+        PERIODIC,
+
+        /**
+         * Updates are forced to the storage device before returning.
+         * Concurrent updates share a single force.
+         */
+        SYNC
+    }
+
+    private static final byte CREATE = 1;
+    private static final byte PUT = 2;
+    private static final byte REMOVE = 3;
+    private static final byte CLEAR = 4;
+    private static final byte SEAL = 5;
+
+    // type, collection ID and key length
+    private static final int RECORD_OVERHEAD = LogSegment.HEADER_SIZE + 1 + 2 * Integer.BYTES;
+    // space kept at the end of each segment for the record sealing it
+    private static final int SEAL_SIZE = LogSegment.HEADER_SIZE + 1;
+    private static final ByteBuffer SEAL_RECORD = ByteBuffer.wrap(new byte[] {SEAL});
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SUFFIX = ".log";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final byte[] PRESENT = new byte[0];
+    private static final double COMPACTION_RATIO = 0.5;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1024 * 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final Logger log = getLogger(getClass());
+
+    private final Path directory;
+    private final Durability durability;
+    private final int segmentSize;
+    private final ScheduledExecutorService executor;
+
+    private final Map<String, LogMap> collections = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private final Map<Integer, LogMap> collectionsById = new HashMap<>();
+    private final Deque<LogSegment> segments = new ArrayDeque<>();
+    private LogSegment current;
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private int nextId;
+    private long appended;
+    private long logBytes;
+    private long liveBytes;
+    private boolean compacting;
+    private boolean closed;
+
+    // guarded by syncLock
+    private final Object syncLock = new Object();
+    private long synced;
+
+    /**
+     * Opens the storage in the given directory, recovering its contents.
+     *
+     * @param directory storage directory, created if needed
+     * @param durability durability of the updates
+     * @param segmentSize size of the log segments in bytes
+     * @param flushFrequencyMillis force frequency for periodic durability
+     * @throws PersistenceException if the storage cannot be opened
+     */
+    AppendLogStorage(Path directory, Durability durability, int segmentSize, long flushFrequencyMillis) {
+        checkArgument(segmentSize > RECORD_OVERHEAD + SEAL_SIZE, "Segment size is too small");
+        this.directory = checkNotNull(directory);
+        this.durability = checkNotNull(durability);
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to open storage in " + directory, e);
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(
+                groupedThreads("onos/persistence", "log-storage", log));
+        if (durability == Durability.PERIODIC) {
+            executor.scheduleWithFixedDelay(this::flush, flushFrequencyMillis,
+                                            flushFrequencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Map<byte[], byte[]> getMap(String name) {
+        return collection(name);
+    }
+
+    @Override
+    public Set<byte[]> getSet(String name) {
+        return new LogSet(collection(name));
+    }
+
+    @Override
+    public Set<String> names() {
+        return ImmutableSet.copyOf(collections.keySet());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (!closed) {
+                current.force();
+                closed = true;
+            }
+        }
+    }
+
+    private LogMap collection(String name) {
+        LogMap map = collections.get(name);
+        if (map != null) {
+            return map;
+        }
+        long position;
+        synchronized (this) {
+            map = collections.get(name);
+            if (map != null) {
+                return map;
+            }
+            map = new LogMap(nextId++, name);
+            position = append(CREATE, map.id, name.getBytes(StandardCharsets.UTF_8), null);
+            collectionsById.put(map.id, map);
+            collections.put(name, map);
+        }
+        if (durability == Durability.SYNC) {
+            sync(position);
+        }
+        return map;
+    }
+
+    private byte[] put(LogMap map, byte[] key, byte[] value, boolean onlyIfAbsent) {
+        checkNotNull(key, "Key cannot be null.");
+        checkNotNull(value, "Value cannot be null.");
+        Key wrapped = new Key(key);
+        byte[] old;
+        long position;
+        boolean compact;
+        synchronized (this) {
+            old = map.items.get(wrapped);
+            if (old != null && onlyIfAbsent) {
+                return old;
+            }
+            position = append(PUT, map.id, key, value);
+            map.items.put(wrapped, value);
+            liveBytes += recordSize(key, value) - (old == null ? 0 : recordSize(key, old));
+            compact = needsCompaction();
+        }
+        afterUpdate(position, compact);
+        return old;
+    }
+
+    private byte[] remove(LogMap map, byte[] key) {
+        Key wrapped = new Key(key);
+        byte[] old;
+        long position;
+        boolean compact;
+        synchronized (this) {
+            old = map.items.get(wrapped);
+            if (old == null) {
+                return null;
+            }
+            position = append(REMOVE, map.id, key, null);
+            map.items.remove(wrapped);
+            liveBytes -= recordSize(key, old);
+            compact = needsCompaction();
+        }
+        afterUpdate(position, compact);
+        return old;
+    }
+
+    private void clear(LogMap map) {
+        long position;
+        boolean compact;
+        synchronized (this) {
+            if (map.items.isEmpty()) {
+                return;
+            }
+            position = append(CLEAR, map.id, null, null);
+            map.items.forEach((k, v) -> liveBytes -= recordSize(k.bytes, v));
+            map.items.clear();
+            compact = needsCompaction();
+        }
+        afterUpdate(position, compact);
+    }
+
+    private void afterUpdate(long position, boolean compact) {
+        if (durability == Durability.SYNC) {
+            sync(position);
+        }
+        if (compact) {
+            executor.execute(this::snapshot);
+        }
+    }
+
+    // Appends a record to the current segment, returning its position in the log.
+    // Must be called while holding the storage lock.
+    private long append(byte type, int id, byte[] key, byte[] value) {
+        checkState(!closed, "Storage is closed");
+        scratch = encode(scratch, type, id, key, value);
+        if (!current.fits(scratch.remaining() + SEAL_SIZE)) {
+            roll(scratch.remaining());
+        }
+        current.append(scratch);
+        logBytes += LogSegment.HEADER_SIZE + scratch.limit();
+        return ++appended;
+    }
+
+    // Starts a new segment. Must be called while holding the storage lock.
+    private void roll(int payloadSize) {
+        // the seal tells recovery that the records continue in the next segment
+        current.append(SEAL_RECORD.duplicate());
+        logBytes += SEAL_SIZE;
+        if (durability != Durability.NONE) {
+            // a sync only forces the current segment
+            current.force();
+        }
+        long id = current.id() + 1;
+        try {
+            current = LogSegment.create(id, segmentPath(id),
+                                        Math.max(segmentSize, LogSegment.HEADER_SIZE + payloadSize + SEAL_SIZE));
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to create log segment " + id, e);
+        }
+        segments.addLast(current);
+    }
+
+    // Must be called while holding the storage lock.
+    private boolean needsCompaction() {
+        if (compacting || logBytes <= segmentSize || liveBytes >= logBytes * (1 - COMPACTION_RATIO)) {
+            return false;
+        }
+        compacting = true;
+        return true;
+    }
+
+    /**
+     * Forces the records appended so far to the storage device.
+     */
+    @Override
+    public void flush() {
+        long position;
+        synchronized (this) {
+            position = appended;
+        }
+        sync(position);
+    }
+
+    // Group commit: a force covers all the records appended before it started,
+    // so writers waiting for the force in progress are usually done once it ends.
+    private void sync(long position) {
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            long target;
+            LogSegment segment;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                target = appended;
+                segment = current;
+            }
+            segment.force();
+            synced = target;
+        }
+    }
+
+    /**
+     * Writes the contents to a new snapshot and deletes the log segments
+     * it makes obsolete, after any compaction already in progress.
+     */
+    void compact() {
+        synchronized (this) {
+            while (compacting && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (closed) {
+                return;
+            }
+            compacting = true;
+        }
+        snapshot();
+    }
+
+    private void snapshot() {
+        long snapshotId;
+        synchronized (this) {
+            if (closed) {
+                compacting = false;
+                notifyAll();
+                return;
+            }
+            // updates from now on are appended to segments following the snapshot
+            roll(0);
+            snapshotId = current.id();
+        }
+        try {
+            long size = writeSnapshot(snapshotId);
+            Deque<LogSegment> obsolete = new ArrayDeque<>();
+            synchronized (this) {
+                while (segments.peekFirst().id() < snapshotId) {
+                    obsolete.add(segments.removeFirst());
+                }
+                logBytes = size + segments.stream().mapToLong(LogSegment::position).sum();
+            }
+            for (LogSegment segment : obsolete) {
+                segment.delete();
+            }
+            deleteSnapshotsBefore(snapshotId);
+            log.debug("Compacted {} into snapshot {} of {} bytes", directory, snapshotId, size);
+        } catch (IOException e) {
+            log.warn("Failed to compact {}", directory, e);
+        } finally {
+            synchronized (this) {
+                compacting = false;
+                notifyAll();
+            }
+        }
+    }
+
+    // Writes the current contents to the given snapshot. Updates running
+    // concurrently may or may not be included; as they are also in the log
+    // segments following the snapshot, replaying these restores them anyway.
+    private long writeSnapshot(long snapshotId) throws IOException {
+        Path tmp = directory.resolve(SNAPSHOT_PREFIX + snapshotId + TMP_SUFFIX);
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_BUFFER_SIZE);
+            ByteBuffer payload = ByteBuffer.allocate(1024);
+            for (LogMap map : collections.values()) {
+                payload = encode(payload, CREATE, map.id, map.name.getBytes(StandardCharsets.UTF_8), null);
+                size += write(channel, buffer, payload);
+                for (Map.Entry<Key, byte[]> entry : map.items.entrySet()) {
+                    payload = encode(payload, PUT, map.id, entry.getKey().bytes, entry.getValue());
+                    size += write(channel, buffer, payload);
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_PREFIX + snapshotId + SUFFIX),
+                   StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    private int write(FileChannel channel, ByteBuffer buffer, ByteBuffer payload) throws IOException {
+        int size = LogSegment.HEADER_SIZE + payload.remaining();
+        if (buffer.remaining() < size) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        if (buffer.remaining() < size) {
+            ByteBuffer large = ByteBuffer.allocate(size);
+            LogSegment.write(large, payload);
+            large.flip();
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+        } else {
+            LogSegment.write(buffer, payload);
+        }
+        return size;
+    }
+
+    private void deleteSnapshotsBefore(long snapshotId) throws IOException {
+        for (Map.Entry<Long, Path> snapshot : list(SNAPSHOT_PREFIX).entrySet()) {
+            if (snapshot.getKey() < snapshotId) {
+                Files.delete(snapshot.getValue());
+            }
+        }
+    }
+
+    // Rebuilds the contents from the latest snapshot and the following segments.
+    private synchronized void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(TMP_SUFFIX)) {
+                    // snapshot interrupted before completion
+                    Files.delete(file);
+                }
+            }
+        }
+
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT_PREFIX);
+        long snapshotId = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+        deleteSnapshotsBefore(snapshotId);
+        if (!snapshots.isEmpty()) {
+            Path path = snapshots.lastEntry().getValue();
+            LogSegment snapshot = LogSegment.open(snapshotId, path);
+            replay(snapshot);
+            if (snapshot.position() != Files.size(path)) {
+                throw new PersistenceException("Snapshot " + path + " is corrupted");
+            }
+            logBytes += snapshot.position();
+        }
+
+        boolean unsealed = false;
+        for (Map.Entry<Long, Path> entry : list(SEGMENT_PREFIX).entrySet()) {
+            if (entry.getKey() < snapshotId) {
+                // segment covered by the snapshot
+                Files.delete(entry.getValue());
+                continue;
+            }
+            if (unsealed) {
+                // records must be recovered as a prefix of the log
+                log.warn("Discarding log segment {} following a torn record", entry.getValue());
+                Files.delete(entry.getValue());
+                continue;
+            }
+            LogSegment segment = LogSegment.open(entry.getKey(), entry.getValue());
+            unsealed = !replay(segment);
+            logBytes += segment.position();
+            segments.addLast(segment);
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(LogSegment.create(snapshotId, segmentPath(snapshotId), segmentSize));
+        } else if (!unsealed) {
+            // the last segment was sealed before its successor got created
+            long id = segments.peekLast().id() + 1;
+            segments.add(LogSegment.create(id, segmentPath(id), segmentSize));
+        }
+        current = segments.peekLast();
+        current.truncate();
+
+        collections.values().forEach(map -> map.items.forEach(
+                (k, v) -> liveBytes += recordSize(k.bytes, v)));
+        log.info("Recovered {} collections from {}", collections.size(), directory);
+    }
+
+    // Applies the records of the given segment, returning whether it is sealed.
+    private boolean replay(LogSegment segment) {
+        ByteBuffer record;
+        while ((record = segment.next()) != null) {
+            byte type = record.get();
+            if (type == SEAL) {
+                return true;
+            }
+            int id = record.getInt();
+            int keyLength = record.getInt();
+            byte[] key = null;
+            if (keyLength >= 0) {
+                key = new byte[keyLength];
+                record.get(key);
+            }
+            if (type == CREATE) {
+                LogMap map = new LogMap(id, new String(key, StandardCharsets.UTF_8));
+                collections.put(map.name, map);
+                collectionsById.put(id, map);
+                nextId = Math.max(nextId, id + 1);
+                continue;
+            }
+            LogMap map = collectionsById.get(id);
+            if (map == null) {
+                throw new PersistenceException("Unknown collection " + id + " in " + directory);
+            }
+            if (type == PUT) {
+                byte[] value = new byte[record.remaining()];
+                record.get(value);
+                map.items.put(new Key(key), value);
+            } else if (type == REMOVE) {
+                map.items.remove(new Key(key));
+            } else if (type == CLEAR) {
+                map.items.clear();
+            }
+        }
+        return false;
+    }
+
+    private TreeMap<Long, Path> list(String prefix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(SUFFIX)) {
+                    try {
+                        files.put(Long.parseLong(name.substring(prefix.length(),
+                                                                name.length() - SUFFIX.length())), path);
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring unexpected file {}", path);
+                    }
+                }
+            });
+        }
+        return files;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(SEGMENT_PREFIX + id + SUFFIX);
+    }
+
+    private static int recordSize(byte[] key, byte[] value) {
+        return RECORD_OVERHEAD + key.length + value.length;
+    }
+
+    // Encodes a record payload into the given buffer, or a larger one if needed.
+    private static ByteBuffer encode(ByteBuffer buffer, byte type, int id, byte[] key, byte[] value) {
+        int size = 1 + 2 * Integer.BYTES + (key == null ? 0 : key.length) + (value == null ? 0 : value.length);
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, 2 * buffer.capacity()));
+        }
+        buffer.clear();
+        buffer.put(type).putInt(id).putInt(key == null ? -1 : key.length);
+        if (key != null) {
+            buffer.put(key);
+        }
+        if (value != null) {
+            buffer.put(value);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Serialized key, compared by contents.
+     */
+    private static final class Key {
+        // Arrays.hashCode collides a lot on short serialized keys
+        private static final HashFunction HASH = Hashing.murmur3_32();
+
+        private final byte[] bytes;
+        private final int hash;
+
+        private Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = HASH.hashBytes(bytes).asInt();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+    }
+
+    /**
+     * Map of serialized keys and values, updated through the log.
+     */
+    private final class LogMap extends AbstractMap<byte[], byte[]> {
+        private final int id;
+        private final String name;
+        private final Map<Key, byte[]> items = new ConcurrentHashMap<>();
+
+        private LogMap(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return items.isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof byte[] && items.containsKey(new Key((byte[]) key));
+        }
+
+        @Override
+        public byte[] get(Object key) {
+            return key instanceof byte[] ? items.get(new Key((byte[]) key)) : null;
+        }
+
+        @Override
+        public byte[] put(byte[] key, byte[] value) {
+            return AppendLogStorage.this.put(this, key, value, false);
+        }
+
+        @Override
+        public byte[] putIfAbsent(byte[] key, byte[] value) {
+            return AppendLogStorage.this.put(this, key, value, true);
+        }
+
+        @Override
+        public byte[] remove(Object key) {
+            return key instanceof byte[] ? AppendLogStorage.this.remove(this, (byte[]) key) : null;
+        }
+
+        @Override
+        public void clear() {
+            AppendLogStorage.this.clear(this);
+        }
+
+        @Override
+        public Set<Entry<byte[], byte[]>> entrySet() {
+            return new AbstractSet<Entry<byte[], byte[]>>() {
+                @Override
+                public Iterator<Entry<byte[], byte[]>> iterator() {
+                    Iterator<Entry<Key, byte[]>> iterator = items.entrySet().iterator();
+                    return new Iterator<Entry<byte[], byte[]>>() {
+                        private byte[] last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<byte[], byte[]> next() {
+                            Entry<Key, byte[]> entry = iterator.next();
+                            last = entry.getKey().bytes;
+                            return Maps.immutableEntry(last, entry.getValue());
+                        }
+
+                        @Override
+                        public void remove() {
+                            checkState(last != null);
+                            LogMap.this.remove(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return items.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Set of serialized elements, stored as the keys of a map.
+     */
+    private static final class LogSet extends AbstractSet<byte[]> {
+        private final LogMap map;
+
+        private LogSet(LogMap map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean add(byte[] element) {
+            return map.putIfAbsent(element, PRESENT) == null;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return map.remove(o) != null;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Iterator<byte[]> iterator() {
+            return Iterators.transform(map.entrySet().iterator(), Map.Entry::getKey);
+        }
+    }
+}
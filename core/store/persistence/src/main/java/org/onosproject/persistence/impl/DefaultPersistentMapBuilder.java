@@ -26,11 +26,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Default builder for persistent maps stored in the mapDB local database via the persistence service.
+ * Default builder for persistent maps stored in the local database via the persistence service.
  */
 public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K, V> {
 
-    private final DB localDB;
+    private final PersistentStorage storage;
 
     private String name = null;
 
@@ -38,8 +38,11 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
 
 
     public DefaultPersistentMapBuilder(DB localDB) {
-        checkNotNull(localDB, "The local database cannot be null.");
-        this.localDB = localDB;
+        this(new MapDbStorage(checkNotNull(localDB, "The local database cannot be null.")));
+    }
+
+    DefaultPersistentMapBuilder(PersistentStorage storage) {
+        this.storage = checkNotNull(storage, "The local storage cannot be null.");
     }
 
     public PersistentMapBuilder<K, V> withName(String name) {
@@ -58,6 +61,6 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
         checkNotNull(name, "The name must be assigned.");
         checkNotNull(serializer, "The key serializer must be assigned.");
 
-        return new PersistentMap<K, V>(serializer, localDB, name);
+        return new PersistentMap<K, V>(serializer, storage, name);
     }
 }
\ No newline at end of file
@@ -24,18 +24,22 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Default builder for persistent sets stored in the mapDB local database via the persistence service..
+ * Default builder for persistent sets stored in the local database via the persistence service.
  */
 public class DefaultPersistentSetBuilder<E> implements PersistentSetBuilder<E> {
 
-    private final DB localDB;
+    private final PersistentStorage storage;
 
     private String name = null;
 
     private Serializer serializer = null;
 
     public DefaultPersistentSetBuilder(DB localDB) {
-        this.localDB = checkNotNull(localDB, "The local database cannot be null.");
+        this(new MapDbStorage(checkNotNull(localDB, "The local database cannot be null.")));
+    }
+
+    DefaultPersistentSetBuilder(PersistentStorage storage) {
+        this.storage = checkNotNull(storage, "The local storage cannot be null.");
     }
 
     public PersistentSetBuilder<E> withName(String name) {
@@ -54,6 +58,6 @@ public class DefaultPersistentSetBuilder<E> implements PersistentSetBuilder<E> {
         checkNotNull(name, "The name must be assigned.");
         checkNotNull(serializer, "The serializer must be assigned.");
 
-        return new PersistentSet<E>(serializer, localDB, name);
+        return new PersistentSet<E>(serializer, storage, name);
     }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped, fixed size file of the append log.
+ * <p>
+ * Each record is stored as its payload length, the CRC32 of the payload and
+ * the payload itself. The file is zero filled when created, so a zero length
+ * marks the end of the records. A record with a truncated payload or a
+ * mismatching checksum is considered torn, and ends the segment as well.
+ * </p>
+ */
+final class LogSegment {
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final long id;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    private LogSegment(long id, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a new segment file of the given size.
+     *
+     * @param id segment ID
+     * @param path segment file
+     * @param size size of the file in bytes
+     * @return segment positioned at its start
+     * @throws IOException if the file cannot be created
+     */
+    static LogSegment create(long id, Path path, int size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+            return new LogSegment(id, path, file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * Opens an existing segment file.
+     *
+     * @param id segment ID
+     * @param path segment file
+     * @return segment positioned at its start
+     * @throws IOException if the file cannot be opened
+     */
+    static LogSegment open(long id, Path path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            return new LogSegment(id, path, file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length()));
+        }
+    }
+
+    /**
+     * Returns the segment ID.
+     *
+     * @return segment ID
+     */
+    long id() {
+        return id;
+    }
+
+    /**
+     * Returns the position following the last appended or read record.
+     *
+     * @return position in bytes
+     */
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Returns whether a record of the given payload size fits in the segment.
+     *
+     * @param payloadSize payload size in bytes
+     * @return true if the record fits
+     */
+    boolean fits(int payloadSize) {
+        return buffer.remaining() >= HEADER_SIZE + payloadSize;
+    }
+
+    /**
+     * Appends a record at the current position.
+     *
+     * @param payload record payload, from its position to its limit
+     */
+    void append(ByteBuffer payload) {
+        write(buffer, payload);
+    }
+
+    /**
+     * Writes a record at the position of the given buffer.
+     *
+     * @param buffer target buffer
+     * @param payload record payload, from its position to its limit
+     */
+    static void write(ByteBuffer buffer, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.put(payload);
+        // length is written last, so that a partial record is never seen as complete
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(start, buffer.position() - start - HEADER_SIZE);
+    }
+
+    /**
+     * Reads the next record, moving past it.
+     *
+     * @return record payload, or null at the end of the records
+     */
+    ByteBuffer next() {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + length);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+            return null;
+        }
+        buffer.position(start + HEADER_SIZE + length);
+        return payload.slice();
+    }
+
+    /**
+     * Clears any remains of a torn record past the current position, so
+     * that the segment can be appended to.
+     */
+    void truncate() {
+        int i = buffer.position();
+        // only the non-zero words are written, to avoid dirtying the whole file
+        for (; i + Long.BYTES <= buffer.limit(); i += Long.BYTES) {
+            if (buffer.getLong(i) != 0L) {
+                buffer.putLong(i, 0L);
+            }
+        }
+        for (; i < buffer.limit(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Deletes the segment file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Hasher;
+import org.mapdb.Serializer;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Storage backed by a MapDB database, committed periodically.
+ */
+class MapDbStorage implements PersistentStorage {
+
+    private final DB database;
+
+    private Timer timer;
+
+    /**
+     * Creates a storage using the given database, leaving commits to the caller.
+     *
+     * @param database MapDB database
+     */
+    MapDbStorage(DB database) {
+        this.database = checkNotNull(database);
+    }
+
+    /**
+     * Opens a storage in the given file, committed at the given frequency.
+     *
+     * @param path database file
+     * @param flushFrequencyMillis commit frequency in milliseconds
+     * @return storage
+     */
+    static MapDbStorage open(Path path, long flushFrequencyMillis) {
+        MapDbStorage storage = new MapDbStorage(DBMaker.newFileDB(path.toFile())
+                .asyncWriteEnable()
+                .closeOnJvmShutdown()
+                .make());
+        storage.timer = new Timer();
+        storage.timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                storage.database.commit();
+            }
+        }, flushFrequencyMillis, flushFrequencyMillis);
+        return storage;
+    }
+
+    @Override
+    public Map<byte[], byte[]> getMap(String name) {
+        return database
+                .createHashMap(name)
+                .keySerializer(Serializer.BYTE_ARRAY)
+                .valueSerializer(Serializer.BYTE_ARRAY)
+                .hasher(Hasher.BYTE_ARRAY)
+                .makeOrGet();
+    }
+
+    @Override
+    public Set<byte[]> getSet(String name) {
+        return database
+                .createHashSet(name)
+                .serializer(Serializer.BYTE_ARRAY)
+                .hasher(Hasher.BYTE_ARRAY)
+                .makeOrGet();
+    }
+
+    @Override
+    public Set<String> names() {
+        return ImmutableSet.copyOf(database.getAll().keySet());
+    }
+
+    @Override
+    public void flush() {
+        database.commit();
+    }
+
+    /**
+     * Deletes the empty structures, then commits and closes the database.
+     */
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.cancel();
+        }
+        for (Map.Entry<String, Object> entry : database.getAll().entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                // This is a map implementation to be handled as such
+                Map asMap = (Map) value;
+                if (asMap.isEmpty()) {
+                    //the map is empty and may be deleted
+                    database.delete(key);
+                }
+            } else if (value instanceof Set) {
+                // This is a set implementation and can be handled as such
+                Set asSet = (Set) value;
+                if (asSet.isEmpty()) {
+                    //the set is empty and may be deleted
+                    database.delete(key);
+                }
+            }
+        }
+        database.commit();
+        database.close();
+    }
+}
@@ -19,30 +19,46 @@ package org.onosproject.persistence.impl;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.persistence.PersistenceService;
 import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.persistence.PersistentSetBuilder;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Dictionary;
 import java.util.Map;
-import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.PERSISTENCE_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Service that maintains local disk backed maps and sets.
- * This implementation automatically deletes empty structures on shutdown.
+ * <p>
+ * The structures are stored either in a MapDB database, committed
+ * periodically, or in an append log with configurable durability. The
+ * backend is selected when the service is activated; changing it while
+ * the service is running takes effect on the next restart. When the
+ * selected backend has no data yet but the other one has, the contents
+ * are migrated and the files of the other backend are deleted. A marker
+ * file is kept while the migration is in progress, so that a migration
+ * interrupted by a crash is restarted from scratch on the next start
+ * rather than leaving the new backend with partial contents. With the
+ * MapDB backend, empty structures are automatically deleted on shutdown.
+ * </p>
  */
 @Component(immediate = true)
 @Service
@@ -53,37 +69,111 @@ public class PersistenceManager implements PersistenceService {
 
     private static final String DATABASE_PATH = "cache";
 
+    private static final String LOG_PATH = "log";
+
+    private static final String MIGRATION_MARKER = "migrating";
+
     static final String MAP_PREFIX = "map:";
     static final String SET_PREFIX = "set:";
 
+    static final String MAPDB_BACKEND = "mapdb";
+    static final String LOG_BACKEND = "log";
+
+    private static final String DEFAULT_BACKEND = MAPDB_BACKEND;
+    private static final String DEFAULT_DURABILITY = "PERIODIC";
+    private static final int DEFAULT_SEGMENT_SIZE_MB = 64;
+    private static final int MAX_SEGMENT_SIZE_MB = 2048;
+
+    // MapDB keeps the database in the file itself and two companion files
+    private static final String[] MAPDB_FILE_SUFFIXES = {"", ".p", ".t"};
+
     private final Logger log = getLogger(getClass());
 
-    private DB localDB = null;
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
 
-    private static final int FLUSH_FREQUENCY_MILLIS = 3000;
+    @Property(name = "backend", value = DEFAULT_BACKEND,
+            label = "Storage backend of the local maps and sets; mapdb or log")
+    private String backend = DEFAULT_BACKEND;
+
+    @Property(name = "durability", value = DEFAULT_DURABILITY,
+            label = "Durability of the updates with the log backend; NONE, PERIODIC or SYNC")
+    private String durability = DEFAULT_DURABILITY;
+
+    @Property(name = "segmentSizeMb", intValue = DEFAULT_SEGMENT_SIZE_MB,
+            label = "Size of the log segments in MB with the log backend")
+    private int segmentSizeMb = DEFAULT_SEGMENT_SIZE_MB;
+
+    private PersistentStorage storage = null;
 
-    private Timer timer;
+    // configuration the storage was opened with
+    private String activeConfiguration;
 
-    private final CommitTask commitTask = new CommitTask();
+    private static final int FLUSH_FREQUENCY_MILLIS = 3000;
 
     @Activate
-    public void activate() {
-        timer = new Timer();
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        readComponentConfiguration(context);
+
+        storage = openStorage(new File(DATABASE_ROOT).toPath());
+        activeConfiguration = configuration();
+        log.info("Started");
+    }
+
+    @Deactivate
+    public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
+        storage.close();
+        log.info("Stopped");
+    }
 
-        File dbFolderPath = new File(DATABASE_ROOT);
-        Path dbPath = dbFolderPath.toPath().resolve(DATABASE_PATH);
+    @Modified
+    public void modified(ComponentContext context) {
+        readComponentConfiguration(context);
+        String configuration = configuration();
+        if (!configuration.equals(activeConfiguration)) {
+            // the maps and sets handed out so far are bound to the open storage
+            log.warn("Storage is in use with {}, {} will take effect on the next restart",
+                     activeConfiguration, configuration);
+        }
+    }
+
+    /**
+     * Opens the storage of the configured backend in the given folder,
+     * migrating the contents of the other backend if needed.
+     *
+     * @param dbFolderPath folder of the databases
+     * @return storage of the configured backend
+     */
+    PersistentStorage openStorage(Path dbFolderPath) {
+        Path dbPath = storagePath(dbFolderPath, backend);
         log.debug("dbPath: {}", dbPath);
 
         //Make sure the directory exists, if it does not, make it.
-        if (!dbFolderPath.isDirectory()) {
+        if (!Files.isDirectory(dbFolderPath)) {
             log.info("The specified folder location for the database did not exist and will be created.");
             try {
-                Files.createDirectories(dbFolderPath.toPath());
+                Files.createDirectories(dbFolderPath);
             } catch (IOException e) {
                 log.error("Could not create the required folder for the database.");
                 throw new PersistenceException("Database folder could not be created.");
             }
         }
+
+        String otherBackend = LOG_BACKEND.equals(backend) ? MAPDB_BACKEND : LOG_BACKEND;
+        Path otherPath = storagePath(dbFolderPath, otherBackend);
+        Path marker = dbFolderPath.resolve(MIGRATION_MARKER);
+        try {
+            if (Files.exists(marker) && Files.exists(otherPath)) {
+                // the previous migration did not complete, start it over
+                log.warn("Restarting the interrupted migration of the {} database", otherBackend);
+                delete(backend, dbPath);
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("Partially migrated database could not be deleted.");
+        }
+
         //Notify if the database file does not exist.
         boolean dbFound = Files.exists(dbPath);
         if (!dbFound) {
@@ -92,58 +182,166 @@ public class PersistenceManager implements PersistenceService {
         } else {
             log.info("A previous database file has been found.");
         }
-        localDB = DBMaker.newFileDB(dbPath.toFile())
-                .asyncWriteEnable()
-                .closeOnJvmShutdown()
-                .make();
-        timer.schedule(commitTask, FLUSH_FREQUENCY_MILLIS, FLUSH_FREQUENCY_MILLIS);
-        log.info("Started");
+        boolean migrate = !dbFound && Files.exists(otherPath);
+        if (migrate) {
+            try {
+                if (!Files.exists(marker)) {
+                    Files.createFile(marker);
+                }
+            } catch (IOException e) {
+                throw new PersistenceException("Migration marker could not be created.");
+            }
+        }
+        PersistentStorage opened = open(backend, dbPath);
+        if (migrate) {
+            migrate(otherBackend, otherPath, opened, marker);
+        }
+        return opened;
     }
 
-    @Deactivate
-    public void deactivate() {
-        timer.cancel();
-        for (Map.Entry<String, Object> entry : localDB.getAll().entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            if (value instanceof Map) {
-                // This is a map implementation to be handled as such
-                Map asMap = (Map) value;
-                if (asMap.isEmpty()) {
-                    //the map is empty and may be deleted
-                    localDB.delete(key);
-                }
-            } else if (value instanceof Set) {
-                // This is a set implementation and can be handled as such
-                Set asSet = (Set) value;
-                if (asSet.isEmpty()) {
-                    //the set is empty and may be deleted
-                    localDB.delete(key);
+    private static Path storagePath(Path root, String backend) {
+        return root.resolve(LOG_BACKEND.equals(backend) ? LOG_PATH : DATABASE_PATH);
+    }
+
+    private PersistentStorage open(String backend, Path path) {
+        if (LOG_BACKEND.equals(backend)) {
+            return new AppendLogStorage(path, AppendLogStorage.Durability.valueOf(durability),
+                                        segmentSizeMb * 1024 * 1024, FLUSH_FREQUENCY_MILLIS);
+        }
+        return MapDbStorage.open(path, FLUSH_FREQUENCY_MILLIS);
+    }
+
+    /**
+     * Moves the contents of the storage of the given backend into the
+     * given storage, then deletes the files of the given backend.
+     *
+     * @param from   backend to migrate from
+     * @param path   location of the storage of that backend
+     * @param target storage to migrate to
+     * @param marker marker of the migration in progress
+     */
+    private void migrate(String from, Path path, PersistentStorage target, Path marker) {
+        log.info("Migrating the {} database to the {} backend", from, backend);
+        PersistentStorage source = open(from, path);
+        try {
+            copy(source, target);
+        } finally {
+            source.close();
+        }
+        // the copy must be durable before the migration is deemed complete
+        target.flush();
+        try {
+            Files.delete(marker);
+        } catch (IOException e) {
+            // a later start would otherwise discard the updates made meanwhile
+            target.close();
+            throw new PersistenceException("Migration marker could not be deleted.");
+        }
+        try {
+            delete(from, path);
+        } catch (IOException e) {
+            log.warn("Failed to delete the {} database after migration", from, e);
+        }
+    }
+
+    /**
+     * Deletes the files of the storage of the given backend.
+     *
+     * @param backend backend of the storage
+     * @param path    location of the storage
+     * @throws IOException if the files could not be deleted
+     */
+    private static void delete(String backend, Path path) throws IOException {
+        if (LOG_BACKEND.equals(backend)) {
+            if (Files.exists(path)) {
+                Tools.removeDirectory(path.toFile());
+            }
+        } else {
+            for (String suffix : MAPDB_FILE_SUFFIXES) {
+                Files.deleteIfExists(path.resolveSibling(path.getFileName() + suffix));
+            }
+        }
+    }
+
+    /**
+     * Copies every map and set of a storage into another one.
+     *
+     * @param source storage to copy from
+     * @param target storage to copy to
+     */
+    static void copy(PersistentStorage source, PersistentStorage target) {
+        for (String name : source.names()) {
+            if (name.startsWith(SET_PREFIX)) {
+                target.getSet(name).addAll(source.getSet(name));
+            } else {
+                Map<byte[], byte[]> map = target.getMap(name);
+                source.getMap(name).forEach(map::put);
+            }
+        }
+    }
+
+    private String configuration() {
+        return LOG_BACKEND.equals(backend)
+                ? String.format("backend %s, durability %s, %d MB segments", backend, durability, segmentSizeMb)
+                : String.format("backend %s", backend);
+    }
+
+    /**
+     * Extracts properties from the component configuration context.
+     *
+     * @param context the component context
+     */
+    private void readComponentConfiguration(ComponentContext context) {
+        Dictionary<?, ?> properties = context == null ? null : context.getProperties();
+        if (properties == null) {
+            return;
+        }
+
+        String s = get(properties, "backend");
+        if (!isNullOrEmpty(s)) {
+            if (MAPDB_BACKEND.equals(s) || LOG_BACKEND.equals(s)) {
+                backend = s;
+            } else {
+                log.warn("Unknown backend {}, using {}", s, backend);
+            }
+        }
+
+        s = get(properties, "durability");
+        if (!isNullOrEmpty(s)) {
+            try {
+                durability = AppendLogStorage.Durability.valueOf(s.toUpperCase()).name();
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown durability {}, using {}", s, durability);
+            }
+        }
+
+        s = get(properties, "segmentSizeMb");
+        if (!isNullOrEmpty(s)) {
+            try {
+                int size = Integer.parseInt(s);
+                // segments are mapped in memory, which limits them to 2 GB
+                if (size > 0 && size < MAX_SEGMENT_SIZE_MB) {
+                    segmentSizeMb = size;
+                } else {
+                    log.warn("Segment size {} is out of range, using {} MB", s, segmentSizeMb);
                 }
+            } catch (NumberFormatException e) {
+                log.warn("Segment size {} is not a number, using {} MB", s, segmentSizeMb);
             }
         }
-        localDB.commit();
-        localDB.close();
-        log.info("Stopped");
+        log.info("Configured. Backend is {}, durability is {}, segment size is {} MB",
+                 backend, durability, segmentSizeMb);
     }
 
     @Override
     public <K, V> PersistentMapBuilder<K, V> persistentMapBuilder() {
         checkPermission(PERSISTENCE_WRITE);
-        return new DefaultPersistentMapBuilder<>(localDB);
+        return new DefaultPersistentMapBuilder<>(storage);
     }
 
     @Override
     public <E> PersistentSetBuilder<E> persistentSetBuilder() {
         checkPermission(PERSISTENCE_WRITE);
-        return new DefaultPersistentSetBuilder<>(localDB);
-    }
-
-    private class CommitTask extends TimerTask {
-
-        @Override
-        public void run() {
-            localDB.commit();
-        }
+        return new DefaultPersistentSetBuilder<>(storage);
     }
-}
\ No newline at end of file
+}
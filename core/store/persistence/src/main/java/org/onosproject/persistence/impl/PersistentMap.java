@@ -19,7 +19,6 @@ package org.onosproject.persistence.impl;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.mapdb.DB;
-import org.mapdb.Hasher;
 import org.onosproject.store.service.Serializer;
 
 import java.util.Collection;
@@ -36,23 +35,19 @@ public class PersistentMap<K, V> implements Map<K, V> {
 
     private final Serializer serializer;
 
-    private final org.mapdb.DB database;
-
     private final Map<byte[], byte[]> items;
 
     private final String name;
 
     public PersistentMap(Serializer serializer, DB database, String name) {
+        this(serializer, new MapDbStorage(database), name);
+    }
+
+    PersistentMap(Serializer serializer, PersistentStorage storage, String name) {
         this.serializer = checkNotNull(serializer);
-        this.database = checkNotNull(database);
         this.name = checkNotNull(name);
 
-        items = database
-                .createHashMap(name)
-                .keySerializer(org.mapdb.Serializer.BYTE_ARRAY)
-                .valueSerializer(org.mapdb.Serializer.BYTE_ARRAY)
-                .hasher(Hasher.BYTE_ARRAY)
-                .makeOrGet();
+        items = checkNotNull(storage).getMap(name);
     }
 
     /**
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local storage backend holding the serialized contents of the persistent
+ * maps and sets.
+ */
+interface PersistentStorage {
+
+    /**
+     * Returns the map with the given name, creating it if needed.
+     *
+     * @param name map name
+     * @return map of serialized keys to serialized values
+     */
+    Map<byte[], byte[]> getMap(String name);
+
+    /**
+     * Returns the set with the given name, creating it if needed.
+     *
+     * @param name set name
+     * @return set of serialized elements
+     */
+    Set<byte[]> getSet(String name);
+
+    /**
+     * Returns the names of the maps and sets held by the storage.
+     *
+     * @return names of the maps and sets
+     */
+    Set<String> names();
+
+    /**
+     * Persists any pending update.
+     */
+    void flush();
+
+    /**
+     * Persists any pending update and closes the storage.
+     */
+    void close();
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onosproject.persistence.impl.AppendLogStorage.Durability;
+import org.onosproject.store.service.Serializer;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test suite for the append log storage.
+ */
+public class AppendLogStorageTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path directory;
+    private AppendLogStorage storage;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = tmpFolder.newFolder().toPath();
+        storage = open(Durability.NONE);
+    }
+
+    @After
+    public void tearDown() {
+        storage.close();
+    }
+
+    private AppendLogStorage open(Durability durability) {
+        return new AppendLogStorage(directory, durability, SEGMENT_SIZE, 100);
+    }
+
+    private AppendLogStorage reopen() {
+        storage.close();
+        storage = open(Durability.NONE);
+        return storage;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(prefix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Tests that updates of maps and sets are recovered after reopening.
+     */
+    @Test
+    public void testRecovery() {
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        Set<byte[]> set = storage.getSet("set:s");
+        assertNull(map.put(bytes("a"), bytes("1")));
+        assertEquals("1", string(map.put(bytes("a"), bytes("2"))));
+        map.put(bytes("b"), bytes("3"));
+        assertEquals("3", string(map.remove(bytes("b"))));
+        assertNull(map.remove(bytes("b")));
+        assertTrue(set.add(bytes("x")));
+        assertFalse(set.add(bytes("x")));
+        set.add(bytes("y"));
+        set.remove(bytes("x"));
+
+        map = reopen().getMap("map:m");
+        set = storage.getSet("set:s");
+        assertEquals(1, map.size());
+        assertEquals("2", string(map.get(bytes("a"))));
+        assertEquals(1, set.size());
+        assertTrue(set.contains(bytes("y")));
+
+        map.clear();
+        assertTrue(reopen().getMap("map:m").isEmpty());
+    }
+
+    /**
+     * Tests that iterator removals are logged.
+     */
+    @Test
+    public void testIteratorRemoval() {
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        for (int i = 0; i < 10; i++) {
+            map.put(bytes("k" + i), bytes("v" + i));
+        }
+        map.keySet().removeIf(k -> string(k).compareTo("k5") < 0);
+        assertEquals(5, map.size());
+        assertEquals(5, reopen().getMap("map:m").size());
+    }
+
+    /**
+     * Tests that updates are recovered when the storage is not closed.
+     */
+    @Test
+    public void testRecoveryWithoutClose() {
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        for (int i = 0; i < 200; i++) {
+            map.put(bytes("k" + i), bytes("v" + i));
+        }
+        // the log segments are shared with the running storage through the page cache
+        AppendLogStorage recovered = open(Durability.NONE);
+        try {
+            Map<byte[], byte[]> recoveredMap = recovered.getMap("map:m");
+            assertEquals(200, recoveredMap.size());
+            assertEquals("v199", string(recoveredMap.get(bytes("k199"))));
+        } finally {
+            recovered.close();
+        }
+    }
+
+    /**
+     * Tests that a torn record at the end of the log is discarded, and that
+     * the log can be appended to after it.
+     */
+    @Test
+    public void testTornRecord() throws IOException {
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        map.put(bytes("a"), bytes("1"));
+        map.put(bytes("b"), bytes("2"));
+        storage.close();
+
+        // overwrite the checksum of the last record
+        Path segment = files("segment-").get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int position = 0;
+            int last = 0;
+            int length;
+            while ((length = readInt(file, position)) != 0) {
+                last = position;
+                position += LogSegment.HEADER_SIZE + length;
+            }
+            file.seek(last + Integer.BYTES);
+            file.writeInt(0xdeadbeef);
+        }
+
+        storage = open(Durability.NONE);
+        map = storage.getMap("map:m");
+        assertEquals("1", string(map.get(bytes("a"))));
+        assertNull(map.get(bytes("b")));
+
+        map.put(bytes("c"), bytes("3"));
+        map = reopen().getMap("map:m");
+        assertEquals(2, map.size());
+        assertEquals("3", string(map.get(bytes("c"))));
+    }
+
+    private static int readInt(RandomAccessFile file, int position) throws IOException {
+        file.seek(position);
+        return file.readInt();
+    }
+
+    /**
+     * Tests that the segments following a segment without seal are discarded,
+     * so that the recovered updates are always a prefix of the log.
+     */
+    @Test
+    public void testSegmentsAfterUnsealedSegmentDiscarded() throws IOException {
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        byte[] value = new byte[100];
+        int count = 0;
+        while (files("segment-").size() < 3) {
+            map.put(bytes("k" + count++), value);
+        }
+        storage.close();
+
+        // clear the first segment past its first records, including its seal
+        Path first = files("segment-").get(0);
+        try (RandomAccessFile file = new RandomAccessFile(first.toFile(), "rw")) {
+            file.seek(SEGMENT_SIZE / 2);
+            file.write(new byte[SEGMENT_SIZE / 2]);
+        }
+
+        storage = open(Durability.NONE);
+        map = storage.getMap("map:m");
+        assertTrue(map.containsKey(bytes("k0")));
+        assertFalse(map.containsKey(bytes("k" + (count - 1))));
+        assertTrue(map.size() < SEGMENT_SIZE / 2 / value.length);
+        assertEquals(1, files("segment-").size());
+    }
+
+    /**
+     * Tests that records are spread over segments, including records larger
+     * than a segment.
+     */
+    @Test
+    public void testSegments() throws IOException {
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        byte[] large = new byte[3 * SEGMENT_SIZE];
+        large[large.length - 1] = 1;
+        for (int i = 0; i < 100; i++) {
+            map.put(bytes("k" + i), bytes("value" + i));
+        }
+        map.put(bytes("large"), large);
+        assertTrue(files("segment-").size() >= 2);
+
+        map = reopen().getMap("map:m");
+        assertEquals(101, map.size());
+        assertEquals("value99", string(map.get(bytes("k99"))));
+        assertArrayEquals(large, map.get(bytes("large")));
+    }
+
+    /**
+     * Tests that obsolete records are compacted into a snapshot.
+     */
+    @Test
+    public void testCompaction() throws IOException {
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        Set<byte[]> set = storage.getSet("set:s");
+        storage.getMap("map:empty");
+        set.add(bytes("x"));
+        for (int i = 0; i < 2000; i++) {
+            map.put(bytes("k" + i % 10), bytes("v" + i));
+        }
+        storage.compact();
+        assertEquals(1, files("snapshot-").size());
+        assertTrue(files("segment-").size() <= 2);
+
+        map.put(bytes("k0"), bytes("latest"));
+        map = reopen().getMap("map:m");
+        assertEquals(10, map.size());
+        assertEquals("latest", string(map.get(bytes("k0"))));
+        assertEquals("v1999", string(map.get(bytes("k9"))));
+        assertTrue(storage.getSet("set:s").contains(bytes("x")));
+        storage.getMap("map:empty").put(bytes("a"), bytes("b"));
+        assertEquals(1, reopen().getMap("map:empty").size());
+    }
+
+    /**
+     * Tests that concurrent updates with synchronous durability are all
+     * persisted.
+     */
+    @Test
+    public void testConcurrentSyncUpdates() throws Exception {
+        storage.close();
+        storage = open(Durability.SYNC);
+        Map<byte[], byte[]> map = storage.getMap("map:m");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        map.put(bytes(thread + ":" + i), bytes("v" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(800, reopen().getMap("map:m").size());
+    }
+
+    /**
+     * Tests persistent maps and sets backed by the log storage.
+     */
+    @Test
+    public void testPersistentCollections() {
+        Serializer serializer = new Serializer() {
+            @Override
+            public <T> byte[] encode(T object) {
+                return bytes((String) object);
+            }
+
+            @Override
+            public <T> T decode(byte[] bytes) {
+                return (T) string(bytes);
+            }
+
+            @Override
+            public <T> T copy(T object) {
+                return object;
+            }
+        };
+        Map<String, String> map = new DefaultPersistentMapBuilder<String, String>(storage)
+                .withName("m").withSerializer(serializer).build();
+        Set<String> set = new DefaultPersistentSetBuilder<String>(storage)
+                .withName("s").withSerializer(serializer).build();
+        map.put("a", "1");
+        set.add("x");
+
+        reopen();
+        map = new DefaultPersistentMapBuilder<String, String>(storage)
+                .withName("m").withSerializer(serializer).build();
+        set = new DefaultPersistentSetBuilder<String>(storage)
+                .withName("s").withSerializer(serializer).build();
+        assertEquals("1", map.get("a"));
+        assertTrue(set.contains("x"));
+    }
+}
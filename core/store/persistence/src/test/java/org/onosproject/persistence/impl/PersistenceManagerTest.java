@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onlab.junit.TestUtils;
+import org.onosproject.persistence.impl.AppendLogStorage.Durability;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test suite for the migration between the storage backends.
+ */
+public class PersistenceManagerTest {
+
+    private static final String MAP = PersistenceManager.MAP_PREFIX + "map";
+    private static final String SET = PersistenceManager.SET_PREFIX + "set";
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void fill(PersistentStorage storage) {
+        storage.getMap(MAP).put(bytes("k1"), bytes("v1"));
+        storage.getMap(MAP).put(bytes("k2"), bytes("v2"));
+        storage.getSet(SET).add(bytes("e1"));
+    }
+
+    private static void check(PersistentStorage storage) {
+        assertEquals(2, storage.names().size());
+        assertEquals(2, storage.getMap(MAP).size());
+        assertArrayEquals(bytes("v1"), storage.getMap(MAP).get(bytes("k1")));
+        assertArrayEquals(bytes("v2"), storage.getMap(MAP).get(bytes("k2")));
+        assertEquals(1, storage.getSet(SET).size());
+        assertTrue(storage.getSet(SET).contains(bytes("e1")));
+    }
+
+    private AppendLogStorage openLog(Path path) {
+        return new AppendLogStorage(path, Durability.NONE, 4096, 100);
+    }
+
+    private PersistenceManager manager(String backend) throws Exception {
+        PersistenceManager manager = new PersistenceManager();
+        TestUtils.setField(manager, "backend", backend);
+        return manager;
+    }
+
+    /**
+     * Tests the migration from the MapDB backend to the log backend.
+     */
+    @Test
+    public void testCopyToLog() throws Exception {
+        Path mapDbPath = tmpFolder.getRoot().toPath().resolve("cache");
+        Path logPath = tmpFolder.getRoot().toPath().resolve("log");
+
+        PersistentStorage source = MapDbStorage.open(mapDbPath, 100);
+        fill(source);
+        PersistentStorage target = openLog(logPath);
+        PersistenceManager.copy(source, target);
+        source.close();
+        target.flush();
+        target.close();
+
+        target = openLog(logPath);
+        check(target);
+        target.close();
+    }
+
+    /**
+     * Tests the migration from the log backend to the MapDB backend.
+     */
+    @Test
+    public void testCopyToMapDb() throws Exception {
+        Path mapDbPath = tmpFolder.getRoot().toPath().resolve("cache");
+        Path logPath = tmpFolder.getRoot().toPath().resolve("log");
+
+        PersistentStorage source = openLog(logPath);
+        fill(source);
+        PersistentStorage target = MapDbStorage.open(mapDbPath, 100);
+        PersistenceManager.copy(source, target);
+        source.close();
+        target.close();
+
+        target = MapDbStorage.open(mapDbPath, 100);
+        check(target);
+        target.close();
+    }
+
+    /**
+     * Tests the migration when the storage is opened with the other backend.
+     */
+    @Test
+    public void testMigration() throws Exception {
+        Path root = tmpFolder.getRoot().toPath();
+        PersistentStorage source = MapDbStorage.open(root.resolve("cache"), 100);
+        fill(source);
+        source.close();
+
+        PersistentStorage storage = manager(PersistenceManager.LOG_BACKEND).openStorage(root);
+        check(storage);
+        storage.close();
+        assertFalse(Files.exists(root.resolve("cache")));
+        assertFalse(Files.exists(root.resolve("migrating")));
+
+        // nothing left to migrate
+        storage = manager(PersistenceManager.LOG_BACKEND).openStorage(root);
+        check(storage);
+        storage.close();
+    }
+
+    /**
+     * Tests an interrupted migration is started over rather than leaving the
+     * storage with partial contents.
+     */
+    @Test
+    public void testInterruptedMigration() throws Exception {
+        Path root = tmpFolder.getRoot().toPath();
+        PersistentStorage source = MapDbStorage.open(root.resolve("cache"), 100);
+        fill(source);
+        source.close();
+        // partial copy left by a crash during the migration
+        Files.createFile(root.resolve("migrating"));
+        PersistentStorage partial = openLog(root.resolve("log"));
+        partial.getMap(MAP).put(bytes("k1"), bytes("v1"));
+        partial.getMap(MAP).put(bytes("k3"), bytes("v3"));
+        partial.flush();
+        partial.close();
+
+        PersistentStorage storage = manager(PersistenceManager.LOG_BACKEND).openStorage(root);
+        check(storage);
+        storage.close();
+        assertFalse(Files.exists(root.resolve("cache")));
+        assertFalse(Files.exists(root.resolve("migrating")));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onosproject.persistence.impl.AppendLogStorage.Durability;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Compares the write throughput and the recovery time of the persistent
+ * storage backends.
+ */
+public class PersistentStoragePerfTest {
+
+    private static final String FMT = "%-14s %10s %14s %14s";
+    private static final int ENTRIES = 500_000;
+    // synchronous durability forces every update; keep its run short
+    private static final int SYNC_ENTRIES = 20_000;
+    private static final int THREADS = 4;
+    private static final int VALUE_SIZE = 128;
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long FLUSH_FREQUENCY_MILLIS = 3000;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    @Ignore
+    public void mapDbPerf() throws Exception {
+        run("mapdb", ENTRIES,
+            path -> MapDbStorage.open(path.resolve("cache"), FLUSH_FREQUENCY_MILLIS));
+    }
+
+    @Test
+    @Ignore
+    public void logPerf() throws Exception {
+        for (Durability durability : Durability.values()) {
+            run("log-" + durability.name().toLowerCase(),
+                durability == Durability.SYNC ? SYNC_ENTRIES : ENTRIES,
+                path -> new AppendLogStorage(path, durability, SEGMENT_SIZE, FLUSH_FREQUENCY_MILLIS));
+        }
+    }
+
+    private void run(String name, int entries, Function<Path, PersistentStorage> factory) throws Exception {
+        Path directory = tmpFolder.newFolder().toPath();
+        PersistentStorage storage = factory.apply(directory);
+        Map<byte[], byte[]> map = storage.getMap(PersistenceManager.MAP_PREFIX + "benchmark");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(thread);
+                byte[] value = new byte[VALUE_SIZE];
+                for (int i = thread; i < entries; i += THREADS) {
+                    random.nextBytes(value);
+                    map.put(key(i), value.clone());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long writeNanos = System.nanoTime() - start;
+        executor.shutdown();
+        storage.close();
+
+        start = System.nanoTime();
+        storage = factory.apply(directory);
+        int recovered = storage.getMap(PersistenceManager.MAP_PREFIX + "benchmark").size();
+        long recoveryNanos = System.nanoTime() - start;
+        storage.close();
+
+        if (recovered != entries) {
+            System.out.println(String.format("%s recovered %d of %d entries", name, recovered, entries));
+        }
+        System.out.println(String.format(FMT, "backend", "entries", "writes/s", "recovery ms"));
+        System.out.println(String.format(FMT, name, entries,
+                                         entries * 1_000_000_000L / writeNanos,
+                                         recoveryNanos / 1_000_000));
+    }
+
+    private static byte[] key(int i) {
+        return new byte[] {(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i};
+    }
+}
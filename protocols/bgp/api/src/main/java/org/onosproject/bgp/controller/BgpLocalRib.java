@@ -110,4 +110,20 @@ public interface BgpLocalRib {
      * @return vpn prefix NLRI Tree
      */
     Map<RouteDistinguisher, Map<BgpPrefixLSIdentifier, PathAttrNlriDetailsLocalRib>> vpnPrefixTree();
+
+    /**
+     * Adds a listener for the changes of the local RIB. The NLRI trees may be
+     * read concurrently with the changes; a listener added before reading them
+     * receives every change made afterwards instead of having to rescan.
+     *
+     * @param listener local RIB listener
+     */
+    void addListener(BgpLocalRibListener listener);
+
+    /**
+     * Removes a listener for the changes of the local RIB.
+     *
+     * @param listener local RIB listener
+     */
+    void removeListener(BgpLocalRibListener listener);
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgp.controller;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.bgpio.protocol.BgpLSNlri;
+import org.onosproject.bgpio.protocol.linkstate.PathAttrNlriDetailsLocalRib;
+
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Change of the best path selected for an NLRI in the local RIB.
+ */
+public final class BgpLocalRibChange {
+
+    /**
+     * Type of local RIB change.
+     */
+    public enum Type {
+        /**
+         * NLRI added to the local RIB.
+         */
+        ADDED,
+
+        /**
+         * Best path of an NLRI already in the local RIB changed.
+         */
+        UPDATED,
+
+        /**
+         * NLRI removed from the local RIB.
+         */
+        REMOVED
+    }
+
+    private final Type type;
+    private final BgpLSNlri nlri;
+    private final PathAttrNlriDetailsLocalRib details;
+
+    /**
+     * Creates a local RIB change.
+     *
+     * @param type type of change
+     * @param nlri NLRI that changed
+     * @param details selected best path, null if the NLRI was removed
+     */
+    public BgpLocalRibChange(Type type, BgpLSNlri nlri, PathAttrNlriDetailsLocalRib details) {
+        this.type = checkNotNull(type);
+        this.nlri = checkNotNull(nlri);
+        this.details = details;
+    }
+
+    /**
+     * Returns the type of change.
+     *
+     * @return type of change
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Returns the NLRI that changed.
+     *
+     * @return NLRI
+     */
+    public BgpLSNlri nlri() {
+        return nlri;
+    }
+
+    /**
+     * Returns the selected best path.
+     *
+     * @return best path details, null if the NLRI was removed
+     */
+    public PathAttrNlriDetailsLocalRib details() {
+        return details;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, nlri, details);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof BgpLocalRibChange) {
+            BgpLocalRibChange other = (BgpLocalRibChange) obj;
+            return type == other.type && Objects.equals(nlri, other.nlri)
+                    && Objects.equals(details, other.details);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("type", type)
+                .add("nlri", nlri)
+                .add("details", details)
+                .toString();
+    }
+}
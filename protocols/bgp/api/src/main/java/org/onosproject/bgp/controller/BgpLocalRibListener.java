@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgp.controller;
+
+import java.util.List;
+
+/**
+ * Allows for providers interested in local RIB changes to be notified.
+ */
+public interface BgpLocalRibListener {
+
+    /**
+     * Notifies the changes of the best paths selected in the local RIB as a
+     * result of one UPDATE message or peer event. Successive changes of the
+     * same NLRI within the batch are merged into one.
+     *
+     * @param changes local RIB changes, in order of occurrence
+     */
+    void ribChanged(List<BgpLocalRibChange> changes);
+}
@@ -19,6 +19,7 @@ package org.onosproject.bgpio.protocol;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.onosproject.bgpio.exceptions.BgpParseException;
 import org.onosproject.bgpio.protocol.ver4.BgpFactoryVer4;
+import org.onosproject.bgpio.protocol.ver4.BgpMessageVer4;
 import org.onosproject.bgpio.types.BgpHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +31,8 @@ public final class BgpFactories {
 
     private static final Logger log = LoggerFactory.getLogger(BgpFactories.class);
 
-    private static final GenericReader GENERIC_READER = new GenericReader();
+    private static final GenericReader GENERIC_READER = new GenericReader(false);
+    private static final GenericReader LAZY_READER = new GenericReader(true);
 
     private BgpFactories() {
     }
@@ -56,6 +58,12 @@ public final class BgpFactories {
      */
     private static class GenericReader implements BgpMessageReader<BgpMessage> {
 
+        private final boolean lazy;
+
+        GenericReader(boolean lazy) {
+            this.lazy = lazy;
+        }
+
         @Override
         public BgpMessage readFrom(ChannelBuffer bb, BgpHeader bgpHeader)
                 throws BgpParseException {
@@ -67,6 +75,9 @@ public final class BgpFactories {
             }
             // TODO: Currently only BGP version 4 is supported
             factory = org.onosproject.bgpio.protocol.ver4.BgpFactoryVer4.INSTANCE;
+            if (lazy) {
+                return BgpMessageVer4.LAZY_READER.readFrom(bb, bgpHeader);
+            }
             return factory.getReader().readFrom(bb, bgpHeader);
         }
     }
@@ -79,4 +90,15 @@ public final class BgpFactories {
     public static BgpMessageReader<BgpMessage> getGenericReader() {
         return GENERIC_READER;
     }
+
+    /**
+     * Returns BGP message generic reader decoding the path attributes of
+     * update messages lazily, when first accessed. Update messages carrying
+     * the same path attributes share their decoded attributes.
+     *
+     * @return bgp message generic reader
+     */
+    public static BgpMessageReader<BgpMessage> getLazyReader() {
+        return LAZY_READER;
+    }
 }
@@ -83,7 +83,7 @@ public class BgpEvpnNlriImpl implements BgpEvpnNlri {
         BgpEvpnNlriData routeNlri = null;
 
         if (cb.readableBytes() > 0) {
-            ChannelBuffer tempBuf = cb.copy();
+            ChannelBuffer tempBuf = cb.duplicate();
             byte type = cb.readByte();
             byte length = cb.readByte();
             if (cb.readableBytes() < length) {
@@ -92,7 +92,7 @@ public class BgpEvpnNlriImpl implements BgpEvpnNlri {
                                             tempBuf.readBytes(cb.readableBytes()
                                                                       + TYPE_AND_LEN));
             }
-            ChannelBuffer tempCb = cb.readBytes(length);
+            ChannelBuffer tempCb = cb.readSlice(length);
             switch (type) {
                 case BgpEvpnRouteType2Nlri.TYPE:
                     routeNlri = BgpEvpnRouteType2Nlri.read(tempCb);
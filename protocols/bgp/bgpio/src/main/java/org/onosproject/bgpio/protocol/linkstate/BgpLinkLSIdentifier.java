@@ -15,6 +15,7 @@
  */
 package org.onosproject.bgpio.protocol.linkstate;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -109,7 +110,7 @@ public class BgpLinkLSIdentifier implements Comparable<Object> {
     public static NodeDescriptors parseNodeDescriptors(ChannelBuffer cb, short desType, byte protocolId)
             throws BgpParseException {
         log.debug("Parse node descriptors");
-        ChannelBuffer tempBuf = cb.copy();
+        ChannelBuffer tempBuf = cb.duplicate();
         short type = cb.readShort();
         short length = cb.readShort();
         if (cb.readableBytes() < length) {
@@ -117,7 +118,7 @@ public class BgpLinkLSIdentifier implements Comparable<Object> {
                     tempBuf.readBytes(cb.readableBytes() + Constants.TYPE_AND_LEN_AS_SHORT));
         }
         NodeDescriptors nodeIdentifier = new NodeDescriptors();
-        ChannelBuffer tempCb = cb.readBytes(length);
+        ChannelBuffer tempCb = cb.readSlice(length);
 
         if (type == desType) {
             nodeIdentifier = NodeDescriptors.read(tempCb, length, desType, protocolId);
@@ -140,14 +141,14 @@ public class BgpLinkLSIdentifier implements Comparable<Object> {
         int count = 0;
 
         while (cb.readableBytes() > 0) {
-            ChannelBuffer tempBuf = cb.copy();
+            ChannelBuffer tempBuf = cb.duplicate();
             short type = cb.readShort();
             short length = cb.readShort();
             if (cb.readableBytes() < length) {
                 throw new BgpParseException(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.OPTIONAL_ATTRIBUTE_ERROR,
                         tempBuf.readBytes(cb.readableBytes() + Constants.TYPE_AND_LEN_AS_SHORT));
             }
-            ChannelBuffer tempCb = cb.readBytes(length);
+            ChannelBuffer tempCb = cb.readSlice(length);
             switch (type) {
             case LinkLocalRemoteIdentifiersTlv.TYPE:
                 tlv = LinkLocalRemoteIdentifiersTlv.read(tempCb);
@@ -212,7 +213,9 @@ public class BgpLinkLSIdentifier implements Comparable<Object> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(linkDescriptor, localNodeDescriptors, remoteNodeDescriptors);
+        // equals ignores the order of the link descriptors
+        return Objects.hash(linkDescriptor == null ? null : new HashSet<>(linkDescriptor),
+                            localNodeDescriptors, remoteNodeDescriptors);
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package org.onosproject.bgpio.protocol.linkstate;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -95,7 +96,7 @@ public class BgpPrefixLSIdentifier implements Comparable<Object> {
      */
     public static NodeDescriptors parseLocalNodeDescriptors(ChannelBuffer cb, byte protocolId)
                                                                  throws BgpParseException {
-        ChannelBuffer tempBuf = cb.copy();
+        ChannelBuffer tempBuf = cb.duplicate();
         short type = cb.readShort();
         short length = cb.readShort();
         if (cb.readableBytes() < length) {
@@ -104,7 +105,7 @@ public class BgpPrefixLSIdentifier implements Comparable<Object> {
                     tempBuf.readBytes(cb.readableBytes() + TYPE_AND_LEN));
         }
         NodeDescriptors localNodeDescriptors = new NodeDescriptors();
-        ChannelBuffer tempCb = cb.readBytes(length);
+        ChannelBuffer tempCb = cb.readSlice(length);
 
         if (type == NodeDescriptors.LOCAL_NODE_DES_TYPE) {
             localNodeDescriptors = NodeDescriptors.read(tempCb, length, type, protocolId);
@@ -130,7 +131,7 @@ public class BgpPrefixLSIdentifier implements Comparable<Object> {
         int count = 0;
 
         while (cb.readableBytes() > 0) {
-            ChannelBuffer tempBuf = cb.copy();
+            ChannelBuffer tempBuf = cb.duplicate();
             short type = cb.readShort();
             short length = cb.readShort();
             if (cb.readableBytes() < length) {
@@ -138,7 +139,7 @@ public class BgpPrefixLSIdentifier implements Comparable<Object> {
                 throw new BgpParseException(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.OPTIONAL_ATTRIBUTE_ERROR,
                         tempBuf.readBytes(cb.readableBytes() + TYPE_AND_LEN));
             }
-            tempCb = cb.readBytes(length);
+            tempCb = cb.readSlice(length);
             switch (type) {
             case OspfRouteTypeTlv.TYPE:
                 tlv = OspfRouteTypeTlv.read(tempCb);
@@ -189,7 +190,8 @@ public class BgpPrefixLSIdentifier implements Comparable<Object> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(prefixDescriptor.hashCode(), localNodeDescriptors);
+        // equals ignores the order of the prefix descriptors
+        return Objects.hash(new HashSet<>(prefixDescriptor), localNodeDescriptors);
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package org.onosproject.bgpio.protocol.linkstate;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -110,7 +111,8 @@ public class NodeDescriptors {
 
     @Override
     public int hashCode() {
-        return Objects.hash(subTlvs.hashCode());
+        // equals ignores the order of the sub-TLVs
+        return subTlvs == null ? 0 : new HashSet<>(subTlvs).hashCode();
     }
 
     @Override
@@ -162,14 +164,14 @@ public class NodeDescriptors {
         BgpValueType tlv = null;
 
         while (cb.readableBytes() > 0) {
-            ChannelBuffer tempBuf = cb.copy();
+            ChannelBuffer tempBuf = cb.duplicate();
             short type = cb.readShort();
             short length = cb.readShort();
             if (cb.readableBytes() < length) {
                 throw new BgpParseException(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.OPTIONAL_ATTRIBUTE_ERROR,
                         tempBuf.readBytes(cb.readableBytes() + TYPE_AND_LEN));
             }
-            ChannelBuffer tempCb = cb.readBytes(length);
+            ChannelBuffer tempCb = cb.readSlice(length);
             switch (type) {
             case AutonomousSystemTlv.TYPE:
                 tlv = AutonomousSystemTlv.read(tempCb);
@@ -42,13 +42,26 @@ public abstract class BgpMessageVer4 {
     static final int HEADER_AND_MSG_LEN = 18;
     static final int MAXIMUM_PACKET_LENGTH = 4096;
 
-    public static final BgpMessageVer4.Reader READER = new Reader();
+    public static final BgpMessageVer4.Reader READER = new Reader(BgpUpdateMsgVer4.READER);
+    public static final BgpMessageReader<BgpMessage> LAZY_READER = new Reader(BgpUpdateMsgVer4.LAZY_READER);
 
     /**
      * Reader class for reading BGP messages from channel buffer.
      *
      */
     static class Reader implements BgpMessageReader<BgpMessage> {
+
+        private final BgpUpdateMsgVer4.Reader updateReader;
+
+        /**
+         * Creates a reader of BGP messages.
+         *
+         * @param updateReader reader of the BGP Update Messages
+         */
+        Reader(BgpUpdateMsgVer4.Reader updateReader) {
+            this.updateReader = updateReader;
+        }
+
         @Override
         public BgpMessage readFrom(ChannelBuffer cb, BgpHeader bgpHeader)
                 throws BgpParseException {
@@ -58,11 +71,6 @@ public abstract class BgpMessageVer4 {
                 Validation.validateLen(BgpErrorType.MESSAGE_HEADER_ERROR, BgpErrorType.BAD_MESSAGE_LENGTH,
                                        cb.readableBytes());
             }
-            if (cb.readableBytes() > MAXIMUM_PACKET_LENGTH) {
-                log.error("Packet length should not exceed {}.", MAXIMUM_PACKET_LENGTH);
-                Validation.validateLen(BgpErrorType.MESSAGE_HEADER_ERROR, BgpErrorType.BAD_MESSAGE_LENGTH,
-                                       cb.readableBytes());
-            }
             try {
                 // fixed value property version == 4
                 byte[] marker = new byte[BgpHeader.MARKER_LENGTH];
@@ -75,6 +83,12 @@ public abstract class BgpMessageVer4 {
                     }
                 }
                 short length = cb.readShort();
+                // the buffer may hold several messages, only this one is limited in length
+                if (length > MAXIMUM_PACKET_LENGTH || length < MINIMUM_COMMON_HEADER_LENGTH) {
+                    log.error("Invalid message length {}.", length);
+                    Validation.validateLen(BgpErrorType.MESSAGE_HEADER_ERROR, BgpErrorType.BAD_MESSAGE_LENGTH,
+                                           length);
+                }
                 if (length > cb.readableBytes() + HEADER_AND_MSG_LEN) {
                     Validation.validateLen(BgpErrorType.MESSAGE_HEADER_ERROR,
                                            BgpErrorType.BAD_MESSAGE_LENGTH, length);
@@ -94,7 +108,9 @@ public abstract class BgpMessageVer4 {
                     return BgpKeepaliveMsgVer4.READER.readFrom(cb.readBytes(len), bgpHeader);
                 case UPDATE_MSG_TYPE:
                     log.debug("UPDATE MESSAGE is received");
-                    return BgpUpdateMsgVer4.READER.readFrom(cb.readBytes(len), bgpHeader);
+                    // copied once so that the message can be decoded from slices of
+                    // its own buffer, independently of the channel buffer
+                    return updateReader.readFrom(cb.readBytes(len), bgpHeader);
                 case NOTIFICATION_MSG_TYPE:
                     log.debug("NOTIFICATION MESSAGE is received");
                     return BgpNotificationMsgVer4.READER.readFrom(cb.readBytes(len), bgpHeader);
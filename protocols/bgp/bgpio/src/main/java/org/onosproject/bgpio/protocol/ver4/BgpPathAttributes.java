@@ -15,11 +15,15 @@
  */
 package org.onosproject.bgpio.protocol.ver4;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.onosproject.bgpio.exceptions.BgpParseException;
 import org.onosproject.bgpio.types.As4Path;
 import org.onosproject.bgpio.types.AsPath;
@@ -41,6 +45,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * Provides Implementation of BGP Path Attribute.
@@ -63,8 +69,14 @@ public class BgpPathAttributes {
     public static final int MPREACHNLRI_TYPE = 14;
     public static final int MPUNREACHNLRI_TYPE = 15;
     public static final int EXTENDED_COMMUNITY_TYPE = 16;
+    private static final int EXTENDED_LENGTH_FLAG = 0x10;
 
-    private final List<BgpValueType> pathAttribute;
+    private static final Interner<SharedAttributes> SHARED_ATTRIBUTES = Interners.newWeakInterner();
+
+    private volatile List<BgpValueType> pathAttribute;
+    // encoded attributes of a lazily decoded message, until decoded
+    private ChannelBuffer encoded;
+    private SharedAttributes shared;
 
     /**
      * Initialize parameter.
@@ -82,13 +94,33 @@ public class BgpPathAttributes {
         this.pathAttribute = pathAttribute;
     }
 
+    private BgpPathAttributes(ChannelBuffer encoded, SharedAttributes shared) {
+        this.encoded = encoded;
+        this.shared = shared;
+    }
+
     /**
-     * Returns list of path attributes.
+     * Returns list of path attributes, decoding them first if they were
+     * read lazily.
      *
      * @return list of path attributes
      */
     public List<BgpValueType> pathAttributes() {
-        return this.pathAttribute;
+        List<BgpValueType> attributes = pathAttribute;
+        if (attributes == null && !isDecoded()) {
+            attributes = decode();
+        }
+        return attributes;
+    }
+
+    /**
+     * Returns whether the path attributes have been decoded. Path attributes
+     * that were not read lazily are always decoded.
+     *
+     * @return true if the path attributes have been decoded
+     */
+    public synchronized boolean isDecoded() {
+        return encoded == null;
     }
 
     /**
@@ -101,7 +133,6 @@ public class BgpPathAttributes {
     public static BgpPathAttributes read(ChannelBuffer cb)
             throws BgpParseException {
 
-        BgpValueType pathAttribute = null;
         List<BgpValueType> pathAttributeList = new LinkedList<>();
         boolean isOrigin = false;
         boolean isAsPath = false;
@@ -109,60 +140,237 @@ public class BgpPathAttributes {
         boolean isMpReach = false;
         boolean isMpUnReach = false;
         while (cb.readableBytes() > 0) {
-            cb.markReaderIndex();
-            byte flags = cb.readByte();
-            byte typeCode = cb.readByte();
-            cb.resetReaderIndex();
+            BgpValueType pathAttribute = readAttribute(cb);
+            if (pathAttribute instanceof Origin) {
+                isOrigin = ((Origin) pathAttribute).isOriginSet();
+            } else if (pathAttribute instanceof AsPath) {
+                isAsPath = ((AsPath) pathAttribute).isaspathSet();
+            } else if (pathAttribute instanceof NextHop) {
+                isNextHop = ((NextHop) pathAttribute).isNextHopSet();
+            } else if (pathAttribute instanceof MpReachNlri) {
+                isMpReach = ((MpReachNlri) pathAttribute).isMpReachNlriSet();
+            } else if (pathAttribute instanceof MpUnReachNlri) {
+                isMpUnReach = ((MpUnReachNlri) pathAttribute).isMpUnReachNlriSet();
+            } else if (pathAttribute == null) {
+                // unsupported attribute
+                continue;
+            }
+            pathAttributeList.add(pathAttribute);
+        }
+
+        checkMandatoryAttr(isOrigin, isAsPath, isNextHop, isMpReach, isMpUnReach);
+        //TODO:if mp_reach or mp_unreach not present ignore the packet
+        return new BgpPathAttributes(pathAttributeList);
+    }
+
+    /**
+     * Reads BGP path attributes from channelBuffer, deferring their decoding
+     * until they are first accessed. Only the attribute headers are parsed
+     * to check the attribute flags and lengths and the presence of the
+     * mandatory attributes, as the eager reader does, so that a malformed
+     * message is still rejected when read.
+     * <p>
+     * The attributes are then decoded from slices of the given buffer,
+     * which must not be modified afterwards. The attributes other than
+     * MP_REACH_NLRI and MP_UNREACH_NLRI are decoded once and shared by all
+     * the messages carrying the same attributes. If an attribute turns out
+     * to be malformed when decoded, the path attributes of the message are
+     * discarded and an empty list is returned.
+     * </p>
+     *
+     * @param cb channelBuffer
+     * @return object of BgpPathAttributes
+     * @throws BgpParseException while parsing the BGP path attribute headers
+     */
+    public static BgpPathAttributes readLazily(ChannelBuffer cb)
+            throws BgpParseException {
+
+        ChannelBuffer encoded = cb.slice();
+        boolean isOrigin = false;
+        boolean isAsPath = false;
+        boolean isNextHop = false;
+        boolean isMpReach = false;
+        boolean isMpUnReach = false;
+        int sharedLength = 0;
+        while (cb.readableBytes() > 0) {
+            int startIndex = cb.readerIndex();
+            byte typeCode = cb.getByte(startIndex + 1);
+            Validation parseFlags = Validation.parseAttributeHeader(cb);
+            if (cb.readableBytes() < parseFlags.getLength()) {
+                Validation.validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.ATTRIBUTE_LENGTH_ERROR,
+                                       parseFlags.getLength());
+            }
+            cb.skipBytes(parseFlags.getLength());
+            validateHeader(typeCode, parseFlags, cb.slice(startIndex, cb.readerIndex() - startIndex));
             switch (typeCode) {
             case Origin.ORIGIN_TYPE:
-                pathAttribute = Origin.read(cb);
-                isOrigin = ((Origin) pathAttribute).isOriginSet();
+                isOrigin = true;
                 break;
             case AsPath.ASPATH_TYPE:
-                pathAttribute = AsPath.read(cb);
-                isAsPath = ((AsPath) pathAttribute).isaspathSet();
-                break;
-            case As4Path.AS4PATH_TYPE:
-                pathAttribute = As4Path.read(cb);
+                isAsPath = true;
                 break;
             case NextHop.NEXTHOP_TYPE:
-                pathAttribute = NextHop.read(cb);
-                isNextHop = ((NextHop) pathAttribute).isNextHopSet();
-                break;
-            case Med.MED_TYPE:
-                pathAttribute = Med.read(cb);
-                break;
-            case LocalPref.LOCAL_PREF_TYPE:
-                pathAttribute = LocalPref.read(cb);
+                isNextHop = true;
                 break;
             case MpReachNlri.MPREACHNLRI_TYPE:
-                pathAttribute = MpReachNlri.read(cb);
-                isMpReach = ((MpReachNlri) pathAttribute).isMpReachNlriSet();
+                isMpReach = true;
                 break;
             case MpUnReachNlri.MPUNREACHNLRI_TYPE:
-                pathAttribute = MpUnReachNlri.read(cb);
-                isMpUnReach = ((MpUnReachNlri) pathAttribute)
-                        .isMpUnReachNlriSet();
-                break;
-            case LINK_STATE_ATTRIBUTE_TYPE:
-                pathAttribute = LinkStateAttributes.read(cb);
-                break;
-            case EXTENDED_COMMUNITY_TYPE:
-                pathAttribute = BgpExtendedCommunity.read(cb);
-                break;
-            case WideCommunity.TYPE:
-                pathAttribute = WideCommunity.read(cb);
+                isMpUnReach = true;
                 break;
             default:
-                log.debug("Skip bytes for unsupported attribute types");
-                UnSupportedAttribute.read(cb);
+                break;
+            }
+            if (!isMultiprotocol(typeCode)) {
+                sharedLength += cb.readerIndex() - startIndex;
             }
-            pathAttributeList.add(pathAttribute);
         }
-
         checkMandatoryAttr(isOrigin, isAsPath, isNextHop, isMpReach, isMpUnReach);
-        //TODO:if mp_reach or mp_unreach not present ignore the packet
-        return new BgpPathAttributes(pathAttributeList);
+
+        byte[] sharedBytes = new byte[sharedLength];
+        int offset = 0;
+        ChannelBuffer tempCb = encoded.duplicate();
+        while (tempCb.readableBytes() > 0) {
+            byte typeCode = tempCb.getByte(tempCb.readerIndex() + 1);
+            int length = attributeLength(tempCb);
+            if (isMultiprotocol(typeCode)) {
+                tempCb.skipBytes(length);
+            } else {
+                tempCb.readBytes(sharedBytes, offset, length);
+                offset += length;
+            }
+        }
+        return new BgpPathAttributes(encoded, SHARED_ATTRIBUTES.intern(new SharedAttributes(sharedBytes)));
+    }
+
+    // Decodes lazily read path attributes, keeping the order they were received in
+    private synchronized List<BgpValueType> decode() {
+        if (encoded == null) {
+            return pathAttribute;
+        }
+        List<BgpValueType> attributes = new LinkedList<>();
+        try {
+            Iterator<BgpValueType> sharedAttributes = shared.attributes().iterator();
+            ChannelBuffer cb = encoded.duplicate();
+            while (cb.readableBytes() > 0) {
+                if (isMultiprotocol(cb.getByte(cb.readerIndex() + 1))) {
+                    attributes.add(readAttribute(cb));
+                    continue;
+                }
+                cb.skipBytes(attributeLength(cb));
+                BgpValueType attribute = sharedAttributes.next();
+                if (attribute != null) {
+                    attributes.add(attribute);
+                }
+            }
+        } catch (BgpParseException | IndexOutOfBoundsException e) {
+            log.warn("Discarding malformed path attributes: {}", e.getMessage());
+            attributes.clear();
+        }
+        pathAttribute = attributes;
+        encoded = null;
+        shared = null;
+        return attributes;
+    }
+
+    /**
+     * Reads a single path attribute from channelBuffer.
+     *
+     * @param cb channelBuffer
+     * @return path attribute, or null if the attribute is not supported
+     * @throws BgpParseException while parsing the BGP path attribute
+     */
+    private static BgpValueType readAttribute(ChannelBuffer cb) throws BgpParseException {
+        byte typeCode = cb.getByte(cb.readerIndex() + 1);
+        switch (typeCode) {
+        case Origin.ORIGIN_TYPE:
+            return Origin.read(cb);
+        case AsPath.ASPATH_TYPE:
+            return AsPath.read(cb);
+        case As4Path.AS4PATH_TYPE:
+            return As4Path.read(cb);
+        case NextHop.NEXTHOP_TYPE:
+            return NextHop.read(cb);
+        case Med.MED_TYPE:
+            return Med.read(cb);
+        case LocalPref.LOCAL_PREF_TYPE:
+            return LocalPref.read(cb);
+        case MpReachNlri.MPREACHNLRI_TYPE:
+            return MpReachNlri.read(cb);
+        case MpUnReachNlri.MPUNREACHNLRI_TYPE:
+            return MpUnReachNlri.read(cb);
+        case LINK_STATE_ATTRIBUTE_TYPE:
+            return LinkStateAttributes.read(cb);
+        case EXTENDED_COMMUNITY_TYPE:
+            return BgpExtendedCommunity.read(cb);
+        case WideCommunity.TYPE:
+            return WideCommunity.read(cb);
+        default:
+            log.debug("Skip bytes for unsupported attribute types");
+            UnSupportedAttribute.read(cb);
+            return null;
+        }
+    }
+
+    // Performs the checks of the attribute flags and lengths made when the
+    // attribute is decoded, so that a lazily read message is rejected at once
+    private static void validateHeader(byte typeCode, Validation parseFlags, ChannelBuffer data)
+            throws BgpParseException {
+        boolean wellKnownError = parseFlags.getFirstBit() && !parseFlags.getSecondBit()
+                && parseFlags.getThirdBit();
+        boolean optionalError = !parseFlags.getFirstBit() && parseFlags.getSecondBit()
+                && parseFlags.getThirdBit();
+        boolean flagsError;
+        int maxLength;
+        switch (typeCode) {
+        case Origin.ORIGIN_TYPE:
+            flagsError = wellKnownError;
+            maxLength = Origin.ORIGIN_VALUE_LEN;
+            break;
+        case AsPath.ASPATH_TYPE:
+        case As4Path.AS4PATH_TYPE:
+        case NextHop.NEXTHOP_TYPE:
+        case EXTENDED_COMMUNITY_TYPE:
+            flagsError = wellKnownError;
+            maxLength = Integer.MAX_VALUE;
+            break;
+        case Med.MED_TYPE:
+            flagsError = optionalError;
+            maxLength = Med.MED_MAX_LEN;
+            break;
+        case LocalPref.LOCAL_PREF_TYPE:
+            flagsError = parseFlags.getFirstBit();
+            maxLength = LocalPref.LOCAL_PREF_MAX_LEN;
+            break;
+        case MpReachNlri.MPREACHNLRI_TYPE:
+        case MpUnReachNlri.MPUNREACHNLRI_TYPE:
+        case LINK_STATE_ATTRIBUTE_TYPE:
+            flagsError = optionalError;
+            maxLength = Integer.MAX_VALUE;
+            break;
+        default:
+            return;
+        }
+        if (parseFlags.getLength() > maxLength) {
+            Validation.validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.ATTRIBUTE_LENGTH_ERROR,
+                                   parseFlags.getLength());
+        }
+        if (flagsError) {
+            throw new BgpParseException(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.ATTRIBUTE_FLAGS_ERROR, data);
+        }
+    }
+
+    private static boolean isMultiprotocol(byte typeCode) {
+        return typeCode == MpReachNlri.MPREACHNLRI_TYPE || typeCode == MpUnReachNlri.MPUNREACHNLRI_TYPE;
+    }
+
+    // Returns the length of the attribute at the reader index, including its header
+    private static int attributeLength(ChannelBuffer cb) {
+        int index = cb.readerIndex();
+        if ((cb.getByte(index) & EXTENDED_LENGTH_FLAG) != 0) {
+            return cb.getUnsignedShort(index + 2) + Constants.TYPE_AND_LEN_AS_SHORT;
+        }
+        return cb.getUnsignedByte(index + 2) + Constants.TYPE_AND_LEN_AS_BYTE;
     }
 
     /**
@@ -175,6 +383,7 @@ public class BgpPathAttributes {
     public int write(ChannelBuffer cb)
             throws BgpParseException {
 
+        List<BgpValueType> pathAttribute = pathAttributes();
         if (pathAttribute == null) {
             return 0;
         }
@@ -285,7 +494,53 @@ public class BgpPathAttributes {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass())
-                .add("pathAttribute", pathAttribute)
+                .add("pathAttribute", pathAttributes())
                 .toString();
     }
+
+    /**
+     * Encoded path attributes shared by lazily read messages, decoded once
+     * when first accessed.
+     */
+    private static final class SharedAttributes {
+        private final byte[] encoded;
+        private final int hash;
+        private List<BgpValueType> attributes;
+
+        private SharedAttributes(byte[] encoded) {
+            this.encoded = encoded;
+            this.hash = Arrays.hashCode(encoded);
+        }
+
+        // Returns the attributes in the order they were encoded, with null
+        // elements standing for unsupported attributes
+        private synchronized List<BgpValueType> attributes() throws BgpParseException {
+            if (attributes == null) {
+                List<BgpValueType> decoded = new ArrayList<>();
+                ChannelBuffer cb = ChannelBuffers.wrappedBuffer(encoded);
+                while (cb.readableBytes() > 0) {
+                    decoded.add(readAttribute(cb));
+                }
+                attributes = decoded;
+            }
+            return attributes;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof SharedAttributes) {
+                SharedAttributes other = (SharedAttributes) obj;
+                return hash == other.hash && Arrays.equals(encoded, other.encoded);
+            }
+            return false;
+        }
+    }
 }
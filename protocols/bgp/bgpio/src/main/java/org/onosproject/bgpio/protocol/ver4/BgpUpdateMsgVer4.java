@@ -81,6 +81,7 @@ public class BgpUpdateMsgVer4 implements BgpUpdateMsg {
     public static final int PACKET_MINIMUM_LENGTH = 4;
     public static final int MARKER_LENGTH = 16;
     public static final int BYTE_IN_BITS = 8;
+    private static final int IPV4_MAX_PREFIX_LENGTH = 32;
     public static final int MIN_LEN_AFTER_WITHDRW_ROUTES = 2;
     public static final int MINIMUM_COMMON_HEADER_LENGTH = 19;
     public static final BgpType MSG_TYPE = BgpType.UPDATE;
@@ -90,7 +91,8 @@ public class BgpUpdateMsgVer4 implements BgpUpdateMsg {
                                               (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff};
     public static final BgpHeader DEFAULT_UPDATE_HEADER = new BgpHeader(marker,
                                                                         (short) PACKET_MINIMUM_LENGTH, (byte) 0X02);
-    public static final BgpUpdateMsgVer4.Reader READER = new Reader();
+    public static final BgpUpdateMsgVer4.Reader READER = new Reader(false);
+    public static final BgpUpdateMsgVer4.Reader LAZY_READER = new Reader(true);
 
     private List<IpPrefix> withdrawnRoutes;
     private BgpPathAttributes bgpPathAttributes;
@@ -118,6 +120,17 @@ public class BgpUpdateMsgVer4 implements BgpUpdateMsg {
      */
     static class Reader implements BgpMessageReader<BgpUpdateMsg> {
 
+        private final boolean lazy;
+
+        /**
+         * Creates a reader of BGP Update Messages.
+         *
+         * @param lazy whether the path attributes are decoded lazily
+         */
+        Reader(boolean lazy) {
+            this.lazy = lazy;
+        }
+
         @Override
         public BgpUpdateMsg readFrom(ChannelBuffer cb, BgpHeader bgpHeader)
                 throws BgpParseException {
@@ -139,7 +152,7 @@ public class BgpUpdateMsgVer4 implements BgpUpdateMsg {
                         cb.readableBytes());
             }
             log.debug("Reading withdrawn routes length");
-            ChannelBuffer tempCb = cb.readBytes(withDrwLen);
+            ChannelBuffer tempCb = cb.readSlice(withDrwLen);
             if (withDrwLen != 0) {
                 // Parsing WithdrawnRoutes
                 withDrwRoutes = parseWithdrawnRoutes(tempCb);
@@ -167,8 +180,8 @@ public class BgpUpdateMsgVer4 implements BgpUpdateMsg {
                                          BgpErrorType.MALFORMED_ATTRIBUTE_LIST,
                                          cb.readableBytes());
                 }
-                tempCb = cb.readBytes(totPathAttrLen);
-                bgpPathAttributes = BgpPathAttributes.read(tempCb);
+                tempCb = cb.readSlice(totPathAttrLen);
+                bgpPathAttributes = lazy ? BgpPathAttributes.readLazily(tempCb) : BgpPathAttributes.read(tempCb);
             }
             if (cb.readableBytes() > 0) {
                 // Parsing NLRI
@@ -281,28 +294,7 @@ public class BgpUpdateMsgVer4 implements BgpUpdateMsg {
             throws BgpParseException {
         LinkedList<IpPrefix> nlri = new LinkedList<>();
         while (cb.readableBytes() > 0) {
-            int length = cb.readByte();
-            IpPrefix ipPrefix;
-            if (length == 0) {
-                byte[] prefix = new byte[] {0};
-                ipPrefix = Validation.bytesToPrefix(prefix, length);
-                nlri.add(ipPrefix);
-            } else {
-                int len = length / BYTE_IN_BITS;
-                int reminder = length % BYTE_IN_BITS;
-                if (reminder > 0) {
-                    len = len + 1;
-                }
-                if (cb.readableBytes() < len) {
-                    Validation.validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR,
-                            BgpErrorType.MALFORMED_ATTRIBUTE_LIST,
-                            cb.readableBytes());
-                }
-                byte[] prefix = new byte[len];
-                cb.readBytes(prefix, 0, len);
-                ipPrefix = Validation.bytesToPrefix(prefix, length);
-                nlri.add(ipPrefix);
-            }
+            nlri.add(parsePrefix(cb));
         }
         return nlri;
     }
@@ -318,33 +310,32 @@ public class BgpUpdateMsgVer4 implements BgpUpdateMsg {
             throws BgpParseException {
         LinkedList<IpPrefix> withDrwRoutes = new LinkedList<>();
         while (cb.readableBytes() > 0) {
-            int length = cb.readByte();
-            IpPrefix ipPrefix;
-            if (length == 0) {
-                byte[] prefix = new byte[] {0};
-                ipPrefix = Validation.bytesToPrefix(prefix, length);
-                withDrwRoutes.add(ipPrefix);
-            } else {
-                int len = length / BYTE_IN_BITS;
-                int reminder = length % BYTE_IN_BITS;
-                if (reminder > 0) {
-                    len = len + 1;
-                }
-                if (cb.readableBytes() < len) {
-                    Validation
-                            .validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR,
-                                         BgpErrorType.MALFORMED_ATTRIBUTE_LIST,
-                                         cb.readableBytes());
-                }
-                byte[] prefix = new byte[len];
-                cb.readBytes(prefix, 0, len);
-                ipPrefix = Validation.bytesToPrefix(prefix, length);
-                withDrwRoutes.add(ipPrefix);
-            }
+            withDrwRoutes.add(parsePrefix(cb));
         }
         return withDrwRoutes;
     }
 
+    // Reads an IPv4 prefix, made of its length in bits and of the
+    // significant octets of the address, without intermediate arrays
+    private static IpPrefix parsePrefix(ChannelBuffer cb) throws BgpParseException {
+        int length = cb.readUnsignedByte();
+        if (length > IPV4_MAX_PREFIX_LENGTH) {
+            throw new BgpParseException(BgpErrorType.UPDATE_MESSAGE_ERROR,
+                    BgpErrorType.INVALID_NETWORK_FIELD, null);
+        }
+        int len = (length + BYTE_IN_BITS - 1) / BYTE_IN_BITS;
+        if (cb.readableBytes() < len) {
+            Validation.validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR,
+                    BgpErrorType.MALFORMED_ATTRIBUTE_LIST,
+                    cb.readableBytes());
+        }
+        int address = 0;
+        for (int i = 0; i < len; i++) {
+            address |= cb.readUnsignedByte() << (Integer.SIZE - BYTE_IN_BITS * (i + 1));
+        }
+        return IpPrefix.valueOf(address, length);
+    }
+
     @Override
     public BgpVersion getVersion() {
         return BgpVersion.BGP_4;
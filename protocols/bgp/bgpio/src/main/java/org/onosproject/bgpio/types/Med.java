@@ -61,7 +61,7 @@ public class Med implements BgpValueType {
      */
     public static Med read(ChannelBuffer cb) throws BgpParseException {
         int med;
-        ChannelBuffer tempCb = cb.copy();
+        ChannelBuffer tempCb = cb.duplicate();
         Validation parseFlags = Validation.parseAttributeHeader(cb);
 
         if ((parseFlags.getLength() > MED_MAX_LEN) || cb.readableBytes() < parseFlags.getLength()) {
@@ -70,7 +70,7 @@ public class Med implements BgpValueType {
         }
         int len = parseFlags.isShort() ? parseFlags.getLength() + Constants.TYPE_AND_LEN_AS_SHORT : parseFlags
                 .getLength() + Constants.TYPE_AND_LEN_AS_BYTE;
-        ChannelBuffer data = tempCb.readBytes(len);
+        ChannelBuffer data = tempCb.readSlice(len);
         if (!parseFlags.getFirstBit() && parseFlags.getSecondBit() && parseFlags.getThirdBit()) {
             throw new BgpParseException(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.ATTRIBUTE_FLAGS_ERROR, data);
         }
@@ -207,11 +207,11 @@ public class MpReachNlri implements BgpValueType {
      * @throws BgpParseException while parsing MpReachNlri
      */
     public static MpReachNlri read(ChannelBuffer cb) throws BgpParseException {
-        ChannelBuffer tempBuf = cb.copy();
+        ChannelBuffer tempBuf = cb.duplicate();
         Validation parseFlags = Validation.parseAttributeHeader(cb);
         int len = parseFlags.isShort() ? parseFlags.getLength() + Constants.TYPE_AND_LEN_AS_SHORT :
                   parseFlags.getLength() + Constants.TYPE_AND_LEN_AS_BYTE;
-        ChannelBuffer data = tempBuf.readBytes(len);
+        ChannelBuffer data = tempBuf.readSlice(len);
 
         if (cb.readableBytes() < parseFlags.getLength()) {
             Validation.validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.ATTRIBUTE_LENGTH_ERROR,
@@ -223,7 +223,7 @@ public class MpReachNlri implements BgpValueType {
 
         BgpLSNlri bgpLSNlri = null;
         List<BgpLSNlri> mpReachNlri = new LinkedList<>();
-        ChannelBuffer tempCb = cb.readBytes(parseFlags.getLength());
+        ChannelBuffer tempCb = cb.readSlice(parseFlags.getLength());
         short afi = 0;
         byte safi = 0;
         Ip4Address ipNextHop = null;
@@ -249,7 +249,7 @@ public class MpReachNlri implements BgpValueType {
                         Validation.validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR,
                                         BgpErrorType.ATTRIBUTE_LENGTH_ERROR, totNlriLen);
                     }
-                    tempBuf = tempCb.readBytes(totNlriLen);
+                    tempBuf = tempCb.readSlice(totNlriLen);
                     switch (nlriType) {
                     case BgpNodeLSNlriVer4.NODE_NLRITYPE:
                         bgpLSNlri = BgpNodeLSNlriVer4.read(tempBuf, afi, safi);
@@ -303,7 +303,7 @@ public class MpReachNlri implements BgpValueType {
                             Validation.validateLen(BgpErrorType.UPDATE_MESSAGE_ERROR,
                                     BgpErrorType.ATTRIBUTE_LENGTH_ERROR, totNlriLen);
                         }
-                        tempBuf = tempCb.readBytes(totNlriLen);
+                        tempBuf = tempCb.readSlice(totNlriLen);
                         while (tempBuf.readableBytes() > 0) {
                             short type = tempBuf.readByte();
                             switch (type) {
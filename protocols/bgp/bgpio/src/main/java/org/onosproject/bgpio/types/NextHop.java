@@ -72,7 +72,7 @@ public class NextHop implements BgpValueType {
      */
     public static NextHop read(ChannelBuffer cb) throws BgpParseException {
         Ip4Address nextHop;
-        ChannelBuffer tempCb = cb.copy();
+        ChannelBuffer tempCb = cb.duplicate();
         Validation parseFlags = Validation.parseAttributeHeader(cb);
 
         if (cb.readableBytes() < parseFlags.getLength()) {
@@ -81,7 +81,7 @@ public class NextHop implements BgpValueType {
         }
         int len = parseFlags.isShort() ? parseFlags.getLength() + Constants.TYPE_AND_LEN_AS_SHORT : parseFlags
                 .getLength() + Constants.TYPE_AND_LEN_AS_BYTE;
-        ChannelBuffer data = tempCb.readBytes(len);
+        ChannelBuffer data = tempCb.readSlice(len);
         if (parseFlags.getFirstBit() && !parseFlags.getSecondBit() && parseFlags.getThirdBit()) {
             throw new BgpParseException(BgpErrorType.UPDATE_MESSAGE_ERROR, BgpErrorType.ATTRIBUTE_FLAGS_ERROR, data);
         }
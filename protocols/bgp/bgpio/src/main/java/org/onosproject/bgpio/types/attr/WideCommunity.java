@@ -410,7 +410,7 @@ public class WideCommunity implements BgpValueType {
             }
 
             if (atomType == WideCommunityIpV4Neighbour.TYPE) {
-                ChannelBuffer tempBuf = c.readBytes(atomLength);
+                ChannelBuffer tempBuf = c.readSlice(atomLength);
 
                 WideCommunityIpV4Neighbour wideCommAtom = new WideCommunityIpV4Neighbour();
 
@@ -420,7 +420,7 @@ public class WideCommunity implements BgpValueType {
                 }
                 targetTlv.add(wideCommAtom);
             } else if (atomType == WideCommunityInteger.TYPE) {
-                ChannelBuffer tempBuf = c.readBytes(atomLength);
+                ChannelBuffer tempBuf = c.readSlice(atomLength);
                 List<Integer> integer = new ArrayList<>();
                 while (tempBuf.readableBytes() > 0) {
                     integer.add(tempBuf.readInt());
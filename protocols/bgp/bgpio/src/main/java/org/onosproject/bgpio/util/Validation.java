@@ -94,12 +94,10 @@ public class Validation {
         int len;
         if (fourthBit) {
             isShort = true;
-            short length = cb.readShort();
-            len = length;
+            len = cb.readUnsignedShort();
         } else {
             isShort = false;
-            byte length = cb.readByte();
-            len = length;
+            len = cb.readUnsignedByte();
         }
         return new Validation(firstBit, secondBit, thirdBit, fourthBit, len, isShort);
     }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgpio.protocol;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onosproject.bgpio.exceptions.BgpParseException;
+import org.onosproject.bgpio.types.BgpHeader;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Replays streams of BGP UPDATE messages through the eager and the lazy
+ * message readers and reports the decoding throughput and the bytes
+ * allocated per UPDATE.
+ * The streams are synthesized both as a full IPv4 table and as a BGP-LS
+ * topology of IPv4 prefixes, advertised with a limited number of distinct
+ * path attribute sets.
+ */
+public class BgpUpdateDecodePerfTest {
+
+    private static final String FMT = "%-8s %-12s %8s %10s %12s %14s";
+    private static final int PREFIXES_PER_UPDATE = 200;
+    private static final int LS_PREFIXES_PER_UPDATE = 50;
+    private static final int AS_PATH_LENGTH = 5;
+    private static final int HEADER_LENGTH = 23;
+    private static final int WARMUP = 3;
+    private static final long SEED = 1234L;
+    private static final int ROUTES = 700_000;
+    private static final int ATTRIBUTE_SETS = 2_000;
+
+    // AFI, SAFI, next hop and reserved byte of a BGP-LS MP_REACH_NLRI
+    private static final byte[] MP_REACH = new byte[] {0x40, 0x04, 0x47, 0x04, 0x04, 0x00, 0x00, 0x01, 0x00};
+    // prefix NLRI advertised by an IS-IS node, up to the IPv4 address of the /32 prefix
+    private static final byte[] LS_PREFIX_NLRI = new byte[] {
+            0x00, 0x03, 0x00, 0x30, 0x02, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+            0x01, 0x00, 0x00, 0x1a, 0x02, 0x00, 0x00, 0x04, 0x00, 0x00, 0x08, (byte) 0xae,
+            0x02, 0x01, 0x00, 0x04, 0x02, 0x02, 0x02, 0x02, 0x02, 0x03, 0x00, 0x06,
+            0x02, 0x20, 0x22, 0x02, 0x20, 0x22, 0x01, 0x09, 0x00, 0x05, 0x20};
+
+    @Test
+    @Ignore
+    public void decodePerf() throws BgpParseException {
+        System.out.println(String.format(FMT, "stream", "reader", "updates", "ms", "updates/s", "bytes/update"));
+        run("ipv4", synthesize(ROUTES, ATTRIBUTE_SETS));
+        run("bgp-ls", synthesizeLinkState(ROUTES / 10, ATTRIBUTE_SETS));
+    }
+
+    private static void run(String stream, byte[] bytes) throws BgpParseException {
+        for (int i = 0; i < WARMUP; i++) {
+            replay(null, null, BgpFactories.getGenericReader(), bytes, true);
+            replay(null, null, BgpFactories.getLazyReader(), bytes, true);
+        }
+        replay(stream, "eager", BgpFactories.getGenericReader(), bytes, true);
+        replay(stream, "lazy", BgpFactories.getLazyReader(), bytes, true);
+        replay(stream, "lazy-unread", BgpFactories.getLazyReader(), bytes, false);
+    }
+
+    private static void replay(String stream, String name, BgpMessageReader<BgpMessage> reader, byte[] bytes,
+                               boolean access) throws BgpParseException {
+        ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(bytes);
+        int updates = 0;
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        while (buffer.readable()) {
+            BgpMessage message = reader.readFrom(buffer, new BgpHeader());
+            if (message instanceof BgpUpdateMsg) {
+                updates++;
+                if (access) {
+                    ((BgpUpdateMsg) message).bgpPathAttributes().pathAttributes();
+                }
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        allocated = allocatedBytes() - allocated;
+        if (name != null) {
+            System.out.println(String.format(FMT, stream, name, updates, String.format("%.1f", millis),
+                                             String.format("%.0f", updates / millis * 1000),
+                                             updates == 0 ? "-" : allocated / updates));
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static byte[] synthesize(int routes, int attributeSets) {
+        Random random = new Random(SEED);
+        ChannelBuffer out = ChannelBuffers.dynamicBuffer();
+        for (int first = 0; first < routes; first += PREFIXES_PER_UPDATE) {
+            int count = Math.min(PREFIXES_PER_UPDATE, routes - first);
+            ChannelBuffer attrs = attributes(random.nextInt(attributeSets));
+
+            out.writeBytes(BgpUpdateMsgTest.MARKER);
+            out.writeShort(HEADER_LENGTH + attrs.readableBytes() + count * 4);
+            out.writeByte(BgpUpdateMsgTest.UPDATE_MSG_TYPE);
+            out.writeShort(0);
+            out.writeShort(attrs.readableBytes());
+            out.writeBytes(attrs);
+            for (int i = 0; i < count; i++) {
+                // consecutive /24 prefixes from 1.0.0.0/24
+                int prefix = (0x010000 + first + i) << 8;
+                out.writeByte(24);
+                out.writeByte(prefix >>> 24);
+                out.writeByte(prefix >>> 16);
+                out.writeByte(prefix >>> 8);
+            }
+        }
+        byte[] stream = new byte[out.readableBytes()];
+        out.readBytes(stream);
+        return stream;
+    }
+
+    private static byte[] synthesizeLinkState(int prefixes, int attributeSets) {
+        Random random = new Random(SEED);
+        ChannelBuffer out = ChannelBuffers.dynamicBuffer();
+        for (int first = 0; first < prefixes; first += LS_PREFIXES_PER_UPDATE) {
+            int count = Math.min(LS_PREFIXES_PER_UPDATE, prefixes - first);
+            ChannelBuffer attrs = attributes(random.nextInt(attributeSets));
+            attrs.writeBytes(new byte[] {(byte) 0x90, 0x0e});
+            attrs.writeShort(MP_REACH.length + count * (LS_PREFIX_NLRI.length + 4));
+            attrs.writeBytes(MP_REACH);
+            for (int i = 0; i < count; i++) {
+                attrs.writeBytes(LS_PREFIX_NLRI);
+                attrs.writeInt(0x0a000000 + first + i);
+            }
+
+            out.writeBytes(BgpUpdateMsgTest.MARKER);
+            out.writeShort(HEADER_LENGTH + attrs.readableBytes());
+            out.writeByte(BgpUpdateMsgTest.UPDATE_MSG_TYPE);
+            out.writeShort(0);
+            out.writeShort(attrs.readableBytes());
+            out.writeBytes(attrs);
+        }
+        byte[] stream = new byte[out.readableBytes()];
+        out.readBytes(stream);
+        return stream;
+    }
+
+    // Origin, AS path, next hop and MED of the given attribute set
+    private static ChannelBuffer attributes(int set) {
+        Random random = new Random(set);
+        ChannelBuffer attrs = ChannelBuffers.dynamicBuffer();
+        attrs.writeBytes(new byte[] {0x40, 0x01, 0x01, 0x00});
+        attrs.writeBytes(new byte[] {0x40, 0x02, (byte) (2 + 2 * AS_PATH_LENGTH), 0x02, AS_PATH_LENGTH});
+        for (int i = 0; i < AS_PATH_LENGTH; i++) {
+            attrs.writeShort(1 + random.nextInt(64_000));
+        }
+        attrs.writeBytes(new byte[] {0x40, 0x03, 0x04, 0x0a, 0x00, 0x00, (byte) (1 + random.nextInt(8))});
+        attrs.writeBytes(new byte[] {(byte) 0x80, 0x04, 0x04});
+        attrs.writeInt(random.nextInt(100));
+        return attrs;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgpio.protocol;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+import org.onosproject.bgpio.exceptions.BgpParseException;
+import org.onosproject.bgpio.types.BgpErrorType;
+import org.onosproject.bgpio.types.BgpHeader;
+import org.onosproject.bgpio.types.BgpValueType;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Test cases for the lazy decoding of BGP update Messages.
+ */
+public class BgpUpdateMsgLazyTest {
+
+    private static final byte[] ATTRIBUTES_UPDATE_MSG = new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff,
+            (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+            (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x00, 0x3f, 0x02, 0x00, 0x00, 0x00, 0x1c,
+            0x40, 0x01, 0x01, 0x00, 0x40, 0x02, 0x00, 0x40, 0x03, 0x04, 0x03, 0x03, 0x03, 0x03, (byte) 0x80, 0x04, 0x04,
+            0x00, 0x00, 0x00, 0x00, 0x40, 0x05, 0x04, 0x00, 0x00, 0x00, 0x64, 0x18, 0x0a, 0x1e, 0x03, 0x18, 0x0a, 0x1e,
+            0x02, 0x18, 0x0a, 0x1e, 0x01};
+
+    private static BgpUpdateMsg readUpdate(BgpMessageReader<BgpMessage> reader, byte[] updateMsg)
+            throws BgpParseException {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        buffer.writeBytes(updateMsg);
+        BgpMessage message = reader.readFrom(buffer, new BgpHeader());
+        assertThat(message, instanceOf(BgpUpdateMsg.class));
+        return (BgpUpdateMsg) message;
+    }
+
+    /**
+     * This test case checks that lazily decoded path attributes are decoded
+     * on demand, equal the eagerly decoded ones and are shared by the update
+     * messages carrying the same attributes.
+     */
+    @Test
+    public void bgpUpdateMessageLazyTest() throws BgpParseException {
+        BgpUpdateMsg eager = readUpdate(BgpFactories.getGenericReader(), ATTRIBUTES_UPDATE_MSG);
+        BgpUpdateMsg lazy = readUpdate(BgpFactories.getLazyReader(), ATTRIBUTES_UPDATE_MSG);
+        BgpUpdateMsg other = readUpdate(BgpFactories.getLazyReader(), ATTRIBUTES_UPDATE_MSG);
+
+        assertThat(eager.bgpPathAttributes().isDecoded(), is(true));
+        assertThat(lazy.bgpPathAttributes().isDecoded(), is(false));
+        assertThat(lazy.nlri(), is(eager.nlri()));
+
+        List<BgpValueType> pathAttributes = lazy.bgpPathAttributes().pathAttributes();
+        assertThat(lazy.bgpPathAttributes().isDecoded(), is(true));
+        assertThat(pathAttributes, is(eager.bgpPathAttributes().pathAttributes()));
+        assertThat(other.bgpPathAttributes().pathAttributes().get(0), sameInstance(pathAttributes.get(0)));
+
+        ChannelBuffer buf = ChannelBuffers.dynamicBuffer();
+        lazy.writeTo(buf);
+        ChannelBuffer expected = ChannelBuffers.dynamicBuffer();
+        eager.writeTo(expected);
+        assertThat(buf, is(expected));
+    }
+
+    /**
+     * In this test case, Mandatory attributes are not given in input and expecting
+     * an exception from the lazy reader.
+     */
+    @Test(expected = BgpParseException.class)
+    public void bgpUpdateMessageLazyTest01() throws BgpParseException {
+        byte[] updateMsg = new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                (byte) 0xff, (byte) 0xff, 0x00, 0x29, 0x02, 0x00, 0x00, //withdrawn len
+                0x00, 0x12, //path attribute len
+                0x0e, 0x01, 0x01, 0x00, //origin
+                0x40, 0x02, 0x04, 0x02, 0x01, (byte) 0xfd, (byte) 0xe9, //as_path
+                (byte) 0x80, 0x04, 0x04, 0x00, 0x00, 0x00, 0x00}; //med
+
+        readUpdate(BgpFactories.getLazyReader(), updateMsg);
+    }
+
+    /**
+     * In this test case, Invalid ORIGIN value is given as input to the lazy
+     * reader and the path attributes are expected to be discarded when decoded.
+     */
+    @Test
+    public void bgpUpdateMessageLazyTest02() throws BgpParseException {
+        byte[] updateMsg = new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                (byte) 0xff, (byte) 0xff, 0x00, 0x60, 0x02, 0x00, 0x00, //withdrawn len
+                0x00, 0x49, //path attribute len
+                0x40, 0x01, 0x01, 0x04, //origin
+                0x40, 0x02, 0x04, 0x02, 0x01, (byte) 0xfd, (byte) 0xe9, //as_path
+                (byte) 0x80, 0x04, 0x04, 0x00, 0x00, 0x00, 0x00, //med
+                (byte) 0x80, 0x0e, 0x34, 0x40, 0x04, 0x47, //mpreach with safi = 71
+                0x04, 0x04, 0x00, 0x00, 0x01, //nexthop
+                0x00, //reserved
+                0x00, 0x01, 0x00,
+                0x27, 0x02, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x1a, 0x02, 0x00,
+                0x00, 0x04, 0x00, 0x00, 0x08, (byte) 0xae, 0x02, 0x01, 0x00, 0x04, 0x02, 0x02, 0x02, 0x02, 0x02, 0x03,
+                0x00, 0x06, 0x19, 0x00, (byte) 0x95, 0x01, (byte) 0x90, 0x58}; //node nlri};
+
+        BgpUpdateMsg message = readUpdate(BgpFactories.getLazyReader(), updateMsg);
+        assertThat(message.bgpPathAttributes().pathAttributes().isEmpty(), is(true));
+    }
+
+    /**
+     * In this test case, ORIGIN with invalid attribute flags is given as
+     * input to the lazy reader and expecting an attribute flags error at once.
+     */
+    @Test
+    public void bgpUpdateMessageLazyTest03() {
+        byte[] updateMsg = ATTRIBUTES_UPDATE_MSG.clone();
+        updateMsg[23] = (byte) 0xa0; //origin flags: optional, non transitive, partial
+
+        assertAttributeError(updateMsg, BgpErrorType.ATTRIBUTE_FLAGS_ERROR);
+    }
+
+    /**
+     * In this test case, ORIGIN exceeding its length is given as input to the
+     * lazy reader and expecting an attribute length error at once.
+     */
+    @Test
+    public void bgpUpdateMessageLazyTest04() {
+        byte[] updateMsg = new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                (byte) 0xff, (byte) 0xff, 0x00, 0x40, 0x02, 0x00, 0x00, //withdrawn len
+                0x00, 0x1d, //path attribute len
+                0x40, 0x01, 0x02, 0x00, 0x00, //origin
+                0x40, 0x02, 0x00, //as_path
+                0x40, 0x03, 0x04, 0x03, 0x03, 0x03, 0x03, //next hop
+                (byte) 0x80, 0x04, 0x04, 0x00, 0x00, 0x00, 0x00, //med
+                0x40, 0x05, 0x04, 0x00, 0x00, 0x00, 0x64, //local pref
+                0x18, 0x0a, 0x1e, 0x03, 0x18, 0x0a, 0x1e, 0x02, 0x18, 0x0a, 0x1e, 0x01}; //nlri
+
+        assertAttributeError(updateMsg, BgpErrorType.ATTRIBUTE_LENGTH_ERROR);
+    }
+
+    private static void assertAttributeError(byte[] updateMsg, byte errorSubCode) {
+        try {
+            readUpdate(BgpFactories.getLazyReader(), updateMsg);
+            fail("malformed update message should have been rejected");
+        } catch (BgpParseException e) {
+            assertThat(e.getErrorCode(), is(BgpErrorType.UPDATE_MESSAGE_ERROR));
+            assertThat(e.getErrorSubCode(), is(errorSubCode));
+        }
+    }
+
+    /**
+     * This test case checks that back to back update messages exceeding the
+     * maximum message length in total are read.
+     */
+    @Test
+    public void bgpUpdateMessageStreamTest() throws BgpParseException {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        int count = 4096 / ATTRIBUTES_UPDATE_MSG.length + 1;
+        for (int i = 0; i < count; i++) {
+            buffer.writeBytes(ATTRIBUTES_UPDATE_MSG);
+        }
+        for (int i = 0; i < count; i++) {
+            BgpMessage message = BgpFactories.getLazyReader().readFrom(buffer, new BgpHeader());
+            assertThat(message, instanceOf(BgpUpdateMsg.class));
+        }
+        assertThat(buffer.readable(), is(false));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgpio.protocol;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+import org.onosproject.bgpio.exceptions.BgpParseException;
+import org.onosproject.bgpio.types.BgpHeader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test cases for reading BGP update Messages back to back from a channel buffer.
+ */
+public class BgpUpdateMsgStreamTest {
+
+    private static final byte[] UPDATE_MSG = new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff,
+            (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+            (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x00, 0x3f, 0x02, 0x00, 0x00, 0x00, 0x1c,
+            0x40, 0x01, 0x01, 0x00, 0x40, 0x02, 0x00, 0x40, 0x03, 0x04, 0x03, 0x03, 0x03, 0x03, (byte) 0x80, 0x04, 0x04,
+            0x00, 0x00, 0x00, 0x00, 0x40, 0x05, 0x04, 0x00, 0x00, 0x00, 0x64, 0x18, 0x0a, 0x1e, 0x03, 0x18, 0x0a, 0x1e,
+            0x02, 0x18, 0x0a, 0x1e, 0x01};
+
+    /**
+     * This test case checks that back to back update messages exceeding the
+     * maximum message length in total are read.
+     */
+    @Test
+    public void bgpUpdateMessageStreamTest() throws BgpParseException {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        int count = 4096 / UPDATE_MSG.length + 1;
+        for (int i = 0; i < count; i++) {
+            buffer.writeBytes(UPDATE_MSG);
+        }
+        for (int i = 0; i < count; i++) {
+            BgpMessage message = BgpFactories.getGenericReader().readFrom(buffer, new BgpHeader());
+            assertThat(message, instanceOf(BgpUpdateMsg.class));
+        }
+        assertThat(buffer.readable(), is(false));
+    }
+}
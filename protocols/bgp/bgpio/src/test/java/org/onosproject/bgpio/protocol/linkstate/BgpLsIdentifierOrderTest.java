@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgpio.protocol.linkstate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.testing.EqualsTester;
+import org.junit.Test;
+import org.onosproject.bgpio.types.AutonomousSystemTlv;
+import org.onosproject.bgpio.types.BgpLSIdentifierTlv;
+import org.onosproject.bgpio.types.BgpValueType;
+import org.onosproject.bgpio.types.IPReachabilityInformationTlv;
+import org.onosproject.bgpio.types.IsIsNonPseudonode;
+import org.onosproject.bgpio.types.LinkLocalRemoteIdentifiersTlv;
+import org.onosproject.bgpio.types.OspfRouteTypeTlv;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the link-state identifiers are equal, with the same hash code,
+ * regardless of the order of their descriptors.
+ */
+public class BgpLsIdentifierOrderTest {
+
+    private static final BgpValueType AS = AutonomousSystemTlv.of(100);
+    private static final BgpValueType LS_ID = BgpLSIdentifierTlv.of(1);
+    private static final BgpValueType ROUTER1 =
+            IsIsNonPseudonode.of(new byte[] {0x19, 0x00, (byte) 0x95, 0x01, (byte) 0x90, 0x58});
+    private static final BgpValueType ROUTER2 =
+            IsIsNonPseudonode.of(new byte[] {0x19, 0x00, (byte) 0x95, 0x01, (byte) 0x90, 0x59});
+    private static final BgpValueType LINK_ID = LinkLocalRemoteIdentifiersTlv.of(1, 2);
+    private static final BgpValueType OTHER_LINK_ID = LinkLocalRemoteIdentifiersTlv.of(3, 4);
+    private static final BgpValueType PREFIX =
+            IPReachabilityInformationTlv.of((byte) 24, new byte[] {10, 0, 0}, (short) 4);
+    private static final BgpValueType ROUTE_TYPE = OspfRouteTypeTlv.of((byte) 1);
+
+    private static NodeDescriptors descriptors(BgpValueType... subTlvs) {
+        List<BgpValueType> list = ImmutableList.copyOf(subTlvs);
+        return new NodeDescriptors(list, (short) 0, NodeDescriptors.LOCAL_NODE_DES_TYPE);
+    }
+
+    private static LinkedList<BgpValueType> links(BgpValueType... descriptors) {
+        return new LinkedList<>(Arrays.asList(descriptors));
+    }
+
+    @Test
+    public void testNodeDescriptors() {
+        new EqualsTester()
+                .addEqualityGroup(descriptors(AS, LS_ID, ROUTER1), descriptors(ROUTER1, AS, LS_ID))
+                .addEqualityGroup(descriptors(AS, LS_ID, ROUTER2))
+                .testEquals();
+    }
+
+    @Test
+    public void testNodeIdentifier() {
+        new EqualsTester()
+                .addEqualityGroup(new BgpNodeLSIdentifier(descriptors(AS, LS_ID, ROUTER1)),
+                                  new BgpNodeLSIdentifier(descriptors(LS_ID, ROUTER1, AS)))
+                .addEqualityGroup(new BgpNodeLSIdentifier(descriptors(AS, LS_ID, ROUTER2)))
+                .testEquals();
+    }
+
+    @Test
+    public void testLinkIdentifier() {
+        new EqualsTester()
+                .addEqualityGroup(new BgpLinkLSIdentifier(descriptors(AS, ROUTER1), descriptors(AS, ROUTER2),
+                                                          links(LINK_ID, OTHER_LINK_ID)),
+                                  new BgpLinkLSIdentifier(descriptors(ROUTER1, AS), descriptors(ROUTER2, AS),
+                                                          links(OTHER_LINK_ID, LINK_ID)))
+                .addEqualityGroup(new BgpLinkLSIdentifier(descriptors(AS, ROUTER2), descriptors(AS, ROUTER1),
+                                                          links(LINK_ID, OTHER_LINK_ID)))
+                .testEquals();
+    }
+
+    @Test
+    public void testPrefixIdentifier() {
+        new EqualsTester()
+                .addEqualityGroup(new BgpPrefixLSIdentifier(descriptors(AS, ROUTER1),
+                                                            ImmutableList.of(ROUTE_TYPE, PREFIX)),
+                                  new BgpPrefixLSIdentifier(descriptors(ROUTER1, AS),
+                                                            ImmutableList.of(PREFIX, ROUTE_TYPE)))
+                .addEqualityGroup(new BgpPrefixLSIdentifier(descriptors(AS, ROUTER2),
+                                                            ImmutableList.of(ROUTE_TYPE, PREFIX)))
+                .testEquals();
+    }
+
+    /**
+     * Tests that an NLRI withdrawn with reordered descriptors is found in a
+     * hash based RIB.
+     */
+    @Test
+    public void testReorderedLookup() {
+        Map<BgpPrefixLSIdentifier, String> rib = new ConcurrentHashMap<>();
+        rib.put(new BgpPrefixLSIdentifier(descriptors(AS, LS_ID, ROUTER1), ImmutableList.of(ROUTE_TYPE, PREFIX)),
+                "advertised");
+        assertEquals("advertised",
+                     rib.remove(new BgpPrefixLSIdentifier(descriptors(ROUTER1, LS_ID, AS),
+                                                          ImmutableList.of(PREFIX, ROUTE_TYPE))));
+    }
+}
@@ -19,6 +19,8 @@ import org.onosproject.bgp.controller.BgpController;
 import org.onosproject.bgp.controller.BgpId;
 import org.onosproject.bgp.controller.BgpLinkListener;
 import org.onosproject.bgp.controller.BgpLocalRib;
+import org.onosproject.bgp.controller.BgpLocalRibChange;
+import org.onosproject.bgp.controller.BgpLocalRibListener;
 import org.onosproject.bgp.controller.BgpNodeListener;
 import org.onosproject.bgp.controller.BgpSessionInfo;
 import org.onosproject.bgpio.exceptions.BgpParseException;
@@ -35,35 +37,205 @@ import org.onosproject.bgpio.types.RouteDistinguisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Implementation of local RIB.
+ * <p>
+ * The NLRI trees are concurrent maps that may be read at any time, while
+ * changes are serialized. The changes made by one UPDATE message are applied
+ * as a batch with {@link #batch(Batch)}, and the listeners are notified once
+ * the batch completes, in the order of the batches but without holding the
+ * RIB lock.
+ * </p>
  */
 public class BgpLocalRibImpl implements BgpLocalRib {
 
     private static final Logger log = LoggerFactory.getLogger(BgpLocalRibImpl.class);
     private BgpController bgpController;
 
-    private Map<BgpNodeLSIdentifier, PathAttrNlriDetailsLocalRib> nodeTree = new TreeMap<>();
-    private Map<BgpLinkLSIdentifier, PathAttrNlriDetailsLocalRib> linkTree = new TreeMap<>();
-    private Map<BgpPrefixLSIdentifier, PathAttrNlriDetailsLocalRib> prefixTree = new TreeMap<>();
+    private Map<BgpNodeLSIdentifier, PathAttrNlriDetailsLocalRib> nodeTree = new ConcurrentHashMap<>();
+    private Map<BgpLinkLSIdentifier, PathAttrNlriDetailsLocalRib> linkTree = new ConcurrentHashMap<>();
+    private Map<BgpPrefixLSIdentifier, PathAttrNlriDetailsLocalRib> prefixTree = new ConcurrentHashMap<>();
 
     private Map<RouteDistinguisher, Map<BgpNodeLSIdentifier, PathAttrNlriDetailsLocalRib>> vpnNodeTree
-                                                                                                   = new TreeMap<>();
+                                                                                        = new ConcurrentHashMap<>();
     private Map<RouteDistinguisher, Map<BgpLinkLSIdentifier, PathAttrNlriDetailsLocalRib>> vpnLinkTree
-                                                                                                   = new TreeMap<>();
+                                                                                        = new ConcurrentHashMap<>();
     private Map<RouteDistinguisher, Map<BgpPrefixLSIdentifier, PathAttrNlriDetailsLocalRib>> vpnPrefixTree
-                                                                                                   = new TreeMap<>();
+                                                                                        = new ConcurrentHashMap<>();
+
+    private final Set<BgpLocalRibListener> ribListeners = new CopyOnWriteArraySet<>();
+
+    // guarded by this
+    private final BgpSelectionAlgo selectionAlgo = new BgpSelectionAlgo();
+    private int batchDepth;
+    private final List<Batch> pendingNotifications = new ArrayList<>();
+    private final Map<Object, BgpLocalRibChange> pendingChanges = new LinkedHashMap<>();
+
+    // notifications of the completed batches, delivered by one thread at a time
+    private final Queue<Runnable> deliveries = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock deliveryLock = new ReentrantLock();
 
     public BgpLocalRibImpl(BgpController bgpController) {
         this.bgpController = bgpController;
     }
 
+    /**
+     * Changes of the local RIB to apply as one batch.
+     */
+    @FunctionalInterface
+    public interface Batch {
+        /**
+         * Applies the changes.
+         *
+         * @throws BgpParseException while updating the local RIB
+         */
+        void apply() throws BgpParseException;
+    }
+
+    /**
+     * Applies the given changes as one batch. The listeners are notified of
+     * the resulting changes once the outermost batch completes, with the
+     * successive changes of an NLRI merged.
+     *
+     * @param batch changes to apply
+     * @throws BgpParseException while updating the local RIB
+     */
+    public void batch(Batch batch) throws BgpParseException {
+        try {
+            synchronized (this) {
+                batchDepth++;
+                try {
+                    batch.apply();
+                } finally {
+                    batchDepth--;
+                    if (batchDepth == 0) {
+                        flush();
+                    }
+                }
+            }
+        } finally {
+            if (!Thread.holdsLock(this)) {
+                deliver();
+            }
+        }
+    }
+
+    @Override
+    public void addListener(BgpLocalRibListener listener) {
+        ribListeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(BgpLocalRibListener listener) {
+        ribListeners.remove(listener);
+    }
+
+    // Queues the notifications of the completed batch, so that they are
+    // delivered in the order of the batches.
+    private void flush() {
+        List<Batch> notifications = new ArrayList<>(pendingNotifications);
+        List<BgpLocalRibChange> changes = new ArrayList<>(pendingChanges.values());
+        pendingNotifications.clear();
+        pendingChanges.clear();
+        if (!notifications.isEmpty() || !changes.isEmpty()) {
+            deliveries.add(() -> notifyListeners(notifications, changes));
+        }
+    }
+
+    // Delivers the queued notifications unless another thread is already
+    // doing so, in which case that thread delivers them as well. Listeners
+    // updating the RIB get their own notifications once they return.
+    private void deliver() {
+        while (!deliveries.isEmpty() && !deliveryLock.isHeldByCurrentThread() && deliveryLock.tryLock()) {
+            try {
+                Runnable delivery;
+                while ((delivery = deliveries.poll()) != null) {
+                    delivery.run();
+                }
+            } finally {
+                deliveryLock.unlock();
+            }
+        }
+    }
+
+    private void notifyListeners(List<Batch> notifications, List<BgpLocalRibChange> changes) {
+        for (Batch notification : notifications) {
+            try {
+                notification.apply();
+            } catch (BgpParseException | RuntimeException e) {
+                log.warn("Failed to notify local RIB change", e);
+            }
+        }
+        if (!changes.isEmpty()) {
+            for (BgpLocalRibListener l : ribListeners) {
+                try {
+                    l.ribChanged(changes);
+                } catch (RuntimeException e) {
+                    log.warn("Local RIB listener failed", e);
+                }
+            }
+        }
+    }
+
+    private void notifyLater(Batch notification) {
+        pendingNotifications.add(notification);
+    }
+
+    private void notifyNodeAdded(BgpNodeLSNlriVer4 nlri, PathAttrNlriDetails details) {
+        notifyLater(() -> {
+            for (BgpNodeListener l : bgpController.listener()) {
+                l.addNode(nlri, details);
+            }
+        });
+    }
+
+    private void notifyLinkAdded(BgpLinkLsNlriVer4 nlri, PathAttrNlriDetails details) {
+        notifyLater(() -> {
+            for (BgpLinkListener l : bgpController.linkListener()) {
+                l.addLink(nlri, details);
+            }
+        });
+    }
+
+    // Records a change, merging it with a previous change of the same NLRI
+    // in the batch.
+    private void record(BgpLocalRibChange.Type type, Object key, BgpLSNlri nlri,
+                        PathAttrNlriDetailsLocalRib details) {
+        BgpLocalRibChange previous = pendingChanges.remove(key);
+        BgpLocalRibChange.Type merged = type;
+        if (previous != null) {
+            switch (previous.type()) {
+                case ADDED:
+                    if (type == BgpLocalRibChange.Type.REMOVED) {
+                        // added and removed within the batch
+                        return;
+                    }
+                    merged = BgpLocalRibChange.Type.ADDED;
+                    break;
+                case REMOVED:
+                case UPDATED:
+                default:
+                    merged = type == BgpLocalRibChange.Type.REMOVED ?
+                            BgpLocalRibChange.Type.REMOVED : BgpLocalRibChange.Type.UPDATED;
+                    break;
+            }
+        }
+        pendingChanges.put(key, new BgpLocalRibChange(merged, nlri, details));
+    }
+
     /**
      * Gets node NLRI tree.
      *
@@ -126,9 +298,11 @@ public class BgpLocalRibImpl implements BgpLocalRib {
 
     @Override
     public void add(BgpSessionInfo sessionInfo, BgpLSNlri nlri, PathAttrNlriDetails details) throws BgpParseException {
-        int decisionResult;
+        batch(() -> addNlri(sessionInfo, nlri, details));
+    }
 
-        log.debug("Add to local RIB {}", details.toString());
+    private void addNlri(BgpSessionInfo sessionInfo, BgpLSNlri nlri, PathAttrNlriDetails details) {
+        log.debug("Add to local RIB {}", details);
 
         PathAttrNlriDetailsLocalRib detailsLocRib = new PathAttrNlriDetailsLocalRib(
                                                                sessionInfo.remoteBgpId().ipAddress(),
@@ -136,58 +310,48 @@ public class BgpLocalRibImpl implements BgpLocalRib {
                                                                sessionInfo.remoteBgpASNum(),
                                                                sessionInfo.isIbgpSession(), details);
         if (nlri instanceof BgpNodeLSNlriVer4) {
-            BgpNodeLSIdentifier nodeLsIdentifier = ((BgpNodeLSNlriVer4) nlri).getLocalNodeDescriptors();
-            if (nodeTree.containsKey(nodeLsIdentifier)) {
-                BgpSelectionAlgo selectionAlgo = new BgpSelectionAlgo();
-                // Compare local RIB entry with the current attribute
-                decisionResult = selectionAlgo.compare(nodeTree.get(nodeLsIdentifier), detailsLocRib);
-                if (decisionResult <= 0) {
-                    for (BgpNodeListener l : bgpController.listener()) {
-                        l.addNode((BgpNodeLSNlriVer4) nlri, details);
-                    }
-                    nodeTree.replace(nodeLsIdentifier, detailsLocRib);
-                    log.debug("Local RIB update node: {}", detailsLocRib.toString());
-                }
-            } else {
+            BgpNodeLSIdentifier nodeLsIdentifier =
+                    BgpRibIdentifiers.intern(((BgpNodeLSNlriVer4) nlri).getLocalNodeDescriptors());
+            PathAttrNlriDetailsLocalRib best = nodeTree.get(nodeLsIdentifier);
+            if (best == null) {
                 nodeTree.put(nodeLsIdentifier, detailsLocRib);
-                for (BgpNodeListener l : bgpController.listener()) {
-                    l.addNode((BgpNodeLSNlriVer4) nlri, details);
-                }
-                log.debug("Local RIB ad node: {}", detailsLocRib.toString());
+                notifyNodeAdded((BgpNodeLSNlriVer4) nlri, details);
+                record(BgpLocalRibChange.Type.ADDED, nodeLsIdentifier, nlri, detailsLocRib);
+                log.debug("Local RIB ad node: {}", detailsLocRib);
+            } else if (selectionAlgo.compare(best, detailsLocRib) <= 0) {
+                // Compare local RIB entry with the current attribute
+                nodeTree.replace(nodeLsIdentifier, detailsLocRib);
+                notifyNodeAdded((BgpNodeLSNlriVer4) nlri, details);
+                record(BgpLocalRibChange.Type.UPDATED, nodeLsIdentifier, nlri, detailsLocRib);
+                log.debug("Local RIB update node: {}", detailsLocRib);
             }
         } else if (nlri instanceof BgpLinkLsNlriVer4) {
-            BgpLinkLSIdentifier linkLsIdentifier = ((BgpLinkLsNlriVer4) nlri).getLinkIdentifier();
-            if (linkTree.containsKey(linkLsIdentifier)) {
-                BgpSelectionAlgo selectionAlgo = new BgpSelectionAlgo();
-                // Compare local RIB entry with the current attribute
-                decisionResult = selectionAlgo.compare(linkTree.get(linkLsIdentifier), detailsLocRib);
-                if (decisionResult <= 0) {
-                    linkTree.replace(linkLsIdentifier, detailsLocRib);
-                    for (BgpLinkListener l : bgpController.linkListener()) {
-                        l.addLink((BgpLinkLsNlriVer4) nlri, details);
-                    }
-                    log.debug("Local RIB update link: {}", detailsLocRib.toString());
-                }
-            } else {
+            BgpLinkLSIdentifier linkLsIdentifier =
+                    BgpRibIdentifiers.intern(((BgpLinkLsNlriVer4) nlri).getLinkIdentifier());
+            PathAttrNlriDetailsLocalRib best = linkTree.get(linkLsIdentifier);
+            if (best == null) {
                 linkTree.put(linkLsIdentifier, detailsLocRib);
-                for (BgpLinkListener l : bgpController.linkListener()) {
-                    l.addLink((BgpLinkLsNlriVer4) nlri, details);
-                }
-                log.debug("Local RIB add link: {}", detailsLocRib.toString());
+                notifyLinkAdded((BgpLinkLsNlriVer4) nlri, details);
+                record(BgpLocalRibChange.Type.ADDED, linkLsIdentifier, nlri, detailsLocRib);
+                log.debug("Local RIB add link: {}", detailsLocRib);
+            } else if (selectionAlgo.compare(best, detailsLocRib) <= 0) {
+                linkTree.replace(linkLsIdentifier, detailsLocRib);
+                notifyLinkAdded((BgpLinkLsNlriVer4) nlri, details);
+                record(BgpLocalRibChange.Type.UPDATED, linkLsIdentifier, nlri, detailsLocRib);
+                log.debug("Local RIB update link: {}", detailsLocRib);
             }
         } else if (nlri instanceof BgpPrefixIPv4LSNlriVer4) {
-            BgpPrefixLSIdentifier prefixIdentifier = ((BgpPrefixIPv4LSNlriVer4) nlri).getPrefixIdentifier();
-            if (prefixTree.containsKey(prefixIdentifier)) {
-                BgpSelectionAlgo selectionAlgo = new BgpSelectionAlgo();
-                // Compare local RIB entry with the current attribute
-                decisionResult = selectionAlgo.compare(prefixTree.get(prefixIdentifier), detailsLocRib);
-                if (decisionResult <= 0) {
-                    prefixTree.replace(prefixIdentifier, detailsLocRib);
-                    log.debug("Local RIB update prefix: {}", detailsLocRib.toString());
-                }
-            } else {
+            BgpPrefixLSIdentifier prefixIdentifier =
+                    BgpRibIdentifiers.intern(((BgpPrefixIPv4LSNlriVer4) nlri).getPrefixIdentifier());
+            PathAttrNlriDetailsLocalRib best = prefixTree.get(prefixIdentifier);
+            if (best == null) {
                 prefixTree.put(prefixIdentifier, detailsLocRib);
-                log.debug("Local RIB add prefix: {}", detailsLocRib.toString());
+                record(BgpLocalRibChange.Type.ADDED, prefixIdentifier, nlri, detailsLocRib);
+                log.debug("Local RIB add prefix: {}", detailsLocRib);
+            } else if (selectionAlgo.compare(best, detailsLocRib) <= 0) {
+                prefixTree.replace(prefixIdentifier, detailsLocRib);
+                record(BgpLocalRibChange.Type.UPDATED, prefixIdentifier, nlri, detailsLocRib);
+                log.debug("Local RIB update prefix: {}", detailsLocRib);
             }
         }
     }
@@ -226,28 +390,43 @@ public class BgpLocalRibImpl implements BgpLocalRib {
      */
     public void decisionProcess(BgpLSNlri nlri, RouteDistinguisher routeDistinguisher) throws BgpParseException {
         checkNotNull(nlri);
-        if (nlri instanceof BgpNodeLSNlriVer4) {
-            if (vpnNodeTree.containsKey(routeDistinguisher)) {
-                selectionProcessNode(nlri, true);
-                if (nodeTree.size() == 0) {
-                    vpnNodeTree.remove(routeDistinguisher);
+        batch(() -> {
+            if (nlri instanceof BgpNodeLSNlriVer4) {
+                if (vpnNodeTree.containsKey(routeDistinguisher)) {
+                    selectionProcessNode(nlri, true);
+                    if (nodeTree.size() == 0) {
+                        vpnNodeTree.remove(routeDistinguisher);
+                    }
                 }
-            }
-        } else if (nlri instanceof BgpLinkLsNlriVer4) {
-            if (vpnLinkTree.containsKey(routeDistinguisher)) {
-                selectionProcessLink(nlri, true);
-                if (linkTree.size() == 0) {
-                    vpnLinkTree.remove(routeDistinguisher);
+            } else if (nlri instanceof BgpLinkLsNlriVer4) {
+                if (vpnLinkTree.containsKey(routeDistinguisher)) {
+                    selectionProcessLink(nlri, true);
+                    if (linkTree.size() == 0) {
+                        vpnLinkTree.remove(routeDistinguisher);
+                    }
                 }
-            }
-        } else if (nlri instanceof BgpPrefixIPv4LSNlriVer4) {
-            if (vpnPrefixTree.containsKey(routeDistinguisher)) {
-                selectionProcessPrefix(nlri, true);
-                if (prefixTree.size() == 0) {
-                    vpnPrefixTree.remove(routeDistinguisher);
+            } else if (nlri instanceof BgpPrefixIPv4LSNlriVer4) {
+                if (vpnPrefixTree.containsKey(routeDistinguisher)) {
+                    selectionProcessPrefix(nlri, true);
+                    if (prefixTree.size() == 0) {
+                        vpnPrefixTree.remove(routeDistinguisher);
+                    }
                 }
             }
+        });
+    }
+
+    // Returns the local RIB entry for the path advertised by the peer, or
+    // null if the peer does not advertise the NLRI.
+    private PathAttrNlriDetailsLocalRib advertised(BgpPeerImpl peer, PathAttrNlriDetails details) {
+        if (details == null) {
+            return null;
         }
+        BgpSessionInfo sessionInfo = peer.sessionInfo();
+        return new PathAttrNlriDetailsLocalRib(sessionInfo.remoteBgpId().ipAddress(),
+                                               sessionInfo.remoteBgpIdentifier(),
+                                               sessionInfo.remoteBgpASNum(),
+                                               sessionInfo.isIbgpSession(), details);
     }
 
      /**
@@ -258,60 +437,39 @@ public class BgpLocalRibImpl implements BgpLocalRib {
      * @throws BgpParseException throws BGP parse exception
      */
     public void selectionProcessNode(BgpLSNlri nlri, boolean isVpnRib) throws BgpParseException {
-        BgpPeerImpl peer;
-        BgpSessionInfo sessionInfo;
-        int decisionResult;
-        boolean containsKey;
-
-        BgpNodeLSIdentifier nodeLsIdentifier = ((BgpNodeLSNlriVer4) nlri).getLocalNodeDescriptors();
+        batch(() -> {
+            BgpNodeLSIdentifier nodeLsIdentifier = ((BgpNodeLSNlriVer4) nlri).getLocalNodeDescriptors();
 
-        if (nodeTree.containsKey(nodeLsIdentifier)) {
-            for (BgpNodeListener l : bgpController.listener()) {
-                l.deleteNode((BgpNodeLSNlriVer4) nlri);
+            if (nodeTree.remove(nodeLsIdentifier) != null) {
+                notifyLater(() -> {
+                    for (BgpNodeListener l : bgpController.listener()) {
+                        l.deleteNode((BgpNodeLSNlriVer4) nlri);
+                    }
+                });
+                record(BgpLocalRibChange.Type.REMOVED, nodeLsIdentifier, nlri, null);
+                log.debug("Local RIB delete node: {}", nodeLsIdentifier);
             }
-            log.debug("Local RIB delete node: {}", nodeLsIdentifier.toString());
-            nodeTree.remove(nodeLsIdentifier);
-        }
-
-        for (BgpId bgpId : bgpController.connectedPeers().keySet()) {
-            peer = (BgpPeerImpl) (bgpController.getPeer(bgpId));
 
-            if (nodeTree.containsKey(nodeLsIdentifier)) {
-                containsKey = (!isVpnRib) ? (peer.adjacencyRib().nodeTree().containsKey(nodeLsIdentifier)) :
-                                            (peer.vpnAdjacencyRib().nodeTree().containsKey(nodeLsIdentifier));
-
-                if (!containsKey) {
+            for (BgpId bgpId : bgpController.connectedPeers().keySet()) {
+                BgpPeerImpl peer = (BgpPeerImpl) (bgpController.getPeer(bgpId));
+                PathAttrNlriDetails details = (!isVpnRib) ? peer.adjacencyRib().nodeTree().get(nodeLsIdentifier) :
+                                                            peer.vpnAdjacencyRib().nodeTree().get(nodeLsIdentifier);
+                if (details == null) {
                     continue;
                 }
-                sessionInfo = peer.sessionInfo();
-                PathAttrNlriDetailsLocalRib detailsLocRib = new PathAttrNlriDetailsLocalRib(
-                                                                sessionInfo.remoteBgpId().ipAddress(),
-                                                                sessionInfo.remoteBgpIdentifier(),
-                                                                sessionInfo.remoteBgpASNum(),
-                                                                sessionInfo.isIbgpSession(),
-                                                                (!isVpnRib) ?
-                                                                (peer.adjacencyRib().nodeTree()
-                                                                                    .get(nodeLsIdentifier)) :
-                                                                (peer.vpnAdjacencyRib().nodeTree()
-                                                                                        .get(nodeLsIdentifier)));
-                BgpSelectionAlgo selectionAlgo = new BgpSelectionAlgo();
-                decisionResult = selectionAlgo.compare(nodeTree.get(nodeLsIdentifier), detailsLocRib);
-                if (decisionResult < 0) {
-                    nodeTree.replace(nodeLsIdentifier, detailsLocRib);
-                    log.debug("Local RIB node updated: {}", detailsLocRib.toString());
+                PathAttrNlriDetailsLocalRib best = nodeTree.get(nodeLsIdentifier);
+                if (best == null) {
+                    addNlri(peer.sessionInfo(), nlri, details);
+                    continue;
                 }
-            } else {
-                if (!isVpnRib) {
-                    if (peer.adjacencyRib().nodeTree().containsKey(nodeLsIdentifier)) {
-                        add(peer.sessionInfo(), nlri, peer.adjacencyRib().nodeTree().get(nodeLsIdentifier));
-                    }
-                } else {
-                    if (peer.vpnAdjacencyRib().nodeTree().containsKey(nodeLsIdentifier)) {
-                        add(peer.sessionInfo(), nlri, peer.vpnAdjacencyRib().nodeTree().get(nodeLsIdentifier));
-                    }
+                PathAttrNlriDetailsLocalRib detailsLocRib = advertised(peer, details);
+                if (selectionAlgo.compare(best, detailsLocRib) < 0) {
+                    nodeTree.replace(nodeLsIdentifier, detailsLocRib);
+                    record(BgpLocalRibChange.Type.UPDATED, nodeLsIdentifier, nlri, detailsLocRib);
+                    log.debug("Local RIB node updated: {}", detailsLocRib);
                 }
             }
-        }
+        });
     }
 
      /**
@@ -322,63 +480,39 @@ public class BgpLocalRibImpl implements BgpLocalRib {
      * @throws BgpParseException BGP parse exception
      */
     public void selectionProcessLink(BgpLSNlri nlri, boolean isVpnRib) throws BgpParseException {
-        BgpPeerImpl peer;
-        BgpSessionInfo sessionInfo;
-        int decisionResult;
-        boolean containsKey;
-
-        BgpLinkLSIdentifier linkLsIdentifier = ((BgpLinkLsNlriVer4) nlri).getLinkIdentifier();
+        batch(() -> {
+            BgpLinkLSIdentifier linkLsIdentifier = ((BgpLinkLsNlriVer4) nlri).getLinkIdentifier();
 
-        if (linkTree.containsKey(linkLsIdentifier)) {
-            log.debug("Local RIB remove link: {}", linkLsIdentifier.toString());
-            for (BgpLinkListener l : bgpController.linkListener()) {
-                l.deleteLink((BgpLinkLsNlriVer4) nlri);
+            if (linkTree.remove(linkLsIdentifier) != null) {
+                log.debug("Local RIB remove link: {}", linkLsIdentifier);
+                notifyLater(() -> {
+                    for (BgpLinkListener l : bgpController.linkListener()) {
+                        l.deleteLink((BgpLinkLsNlriVer4) nlri);
+                    }
+                });
+                record(BgpLocalRibChange.Type.REMOVED, linkLsIdentifier, nlri, null);
             }
-            linkTree.remove(linkLsIdentifier);
-        }
-
-        for (BgpId bgpId : bgpController.connectedPeers().keySet()) {
-            peer = (BgpPeerImpl) (bgpController.getPeer(bgpId));
 
-            if (linkTree.containsKey(linkLsIdentifier)) {
-
-                containsKey = (!isVpnRib) ? (peer.adjacencyRib().linkTree().containsKey(linkLsIdentifier)) :
-                                            (peer.vpnAdjacencyRib().linkTree().containsKey(linkLsIdentifier));
-
-                if (!containsKey) {
+            for (BgpId bgpId : bgpController.connectedPeers().keySet()) {
+                BgpPeerImpl peer = (BgpPeerImpl) (bgpController.getPeer(bgpId));
+                PathAttrNlriDetails details = (!isVpnRib) ? peer.adjacencyRib().linkTree().get(linkLsIdentifier) :
+                                                            peer.vpnAdjacencyRib().linkTree().get(linkLsIdentifier);
+                if (details == null) {
                     continue;
                 }
-
-                sessionInfo = peer.sessionInfo();
-
-                PathAttrNlriDetailsLocalRib detailsLocRib = new PathAttrNlriDetailsLocalRib(
-                                                            sessionInfo.remoteBgpId().ipAddress(),
-                                                            sessionInfo.remoteBgpIdentifier(),
-                                                            sessionInfo.remoteBgpASNum(),
-                                                            sessionInfo.isIbgpSession(),
-                                                            ((!isVpnRib) ?
-                                                            (peer.adjacencyRib().linkTree().get(linkLsIdentifier)) :
-                                                            (peer.vpnAdjacencyRib().linkTree()
-                                                                                   .get(linkLsIdentifier))));
-
-                BgpSelectionAlgo selectionAlgo = new BgpSelectionAlgo();
-                decisionResult = selectionAlgo.compare(linkTree.get(linkLsIdentifier), detailsLocRib);
-                if (decisionResult < 0) {
-                    linkTree.replace(linkLsIdentifier, detailsLocRib);
-                    log.debug("Local RIB link updated: {}", detailsLocRib.toString());
+                PathAttrNlriDetailsLocalRib best = linkTree.get(linkLsIdentifier);
+                if (best == null) {
+                    addNlri(peer.sessionInfo(), nlri, details);
+                    continue;
                 }
-            } else {
-                if (!isVpnRib) {
-                    if (peer.adjacencyRib().linkTree().containsKey(linkLsIdentifier)) {
-                        add(peer.sessionInfo(), nlri, peer.adjacencyRib().linkTree().get(linkLsIdentifier));
-                    }
-                } else {
-                    if (peer.vpnAdjacencyRib().linkTree().containsKey(linkLsIdentifier)) {
-                        add(peer.sessionInfo(), nlri, peer.vpnAdjacencyRib().linkTree().get(linkLsIdentifier));
-                    }
+                PathAttrNlriDetailsLocalRib detailsLocRib = advertised(peer, details);
+                if (selectionAlgo.compare(best, detailsLocRib) < 0) {
+                    linkTree.replace(linkLsIdentifier, detailsLocRib);
+                    record(BgpLocalRibChange.Type.UPDATED, linkLsIdentifier, nlri, detailsLocRib);
+                    log.debug("Local RIB link updated: {}", detailsLocRib);
                 }
             }
-        }
+        });
     }
 
      /**
@@ -389,77 +523,50 @@ public class BgpLocalRibImpl implements BgpLocalRib {
      * @throws BgpParseException BGP parse exception
      */
     public void selectionProcessPrefix(BgpLSNlri nlri, boolean isVpnRib) throws BgpParseException {
-        BgpPeerImpl peer;
-        BgpSessionInfo sessionInfo;
-        int decisionResult;
-        boolean containsKey;
-
-        BgpPrefixLSIdentifier prefixIdentifier = ((BgpPrefixIPv4LSNlriVer4) nlri).getPrefixIdentifier();
-        if (prefixTree.containsKey(prefixIdentifier)) {
-            log.debug("Local RIB remove prefix: {}", prefixIdentifier.toString());
-            prefixTree.remove(prefixIdentifier);
-        }
-
-        for (BgpId bgpId : bgpController.connectedPeers().keySet()) {
-            peer = (BgpPeerImpl) (bgpController.getPeer(bgpId));
+        batch(() -> {
+            BgpPrefixLSIdentifier prefixIdentifier = ((BgpPrefixIPv4LSNlriVer4) nlri).getPrefixIdentifier();
 
-            if (prefixTree.containsKey(prefixIdentifier)) {
+            if (prefixTree.remove(prefixIdentifier) != null) {
+                log.debug("Local RIB remove prefix: {}", prefixIdentifier);
+                record(BgpLocalRibChange.Type.REMOVED, prefixIdentifier, nlri, null);
+            }
 
-                containsKey = (!isVpnRib) ? (peer.adjacencyRib().prefixTree().containsKey(prefixIdentifier)) :
-                                            (peer.vpnAdjacencyRib().prefixTree().containsKey(prefixIdentifier));
-                if (!containsKey) {
+            for (BgpId bgpId : bgpController.connectedPeers().keySet()) {
+                BgpPeerImpl peer = (BgpPeerImpl) (bgpController.getPeer(bgpId));
+                PathAttrNlriDetails details = (!isVpnRib) ?
+                        peer.adjacencyRib().prefixTree().get(prefixIdentifier) :
+                        peer.vpnAdjacencyRib().prefixTree().get(prefixIdentifier);
+                if (details == null) {
                     continue;
                 }
-                sessionInfo = peer.sessionInfo();
-
-                PathAttrNlriDetailsLocalRib detailsLocRib = new PathAttrNlriDetailsLocalRib(
-                                                                sessionInfo.remoteBgpId().ipAddress(),
-                                                                sessionInfo.remoteBgpIdentifier(),
-                                                                sessionInfo.remoteBgpASNum(),
-                                                                sessionInfo.isIbgpSession(),
-                                                                ((!isVpnRib) ?
-                                                                (peer.adjacencyRib().prefixTree()
-                                                                                    .get(prefixIdentifier)) :
-                                                                (peer.vpnAdjacencyRib().prefixTree()
-                                                                                       .get(prefixIdentifier))));
-
-                BgpSelectionAlgo selectionAlgo = new BgpSelectionAlgo();
-                decisionResult = selectionAlgo.compare(prefixTree.get(prefixIdentifier), detailsLocRib);
-                if (decisionResult < 0) {
-                    prefixTree.replace(prefixIdentifier, detailsLocRib);
-                    log.debug("Local RIB prefix updated: {}", detailsLocRib.toString());
+                PathAttrNlriDetailsLocalRib best = prefixTree.get(prefixIdentifier);
+                if (best == null) {
+                    addNlri(peer.sessionInfo(), nlri, details);
+                    continue;
                 }
-            } else {
-                    if (!isVpnRib) {
-                        if (peer.adjacencyRib().prefixTree().containsKey(prefixIdentifier)) {
-                            add(peer.sessionInfo(), nlri, peer.adjacencyRib().prefixTree().get(prefixIdentifier));
-                    } else {
-                        if (peer.vpnAdjacencyRib().prefixTree().containsKey(prefixIdentifier)) {
-                            add(peer.sessionInfo(), nlri, peer.vpnAdjacencyRib().prefixTree().get(prefixIdentifier));
-                        }
-                    }
+                PathAttrNlriDetailsLocalRib detailsLocRib = advertised(peer, details);
+                if (selectionAlgo.compare(best, detailsLocRib) < 0) {
+                    prefixTree.replace(prefixIdentifier, detailsLocRib);
+                    record(BgpLocalRibChange.Type.UPDATED, prefixIdentifier, nlri, detailsLocRib);
+                    log.debug("Local RIB prefix updated: {}", detailsLocRib);
                 }
             }
-        }
+        });
     }
 
     @Override
     public void add(BgpSessionInfo sessionInfo, BgpLSNlri nlri, PathAttrNlriDetails details,
                     RouteDistinguisher routeDistinguisher) throws BgpParseException {
-        add(sessionInfo, nlri, details);
-        if (nlri instanceof BgpNodeLSNlriVer4) {
-            if (!vpnNodeTree.containsKey(routeDistinguisher)) {
-                vpnNodeTree.put(routeDistinguisher, nodeTree);
-            }
-        } else if (nlri instanceof BgpLinkLsNlriVer4) {
-            if (!vpnLinkTree.containsKey(routeDistinguisher)) {
-                vpnLinkTree.put(routeDistinguisher, linkTree);
-            }
-        } else if (nlri instanceof BgpPrefixIPv4LSNlriVer4) {
-            if (!vpnPrefixTree.containsKey(routeDistinguisher)) {
-                vpnPrefixTree.put(routeDistinguisher, prefixTree);
+        batch(() -> {
+            addNlri(sessionInfo, nlri, details);
+            if (nlri instanceof BgpNodeLSNlriVer4) {
+                vpnNodeTree.putIfAbsent(routeDistinguisher, nodeTree);
+            } else if (nlri instanceof BgpLinkLsNlriVer4) {
+                vpnLinkTree.putIfAbsent(routeDistinguisher, linkTree);
+            } else if (nlri instanceof BgpPrefixIPv4LSNlriVer4) {
+                vpnPrefixTree.putIfAbsent(routeDistinguisher, prefixTree);
             }
-        }
+        });
     }
 
     @Override
@@ -606,9 +713,11 @@ public class BgpLocalRibImpl implements BgpLocalRib {
     public void localRibUpdate(AdjRibIn adjRibIn) throws BgpParseException {
         log.debug("Update local RIB.");
 
-        localRibUpdateNode(adjRibIn);
-        localRibUpdateLink(adjRibIn);
-        localRibUpdatePrefix(adjRibIn);
+        batch(() -> {
+            localRibUpdateNode(adjRibIn);
+            localRibUpdateLink(adjRibIn);
+            localRibUpdatePrefix(adjRibIn);
+        });
     }
 
     /**
@@ -620,9 +729,11 @@ public class BgpLocalRibImpl implements BgpLocalRib {
     public void localRibUpdate(VpnAdjRibIn vpnAdjRibIn) throws BgpParseException {
         log.debug("Update VPN local RIB.");
 
-        localRibUpdateNode(vpnAdjRibIn);
-        localRibUpdateLink(vpnAdjRibIn);
-        localRibUpdatePrefix(vpnAdjRibIn);
+        batch(() -> {
+            localRibUpdateNode(vpnAdjRibIn);
+            localRibUpdateLink(vpnAdjRibIn);
+            localRibUpdatePrefix(vpnAdjRibIn);
+        });
     }
 
     @Override
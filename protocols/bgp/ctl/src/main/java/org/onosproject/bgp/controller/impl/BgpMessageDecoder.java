@@ -46,7 +46,7 @@ public class BgpMessageDecoder extends FrameDecoder {
 
         HexDump.dump(buffer);
 
-        BgpMessageReader<BgpMessage> reader = BgpFactories.getGenericReader();
+        BgpMessageReader<BgpMessage> reader = BgpFactories.getLazyReader();
         List<BgpMessage> msgList = (List<BgpMessage>) ctx.getAttachment();
 
         if (msgList == null) {
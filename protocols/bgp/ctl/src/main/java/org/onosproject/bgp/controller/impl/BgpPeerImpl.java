@@ -321,18 +321,56 @@ public class BgpPeerImpl implements BgpPeer {
 
     @Override
     public void buildAdjRibIn(List<BgpValueType> pathAttr) throws BgpParseException {
+        if (bgplocalRib instanceof BgpLocalRibImpl && bgplocalRibVpn instanceof BgpLocalRibImpl) {
+            // best paths of all the NLRIs of the UPDATE are selected as one batch
+            // per RIB; the RIBs are locked one after the other, never together
+            ((BgpLocalRibImpl) bgplocalRib).batch(() -> processPathAttributes(pathAttr, false));
+            ((BgpLocalRibImpl) bgplocalRibVpn).batch(() -> processPathAttributes(pathAttr, true));
+        } else {
+            processPathAttributes(pathAttr, false);
+            processPathAttributes(pathAttr, true);
+        }
+    }
+
+    // Processes the NLRIs of the given path attributes with or without VPN
+    private void processPathAttributes(List<BgpValueType> pathAttr, boolean vpn) throws BgpParseException {
         ListIterator<BgpValueType> iterator = pathAttr.listIterator();
         while (iterator.hasNext()) {
             BgpValueType attr = iterator.next();
             if (attr instanceof MpReachNlri) {
-                List<BgpLSNlri> nlri = ((MpReachNlri) attr).mpReachNlri();
-                callAdd(this, nlri, pathAttr);
+                List<BgpLSNlri> nlri = filterVpn(((MpReachNlri) attr).mpReachNlri(), vpn);
+                if (!nlri.isEmpty()) {
+                    callAdd(this, nlri, pathAttr);
+                }
             }
             if (attr instanceof MpUnReachNlri) {
-                List<BgpLSNlri> nlri = ((MpUnReachNlri) attr).mpUnReachNlri();
-                callRemove(this, nlri);
+                List<BgpLSNlri> nlri = filterVpn(((MpUnReachNlri) attr).mpUnReachNlri(), vpn);
+                if (!nlri.isEmpty()) {
+                    callRemove(this, nlri);
+                }
+            }
+        }
+    }
+
+    private static List<BgpLSNlri> filterVpn(List<BgpLSNlri> nlri, boolean vpn) {
+        List<BgpLSNlri> filtered = new ArrayList<>(nlri.size());
+        for (BgpLSNlri nlriInfo : nlri) {
+            if (isVpnPresent(nlriInfo) == vpn) {
+                filtered.add(nlriInfo);
             }
         }
+        return filtered;
+    }
+
+    private static boolean isVpnPresent(BgpLSNlri nlriInfo) {
+        if (nlriInfo instanceof BgpNodeLSNlriVer4) {
+            return ((BgpNodeLSNlriVer4) nlriInfo).isVpnPresent();
+        } else if (nlriInfo instanceof BgpLinkLsNlriVer4) {
+            return ((BgpLinkLsNlriVer4) nlriInfo).isVpnPresent();
+        } else if (nlriInfo instanceof BgpPrefixIPv4LSNlriVer4) {
+            return ((BgpPrefixIPv4LSNlriVer4) nlriInfo).isVpnPresent();
+        }
+        return false;
     }
 
     /**
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgp.controller.impl;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Canonical instances of the NLRI identifiers used as keys of the RIBs.
+ * <p>
+ * Every peer advertising an NLRI decodes its own copy of the identifier;
+ * interning them lets the adjacency RIBs of all the peers and the local RIB
+ * share one instance per NLRI, and makes the equality checks of the RIB
+ * lookups succeed on reference comparison.
+ * </p>
+ */
+final class BgpRibIdentifiers {
+
+    private static final Interner<Object> INTERNER = Interners.newWeakInterner();
+
+    private BgpRibIdentifiers() {
+    }
+
+    /**
+     * Returns the canonical instance of the given identifier.
+     *
+     * @param identifier NLRI identifier
+     * @param <T> type of identifier
+     * @return identifier equal to the given one
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T intern(T identifier) {
+        return (T) INTERNER.intern(identifier);
+    }
+}
@@ -17,7 +17,7 @@
 package org.onosproject.bgp.controller.impl;
 
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.onosproject.bgpio.protocol.BgpLSNlri;
 import org.onosproject.bgpio.protocol.linkstate.BgpLinkLSIdentifier;
@@ -35,16 +35,16 @@ import com.google.common.base.MoreObjects;
  * Implementation of Adj-RIB-In with VPN for each peer.
  */
 public class VpnAdjRibIn {
-    private Map<BgpNodeLSIdentifier, PathAttrNlriDetails> nodeTree = new TreeMap<>();
-    private Map<BgpLinkLSIdentifier, PathAttrNlriDetails> linkTree = new TreeMap<>();
-    private Map<BgpPrefixLSIdentifier, PathAttrNlriDetails> prefixTree = new TreeMap<>();
+    private Map<BgpNodeLSIdentifier, PathAttrNlriDetails> nodeTree = new ConcurrentHashMap<>();
+    private Map<BgpLinkLSIdentifier, PathAttrNlriDetails> linkTree = new ConcurrentHashMap<>();
+    private Map<BgpPrefixLSIdentifier, PathAttrNlriDetails> prefixTree = new ConcurrentHashMap<>();
 
     private Map<RouteDistinguisher, Map<BgpNodeLSIdentifier, PathAttrNlriDetails>> vpnNodeTree
-                                                                                                     = new TreeMap<>();
+                                                                                        = new ConcurrentHashMap<>();
     private Map<RouteDistinguisher, Map<BgpLinkLSIdentifier, PathAttrNlriDetails>> vpnLinkTree
-                                                                                                     = new TreeMap<>();
+                                                                                        = new ConcurrentHashMap<>();
     private Map<RouteDistinguisher, Map<BgpPrefixLSIdentifier, PathAttrNlriDetails>> vpnPrefixTree
-                                                                                                     = new TreeMap<>();
+                                                                                        = new ConcurrentHashMap<>();
     /**
      * Returns the adjacency node.
      *
@@ -107,21 +107,24 @@ public class VpnAdjRibIn {
      */
     public void add(BgpLSNlri nlri, PathAttrNlriDetails details) {
         if (nlri instanceof BgpNodeLSNlriVer4) {
-            BgpNodeLSIdentifier nodeLSIdentifier = ((BgpNodeLSNlriVer4) nlri).getLocalNodeDescriptors();
+            BgpNodeLSIdentifier nodeLSIdentifier = BgpRibIdentifiers.intern(
+                    ((BgpNodeLSNlriVer4) nlri).getLocalNodeDescriptors());
             if (nodeTree.containsKey(nodeLSIdentifier)) {
                 nodeTree.replace(nodeLSIdentifier, details);
             } else {
                 nodeTree.put(nodeLSIdentifier, details);
             }
         } else if (nlri instanceof BgpLinkLsNlriVer4) {
-            BgpLinkLSIdentifier linkLSIdentifier = ((BgpLinkLsNlriVer4) nlri).getLinkIdentifier();
+            BgpLinkLSIdentifier linkLSIdentifier = BgpRibIdentifiers.intern(
+                    ((BgpLinkLsNlriVer4) nlri).getLinkIdentifier());
             if (linkTree.containsKey(linkLSIdentifier)) {
                 linkTree.replace(linkLSIdentifier, details);
             } else {
                 linkTree.put(linkLSIdentifier, details);
             }
         } else if (nlri instanceof BgpPrefixIPv4LSNlriVer4) {
-            BgpPrefixLSIdentifier prefixIdentifier = ((BgpPrefixIPv4LSNlriVer4) nlri).getPrefixIdentifier();
+            BgpPrefixLSIdentifier prefixIdentifier = BgpRibIdentifiers.intern(
+                    ((BgpPrefixIPv4LSNlriVer4) nlri).getPrefixIdentifier());
             if (prefixTree.containsKey(prefixIdentifier)) {
                 prefixTree.replace(prefixIdentifier, details);
             } else {
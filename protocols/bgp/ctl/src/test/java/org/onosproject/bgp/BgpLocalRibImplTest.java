@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgp;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.bgp.controller.BgpId;
+import org.onosproject.bgp.controller.BgpLocalRibChange;
+import org.onosproject.bgp.controller.BgpLocalRibListener;
+import org.onosproject.bgp.controller.impl.BgpControllerImpl;
+import org.onosproject.bgp.controller.impl.BgpLocalRibImpl;
+import org.onosproject.bgp.controller.impl.BgpPacketStatsImpl;
+import org.onosproject.bgp.controller.impl.BgpPeerImpl;
+import org.onosproject.bgp.controller.impl.BgpSessionInfoImpl;
+import org.onosproject.bgpio.exceptions.BgpParseException;
+import org.onosproject.bgpio.protocol.BgpMessage;
+import org.onosproject.bgpio.protocol.BgpVersion;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests the change notifications of the BGP-LS local RIB.
+ */
+public class BgpLocalRibImplTest {
+
+    private static final BgpId PEER1 = BgpId.bgpId(IpAddress.valueOf("127.0.0.11"));
+    private static final BgpId PEER2 = BgpId.bgpId(IpAddress.valueOf("127.0.0.12"));
+    private static final List<Integer> PREFIXES = ImmutableList.of(0x0a000001, 0x0a000002, 0x0a000003);
+
+    private final List<List<BgpLocalRibChange>> notified = new ArrayList<>();
+    private final BgpLocalRibListener listener = notified::add;
+
+    private BgpControllerImpl controller;
+    private BgpLocalRibImpl localRib;
+
+    @Before
+    public void setUp() {
+        controller = new BgpControllerImpl();
+        localRib = (BgpLocalRibImpl) controller.bgpLocalRib();
+        addPeer(PEER1, 0x7f00000b);
+        addPeer(PEER2, 0x7f00000c);
+        localRib.addListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        localRib.removeListener(listener);
+    }
+
+    private void addPeer(BgpId bgpId, int identifier) {
+        BgpSessionInfoImpl sessionInfo = new BgpSessionInfoImpl(bgpId, BgpVersion.BGP_4, 100, (short) 180,
+                                                                identifier, (short) 180, true,
+                                                                new LinkedList<>());
+        controller.connectedPeers().put(bgpId, new BgpPeerImpl(controller, sessionInfo,
+                                                               new BgpPacketStatsImpl()));
+    }
+
+    private void receive(BgpId peer, byte[] update) throws BgpParseException {
+        for (BgpMessage message : BgpLsUpdates.decode(update)) {
+            controller.processBgpPacket(peer, message);
+        }
+    }
+
+    /**
+     * Checks that the prefixes of an UPDATE are notified in a single batch.
+     */
+    @Test
+    public void testUpdateNotifiedOnce() throws BgpParseException {
+        receive(PEER1, BgpLsUpdates.advertise(0, PREFIXES));
+
+        assertThat(localRib.prefixTree().size(), is(PREFIXES.size()));
+        assertThat(notified, hasSize(1));
+        assertThat(notified.get(0), hasSize(PREFIXES.size()));
+        for (BgpLocalRibChange change : notified.get(0)) {
+            assertThat(change.type(), is(BgpLocalRibChange.Type.ADDED));
+            assertThat(change.details(), notNullValue());
+        }
+    }
+
+    /**
+     * Checks that withdrawing a prefix still advertised by another peer is
+     * notified as an update rather than as a removal and an addition.
+     */
+    @Test
+    public void testWithdrawWithAlternatePath() throws BgpParseException {
+        receive(PEER1, BgpLsUpdates.advertise(0, PREFIXES));
+        receive(PEER2, BgpLsUpdates.advertise(0, PREFIXES));
+        notified.clear();
+
+        receive(PEER1, BgpLsUpdates.withdraw(PREFIXES.subList(0, 1)));
+        assertThat(localRib.prefixTree().size(), is(PREFIXES.size()));
+        assertThat(notified, hasSize(1));
+        assertThat(notified.get(0), hasSize(1));
+        assertThat(notified.get(0).get(0).type(), is(BgpLocalRibChange.Type.UPDATED));
+        assertThat(notified.get(0).get(0).details().localRibIpAddress(), is(PEER2.ipAddress()));
+
+        receive(PEER2, BgpLsUpdates.withdraw(PREFIXES.subList(0, 1)));
+        assertThat(localRib.prefixTree().size(), is(PREFIXES.size() - 1));
+        assertThat(notified, hasSize(2));
+        assertThat(notified.get(1), hasSize(1));
+        assertThat(notified.get(1).get(0).type(), is(BgpLocalRibChange.Type.REMOVED));
+        assertThat(notified.get(1).get(0).details(), nullValue());
+    }
+
+    /**
+     * Checks that changes cancelling out within a batch are not notified.
+     */
+    @Test
+    public void testMergedBatch() throws BgpParseException {
+        receive(PEER1, BgpLsUpdates.advertise(0, PREFIXES.subList(0, 1)));
+        notified.clear();
+
+        localRib.batch(() -> {
+            receive(PEER1, BgpLsUpdates.advertise(0, PREFIXES.subList(1, 3)));
+            receive(PEER1, BgpLsUpdates.withdraw(PREFIXES));
+            receive(PEER1, BgpLsUpdates.advertise(0, PREFIXES.subList(0, 1)));
+        });
+
+        assertThat(localRib.prefixTree().size(), is(1));
+        assertThat(notified, hasSize(1));
+        assertThat(notified.get(0), hasSize(1));
+        assertThat(notified.get(0).get(0).type(), is(BgpLocalRibChange.Type.UPDATED));
+    }
+
+    /**
+     * Checks that the listeners are notified without holding the RIB lock,
+     * so that they may update the RIB.
+     */
+    @Test
+    public void testListenerOutsideLock() throws BgpParseException {
+        List<Boolean> locked = new ArrayList<>();
+        BgpLocalRibListener checking = changes -> locked.add(Thread.holdsLock(localRib));
+        localRib.addListener(checking);
+        try {
+            receive(PEER1, BgpLsUpdates.advertise(0, PREFIXES));
+            localRib.batch(() -> receive(PEER1, BgpLsUpdates.withdraw(PREFIXES)));
+        } finally {
+            localRib.removeListener(checking);
+        }
+        assertThat(locked, is(ImmutableList.of(false, false)));
+        assertThat(notified, hasSize(2));
+    }
+
+    /**
+     * Checks that a failing listener neither aborts the UPDATE nor prevents
+     * the other listeners from being notified.
+     */
+    @Test
+    public void testFailingListener() throws BgpParseException {
+        BgpLocalRibListener failing = changes -> {
+            throw new IllegalStateException("failing listener");
+        };
+        localRib.removeListener(listener);
+        localRib.addListener(failing);
+        localRib.addListener(listener);
+        try {
+            receive(PEER1, BgpLsUpdates.advertise(0, PREFIXES));
+        } finally {
+            localRib.removeListener(failing);
+        }
+        assertThat(localRib.prefixTree().size(), is(PREFIXES.size()));
+        assertThat(notified, hasSize(1));
+    }
+}
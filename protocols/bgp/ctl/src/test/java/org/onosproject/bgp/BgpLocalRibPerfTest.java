@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgp;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.bgp.controller.BgpId;
+import org.onosproject.bgp.controller.impl.BgpControllerImpl;
+import org.onosproject.bgp.controller.impl.BgpLocalRibImpl;
+import org.onosproject.bgp.controller.impl.BgpPacketStatsImpl;
+import org.onosproject.bgp.controller.impl.BgpPeerImpl;
+import org.onosproject.bgp.controller.impl.BgpSessionInfoImpl;
+import org.onosproject.bgpio.exceptions.BgpParseException;
+import org.onosproject.bgpio.protocol.BgpMessage;
+import org.onosproject.bgpio.protocol.BgpVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays a stream of BGP-LS UPDATE messages into the local RIB, from a
+ * number of peers, and reports the UPDATE throughput along with the number
+ * of change notifications delivered to the local RIB listeners.
+ * The stream is synthesized as a full advertisement of the prefixes
+ * followed by random churn.
+ */
+public class BgpLocalRibPerfTest {
+
+    private static final String FMT = "%-6s %8s %10s %10s %12s %12s";
+    private static final int NLRI_PER_UPDATE = 50;
+    private static final int WARMUP = 2;
+    private static final long SEED = 1234L;
+    private static final int PEERS = 4;
+    private static final int PREFIXES = 50_000;
+    private static final int CHURN = 200_000;
+
+    @Test
+    @Ignore
+    public void replayPerf() throws BgpParseException {
+        List<BgpMessage> updates = BgpLsUpdates.decode(synthesize(PREFIXES, CHURN));
+
+        System.out.println(String.format(FMT, "run", "peers", "updates", "ms", "updates/s", "callbacks"));
+        for (int i = 0; i < WARMUP; i++) {
+            replay("warmup", PEERS, updates);
+        }
+        replay("replay", PEERS, updates);
+    }
+
+    // Replays the stream from each peer in turn, one UPDATE at a time
+    private static void replay(String name, int peers, List<BgpMessage> updates)
+            throws BgpParseException {
+        BgpControllerImpl controller = new BgpControllerImpl();
+        List<BgpId> ids = new ArrayList<>();
+        for (int i = 0; i < peers; i++) {
+            BgpId bgpId = BgpId.bgpId(IpAddress.valueOf(0x7f000100 + i));
+            BgpSessionInfoImpl sessionInfo = new BgpSessionInfoImpl(bgpId, BgpVersion.BGP_4, 100, (short) 180,
+                                                                    0x7f000100 + i, (short) 180, true,
+                                                                    new LinkedList<>());
+            controller.connectedPeers().put(bgpId, new BgpPeerImpl(controller, sessionInfo,
+                                                                   new BgpPacketStatsImpl()));
+            ids.add(bgpId);
+        }
+        AtomicLong callbacks = new AtomicLong();
+        ((BgpLocalRibImpl) controller.bgpLocalRib()).addListener(changes -> callbacks.incrementAndGet());
+
+        long start = System.nanoTime();
+        for (BgpMessage update : updates) {
+            for (BgpId bgpId : ids) {
+                controller.processBgpPacket(bgpId, update);
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        long count = (long) updates.size() * peers;
+        System.out.println(String.format(FMT, name, peers, count, String.format("%.1f", millis),
+                                         String.format("%.0f", count / millis * 1000), callbacks.get()));
+    }
+
+    private static byte[] synthesize(int prefixes, int churn) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> batch = new ArrayList<>(NLRI_PER_UPDATE);
+        for (int i = 0; i < prefixes; i++) {
+            batch.add(0x0a000000 + i);
+            if (batch.size() == NLRI_PER_UPDATE || i == prefixes - 1) {
+                write(out, BgpLsUpdates.advertise(0, batch));
+                batch.clear();
+            }
+        }
+
+        // flaps random prefixes, re-advertising them with a new MED
+        Random random = new Random(SEED);
+        for (int i = 0; i < churn; i += NLRI_PER_UPDATE) {
+            for (int j = 0; j < NLRI_PER_UPDATE; j++) {
+                batch.add(0x0a000000 + random.nextInt(prefixes));
+            }
+            write(out, BgpLsUpdates.withdraw(batch));
+            write(out, BgpLsUpdates.advertise(random.nextInt(100), batch));
+            batch.clear();
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream out, byte[] update) {
+        out.write(update, 0, update.length);
+    }
+}
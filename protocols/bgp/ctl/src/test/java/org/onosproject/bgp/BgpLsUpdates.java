@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bgp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.onosproject.bgpio.exceptions.BgpParseException;
+import org.onosproject.bgpio.protocol.BgpFactories;
+import org.onosproject.bgpio.protocol.BgpMessage;
+import org.onosproject.bgpio.types.BgpHeader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds BGP-LS UPDATE messages carrying IPv4 prefix NLRIs, all advertised by
+ * the same local node, for the local RIB tests and benchmark.
+ */
+final class BgpLsUpdates {
+
+    private static final int MARKER_LENGTH = 16;
+    private static final byte UPDATE_TYPE = 2;
+
+    // protocol ID, identifier, local node descriptors and prefix descriptor
+    // header; the IPv4 address of the /32 prefix follows
+    private static final byte[] PREFIX_NLRI = new byte[] {
+            0x00, 0x03, 0x00, 0x30, 0x02, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+            0x01, 0x00, 0x00, 0x1a, 0x02, 0x00, 0x00, 0x04, 0x00, 0x00, 0x08, (byte) 0xae,
+            0x02, 0x01, 0x00, 0x04, 0x02, 0x02, 0x02, 0x02, 0x02, 0x03, 0x00, 0x06,
+            0x02, 0x20, 0x22, 0x02, 0x20, 0x22, 0x01, 0x09, 0x00, 0x05, 0x20};
+    private static final int NLRI_LENGTH = PREFIX_NLRI.length + 4;
+
+    // origin, AS path and MED, followed by the MED value
+    private static final byte[] ATTRIBUTES = new byte[] {
+            0x40, 0x01, 0x01, 0x00, 0x40, 0x02, 0x04, 0x02, 0x01, (byte) 0xfd, (byte) 0xe9,
+            (byte) 0x80, 0x04, 0x04};
+    // AFI, SAFI, next hop and reserved byte of MP_REACH_NLRI
+    private static final byte[] MP_REACH = new byte[] {
+            0x40, 0x04, 0x47, 0x04, 0x04, 0x00, 0x00, 0x01, 0x00};
+    // AFI and SAFI of MP_UNREACH_NLRI
+    private static final byte[] MP_UNREACH = new byte[] {0x40, 0x04, 0x47};
+
+    private BgpLsUpdates() {
+    }
+
+    /**
+     * Returns an UPDATE message advertising the given prefixes.
+     *
+     * @param med multi exit discriminator of the advertised paths
+     * @param prefixes IPv4 addresses of the /32 prefixes
+     * @return UPDATE message bytes
+     */
+    static byte[] advertise(int med, List<Integer> prefixes) {
+        ChannelBuffer attrs = ChannelBuffers.dynamicBuffer();
+        attrs.writeBytes(ATTRIBUTES);
+        attrs.writeInt(med);
+        attrs.writeByte(0x90);
+        attrs.writeByte(0x0e);
+        attrs.writeShort(MP_REACH.length + prefixes.size() * NLRI_LENGTH);
+        attrs.writeBytes(MP_REACH);
+        writeNlri(attrs, prefixes);
+        return update(attrs);
+    }
+
+    /**
+     * Returns an UPDATE message withdrawing the given prefixes.
+     *
+     * @param prefixes IPv4 addresses of the /32 prefixes
+     * @return UPDATE message bytes
+     */
+    static byte[] withdraw(List<Integer> prefixes) {
+        ChannelBuffer attrs = ChannelBuffers.dynamicBuffer();
+        attrs.writeByte(0x90);
+        attrs.writeByte(0x0f);
+        attrs.writeShort(MP_UNREACH.length + prefixes.size() * NLRI_LENGTH);
+        attrs.writeBytes(MP_UNREACH);
+        writeNlri(attrs, prefixes);
+        return update(attrs);
+    }
+
+    /**
+     * Decodes the BGP messages contained in the given bytes.
+     *
+     * @param stream back to back BGP messages
+     * @return decoded messages
+     * @throws BgpParseException if a message cannot be decoded
+     */
+    static List<BgpMessage> decode(byte[] stream) throws BgpParseException {
+        ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(stream);
+        List<BgpMessage> messages = new ArrayList<>();
+        while (buffer.readable()) {
+            // the reader expects a single framed message
+            int length = buffer.getUnsignedShort(buffer.readerIndex() + MARKER_LENGTH);
+            messages.add(BgpFactories.getGenericReader().readFrom(buffer.readSlice(length), new BgpHeader()));
+        }
+        return messages;
+    }
+
+    private static void writeNlri(ChannelBuffer cb, List<Integer> prefixes) {
+        for (int prefix : prefixes) {
+            cb.writeBytes(PREFIX_NLRI);
+            cb.writeInt(prefix);
+        }
+    }
+
+    private static byte[] update(ChannelBuffer attrs) {
+        ChannelBuffer cb = ChannelBuffers.dynamicBuffer();
+        for (int i = 0; i < MARKER_LENGTH; i++) {
+            cb.writeByte(0xff);
+        }
+        cb.writeShort(MARKER_LENGTH + 7 + attrs.readableBytes());
+        cb.writeByte(UPDATE_TYPE);
+        cb.writeShort(0);
+        cb.writeShort(attrs.readableBytes());
+        cb.writeBytes(attrs);
+        byte[] bytes = new byte[cb.readableBytes()];
+        cb.readBytes(bytes);
+        return bytes;
+    }
+}
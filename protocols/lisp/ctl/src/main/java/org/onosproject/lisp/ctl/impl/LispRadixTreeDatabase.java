@@ -18,6 +18,8 @@ package org.onosproject.lisp.ctl.impl;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.onlab.packet.IpPrefix;
+import org.onosproject.lisp.ctl.impl.map.ExpireHashMap;
+import org.onosproject.lisp.ctl.impl.map.ExpireMap;
 import org.onosproject.lisp.ctl.impl.tree.IpConcurrentRadixTree;
 import org.onosproject.lisp.msg.protocols.DefaultLispProxyMapRecord.DefaultMapWithProxyBuilder;
 import org.onosproject.lisp.msg.protocols.LispEidRecord;
@@ -32,14 +34,24 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * A radix tree based LISP mapping database.
+ * A singleton class that stores EID-RLOC mapping information.
+ * <p>
+ * Lookups walk the radix tree without taking any lock. Each record expires
+ * after its record TTL unless it is registered again in the meantime.
+ * </p>
  */
 public final class LispRadixTreeDatabase implements LispMappingDatabase {
 
+    private static final long MINUTE_TO_MS_UNIT = 60L * 1000L;
+
     private static final Logger log = getLogger(LispRadixTreeDatabase.class);
 
     private final IpConcurrentRadixTree<LispProxyMapRecord> radixTree =
             new IpConcurrentRadixTree<>();
 
+    private final ExpireMap<IpPrefix, LispProxyMapRecord> expiries =
+            new ExpireHashMap<>(this::expireMapRecord);
+
     /**
      * Prevents object instantiation from external.
      */
@@ -62,19 +74,30 @@ public final class LispRadixTreeDatabase implements LispMappingDatabase {
                 .withMapRecord(rloc)
                 .withIsProxyMapReply(proxyMapReply)
                 .build();
-        radixTree.put(getIpPrefix(eid), mapWithProxy);
+        final IpPrefix prefix = getIpPrefix(eid);
+        synchronized (this) {
+            radixTree.put(prefix, mapWithProxy);
+            expiries.put(prefix, mapWithProxy, rloc.getRecordTtl() * MINUTE_TO_MS_UNIT);
+        }
         log.debug("Inserted a new map record for key {}", eid.toString());
     }
 
     @Override
     public void removeMapRecordByEid(LispEidRecord eid) {
-        if (radixTree.remove(getIpPrefix(eid))) {
+        final IpPrefix prefix = getIpPrefix(eid);
+        final boolean removed;
+        synchronized (this) {
+            expiries.remove(prefix);
+            removed = radixTree.remove(prefix);
+        }
+        if (removed) {
             log.debug("Removed a map record with key {}", eid.toString());
         }
     }
 
     @Override
-    public void removeAllMapRecords() {
+    public synchronized void removeAllMapRecords() {
+        expiries.clear();
         radixTree.clear();
         log.debug("Clear all map records");
     }
@@ -94,7 +117,7 @@ public final class LispRadixTreeDatabase implements LispMappingDatabase {
     public List<LispMapRecord> getMapRecordByEidRecords(List<LispEidRecord> eids,
                                                         boolean proxyMapReply) {
         final List<LispMapRecord> mapRecords = Lists.newArrayList();
-        eids.parallelStream().forEach(eidRecord -> {
+        eids.forEach(eidRecord -> {
             final LispMapRecord mapRecord =
                     getMapRecordByEidRecord(eidRecord, proxyMapReply);
             if (mapRecord != null) {
@@ -104,6 +127,20 @@ public final class LispRadixTreeDatabase implements LispMappingDatabase {
         return ImmutableList.copyOf(mapRecords);
     }
 
+    /**
+     * Removes an expired map record, unless the record has been registered
+     * again after it expired.
+     *
+     * @param prefix EID prefix of the expired record
+     * @param record expired record
+     */
+    private synchronized void expireMapRecord(IpPrefix prefix,
+                                              LispProxyMapRecord record) {
+        if (!expiries.containsKey(prefix) && radixTree.remove(prefix)) {
+            log.debug("Expired the map record with key {}", prefix);
+        }
+    }
+
     /**
      * Prevents object instantiation from external.
      */
@@ -15,113 +15,99 @@
  */
 package org.onosproject.lisp.ctl.impl.map;
 
+import com.google.common.collect.ImmutableList;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.onlab.util.Tools.groupedThreads;
 
 /**
  * Default implementation of ExpireMap.
+ * <p>
+ * Entries are expired by a hashed timing wheel shared by all the maps, so
+ * that scheduling and cancelling the expiry of an entry costs constant time
+ * regardless of the number of entries. Lookups do not take any lock.
+ * </p>
  */
 public class ExpireHashMap<K, V> implements ExpireMap<K, V> {
 
-    private final Logger log = LoggerFactory.getLogger(getClass());
+    private static final Logger log = LoggerFactory.getLogger(ExpireHashMap.class);
 
     private static final long DEFAULT_TTL = 60000L;
-    private final ConcurrentMap<K, ExpiredObject<K, V>> map = new ConcurrentHashMap<>();
-    private final Lock writeLock = new ReentrantLock();
-    private final Timer timer = new Timer("ExpireMapTimer", true);
-
-    /**
-     * An expired object that associates with a TimerTask instance.
-     *
-     * @param <K1> key type K1
-     * @param <V1> value type V1
-     */
-    class ExpiredObject<K1, V1> {
-        private final V1 value;
-        private final ExpiryTask<K1> task;
-        private final long ttl;
+    private static final long TICK_DURATION_MS = 100L;
 
-        public ExpiredObject(K1 key, V1 value) {
-            this(key, value, DEFAULT_TTL);
-        }
-
-        ExpiredObject(K1 key, V1 value, long ttl) {
-            this.value = value;
-            this.task = new ExpiryTask<>(key);
-            this.ttl = ttl;
-            timer.schedule(this.task, ttl);
-        }
+    private static final HashedWheelTimer TIMER =
+            new HashedWheelTimer(groupedThreads("onos/lisp", "expire-map-%d", log),
+                                 TICK_DURATION_MS, TimeUnit.MILLISECONDS);
 
-        ExpiryTask<K1> getTask() {
-            return task;
-        }
+    private final ConcurrentMap<K, ExpiredObject<V>> map = new ConcurrentHashMap<>();
+    private final BiConsumer<K, V> expiryListener;
 
-        V1 getValue() {
-            return value;
-        }
+    /**
+     * Creates an expire map.
+     */
+    public ExpireHashMap() {
+        this((key, value) -> { });
+    }
 
-        long getTtl() {
-            return ttl;
-        }
+    /**
+     * Creates an expire map notifying the given listener of the entries
+     * removed on expiry.
+     *
+     * @param expiryListener listener called with the key and the value of
+     *                       each expired entry, from the timer thread
+     */
+    public ExpireHashMap(BiConsumer<K, V> expiryListener) {
+        this.expiryListener = expiryListener;
     }
 
     /**
-     * A TimerTask that removes its associated map entry from the internal map.
+     * An object associated with the timeout of its map entry.
      *
-     * @param <K2> object key
+     * @param <V1> value type V1
      */
-    class ExpiryTask<K2> extends TimerTask {
-        private final K2 key;
+    private static final class ExpiredObject<V1> {
+        private final V1 value;
+        private volatile Timeout timeout;
 
-        ExpiryTask(K2 key) {
-            this.key = key;
+        private ExpiredObject(V1 value) {
+            this.value = value;
         }
 
-        K2 getKey() {
-            return key;
+        private V1 getValue() {
+            return value;
         }
 
-        @Override
-        public void run() {
-            log.info("Removing element with key [{}]", key);
-            try {
-                writeLock.lock();
-                if (map.containsKey(key)) {
-                    map.remove(getKey());
-                }
-            } finally {
-                writeLock.unlock();
+        private void cancel() {
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
             }
         }
     }
 
     @Override
     public void put(K key, V value, long expireMs) {
-        try {
-            writeLock.lock();
-
-            // if we have a value which is previously associated with the given
-            // key, we simply replace it with new value, and invalidate the
-            // previously associated value
-            final ExpiredObject<K, V> object =
-                    map.putIfAbsent(key, new ExpiredObject<>(key, value, expireMs));
-
-            if (object != null) {
-                object.getTask().cancel();
-            }
-        } finally {
-            writeLock.unlock();
+        ExpiredObject<V> object = new ExpiredObject<>(value);
+
+        // if we have a value which is previously associated with the given
+        // key, we simply replace it with new value, and invalidate the
+        // previously associated value
+        ExpiredObject<V> previous = map.put(key, object);
+        if (previous != null) {
+            previous.cancel();
         }
+        object.timeout = TIMER.newTimeout(t -> expire(key, object),
+                                          expireMs, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -131,21 +117,13 @@ public class ExpireHashMap<K, V> implements ExpireMap<K, V> {
 
     @Override
     public V get(K key) {
-        return map.containsKey(key) ? map.get(key).getValue() : null;
+        ExpiredObject<V> object = map.get(key);
+        return object == null ? null : object.getValue();
     }
 
     @Override
     public void clear() {
-        try {
-            writeLock.lock();
-            for (ExpiredObject<K, V> object : map.values()) {
-                object.getTask().cancel();
-            }
-            map.clear();
-            timer.purge();
-        } finally {
-            writeLock.unlock();
-        }
+        map.keySet().forEach(this::remove);
     }
 
     @Override
@@ -160,9 +138,9 @@ public class ExpireHashMap<K, V> implements ExpireMap<K, V> {
 
     @Override
     public Collection<V> values() {
-        Collection<V> values = Collections.emptyList();
+        ImmutableList.Builder<V> values = ImmutableList.builder();
         map.values().forEach(v -> values.add(v.getValue()));
-        return values;
+        return values.build();
     }
 
     @Override
@@ -172,21 +150,28 @@ public class ExpireHashMap<K, V> implements ExpireMap<K, V> {
 
     @Override
     public V remove(K key) {
-        final ExpiredObject<K, V> object;
-        try {
-            writeLock.lock();
-            object = map.remove(key);
-            if (object != null) {
-                object.getTask().cancel();
-            }
-        } finally {
-            writeLock.unlock();
+        ExpiredObject<V> object = map.remove(key);
+        if (object == null) {
+            return null;
         }
-        return (object == null ? null : object.getValue());
+        object.cancel();
+        return object.getValue();
     }
 
     @Override
     public int size() {
         return map.size();
     }
+
+    private void expire(K key, ExpiredObject<V> object) {
+        // the entry may have been replaced since this timeout was scheduled
+        if (map.remove(key, object)) {
+            log.info("Removing element with key [{}]", key);
+            try {
+                expiryListener.accept(key, object.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Failed to notify the expiry of [{}]", key, e);
+            }
+        }
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.lisp.ctl.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.UDP;
+import org.onosproject.lisp.ctl.LispRouterAgentAdapter;
+import org.onosproject.lisp.ctl.LispRouterFactory;
+import org.onosproject.lisp.msg.authentication.LispAuthenticationConfig;
+import org.onosproject.lisp.msg.protocols.DefaultLispEncapsulatedControl.DefaultEcmBuilder;
+import org.onosproject.lisp.msg.protocols.DefaultLispLocator.DefaultLocatorBuilder;
+import org.onosproject.lisp.msg.protocols.DefaultLispMapRecord.DefaultMapRecordBuilder;
+import org.onosproject.lisp.msg.protocols.DefaultLispMapRegister.DefaultRegisterBuilder;
+import org.onosproject.lisp.msg.protocols.DefaultLispMapRequest.DefaultRequestBuilder;
+import org.onosproject.lisp.msg.protocols.LispEidRecord;
+import org.onosproject.lisp.msg.protocols.LispMapRecord;
+import org.onosproject.lisp.msg.protocols.LispMapReply;
+import org.onosproject.lisp.msg.protocols.LispMapReplyAction;
+import org.onosproject.lisp.msg.protocols.LispMessage;
+import org.onosproject.lisp.msg.types.LispIpv4Address;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the throughput of a mix of Map-Register and Map-Request messages
+ * replayed through the LISP netty pipeline over the loopback interface.
+ */
+public class LispMappingPerfTest {
+
+    private static final String LOOPBACK = "127.0.0.1";
+    private static final String AUTH_KEY = "onos";
+    private static final short AUTH_KEY_ID = 1;
+    private static final String RLOC = "192.168.1.1";
+    private static final int EID_PREFIXES = 256;
+    private static final int MESSAGES = 4000;
+    private static final int REQUESTS_PER_REGISTER = 4;
+    private static final int WINDOW = 64;
+    private static final long TIMEOUT_SEC = 30;
+    private static final long REPLY_TIMEOUT_MS = 100;
+    private static final int LISP_CONTROL_PORT = 4342;
+
+    private final LispRouterFactory routerFactory = LispRouterFactory.getInstance();
+    private final LispRouterAgentAdapter agent = new LispRouterAgentAdapter();
+
+    private EventLoopGroup group;
+    private Channel server;
+    private Channel client;
+    private final Semaphore window = new Semaphore(WINDOW);
+    private final AtomicInteger replies = new AtomicInteger();
+    private final AtomicInteger positiveReplies = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        LispAuthenticationConfig.getInstance().updateLispAuthKey(AUTH_KEY);
+        LispAuthenticationConfig.getInstance().updateLispAuthKeyId(AUTH_KEY_ID);
+        routerFactory.setAgent(agent);
+
+        group = new NioEventLoopGroup();
+        server = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new LispChannelInitializer())
+                .bind(LOOPBACK, 0).sync().channel();
+        client = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .option(ChannelOption.SO_RCVBUF, 1 << 20)
+                .handler(new ChannelInitializer<NioDatagramChannel>() {
+                    @Override
+                    protected void initChannel(NioDatagramChannel channel) {
+                        channel.pipeline()
+                                .addLast(new LispMessageDecoder())
+                                .addLast(new LispMessageEncoder())
+                                .addLast(new ReplyCounter());
+                    }
+                })
+                .bind(LOOPBACK, 0).sync().channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close().sync();
+        server.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        routerFactory.cleanAgent();
+        LispRadixTreeDatabase.getInstance().removeAllMapRecords();
+    }
+
+    /**
+     * Replays a Map-Register/Map-Request mix and checks the Map-Replies
+     * received carry the registered mapping. Replies lost by UDP are only
+     * reported.
+     */
+    @Test
+    @Ignore
+    public void mapRegisterMapRequestMixPerf() throws Exception {
+        // registers all the EID prefixes first so that all requests hit
+        for (int i = 0; i < EID_PREFIXES; i++) {
+            send(mapRegister(i));
+        }
+        LispEidRecord last = new LispEidRecord((byte) 32, eid(EID_PREFIXES - 1, 1));
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SEC);
+        while (LispRadixTreeDatabase.getInstance().getMapRecordByEidRecord(last, true) == null) {
+            assertTrue("Map-Registers not processed in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        int requests = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            if (i % (REQUESTS_PER_REGISTER + 1) == 0) {
+                send(mapRegister(i % EID_PREFIXES));
+            } else {
+                // at most WINDOW requests are in flight, a lost reply only delays the next request
+                window.tryAcquire(REPLY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                send(mapRequest(i % EID_PREFIXES, i));
+                requests++;
+            }
+        }
+        // waits for the in flight replies until none arrives within the reply timeout
+        int received;
+        do {
+            received = replies.get();
+            Thread.sleep(REPLY_TIMEOUT_MS);
+        } while (received < requests && replies.get() > received);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format(
+                "%d messages, %d Map-Requests, %d Map-Replies (%d lost) in %d ms (%d messages/s)",
+                MESSAGES, requests, replies.get(), requests - replies.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed), MESSAGES * TimeUnit.SECONDS.toNanos(1) / elapsed));
+        assertThat(positiveReplies.get(), is(replies.get()));
+        assertThat(LispRadixTreeDatabase.getInstance()
+                           .getMapRecordByEidRecord(last, true), notNullValue());
+    }
+
+    private void send(LispMessage message) {
+        message.configSender((InetSocketAddress) server.localAddress());
+        client.writeAndFlush(message);
+    }
+
+    private LispIpv4Address eid(int index, int host) {
+        return new LispIpv4Address(IpAddress.valueOf(
+                "10." + (index >> 8) + "." + (index & 0xff) + "." + host));
+    }
+
+    private LispMessage mapRegister(int index) {
+        LispMapRecord record = new DefaultMapRecordBuilder()
+                .withRecordTtl(10)
+                .withIsAuthoritative(true)
+                .withMapVersionNumber((short) 1)
+                .withMaskLength((byte) 24)
+                .withAction(LispMapReplyAction.NoAction)
+                .withEidPrefixAfi(eid(index, 0))
+                .withLocators(ImmutableList.of(new DefaultLocatorBuilder()
+                        .withPriority((byte) 1)
+                        .withWeight((byte) 1)
+                        .withMulticastPriority((byte) 1)
+                        .withMulticastWeight((byte) 1)
+                        .withLocalLocator(true)
+                        .withRlocProbed(false)
+                        .withRouted(true)
+                        .withLocatorAfi(new LispIpv4Address(IpAddress.valueOf(RLOC)))
+                        .build()))
+                .build();
+        return new DefaultRegisterBuilder()
+                .withIsProxyMapReply(true)
+                .withIsWantMapNotify(false)
+                .withKeyId(AUTH_KEY_ID)
+                .withAuthKey(AUTH_KEY)
+                .withNonce(index)
+                .withMapRecords(ImmutableList.of(record))
+                .build();
+    }
+
+    private LispMessage mapRequest(int index, long nonce) {
+        InetSocketAddress clientAddress = (InetSocketAddress) client.localAddress();
+        LispIpv4Address itrRloc = new LispIpv4Address(IpAddress.valueOf(LOOPBACK));
+        List<LispEidRecord> eids =
+                ImmutableList.of(new LispEidRecord((byte) 32, eid(index, 1)));
+        LispMessage request = new DefaultRequestBuilder()
+                .withIsAuthoritative(false)
+                .withIsMapDataPresent(false)
+                .withIsPitr(false)
+                .withIsProbe(false)
+                .withIsSmr(false)
+                .withIsSmrInvoked(false)
+                .withSourceEid(itrRloc)
+                .withItrRlocs(ImmutableList.of(itrRloc))
+                .withEidRecords(eids)
+                .withNonce(nonce)
+                .build();
+        return new DefaultEcmBuilder()
+                .isSecurity(false)
+                .innerIpHeader(new IPv4()
+                        .setSourceAddress(LOOPBACK)
+                        .setDestinationAddress(LOOPBACK)
+                        .setProtocol(IPv4.PROTOCOL_UDP)
+                        .setVersion((byte) 4))
+                .innerUdpHeader(new UDP()
+                        .setSourcePort(clientAddress.getPort())
+                        .setDestinationPort(LISP_CONTROL_PORT))
+                .innerLispMessage(request)
+                .build();
+    }
+
+    /**
+     * Counts the Map-Replies received by the xTR.
+     */
+    private final class ReplyCounter extends SimpleChannelInboundHandler<LispMapReply> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, LispMapReply reply) {
+            replies.incrementAndGet();
+            if (!reply.getMapRecords().isEmpty() &&
+                    !reply.getMapRecords().get(0).getLocators().isEmpty()) {
+                positiveReplies.incrementAndGet();
+            }
+            window.release();
+        }
+    }
+}
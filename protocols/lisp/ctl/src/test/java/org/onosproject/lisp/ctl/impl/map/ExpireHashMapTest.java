@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.lisp.ctl.impl.map;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ExpireHashMap.
+ */
+public class ExpireHashMapTest {
+
+    private static final long SHORT_TTL = 200;
+    private static final long LONG_TTL = 60000;
+
+    /**
+     * Tests an entry expires and the expiry is notified.
+     */
+    @Test
+    public void testExpiry() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<String> expired = Lists.newCopyOnWriteArrayList();
+        ExpireMap<String, Integer> map = new ExpireHashMap<>((key, value) -> {
+            expired.add(key + "=" + value);
+            latch.countDown();
+        });
+        map.put("short", 1, SHORT_TTL);
+        map.put("long", 2, LONG_TTL);
+        assertThat(map.get("short"), is(1));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNull(map.get("short"));
+        assertThat(map.get("long"), is(2));
+        assertThat(expired, contains("short=1"));
+        map.clear();
+    }
+
+    /**
+     * Tests replacing an entry replaces its value and re-arms its expiry.
+     */
+    @Test
+    public void testReplace() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        ExpireMap<String, Integer> map = new ExpireHashMap<>((key, value) -> latch.countDown());
+        map.put("key", 1, SHORT_TTL);
+        map.put("key", 2, LONG_TTL);
+        assertThat(map.get("key"), is(2));
+
+        // the expiry of the replaced value must not remove the new value
+        assertTrue(!latch.await(3 * SHORT_TTL, TimeUnit.MILLISECONDS));
+        assertThat(map.get("key"), is(2));
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    /**
+     * Tests removed entries are not notified as expired.
+     */
+    @Test
+    public void testRemove() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        ExpireMap<String, Integer> map = new ExpireHashMap<>((key, value) -> latch.countDown());
+        map.put("a", 1, SHORT_TTL);
+        map.put("b", 2, LONG_TTL);
+        assertThat(map.values(), containsInAnyOrder(1, 2));
+        assertThat(map.size(), is(2));
+
+        assertThat(map.remove("a"), is(1));
+        assertNull(map.remove("a"));
+        assertTrue(!latch.await(3 * SHORT_TTL, TimeUnit.MILLISECONDS));
+        assertThat(map.values(), contains(2));
+        map.clear();
+    }
+}
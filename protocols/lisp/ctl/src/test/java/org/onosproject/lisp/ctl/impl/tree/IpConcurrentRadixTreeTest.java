@@ -239,4 +239,29 @@ public class IpConcurrentRadixTreeTest {
         assertThat("Incorrect size of radix tree for IPv6 maps",
                 radixTree.size(IpAddress.Version.INET6), is(0));
     }
+
+    @Test
+    public void testNonOctetAlignedPrefixes() {
+        IpPrefix prefix25 = IpPrefix.valueOf("10.1.2.128/25");
+        IpPrefix prefix20 = IpPrefix.valueOf("10.1.16.0/20");
+        radixTree.put(prefix25, IPV4_PREFIX_VALUE_5);
+        radixTree.put(prefix20, IPV4_PREFIX_VALUE_5 + 1);
+
+        assertThat(radixTree.getValueForExactAddress(ipv4PrefixKey3), is(IPV4_PREFIX_VALUE_3));
+        assertThat(radixTree.getValueForExactAddress(prefix25), is(IPV4_PREFIX_VALUE_5));
+        assertThat(radixTree.getValueForClosestParentAddress(
+                IpPrefix.valueOf("10.1.2.200/32")), is(IPV4_PREFIX_VALUE_5));
+        assertThat(radixTree.getValueForClosestParentAddress(
+                IpPrefix.valueOf("10.1.2.100/32")), is(IPV4_PREFIX_VALUE_3));
+        assertThat(radixTree.getValueForClosestParentAddress(
+                IpPrefix.valueOf("10.1.17.1/32")), is(IPV4_PREFIX_VALUE_5 + 1));
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        assertThat(radixTree.putIfAbsent(ipv4PrefixKey1, IPV4_PREFIX_VALUE_5), is(IPV4_PREFIX_VALUE_1));
+        assertThat(radixTree.getValueForExactAddress(ipv4PrefixKey1), is(IPV4_PREFIX_VALUE_1));
+        assertNull(radixTree.putIfAbsent(ipv4PrefixKey5, IPV4_PREFIX_VALUE_5));
+        assertThat(radixTree.getValueForExactAddress(ipv4PrefixKey5), is(IPV4_PREFIX_VALUE_5));
+    }
 }
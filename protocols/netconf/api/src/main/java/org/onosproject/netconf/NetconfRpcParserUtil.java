@@ -49,6 +49,29 @@ public final class NetconfRpcParserUtil {
 
     private static final Logger log = getLogger(NetconfRpcParserUtil.class);
 
+    private static final XMLInputFactory STREAM_FACTORY = XMLInputFactory.newFactory();
+    static {
+        // replies come from devices, do not resolve anything they refer to
+        STREAM_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        STREAM_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Returns a StAX reader over the given reply, letting the caller pull
+     * the elements it needs instead of building a document for the reply.
+     *
+     * @param xml input
+     * @return reader positioned at the start of the document
+     * @throws NetconfTransportException if the reader cannot be created
+     */
+    public static XMLStreamReader toXmlStreamReader(CharSequence xml) {
+        try {
+            return STREAM_FACTORY.createXMLStreamReader(CharSource.wrap(xml).openStream());
+        } catch (XMLStreamException | IOException e) {
+            throw new NetconfTransportException("Exception thrown creating XMLStreamReader", e);
+        }
+    }
+
     /**
      * Parse first rpc-reply contained in the input.
      *
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * NETCONF session object that allows NETCONF operations on top with the physical
@@ -57,6 +58,21 @@ public interface NetconfSession {
      */
     CompletableFuture<String> rpc(String request) throws NetconfException;
 
+    /**
+     * Executes an asynchronous RPC request to the server and obtains a future
+     * for a streaming XML reader over it's response.
+     *
+     * @param request the XML containing the RPC request for the server.
+     * @return StAX reader over the server response
+     * @throws NetconfException when there is a problem in the communication process on
+     * the underlying connection
+     * @throws NetconfTransportException on secure transport-layer error
+     */
+    @Beta
+    default CompletableFuture<XMLStreamReader> rpcStream(String request) throws NetconfException {
+        return rpc(request).thenApply(NetconfRpcParserUtil::toXmlStreamReader);
+    }
+
     /**
      * Retrieves the specified configuration.
      *
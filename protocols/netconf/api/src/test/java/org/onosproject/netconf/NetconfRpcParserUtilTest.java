@@ -20,6 +20,10 @@ import static org.junit.Assert.*;
 
 import java.util.List;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.junit.Test;
 import org.onosproject.netconf.rpc.ErrorSeverity;
 import org.onosproject.netconf.rpc.ErrorTag;
@@ -325,4 +329,20 @@ public class NetconfRpcParserUtilTest {
         //assertThat(rep.responses().get(0), is(RESPONSE_BODY1));
     }
 
+    @Test
+    public void testStreamReader() throws XMLStreamException {
+        XMLStreamReader xsr = NetconfRpcParserUtil.toXmlStreamReader(RESPONSE_DATA1);
+        assertThat(xsr.nextTag(), is(XMLStreamConstants.START_ELEMENT));
+        assertThat(xsr.getLocalName(), is("rpc-reply"));
+        assertThat(xsr.getAttributeValue(null, "message-id"), is("5"));
+        assertThat(xsr.nextTag(), is(XMLStreamConstants.START_ELEMENT));
+        assertThat(xsr.getLocalName(), is("data"));
+
+        // can be handed over to the existing parser
+        NetconfRpcReply rep = NetconfRpcParserUtil.parseRpcReply(
+                NetconfRpcParserUtil.toXmlStreamReader(OK_DATA1));
+        assertThat(rep.isOk(), is(true));
+        assertThat(rep.messageId(), is("3"));
+    }
+
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import org.apache.sshd.client.channel.ClientChannel;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfDeviceOutputEventListener;
+import org.onosproject.netconf.NetconfTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Stream handler of an event driven NETCONF session.
+ * <p>
+ * Instead of a thread per session blocking on the input stream, the replies
+ * are read from the asynchronous streams of the SSH channel and decoded on
+ * the IO threads of the SSH client as they are received. Up to a bounded
+ * number of requests may be awaiting their reply; further requests are
+ * queued and sent as replies are received. Requests not replied within the
+ * reply timeout are failed with a {@link TimeoutException}, and all the
+ * pending requests are failed as soon as the session is closed.
+ * </p>
+ */
+final class NetconfAsyncStreamHandler implements NetconfStreamHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(NetconfAsyncStreamHandler.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final String END_PATTERN = "]]>]]>";
+
+    private final ClientChannel channel;
+    private final NetconfDeviceInfo netconfDeviceInfo;
+    private final NetconfReplyDispatcher dispatcher;
+    private final Map<Integer, CompletableFuture<String>> replies;
+    private final int maxInFlight;
+    private final long replyTimeoutMillis;
+
+    // only used by the read in progress
+    private final NetconfMessageDecoder decoder = new NetconfMessageDecoder();
+    private final Buffer readBuffer = new ByteArrayBuffer(READ_BUFFER_SIZE);
+
+    // guarded by this
+    private final Deque<Request> queued = new ArrayDeque<>();
+    private final Deque<Request> writes = new ArrayDeque<>();
+    private int inFlight;
+    private boolean writing;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a stream handler for the given channel, which must have been
+     * opened with asynchronous streaming.
+     *
+     * @param channel SSH channel of the NETCONF subsystem
+     * @param deviceInfo device information
+     * @param delegate session delegate
+     * @param replies futures of the replies by message-id
+     * @param maxInFlight maximum number of requests awaiting their reply
+     * @param replyTimeoutMillis time after which a request is failed
+     */
+    NetconfAsyncStreamHandler(ClientChannel channel, NetconfDeviceInfo deviceInfo,
+                              NetconfSessionDelegate delegate,
+                              Map<Integer, CompletableFuture<String>> replies,
+                              int maxInFlight, long replyTimeoutMillis) {
+        checkArgument(maxInFlight > 0, "maxInFlight must be positive");
+        this.channel = channel;
+        this.netconfDeviceInfo = deviceInfo;
+        this.dispatcher = new NetconfReplyDispatcher(deviceInfo, delegate);
+        this.replies = replies;
+        this.maxInFlight = maxInFlight;
+        this.replyTimeoutMillis = replyTimeoutMillis;
+    }
+
+    /**
+     * Starts reading from the channel.
+     */
+    void start() {
+        log.debug("Event driven stream for device {} session started", netconfDeviceInfo);
+        read();
+    }
+
+    @Deprecated
+    @Override
+    public CompletableFuture<String> sendMessage(String request) {
+        Optional<Integer> messageId = NetconfReplyDispatcher.getMsgId(request);
+        return sendMessage(request, messageId.get());
+    }
+
+    @Override
+    public CompletableFuture<String> sendMessage(String request, int messageId) {
+        log.debug("Sending message {} to device {}", request, netconfDeviceInfo);
+        Request pending = new Request(request.getBytes(UTF_8));
+        replies.put(messageId, pending.future);
+
+        ScheduledFuture<?> timeout = SharedScheduledExecutors.newTimeout(
+                () -> pending.future.completeExceptionally(new TimeoutException(
+                        "No reply to message " + messageId + " from " + netconfDeviceInfo)),
+                replyTimeoutMillis, TimeUnit.MILLISECONDS);
+        pending.future.whenComplete((reply, error) -> {
+            timeout.cancel(false);
+            replies.remove(messageId, pending.future);
+            completed(pending);
+        });
+        if (closed) {
+            // the pending requests may have been failed before this one was added
+            pending.future.completeExceptionally(sessionClosedException());
+            return pending.future;
+        }
+
+        synchronized (this) {
+            if (pending.future.isDone()) {
+                // failed by a concurrent close, without taking a slot
+                return pending.future;
+            }
+            if (inFlight >= maxInFlight) {
+                queued.add(pending);
+                return pending.future;
+            }
+            inFlight++;
+            pending.sent = true;
+        }
+        write(pending);
+        return pending.future;
+    }
+
+    // Releases the slot of a replied or failed request, if it was sent, and
+    // sends the next queued request.
+    private void completed(Request request) {
+        Request next;
+        synchronized (this) {
+            if (!request.sent) {
+                // still queued, or failed before it could be queued
+                queued.remove(request);
+                return;
+            }
+            next = closed ? null : queued.poll();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+            next.sent = true;
+        }
+        write(next);
+    }
+
+    private void write(Request request) {
+        synchronized (this) {
+            if (writing) {
+                writes.add(request);
+                return;
+            }
+            writing = true;
+        }
+        doWrite(request);
+    }
+
+    // The channel accepts one write at a time; writes are chained from the
+    // completion of the previous one.
+    private void doWrite(Request request) {
+        IoWriteFuture future;
+        try {
+            future = channel.getAsyncIn().write(new ByteArrayBuffer(request.bytes));
+        } catch (RuntimeException e) {
+            log.error("Writing to {} failed", netconfDeviceInfo, e);
+            request.future.completeExceptionally(e);
+            writeNext();
+            return;
+        }
+        future.addListener(f -> {
+            if (!f.isWritten()) {
+                log.error("Writing to {} failed", netconfDeviceInfo, f.getException());
+                request.future.completeExceptionally(f.getException());
+            }
+            writeNext();
+        });
+    }
+
+    private void writeNext() {
+        Request next;
+        synchronized (this) {
+            next = writes.poll();
+            if (next == null) {
+                writing = false;
+                return;
+            }
+        }
+        doWrite(next);
+    }
+
+    private void read() {
+        if (closed) {
+            return;
+        }
+        try {
+            channel.getAsyncOut().read(readBuffer).addListener(this::readCompleted);
+        } catch (RuntimeException e) {
+            log.warn("Error in reading from the session for device {}", netconfDeviceInfo, e);
+            sessionClosed();
+        }
+    }
+
+    private void readCompleted(IoReadFuture future) {
+        if (future.getException() != null) {
+            log.debug("Netconf device {} session closed: {}",
+                      netconfDeviceInfo, future.getException().getMessage());
+            sessionClosed();
+            return;
+        }
+        Buffer buffer = future.getBuffer();
+        try {
+            decoder.decode(buffer.array(), buffer.rpos(), buffer.available(), this::received);
+        } catch (NetconfMessageDecoder.FramingException e) {
+            log.debug("Netconf device {} send badly framed message {}: {}",
+                      netconfDeviceInfo, e.partialMessage(), e.getMessage());
+            close();
+            dispatcher.deviceUnregistered(e.partialMessage());
+        } finally {
+            buffer.clear();
+        }
+        read();
+    }
+
+    private void received(String deviceReply) {
+        if (closed) {
+            return;
+        }
+        if (deviceReply.isEmpty()) {
+            close();
+            dispatcher.deviceUnregistered(END_PATTERN);
+        } else {
+            dispatcher.dispatch(deviceReply);
+        }
+    }
+
+    private void sessionClosed() {
+        if (!closed) {
+            close();
+            dispatcher.sessionClosed();
+        }
+    }
+
+    // Fails the pending requests, which cannot be replied anymore
+    private void close() {
+        closed = true;
+        NetconfTransportException error = sessionClosedException();
+        replies.values().forEach(future -> future.completeExceptionally(error));
+    }
+
+    private NetconfTransportException sessionClosedException() {
+        return new NetconfTransportException("Session with " + netconfDeviceInfo + " is closed");
+    }
+
+    @Override
+    public void addDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        dispatcher.addDeviceEventListener(listener);
+    }
+
+    @Override
+    public void removeDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        dispatcher.removeDeviceEventListener(listener);
+    }
+
+    @Override
+    public void setEnableNotifications(boolean enableNotifications) {
+        dispatcher.setEnableNotifications(enableNotifications);
+    }
+
+    private static final class Request {
+        private final byte[] bytes;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        // whether the request holds an in-flight slot; guarded by the handler
+        private boolean sent;
+
+        private Request(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -63,6 +63,7 @@ import java.util.concurrent.Executors;
 import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.getIntegerProperty;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onlab.util.Tools.isPropertyEnabled;
 
 /**
  * The implementation of NetconfController.
@@ -92,6 +93,20 @@ public class NetconfControllerImpl implements NetconfController {
             label = "Time (in seconds) SSH session will close if no traffic seen")
     protected static int netconfIdleTimeout = DEFAULT_IDLE_TIMEOUT_SECONDS;
 
+    private static final String PROP_NETCONF_EVENT_DRIVEN = "netconfEventDriven";
+    protected static final boolean DEFAULT_EVENT_DRIVEN = false;
+    // FIXME @Property should not be static
+    @Property(name = PROP_NETCONF_EVENT_DRIVEN, boolValue = DEFAULT_EVENT_DRIVEN,
+            label = "Read NETCONF replies on a shared event driven pool instead of a thread per session")
+    protected static boolean netconfEventDriven = DEFAULT_EVENT_DRIVEN;
+
+    private static final String PROP_NETCONF_MAX_IN_FLIGHT_RPCS = "netconfMaxInFlightRpcs";
+    protected static final int DEFAULT_MAX_IN_FLIGHT_RPCS = 16;
+    // FIXME @Property should not be static
+    @Property(name = PROP_NETCONF_MAX_IN_FLIGHT_RPCS, intValue = DEFAULT_MAX_IN_FLIGHT_RPCS,
+            label = "Maximum number of RPCs awaiting a reply on an event driven NETCONF session")
+    protected static int netconfMaxInFlightRpcs = DEFAULT_MAX_IN_FLIGHT_RPCS;
+
     private static final String SSH_LIBRARY = "sshLibrary";
     private static final String APACHE_MINA_STR = "apache-mina";
     @Property(name = SSH_LIBRARY, value = APACHE_MINA_STR,
@@ -141,6 +156,7 @@ public class NetconfControllerImpl implements NetconfController {
         cfgService.unregisterProperties(getClass(), false);
         netconfDeviceListeners.clear();
         netconfDeviceMap.clear();
+        NetconfSessionMinaImpl.stopSharedClient();
         Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
         log.info("Stopped");
     }
@@ -151,6 +167,8 @@ public class NetconfControllerImpl implements NetconfController {
             netconfReplyTimeout = DEFAULT_REPLY_TIMEOUT_SECONDS;
             netconfConnectTimeout = DEFAULT_CONNECT_TIMEOUT_SECONDS;
             netconfIdleTimeout = DEFAULT_IDLE_TIMEOUT_SECONDS;
+            netconfEventDriven = DEFAULT_EVENT_DRIVEN;
+            netconfMaxInFlightRpcs = DEFAULT_MAX_IN_FLIGHT_RPCS;
             sshLibrary = NetconfSshClientLib.APACHE_MINA;
             log.info("No component configuration");
             return;
@@ -166,6 +184,10 @@ public class NetconfControllerImpl implements NetconfController {
                 properties, PROP_NETCONF_CONNECT_TIMEOUT, netconfConnectTimeout);
         int newNetconfIdleTimeout = getIntegerProperty(
                 properties, PROP_NETCONF_IDLE_TIMEOUT, netconfIdleTimeout);
+        boolean newNetconfEventDriven = isPropertyEnabled(
+                properties, PROP_NETCONF_EVENT_DRIVEN, netconfEventDriven);
+        int newNetconfMaxInFlightRpcs = getIntegerProperty(
+                properties, PROP_NETCONF_MAX_IN_FLIGHT_RPCS, netconfMaxInFlightRpcs);
 
         newSshLibrary = get(properties, SSH_LIBRARY);
 
@@ -178,18 +200,25 @@ public class NetconfControllerImpl implements NetconfController {
         } else if (newNetconfIdleTimeout <= 0) {
             log.warn("netconfIdleTimeout is invalid - 0 or less.");
             return;
+        } else if (newNetconfMaxInFlightRpcs <= 0) {
+            log.warn("netconfMaxInFlightRpcs is invalid - 0 or less.");
+            return;
         }
 
         netconfReplyTimeout = newNetconfReplyTimeout;
         netconfConnectTimeout = newNetconfConnectTimeout;
         netconfIdleTimeout = newNetconfIdleTimeout;
+        netconfEventDriven = newNetconfEventDriven;
+        netconfMaxInFlightRpcs = newNetconfMaxInFlightRpcs;
         if (newSshLibrary != null) {
             sshLibrary = NetconfSshClientLib.getEnum(newSshLibrary);
         }
-        log.info("Settings: {} = {}, {} = {}, {} = {}, {} = {}",
+        log.info("Settings: {} = {}, {} = {}, {} = {}, {} = {}, {} = {}, {} = {}",
                  PROP_NETCONF_REPLY_TIMEOUT, netconfReplyTimeout,
                  PROP_NETCONF_CONNECT_TIMEOUT, netconfConnectTimeout,
                  PROP_NETCONF_IDLE_TIMEOUT, netconfIdleTimeout,
+                 PROP_NETCONF_EVENT_DRIVEN, netconfEventDriven,
+                 PROP_NETCONF_MAX_IN_FLIGHT_RPCS, netconfMaxInFlightRpcs,
                  SSH_LIBRARY, sshLibrary);
     }
 
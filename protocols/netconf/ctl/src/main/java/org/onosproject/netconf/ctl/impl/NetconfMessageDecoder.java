@@ -0,0 +1,363 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Decoder of the NETCONF messages received from a device, supporting both
+ * the end-of-message and the chunked framing mechanisms of RFC 6242.
+ * <p>
+ * The framing of each message is detected from its first bytes: messages
+ * starting with a chunk header are decoded by parsing the chunk headers and
+ * copying the chunk data as is, other messages are delimited by the
+ * end-of-message sequence. The message is decoded from UTF-8 once, after its
+ * framing has been stripped.
+ * </p>
+ * <p>
+ * The decoder either reads the input in blocks from a stream, see
+ * {@link #next()}, or is fed with the blocks received by an event driven
+ * session, see {@link #decode(byte[], int, int, Consumer)}; the decoding
+ * state is kept between blocks in both cases.
+ * </p>
+ * <p>
+ * Not thread safe; blocks must be decoded one at a time, in order.
+ * </p>
+ */
+final class NetconfMessageDecoder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_MESSAGE_SIZE = 16 * 1024;
+    // larger message buffers are released once the message is decoded
+    private static final int MAX_RETAINED_MESSAGE_SIZE = 1024 * 1024;
+    private static final int MAX_CHUNK_SIZE_DIGITS = 10;
+
+    private static final byte LF = '\n';
+    private static final byte HASH = '#';
+    private static final byte GT = '>';
+    private static final byte[] END_OF_MESSAGE = "]]>]]>".getBytes(StandardCharsets.UTF_8);
+
+    private enum State {
+        // first byte of a message
+        START,
+        // after a leading LF, which may start a chunk header
+        START_LF,
+        // within an end-of-message framed message
+        END_OF_MESSAGE,
+        // size of a chunk, or HASH of the end-of-chunks
+        CHUNK_SIZE,
+        // chunk data
+        CHUNK_DATA,
+        // LF, then HASH following the chunk data
+        CHUNK_LF,
+        CHUNK_HASH,
+        // LF of the end-of-chunks
+        END_OF_CHUNKS
+    }
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    private State state = State.START;
+    private byte[] message = new byte[INITIAL_MESSAGE_SIZE];
+    private int length;
+    private long chunkSize;
+    private int chunkSizeDigits;
+    private boolean chunked;
+
+    /**
+     * Creates a decoder fed with the blocks passed to
+     * {@link #decode(byte[], int, int, Consumer)}.
+     */
+    NetconfMessageDecoder() {
+        this.in = null;
+    }
+
+    /**
+     * Creates a decoder reading from the given stream.
+     *
+     * @param in input stream of the session
+     */
+    NetconfMessageDecoder(InputStream in) {
+        this(in, BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a decoder reading from the given stream in blocks of the
+     * given size.
+     *
+     * @param in input stream of the session
+     * @param bufferSize size of the blocks read from the stream
+     */
+    NetconfMessageDecoder(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads and decodes the next message, blocking until it is fully received.
+     * An empty string is returned for a message made of the end-of-message
+     * sequence only.
+     *
+     * @return message with its framing removed, or null if the stream ended
+     * @throws FramingException if the chunked framing of the message is invalid
+     * @throws IOException if the stream cannot be read
+     */
+    String next() throws IOException {
+        while (true) {
+            String decoded = decodeNext();
+            if (decoded != null) {
+                return decoded;
+            }
+            if (!fill()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Decodes the given block of input, passing each message it completes to
+     * the given consumer. An empty string is passed for a message made of the
+     * end-of-message sequence only.
+     *
+     * @param data input data
+     * @param offset offset of the block in the data
+     * @param count number of bytes in the block
+     * @param consumer consumer of the decoded messages
+     * @throws FramingException if the chunked framing of a message is invalid
+     */
+    void decode(byte[] data, int offset, int count, Consumer<String> consumer)
+            throws FramingException {
+        buffer = data;
+        position = offset;
+        limit = offset + count;
+        try {
+            String decoded = decodeNext();
+            while (decoded != null) {
+                consumer.accept(decoded);
+                decoded = decodeNext();
+            }
+        } finally {
+            buffer = null;
+            position = 0;
+            limit = 0;
+        }
+    }
+
+    // Decodes the buffered input until a message is complete; returns null if
+    // the buffered input is consumed first.
+    private String decodeNext() throws FramingException {
+        while (position < limit) {
+            switch (state) {
+                case START:
+                    if (message.length > MAX_RETAINED_MESSAGE_SIZE) {
+                        message = new byte[INITIAL_MESSAGE_SIZE];
+                    }
+                    length = 0;
+                    chunked = false;
+                    byte first = buffer[position++];
+                    append(first);
+                    state = first == LF ? State.START_LF : State.END_OF_MESSAGE;
+                    break;
+
+                case START_LF:
+                    byte second = buffer[position++];
+                    if (second == HASH) {
+                        // chunk headers are not part of the message
+                        length = 0;
+                        startChunk();
+                    } else {
+                        append(second);
+                        state = State.END_OF_MESSAGE;
+                        if (endsWithEndOfMessage()) {
+                            return complete(length - END_OF_MESSAGE.length);
+                        }
+                    }
+                    break;
+
+                case END_OF_MESSAGE:
+                    // the end-of-message sequence is looked for at each '>' only
+                    int end = position;
+                    while (end < limit && buffer[end] != GT) {
+                        end++;
+                    }
+                    if (end == limit) {
+                        append(buffer, position, end - position);
+                        position = end;
+                    } else {
+                        append(buffer, position, end + 1 - position);
+                        position = end + 1;
+                        if (endsWithEndOfMessage()) {
+                            return complete(length - END_OF_MESSAGE.length);
+                        }
+                    }
+                    break;
+
+                case CHUNK_SIZE:
+                    readChunkSize(buffer[position++]);
+                    break;
+
+                case CHUNK_DATA:
+                    int n = (int) Math.min(chunkSize, limit - position);
+                    append(buffer, position, n);
+                    position += n;
+                    chunkSize -= n;
+                    if (chunkSize == 0) {
+                        chunked = true;
+                        state = State.CHUNK_LF;
+                    }
+                    break;
+
+                case CHUNK_LF:
+                case CHUNK_HASH:
+                    byte expected = state == State.CHUNK_LF ? LF : HASH;
+                    if (buffer[position++] != expected) {
+                        throw framingError("chunk longer than its size");
+                    }
+                    if (state == State.CHUNK_LF) {
+                        state = State.CHUNK_HASH;
+                    } else {
+                        startChunk();
+                    }
+                    break;
+
+                case END_OF_CHUNKS:
+                    if (buffer[position++] != LF) {
+                        throw framingError("invalid end of chunks");
+                    }
+                    return complete(length);
+
+                default:
+                    throw new IllegalStateException("Unexpected state " + state);
+            }
+        }
+        return null;
+    }
+
+    private void startChunk() {
+        chunkSize = 0;
+        chunkSizeDigits = 0;
+        state = State.CHUNK_SIZE;
+    }
+
+    private void readChunkSize(byte c) throws FramingException {
+        if (c == HASH && chunkSizeDigits == 0) {
+            if (!chunked) {
+                throw framingError("invalid end of chunks");
+            }
+            state = State.END_OF_CHUNKS;
+        } else if (c == LF && chunkSizeDigits > 0) {
+            if (chunkSize > Integer.MAX_VALUE - length) {
+                throw framingError("invalid chunk size " + chunkSize);
+            }
+            state = State.CHUNK_DATA;
+        } else if (c < '0' || c > '9' || (chunkSizeDigits == 0 && c == '0')
+                || chunkSizeDigits == MAX_CHUNK_SIZE_DIGITS) {
+            throw framingError("invalid chunk size");
+        } else {
+            chunkSize = chunkSize * 10 + c - '0';
+            chunkSizeDigits++;
+        }
+    }
+
+    private String complete(int messageLength) {
+        state = State.START;
+        return new String(message, 0, messageLength, StandardCharsets.UTF_8);
+    }
+
+    private boolean endsWithEndOfMessage() {
+        if (length < END_OF_MESSAGE.length) {
+            return false;
+        }
+        int offset = length - END_OF_MESSAGE.length;
+        for (int i = 0; i < END_OF_MESSAGE.length; i++) {
+            if (message[offset + i] != END_OF_MESSAGE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        int n = in.read(buffer);
+        while (n == 0) {
+            n = in.read(buffer);
+        }
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        message[length++] = b;
+    }
+
+    // The message buffer grows with the data actually received rather than
+    // with the announced chunk sizes.
+    private void append(byte[] bytes, int offset, int count) {
+        ensureCapacity(count);
+        System.arraycopy(bytes, offset, message, length, count);
+        length += count;
+    }
+
+    private void ensureCapacity(int count) {
+        int required = length + count;
+        if (required > message.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+                                          Math.max(required, 2L * message.length));
+            message = Arrays.copyOf(message, capacity);
+        }
+    }
+
+    private FramingException framingError(String reason) {
+        return new FramingException(reason, new String(message, 0, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Signals a message whose chunked framing is invalid.
+     */
+    static final class FramingException extends IOException {
+
+        private static final long serialVersionUID = 7261523960238946125L;
+
+        private final String partialMessage;
+
+        private FramingException(String reason, String partialMessage) {
+            super(reason);
+            this.partialMessage = partialMessage;
+        }
+
+        /**
+         * Returns the part of the message decoded before the framing error.
+         *
+         * @return partial message
+         */
+        String partialMessage() {
+            return partialMessage;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import com.google.common.collect.Lists;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfDeviceOutputEvent;
+import org.onosproject.netconf.NetconfDeviceOutputEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dispatches the messages decoded from a NETCONF session to the session
+ * delegate and to the device output listeners; shared by the stream
+ * handlers.
+ */
+final class NetconfReplyDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NetconfReplyDispatcher.class);
+
+    private static final String HELLO = "<hello";
+    private static final String RPC_REPLY = "rpc-reply";
+    private static final String RPC_ERROR = "rpc-error";
+    private static final String NOTIFICATION_LABEL = "<notification";
+    private static final String MESSAGE_ID = "message-id=";
+    private static final Pattern MSGID_PATTERN = Pattern.compile(MESSAGE_ID + "\"(\\d+)\"");
+
+    private final NetconfDeviceInfo netconfDeviceInfo;
+    private final NetconfSessionDelegate sessionDelegate;
+    private final List<NetconfDeviceOutputEventListener> netconfDeviceEventListeners
+            = Lists.newCopyOnWriteArrayList();
+    private volatile boolean enableNotifications = true;
+
+    NetconfReplyDispatcher(NetconfDeviceInfo deviceInfo, NetconfSessionDelegate delegate) {
+        this.netconfDeviceInfo = deviceInfo;
+        this.sessionDelegate = delegate;
+    }
+
+    void addDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        if (!netconfDeviceEventListeners.contains(listener)) {
+            netconfDeviceEventListeners.add(listener);
+        }
+    }
+
+    void removeDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        netconfDeviceEventListeners.remove(listener);
+    }
+
+    void setEnableNotifications(boolean enableNotifications) {
+        this.enableNotifications = enableNotifications;
+    }
+
+    /**
+     * Notifies the listeners that the session was closed by the device.
+     */
+    void sessionClosed() {
+        NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                NetconfDeviceOutputEvent.Type.SESSION_CLOSED,
+                null, null, Optional.of(-1), netconfDeviceInfo);
+        netconfDeviceEventListeners.forEach(
+                listener -> listener.event(event));
+    }
+
+    /**
+     * Notifies the listeners that the device must be unregistered, following
+     * the given message.
+     *
+     * @param deviceReply message received from the device
+     */
+    void deviceUnregistered(String deviceReply) {
+        log.debug("Netconf device {} socketClosed = true DEVICE_UNREGISTERED {}",
+                netconfDeviceInfo, deviceReply);
+        NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                NetconfDeviceOutputEvent.Type.DEVICE_UNREGISTERED,
+                null, null, Optional.of(-1), netconfDeviceInfo);
+        netconfDeviceEventListeners.forEach(
+                listener -> listener.event(event));
+    }
+
+    /**
+     * Dispatches a reply or notification received from the device.
+     *
+     * @param deviceReply message received from the device
+     */
+    void dispatch(String deviceReply) {
+        if (deviceReply.contains(RPC_REPLY) ||
+                deviceReply.contains(RPC_ERROR) ||
+                deviceReply.contains(HELLO)) {
+            log.debug("Netconf device {} sessionDelegate.notify() DEVICE_REPLY {} {}",
+                    netconfDeviceInfo, getMsgId(deviceReply), deviceReply);
+            NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                    NetconfDeviceOutputEvent.Type.DEVICE_REPLY,
+                    null, deviceReply, getMsgId(deviceReply), netconfDeviceInfo);
+            sessionDelegate.notify(event);
+            netconfDeviceEventListeners.forEach(
+                    listener -> listener.event(event));
+        } else if (deviceReply.contains(NOTIFICATION_LABEL)) {
+            log.debug("Netconf device {} DEVICE_NOTIFICATION {} {} {}",
+                    netconfDeviceInfo, enableNotifications,
+                    getMsgId(deviceReply), deviceReply);
+            if (enableNotifications) {
+                log.debug("dispatching to {} listeners", netconfDeviceEventListeners.size());
+                netconfDeviceEventListeners.forEach(
+                        listener -> listener.event(new NetconfDeviceOutputEvent(
+                                NetconfDeviceOutputEvent.Type.DEVICE_NOTIFICATION,
+                                null, deviceReply, getMsgId(deviceReply),
+                                netconfDeviceInfo)));
+            }
+        } else {
+            log.debug("Error on reply from device {} {}", netconfDeviceInfo, deviceReply);
+        }
+    }
+
+    static Optional<Integer> getMsgId(String reply) {
+        Matcher matcher = MSGID_PATTERN.matcher(reply);
+        if (matcher.find()) {
+            try {
+                return Optional.of(Integer.valueOf(matcher.group(1)));
+            } catch (NumberFormatException e) {
+                log.warn("Failed to parse message-id from {}", matcher.group(), e);
+            }
+        }
+        if (reply.contains(HELLO)) {
+            return Optional.of(-1);
+        }
+        return Optional.empty();
+    }
+}
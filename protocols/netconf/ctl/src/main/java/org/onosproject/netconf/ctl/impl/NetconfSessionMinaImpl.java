@@ -123,6 +123,9 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
 
     private static ServiceDirectory directory = new DefaultServiceDirectory();
 
+    // SSH client shared by the event driven sessions, guarded by the class
+    private static SshClient sharedClient;
+
     private String sessionID;
     private final AtomicInteger messageIdInteger = new AtomicInteger(1);
     protected final NetconfDeviceInfo deviceInfo;
@@ -148,6 +151,8 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
     private int connectTimeout;
     private int replyTimeout;
     private int idleTimeout;
+    private final boolean eventDriven = NetconfControllerImpl.netconfEventDriven;
+    private final int maxInFlightRpcs = NetconfControllerImpl.netconfMaxInFlightRpcs;
 
     private ClientChannel channel = null;
     private ClientSession session = null;
@@ -220,6 +225,11 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
         log.info("Creating NETCONF session to {}",
                  deviceInfo.getDeviceId());
 
+        if (eventDriven) {
+            client = sharedClient();
+            startSession();
+            return;
+        }
         client = SshClient.setUpDefaultClient();
         client.getProperties().putIfAbsent(FactoryManager.IDLE_TIMEOUT,
                 TimeUnit.SECONDS.toMillis(idleTimeout));
@@ -230,6 +240,42 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
         startSession();
     }
 
+    /**
+     * Returns the SSH client shared by the event driven sessions, starting
+     * it if needed. Its IO threads read the replies of all these sessions.
+     *
+     * @return started SSH client
+     */
+    private static synchronized SshClient sharedClient() {
+        if (sharedClient == null || sharedClient.isClosed() || sharedClient.isClosing()) {
+            sharedClient = SshClient.setUpDefaultClient();
+            // idle timeout is set per session; the read timeout only guards
+            // against connections that are silently gone
+            sharedClient.getProperties().put(FactoryManager.NIO2_READ_TIMEOUT,
+                    TimeUnit.SECONDS.toMillis(NetconfControllerImpl.netconfIdleTimeout + 15L));
+            sharedClient.start();
+            sharedClient.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        }
+        return sharedClient;
+    }
+
+    /**
+     * Stops the SSH client shared by the event driven sessions, if any.
+     */
+    static synchronized void stopSharedClient() {
+        if (sharedClient != null) {
+            sharedClient.stop();
+            sharedClient = null;
+        }
+    }
+
+    // Closes the SSH client of this session, unless it is shared.
+    private void closeClient() throws IOException {
+        if (!eventDriven) {
+            client.close();
+        }
+    }
+
     //TODO: Remove the default methods already implemented in NetconfSession
 
     // FIXME blocking
@@ -241,6 +287,10 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
                 deviceInfo.port())
                 .verify(connectTimeout, TimeUnit.SECONDS);
         session = connectFuture.getSession();
+        if (eventDriven) {
+            session.getProperties().put(FactoryManager.IDLE_TIMEOUT,
+                    TimeUnit.SECONDS.toMillis(idleTimeout));
+        }
         //Using the device ssh key if possible
         if (deviceInfo.getKey() != null) {
             try (PEMParser pemParser = new PEMParser(new CharArrayReader(deviceInfo.getKey()))) {
@@ -283,9 +333,18 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
     @Deprecated
     private void openChannel() throws IOException {
         channel = session.createSubsystemChannel("netconf");
+        if (eventDriven) {
+            channel.setStreaming(ClientChannel.Streaming.Async);
+        }
         OpenFuture channelFuture = channel.open();
         if (channelFuture.await(connectTimeout, TimeUnit.SECONDS)) {
-            if (channelFuture.isOpened()) {
+            if (channelFuture.isOpened() && eventDriven) {
+                NetconfAsyncStreamHandler handler = new NetconfAsyncStreamHandler(
+                        channel, deviceInfo, new NetconfSessionDelegateImpl(), replies,
+                        maxInFlightRpcs, TimeUnit.SECONDS.toMillis(replyTimeout));
+                handler.start();
+                streamHandler = handler;
+            } else if (channelFuture.isOpened()) {
                 streamHandler = new NetconfStreamThread(channel.getInvertedOut(), channel.getInvertedIn(),
                         channel.getInvertedErr(), deviceInfo,
                         new NetconfSessionDelegateImpl(), replies);
@@ -600,11 +659,16 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
             throw new NetconfException("Timed out waiting for reply for request " +
                     request + " after " + replyTimeout + " sec.", e);
         } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // event driven sessions time out requests on their own
+                throw new NetconfException("Timed out waiting for reply for request " +
+                        request + " after " + replyTimeout + " sec.", e.getCause());
+            }
             log.warn("Closing session {} for {} due to unexpected Error", sessionID, deviceInfo, e);
             try {
                 session.close();
                 channel.close(); //Closes the socket which should interrupt NetconfStreamThread
-                client.close();
+                closeClient();
             } catch (IOException ioe) {
                 log.warn("Error closing session {} on {}", sessionID, deviceInfo, ioe);
             }
@@ -726,7 +790,7 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
             try {
                 session.close();
                 channel.close();
-                client.close();
+                closeClient();
             } catch (IOException ioe) {
                 log.warn("Error closing session {} on {}", sessionID, deviceInfo, ioe);
             }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import org.apache.sshd.client.channel.ClientChannel;
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.io.IoInputStream;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.packet.IpAddress;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfDeviceOutputEvent;
+import org.onosproject.netconf.NetconfTransportException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the failure of the pending requests of an event driven
+ * NETCONF session when the session ends.
+ */
+public class NetconfAsyncStreamHandlerTest {
+
+    private static final NetconfDeviceInfo DEVICE_INFO =
+            new NetconfDeviceInfo("device", "001", IpAddress.valueOf("10.0.0.1"), 830);
+    private static final long REPLY_TIMEOUT_MILLIS = 60_000;
+
+    private final Map<Integer, CompletableFuture<String>> replies = new ConcurrentHashMap<>();
+    private final List<NetconfDeviceOutputEvent> events = new CopyOnWriteArrayList<>();
+    private final Capture<SshFutureListener<IoReadFuture>> readListener = newCapture();
+    private NetconfAsyncStreamHandler handler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // writes never complete, so that the requests stay pending
+        IoWriteFuture writeFuture = createMock(IoWriteFuture.class);
+        expect(writeFuture.addListener(anyObject())).andReturn(writeFuture).anyTimes();
+        IoOutputStream asyncIn = createMock(IoOutputStream.class);
+        expect(asyncIn.write(anyObject())).andReturn(writeFuture).anyTimes();
+
+        IoReadFuture readFuture = createMock(IoReadFuture.class);
+        expect(readFuture.addListener(capture(readListener))).andReturn(readFuture).anyTimes();
+        IoInputStream asyncOut = createMock(IoInputStream.class);
+        expect(asyncOut.read(anyObject())).andReturn(readFuture).anyTimes();
+
+        ClientChannel channel = createMock(ClientChannel.class);
+        expect(channel.getAsyncIn()).andReturn(asyncIn).anyTimes();
+        expect(channel.getAsyncOut()).andReturn(asyncOut).anyTimes();
+        replay(writeFuture, asyncIn, readFuture, asyncOut, channel);
+
+        handler = new NetconfAsyncStreamHandler(channel, DEVICE_INFO, event -> { }, replies,
+                                                1, REPLY_TIMEOUT_MILLIS);
+        handler.addDeviceEventListener(events::add);
+        handler.start();
+    }
+
+    private static IoReadFuture readResult(Buffer buffer, Throwable exception) {
+        IoReadFuture future = createMock(IoReadFuture.class);
+        expect(future.getBuffer()).andReturn(buffer).anyTimes();
+        expect(future.getException()).andReturn(exception).anyTimes();
+        replay(future);
+        return future;
+    }
+
+    private static void assertClosedFailure(CompletableFuture<String> future) throws InterruptedException {
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("request should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NetconfTransportException);
+        }
+    }
+
+    /**
+     * Tests that sent and queued requests fail as soon as the session is
+     * closed by the device, as do the requests sent afterwards.
+     */
+    @Test
+    public void testSessionClosed() throws InterruptedException {
+        CompletableFuture<String> sent = handler.sendMessage("<rpc message-id=\"1\"/>", 1);
+        CompletableFuture<String> queued = handler.sendMessage("<rpc message-id=\"2\"/>", 2);
+        assertEquals(2, replies.size());
+
+        readListener.getValue().operationComplete(readResult(null, new IOException("closed")));
+
+        assertClosedFailure(sent);
+        assertClosedFailure(queued);
+        assertTrue(replies.isEmpty());
+        assertEquals(1, events.size());
+        assertEquals(NetconfDeviceOutputEvent.Type.SESSION_CLOSED, events.get(0).type());
+
+        assertClosedFailure(handler.sendMessage("<rpc message-id=\"3\"/>", 3));
+        assertTrue(replies.isEmpty());
+    }
+
+    /**
+     * Tests that requests failed on a closed session do not release an
+     * in-flight slot they never took.
+     */
+    @Test
+    public void testInFlightAfterClose() throws Exception {
+        handler.sendMessage("<rpc message-id=\"1\"/>", 1);
+        handler.sendMessage("<rpc message-id=\"2\"/>", 2);
+        assertEquals(1, (int) TestUtils.getField(handler, "inFlight"));
+
+        readListener.getValue().operationComplete(readResult(null, new IOException("closed")));
+        assertEquals(0, (int) TestUtils.getField(handler, "inFlight"));
+
+        assertClosedFailure(handler.sendMessage("<rpc message-id=\"3\"/>", 3));
+        assertClosedFailure(handler.sendMessage("<rpc message-id=\"4\"/>", 4));
+        assertEquals(0, (int) TestUtils.getField(handler, "inFlight"));
+    }
+
+    /**
+     * Tests that the pending requests fail on a framing error.
+     */
+    @Test
+    public void testFramingError() throws InterruptedException {
+        CompletableFuture<String> sent = handler.sendMessage("<rpc message-id=\"1\"/>", 1);
+
+        byte[] badlyFramed = "\n#x\n<rpc-reply/>".getBytes(StandardCharsets.UTF_8);
+        readListener.getValue().operationComplete(readResult(new ByteArrayBuffer(badlyFramed), null));
+
+        assertClosedFailure(sent);
+        assertTrue(replies.isEmpty());
+        assertEquals(NetconfDeviceOutputEvent.Type.DEVICE_UNREGISTERED, events.get(0).type());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onosproject.netconf.ctl.impl.NetconfStreamThread.NetconfMessageState;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the throughput of NetconfMessageDecoder with the former decoding
+ * of NetconfStreamThread, which read the input a character at a time and
+ * stripped the framing with regular expressions, on synthetic multi-MB
+ * get-config replies.
+ */
+public class NetconfMessageDecoderPerfTest {
+
+    private static final String FMT = "%-8s %-8s %8s %10s %10s";
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int WARMUP = 3;
+    private static final int REPLY_MB = 16;
+    private static final int REPLIES = 5;
+
+    @Test
+    @Ignore
+    public void decodePerf() throws IOException {
+        byte[] reply = reply(REPLY_MB * 1024 * 1024);
+        byte[] eom = concat(reply, "]]>]]>".getBytes(StandardCharsets.UTF_8));
+        byte[] chunked = chunked(reply);
+
+        System.out.println(String.format(FMT, "framing", "decoder", "reply MB", "ms/reply", "MB/s"));
+        for (int i = 0; i < WARMUP; i++) {
+            legacy(eom);
+            legacy(chunked);
+            decoder(eom);
+            decoder(chunked);
+        }
+        run("eom", "legacy", eom, REPLIES, true);
+        run("eom", "buffer", eom, REPLIES, false);
+        run("chunked", "legacy", chunked, REPLIES, true);
+        run("chunked", "buffer", chunked, REPLIES, false);
+    }
+
+    private static void run(String framing, String name, byte[] input, int replies,
+                            boolean legacy) throws IOException {
+        long length = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < replies; i++) {
+            length += legacy ? legacy(input) : decoder(input);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / replies;
+        double mb = input.length / (1024.0 * 1024.0);
+        System.out.println(String.format(FMT + " %s", framing, name, String.format("%.1f", mb),
+                                         String.format("%.1f", millis),
+                                         String.format("%.1f", mb / millis * 1000),
+                                         length == 0 ? "(no reply decoded)" : ""));
+    }
+
+    private static int decoder(byte[] input) throws IOException {
+        String reply = new NetconfMessageDecoder(new ByteArrayInputStream(input)).next();
+        return reply.length();
+    }
+
+    // Decoding formerly done by NetconfStreamThread.run
+    private static int legacy(byte[] input) throws IOException {
+        InputStream in = new ByteArrayInputStream(input);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        NetconfMessageState state = NetconfMessageState.NO_MATCHING_PATTERN;
+        StringBuilder builder = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            state = state.evaluateChar((char) c);
+            builder.append((char) c);
+            if (state == NetconfMessageState.END_PATTERN) {
+                return builder.toString().replace("]]>]]>", "").length();
+            } else if (state == NetconfMessageState.END_CHUNKED_PATTERN) {
+                String reply = builder.toString();
+                reply = reply.replaceAll("\n#\\d+\n", "");
+                reply = reply.replaceAll("\n##\n", "");
+                return reply.length();
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] reply(int size) {
+        StringBuilder sb = new StringBuilder(size + 1024);
+        sb.append("<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"7\">"
+                          + "<data><optical-ports>");
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("<port><name>port-").append(i).append("</name>")
+                    .append("<admin-state>enabled</admin-state>")
+                    .append("<frequency>").append(191_350_000 + (i % 96) * 50_000).append("</frequency>")
+                    .append("<description>Línea óptica ").append(i).append("</description></port>\n");
+        }
+        sb.append("</optical-ports></data></rpc-reply>");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] chunked(byte[] reply) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(reply.length + reply.length / 1000);
+        for (int i = 0; i < reply.length; i += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, reply.length - i);
+            byte[] header = ("\n#" + n + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(header, 0, header.length);
+            out.write(reply, i, n);
+        }
+        byte[] end = "\n##\n".getBytes(StandardCharsets.UTF_8);
+        out.write(end, 0, end.length);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for NetconfMessageDecoder.
+ */
+public class NetconfMessageDecoderTest {
+
+    private static final String REPLY1 =
+            "<rpc-reply message-id=\"1\"><data><x>été</x></data></rpc-reply>";
+    private static final String REPLY2 = "<rpc-reply message-id=\"2\"><ok/></rpc-reply>";
+    private static final String EOM = "]]>]]>";
+
+    private static InputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Delivers the input one byte per read to exercise buffer boundaries.
+    private static InputStream trickle(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    private static String chunked(String message, int chunkSize) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            int n = Math.min(chunkSize, bytes.length - i);
+            // chunks may split multi-byte characters
+            sb.append("\n#").append(n).append('\n')
+                    .append(new String(bytes, i, n, StandardCharsets.ISO_8859_1));
+        }
+        return sb.append("\n##\n").toString();
+    }
+
+    private static InputStream latin1(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testEndOfMessage() throws IOException {
+        String input = REPLY1 + EOM + "\n" + REPLY2 + EOM;
+        for (InputStream in : new InputStream[]{stream(input), trickle(input)}) {
+            NetconfMessageDecoder decoder = new NetconfMessageDecoder(in, 7);
+            assertEquals(REPLY1, decoder.next());
+            assertEquals("\n" + REPLY2, decoder.next());
+            assertNull(decoder.next());
+        }
+    }
+
+    @Test
+    public void testPartialEndOfMessage() throws IOException {
+        NetconfMessageDecoder decoder = new NetconfMessageDecoder(stream("<a>]]>]]]>]>x" + EOM + EOM));
+        assertEquals("<a>]]>]]]>]>x", decoder.next());
+        assertEquals("", decoder.next());
+    }
+
+    @Test
+    public void testChunked() throws IOException {
+        String input = chunked(REPLY1, 5) + chunked(REPLY2, 1000);
+        NetconfMessageDecoder decoder = new NetconfMessageDecoder(latin1(input), 3);
+        assertEquals(REPLY1, decoder.next());
+        assertEquals(REPLY2, decoder.next());
+        assertNull(decoder.next());
+    }
+
+    @Test
+    public void testChunkContainingFraming() throws IOException {
+        // chunk data is copied as is, whatever it contains
+        String data = "<x>\n#12\n]]>]]>\n##\n</x>";
+        NetconfMessageDecoder decoder = new NetconfMessageDecoder(stream(chunked(data, 100)));
+        assertEquals(data, decoder.next());
+    }
+
+    @Test
+    public void testMixedFraming() throws IOException {
+        NetconfMessageDecoder decoder = new NetconfMessageDecoder(
+                latin1(REPLY2 + EOM + chunked(REPLY2, 10)));
+        assertEquals(REPLY2, decoder.next());
+        assertEquals(REPLY2, decoder.next());
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        assertNull(new NetconfMessageDecoder(stream(REPLY1)).next());
+        assertNull(new NetconfMessageDecoder(stream("\n#100\n<rpc-reply")).next());
+        assertNull(new NetconfMessageDecoder(stream("\n#3\nabc\n")).next());
+    }
+
+    @Test
+    public void testBadFraming() throws IOException {
+        assertFramingError("\n#0\n\n##\n");
+        assertFramingError("\n#012\n");
+        assertFramingError("\n#x\n");
+        assertFramingError("\n##\n");
+        assertFramingError("\n#99999999999\n");
+        assertFramingError("\n#3\nabcd\n##\n");
+        assertFramingError("\n#3\nabc\n##x");
+    }
+
+    @Test
+    public void testPushedBlocks() throws IOException {
+        // end of message framing before the hello exchange, then chunked
+        String eom = new String(REPLY1.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1) + EOM;
+        byte[] input = (eom + chunked(REPLY2, 5) + chunked(REPLY1, 3))
+                .getBytes(StandardCharsets.ISO_8859_1);
+        for (int block = 1; block <= 17; block++) {
+            NetconfMessageDecoder decoder = new NetconfMessageDecoder();
+            List<String> messages = new ArrayList<>();
+            for (int i = 0; i < input.length; i += block) {
+                decoder.decode(input, i, Math.min(block, input.length - i), messages::add);
+            }
+            assertEquals(Arrays.asList(REPLY1, REPLY2, REPLY1), messages);
+        }
+    }
+
+    private static void assertFramingError(String input) throws IOException {
+        try {
+            new NetconfMessageDecoder(stream(input)).next();
+            fail("expected framing error for " + input);
+        } catch (NetconfMessageDecoder.FramingException e) {
+            // expected
+        }
+    }
+}
@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.security.Security;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -51,6 +52,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -129,6 +131,7 @@ public class NetconfSessionMinaImplTest {
     private static NetconfSession session2;
     private static NetconfSession session3;
     private static NetconfSession session4;
+    private static NetconfSession eventDrivenSession;
     private static SshServer sshServerNetconf;
 
     @BeforeClass
@@ -186,6 +189,20 @@ public class NetconfSessionMinaImplTest {
         assertTrue("Incorrect sessionId", !session4.getSessionId().equalsIgnoreCase("-1"));
         assertTrue("Incorrect sessionId", !session4.getSessionId().equalsIgnoreCase("0"));
         assertThat(session4.getDeviceCapabilitiesSet(), containsInAnyOrder(DEFAULT_CAPABILITIES_1_1.toArray()));
+
+        NetconfControllerImpl.netconfEventDriven = true;
+        NetconfControllerImpl.netconfMaxInFlightRpcs = 2;
+        try {
+            eventDrivenSession = new NetconfSessionMinaImpl(deviceInfo);
+        } finally {
+            NetconfControllerImpl.netconfEventDriven = NetconfControllerImpl.DEFAULT_EVENT_DRIVEN;
+            NetconfControllerImpl.netconfMaxInFlightRpcs = NetconfControllerImpl.DEFAULT_MAX_IN_FLIGHT_RPCS;
+        }
+        log.info("Started event driven NETCONF Session {} with test SSHD server in Unit Test",
+                 eventDrivenSession.getSessionId());
+        assertTrue("Incorrect sessionId", !eventDrivenSession.getSessionId().equalsIgnoreCase("-1"));
+        assertThat(eventDrivenSession.getDeviceCapabilitiesSet(),
+                   containsInAnyOrder(DEFAULT_CAPABILITIES_1_1.toArray()));
     }
 
     @AfterClass
@@ -202,6 +219,10 @@ public class NetconfSessionMinaImplTest {
         if (session4 != null) {
             session4.close();
         }
+        if (eventDrivenSession != null) {
+            eventDrivenSession.close();
+        }
+        NetconfSessionMinaImpl.stopSharedClient();
 
         TestUtils.setField(NetconfSessionMinaImpl.class, "directory", null);
         sshServerNetconf.stop();
@@ -547,6 +568,33 @@ public class NetconfSessionMinaImplTest {
         fail("NETCONF test failed to complete.");
     }
 
+    @Test
+    public void testEventDrivenSession() throws NetconfException {
+        assertTrue("NETCONF edit-config command failed",
+                   eventDrivenSession.editConfig(RUNNING, null, SAMPLE_REQUEST));
+        assertTrue("NETCONF get-config running command failed. ",
+                   GET_REPLY_PATTERN.matcher(eventDrivenSession.getConfig(RUNNING, SAMPLE_REQUEST)).matches());
+    }
+
+    @Test
+    public void testEventDrivenSessionInFlightRequests() throws Exception {
+        // more concurrent requests than allowed in flight on the session
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        List<FutureTask<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            FutureTask<Boolean> task = new FutureTask<>(
+                    new NCCopyConfigCallable(eventDrivenSession, RUNNING, i % 2 == 0 ? "candidate" : "startup"));
+            tasks.add(task);
+            executor.execute(task);
+        }
+        try {
+            for (FutureTask<Boolean> task : tasks) {
+                assertTrue("NETCONF copy-config command failed", task.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 
     public static String getTestHelloReply(Optional<Long> sessionId) {
         return getTestHelloReply(DEFAULT_CAPABILITIES, sessionId);
@@ -15,6 +15,7 @@
  */
 package org.onosproject.ospf.controller.area;
 
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
@@ -28,6 +29,7 @@ import org.onosproject.ospf.controller.OspfLsdb;
 import org.onosproject.ospf.controller.OspfNbr;
 import org.onosproject.ospf.controller.OspfNeighborState;
 import org.onosproject.ospf.controller.impl.OspfNbrImpl;
+import org.onosproject.ospf.controller.impl.TopologyUpdateThrottle;
 import org.onosproject.ospf.controller.lsdb.OspfLsdbImpl;
 import org.onosproject.ospf.exceptions.OspfParseException;
 import org.onosproject.ospf.protocol.lsa.LsaHeader;
@@ -84,6 +86,7 @@ public class OspfAreaImpl implements OspfArea {
      * Represents Opaque Enable or not.
      */
     private boolean isOpaqueEnable;
+    private final TopologyUpdateThrottle topologyUpdateThrottle = new TopologyUpdateThrottle();
 
     /**
      * Creates an instance of area implementation.
@@ -726,4 +729,25 @@ public class OspfAreaImpl implements OspfArea {
     public OspfLsdb database() {
         return database;
     }
+
+    /**
+     * Gets the throttle of the topology computations of this area.
+     *
+     * @return topology update throttle
+     */
+    public TopologyUpdateThrottle topologyUpdateThrottle() {
+        return topologyUpdateThrottle;
+    }
+
+    /**
+     * Sets the timers of the LSA batch processing and of the topology
+     * computations of this area.
+     *
+     * @param lsaBatchTimer       LSA batch processing timer, or null
+     * @param topologyUpdateTimer topology computation timer, or null
+     */
+    public void setTimers(Timer lsaBatchTimer, Timer topologyUpdateTimer) {
+        database.setBatchTimer(lsaBatchTimer);
+        topologyUpdateThrottle.setTimer(topologyUpdateTimer);
+    }
 }
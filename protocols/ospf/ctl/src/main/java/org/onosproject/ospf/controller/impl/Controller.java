@@ -15,6 +15,7 @@
  */
 package org.onosproject.ospf.controller.impl;
 
+import com.codahale.metrics.Timer;
 import org.jboss.netty.bootstrap.ClientBootstrap;
 import org.jboss.netty.channel.AdaptiveReceiveBufferSizePredictor;
 import org.jboss.netty.channel.ChannelFuture;
@@ -31,6 +32,7 @@ import org.onosproject.ospf.controller.OspfInterface;
 import org.onosproject.ospf.controller.OspfLinkTed;
 import org.onosproject.ospf.controller.OspfProcess;
 import org.onosproject.ospf.controller.OspfRouter;
+import org.onosproject.ospf.controller.area.OspfAreaImpl;
 import org.onosproject.ospf.protocol.util.OspfUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +68,8 @@ public class Controller {
     private int connectRetryTime;
     private DriverService driverService;
     private OspfAgent agent;
+    private Timer lsaBatchTimer;
+    private Timer topologyUpdateTimer;
 
     /**
      * Deactivates OSPF controller.
@@ -87,6 +91,9 @@ public class Controller {
         for (OspfProcess ospfProcess : ospfProcesses) {
             log.debug("OspfProcessDetails : " + ospfProcess);
             for (OspfArea ospfArea : ospfProcess.areas()) {
+                if (ospfArea instanceof OspfAreaImpl) {
+                    ((OspfAreaImpl) ospfArea).setTimers(lsaBatchTimer, topologyUpdateTimer);
+                }
                 for (OspfInterface ospfInterface : ospfArea.ospfInterfaceList()) {
                     log.debug("OspfInterfaceDetails : " + ospfInterface);
                     numberOfInterface++;
@@ -162,6 +169,29 @@ public class Controller {
         }
     }
 
+    /**
+     * Sets the timers of the LSA batch processing and of the topology
+     * computations of the areas configured afterwards.
+     *
+     * @param lsaBatchTimer       LSA batch processing timer, or null
+     * @param topologyUpdateTimer topology computation timer, or null
+     */
+    public void setTimers(Timer lsaBatchTimer, Timer topologyUpdateTimer) {
+        this.lsaBatchTimer = lsaBatchTimer;
+        this.topologyUpdateTimer = topologyUpdateTimer;
+    }
+
+    /**
+     * Returns the number of LSAs in the link state databases of the
+     * configured areas.
+     *
+     * @return number of LSAs
+     */
+    public int lsaCount() {
+        OspfInterfaceChannelHandler handler = ospfChannelHandler;
+        return handler == null ? 0 : handler.lsaCount();
+    }
+
     /**
      * Gets all configured processes.
      *
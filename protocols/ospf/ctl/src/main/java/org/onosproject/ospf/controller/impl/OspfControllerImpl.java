@@ -16,6 +16,7 @@
 
 package org.onosproject.ospf.controller.impl;
 
+import com.codahale.metrics.Gauge;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Sets;
 import org.apache.felix.scr.annotations.Activate;
@@ -24,6 +25,10 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.net.driver.DriverService;
 import org.onosproject.ospf.controller.OspfAgent;
 import org.onosproject.ospf.controller.OspfController;
@@ -45,12 +50,18 @@ import java.util.Set;
  */
 @Component(immediate = true)
 @Service
-public class OspfControllerImpl implements OspfController {
+public class OspfControllerImpl implements OspfController, MetricsHelper {
 
     private static final Logger log = LoggerFactory.getLogger(OspfControllerImpl.class);
+    private static final String METRICS_COMPONENT = "Ospf";
+    private static final String LSDB_FEATURE = "lsdb";
+    private static final String TOPOLOGY_FEATURE = "topology";
+    private static final String LSA_COUNT = "lsaCount";
     private final Controller ctrl = new Controller();
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DriverService driverService;
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
     protected Set<OspfRouterListener> ospfRouterListener = new HashSet<>();
     protected Set<OspfLinkListener> ospfLinkListener = Sets.newHashSet();
     protected OspfAgent agent = new InternalDeviceConfig();
@@ -58,17 +69,45 @@ public class OspfControllerImpl implements OspfController {
     @Activate
     public void activate() {
         log.info("OSPFControllerImpl activate...!!!");
+        ctrl.setTimers(createTimer(METRICS_COMPONENT, LSDB_FEATURE, "batchProcessing"),
+                       createTimer(METRICS_COMPONENT, TOPOLOGY_FEATURE, "update"));
+        registerLsaCountGauge();
         ctrl.start(agent, driverService);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
+        unregisterLsaCountGauge();
         ctrl.stop();
         log.info("Stopped");
     }
 
 
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
+    // Publishes the number of LSAs in the link state databases.
+    private void registerLsaCountGauge() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(LSDB_FEATURE);
+        metricsService.registerMetric(component, feature, LSA_COUNT, (Gauge<Integer>) ctrl::lsaCount);
+    }
+
+    private void unregisterLsaCountGauge() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(LSDB_FEATURE);
+        metricsService.removeMetric(component, feature, LSA_COUNT);
+    }
+
     @Override
     public void addRouterListener(OspfRouterListener listener) {
         if (!ospfRouterListener.contains(listener)) {
@@ -29,6 +29,7 @@ import org.onosproject.ospf.controller.OspfMessage;
 import org.onosproject.ospf.controller.OspfNbr;
 import org.onosproject.ospf.controller.OspfProcess;
 import org.onosproject.ospf.controller.area.OspfInterfaceImpl;
+import org.onosproject.ospf.controller.lsdb.OspfLsdbImpl;
 import org.onosproject.ospf.controller.util.OspfInterfaceType;
 import org.onosproject.ospf.exceptions.OspfParseException;
 import org.onosproject.ospf.protocol.util.OspfInterfaceState;
@@ -37,8 +38,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -146,6 +150,24 @@ public class OspfInterfaceChannelHandler extends IdleStateAwareChannelHandler {
         }
     }
 
+    /**
+     * Returns the number of LSAs in the link state databases of the areas
+     * of the configured interfaces.
+     *
+     * @return number of LSAs
+     */
+    public int lsaCount() {
+        Set<OspfArea> areas = Collections.newSetFromMap(new IdentityHashMap<>());
+        int count = 0;
+        for (OspfInterface ospfInterface : ospfInterfaceMap.values()) {
+            OspfArea area = ospfInterface.ospfArea();
+            if (area != null && areas.add(area) && area.database() instanceof OspfLsdbImpl) {
+                count += ((OspfLsdbImpl) area.database()).lsaCount();
+            }
+        }
+        return count;
+    }
+
     /**
      * Initialize channel, start hello sender and initialize LSDB.
      */
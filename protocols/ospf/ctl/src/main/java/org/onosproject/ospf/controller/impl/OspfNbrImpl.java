@@ -1151,8 +1151,10 @@ public class OspfNbrImpl implements OspfNbr {
                 } else {
                     ospfArea.addLsa(recLsa, ospfInterface);
                     log.debug("Inside addLsaMethod");
-                    topologyForDeviceAndLink.addLocalDevice(recLsa, ospfInterface, ospfArea);
-                    callDeviceAndLinkAdding(topologyForDeviceAndLink);
+                    synchronized (topologyForDeviceAndLink) {
+                        topologyForDeviceAndLink.addLocalDevice(recLsa, ospfInterface, ospfArea);
+                        callDeviceAndLinkAdding(topologyForDeviceAndLink);
+                    }
                     log.debug("Adding to lsdb interface State {}", ((OspfInterfaceImpl) ospfInterface).state().value());
                     // should not send any acknowledge if flooded out on receiving interface
                     if (((OspfInterfaceImpl) ospfInterface).state().value() == OspfInterfaceState.BDR.value()) {
@@ -1206,12 +1208,23 @@ public class OspfNbrImpl implements OspfNbr {
             }
         }
 
-        constructDeviceInformationFromDb();
-        callDeviceAndLinkAdding(topologyForDeviceAndLink);
+        // rebuilding from the whole database is throttled per area rather than done per LSA
+        ((OspfAreaImpl) ospfArea).topologyUpdateThrottle()
+                .request(topologyForDeviceAndLink, this::updateTopologyFromDb);
 
         return true;
     }
 
+    /**
+     * Rebuilds device and link information from the link state database.
+     */
+    private void updateTopologyFromDb() {
+        synchronized (topologyForDeviceAndLink) {
+            constructDeviceInformationFromDb();
+            callDeviceAndLinkAdding(topologyForDeviceAndLink);
+        }
+    }
+
     /**
      * Constructs device and link information from link state database.
      */
@@ -1386,7 +1399,9 @@ public class OspfNbrImpl implements OspfNbr {
      */
     private void removeDeviceDetails(Ip4Address routerId) {
         String key = "device:" + routerId;
-        topologyForDeviceAndLink.removeDeviceInformationMap(key);
+        synchronized (topologyForDeviceAndLink) {
+            topologyForDeviceAndLink.removeDeviceInformationMap(key);
+        }
     }
 
     /**
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ospf.controller.impl;
+
+import com.codahale.metrics.Timer;
+import org.onosproject.ospf.controller.TopologyForDeviceAndLink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Throttles topology computations triggered by link state database changes
+ * of an area.
+ * <p>
+ * Requests arriving while a computation is pending are coalesced into it,
+ * with one computation per topology whichever neighbor requested it.
+ * After a quiet period the first request is served after the initial delay;
+ * further computations are spaced by a hold time which doubles on each
+ * computation up to the maximum hold time, in the same way as SPF throttling
+ * in routers. The hold time is reset once no request arrives for twice the
+ * current hold time.
+ * </p>
+ */
+public class TopologyUpdateThrottle {
+
+    /**
+     * Default delay of the first computation after a quiet period, in milliseconds.
+     */
+    public static final long DEFAULT_INITIAL_DELAY = 50;
+    /**
+     * Default minimum time between two computations, in milliseconds.
+     */
+    public static final long DEFAULT_HOLD_TIME = 200;
+    /**
+     * Default maximum time between two computations, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_HOLD_TIME = 5000;
+
+    private static final Logger log = LoggerFactory.getLogger(TopologyUpdateThrottle.class);
+
+    // computations of all the areas, so that they do not delay other components
+    private static final ScheduledExecutorService EXECUTOR =
+            newSingleThreadScheduledExecutor(groupedThreads("onos/ospf", "topology-update", log));
+
+    private final ScheduledExecutorService executor;
+    private final long initialDelay;
+    private final long holdTime;
+    private final long maxHoldTime;
+
+    private final Map<TopologyForDeviceAndLink, Runnable> requests = new LinkedHashMap<>();
+    private long currentHoldTime;
+    private long lastRun;
+    private boolean running;
+    private ScheduledFuture<?> pending;
+    private volatile Timer timer;
+
+    /**
+     * Creates a throttle with the default timers, running computations on the
+     * OSPF topology update thread.
+     */
+    public TopologyUpdateThrottle() {
+        this(EXECUTOR, DEFAULT_INITIAL_DELAY, DEFAULT_HOLD_TIME, DEFAULT_MAX_HOLD_TIME);
+    }
+
+    /**
+     * Creates a throttle.
+     *
+     * @param executor     executor running the computations
+     * @param initialDelay delay of the first computation after a quiet period, in milliseconds
+     * @param holdTime     minimum time between two computations, in milliseconds
+     * @param maxHoldTime  maximum time between two computations, in milliseconds
+     */
+    public TopologyUpdateThrottle(ScheduledExecutorService executor,
+                                  long initialDelay, long holdTime, long maxHoldTime) {
+        checkArgument(initialDelay >= 0 && holdTime > 0 && maxHoldTime >= holdTime,
+                      "Invalid throttle timers");
+        this.executor = checkNotNull(executor);
+        this.initialDelay = initialDelay;
+        this.holdTime = holdTime;
+        this.maxHoldTime = maxHoldTime;
+        this.currentHoldTime = holdTime;
+        this.lastRun = -2 * maxHoldTime;
+    }
+
+    /**
+     * Requests a computation of the given topology. The computation is
+     * skipped if a computation of the same topology is already requested.
+     *
+     * @param topology    topology to compute
+     * @param computation topology computation
+     */
+    public synchronized void request(TopologyForDeviceAndLink topology, Runnable computation) {
+        checkNotNull(computation);
+        requests.putIfAbsent(checkNotNull(topology), computation);
+        // while running, served by a computation scheduled once the running one completes
+        if (pending == null && !running) {
+            schedule();
+        }
+    }
+
+    /**
+     * Sets the timer of the topology computations.
+     *
+     * @param timer topology computation timer, or null
+     */
+    public void setTimer(Timer timer) {
+        this.timer = timer;
+    }
+
+    // Must be called with the throttle lock held.
+    private void schedule() {
+        long now = System.currentTimeMillis();
+        long delay;
+        if (now - lastRun >= 2 * currentHoldTime) {
+            currentHoldTime = holdTime;
+            delay = initialDelay;
+        } else {
+            delay = Math.max(initialDelay, lastRun + currentHoldTime - now);
+            currentHoldTime = Math.min(2 * currentHoldTime, maxHoldTime);
+        }
+        pending = executor.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        List<Runnable> computations;
+        synchronized (this) {
+            pending = null;
+            running = true;
+            lastRun = System.currentTimeMillis();
+            computations = new ArrayList<>(requests.values());
+            requests.clear();
+        }
+        try {
+            for (Runnable computation : computations) {
+                final Timer.Context context = startTimer(timer);
+                try {
+                    computation.run();
+                } catch (RuntimeException e) {
+                    log.warn("Topology computation failed", e);
+                } finally {
+                    stopTimer(context);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                running = false;
+                if (!requests.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+        log.debug("Ran {} topology computations", computations.size());
+    }
+}
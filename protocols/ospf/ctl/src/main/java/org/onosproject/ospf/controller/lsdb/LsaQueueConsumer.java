@@ -15,6 +15,7 @@
  */
 package org.onosproject.ospf.controller.lsdb;
 
+import com.codahale.metrics.Timer;
 import org.jboss.netty.channel.Channel;
 import org.onosproject.ospf.controller.LsaWrapper;
 import org.onosproject.ospf.controller.OspfArea;
@@ -33,17 +34,32 @@ import org.onosproject.ospf.protocol.util.OspfUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
+
 /**
  * Consumes LSA from the Queue and processes it.
  * Its a producer consumer implementation using Blocking queue.
+ * The LSAs available in the queue are processed as one batch, in which the
+ * refreshes of self originated LSAs are coalesced per interface.
  */
 public class LsaQueueConsumer implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(LsaQueueConsumer.class);
-    private BlockingQueue queue = null;
+    private static final int MAX_BATCH_SIZE = 1024;
+    private BlockingQueue<LsaWrapper> queue = null;
     private Channel channel;
     private OspfArea ospfArea;
+    private final Set<OspfInterface> routerLsaRefreshed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<OspfInterface> networkLsaRefreshed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<OspfInterface> areaRefreshed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile Timer batchTimer;
 
     /**
      * Creates an instance of LSA queue consumer.
@@ -52,7 +68,7 @@ public class LsaQueueConsumer implements Runnable {
      * @param channel  netty channel instance
      * @param ospfArea OSPF area instance
      */
-    public LsaQueueConsumer(BlockingQueue queue, Channel channel, OspfArea ospfArea) {
+    public LsaQueueConsumer(BlockingQueue<LsaWrapper> queue, Channel channel, OspfArea ospfArea) {
         this.queue = queue;
         this.channel = channel;
         this.ospfArea = ospfArea;
@@ -63,36 +79,64 @@ public class LsaQueueConsumer implements Runnable {
      */
     public void run() {
         log.debug("LSAQueueConsumer:run...!!!");
+        List<LsaWrapper> batch = new ArrayList<>();
         try {
             while (true) {
-                if (!queue.isEmpty()) {
-                    LsaWrapper wrapper = (LsaWrapper) queue.take();
-                    String lsaProcessing = wrapper.lsaProcessing();
-                    switch (lsaProcessing) {
-                        case OspfParameters.VERIFYCHECKSUM:
-                            log.debug("LSAQueueConsumer: Message - " + OspfParameters.VERIFYCHECKSUM + " consumed.");
-                            processVerifyChecksum(wrapper);
-                            break;
-                        case OspfParameters.REFRESHLSA:
-                            log.debug("LSAQueueConsumer: Message - " + OspfParameters.REFRESHLSA + " consumed.");
-                            processRefreshLsa(wrapper);
-                            break;
-                        case OspfParameters.MAXAGELSA:
-                            log.debug("LSAQueueConsumer: Message - " + OspfParameters.MAXAGELSA + " consumed.");
-                            processMaxAgeLsa(wrapper);
-                            break;
-                        default:
-                            log.debug("Unknown command to process the LSA in queue ...!!!");
-                            break;
-                    }
-                }
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                processBatch(batch);
+                batch.clear();
             }
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.debug("LSAQueueConsumer interrupted");
         } catch (Exception e) {
             log.debug("Error::LSAQueueConsumer::{}", e.getMessage());
         }
     }
 
+    /**
+     * Processes a batch of LSAs taken from the queue.
+     *
+     * @param batch LSA wrappers to process
+     * @throws OspfParseException on parsing error
+     */
+    private void processBatch(List<LsaWrapper> batch) throws OspfParseException {
+        final Timer.Context context = startTimer(batchTimer);
+        try {
+            processLsas(batch);
+        } finally {
+            stopTimer(context);
+        }
+        log.debug("LSAQueueConsumer: processed {} LSAs", batch.size());
+    }
+
+    private void processLsas(List<LsaWrapper> batch) throws OspfParseException {
+        routerLsaRefreshed.clear();
+        networkLsaRefreshed.clear();
+        areaRefreshed.clear();
+        for (LsaWrapper wrapper : batch) {
+            String lsaProcessing = wrapper.lsaProcessing();
+            switch (lsaProcessing) {
+                case OspfParameters.VERIFYCHECKSUM:
+                    log.debug("LSAQueueConsumer: Message - " + OspfParameters.VERIFYCHECKSUM + " consumed.");
+                    processVerifyChecksum(wrapper);
+                    break;
+                case OspfParameters.REFRESHLSA:
+                    log.debug("LSAQueueConsumer: Message - " + OspfParameters.REFRESHLSA + " consumed.");
+                    processRefreshLsa(wrapper);
+                    break;
+                case OspfParameters.MAXAGELSA:
+                    log.debug("LSAQueueConsumer: Message - " + OspfParameters.MAXAGELSA + " consumed.");
+                    processMaxAgeLsa(wrapper);
+                    break;
+                default:
+                    log.debug("Unknown command to process the LSA in queue ...!!!");
+                    break;
+            }
+        }
+    }
+
     /**
      * Processes verify checksum - checkAges.
      *
@@ -124,12 +168,14 @@ public class LsaQueueConsumer implements Runnable {
             if (ospfInterface != null) {
                 LsaHeader header = ((LsaWrapperImpl) wrapper).lsaHeader();
                 header.setAge(wrapper.currentAge());
+                // one LSA of each type per interface is originated for the whole batch
                 if (((OspfInterfaceImpl) ospfInterface).state() == OspfInterfaceState.DR) {
-                    if (header.lsType() == OspfLsaType.ROUTER.value()) {
+                    if (header.lsType() == OspfLsaType.ROUTER.value() && routerLsaRefreshed.add(ospfInterface)) {
                         RouterLsa routerLsa = ((OspfAreaImpl) ospfArea).buildRouterLsa(ospfInterface);
                         ((OspfAreaImpl) ospfArea).addLsa(routerLsa, true, ospfInterface);
                         ((OspfAreaImpl) ospfArea).addToOtherNeighborLsaTxList(routerLsa);
-                    } else if (header.lsType() == OspfLsaType.NETWORK.value()) {
+                    } else if (header.lsType() == OspfLsaType.NETWORK.value() &&
+                            networkLsaRefreshed.add(ospfInterface)) {
                         if (ospfInterface.listOfNeighbors().size() > 0) {
                             NetworkLsa networkLsa = ((OspfAreaImpl) ospfArea).buildNetworkLsa(
                                     ospfInterface.ipAddress(), ospfInterface.ipNetworkMask());
@@ -142,7 +188,9 @@ public class LsaQueueConsumer implements Runnable {
                 if (((OspfInterfaceImpl) ospfInterface).state() == OspfInterfaceState.BDR ||
                         ((OspfInterfaceImpl) ospfInterface).state() == OspfInterfaceState.POINT2POINT ||
                         ((OspfInterfaceImpl) ospfInterface).state() == OspfInterfaceState.DROTHER) {
-                    ospfArea.refreshArea(ospfInterface);
+                    if (areaRefreshed.add(ospfInterface)) {
+                        ospfArea.refreshArea(ospfInterface);
+                    }
                 }
                 log.debug("LSAQueueConsumer: processRefreshLsa - Flooded SelfOriginated LSA {}",
                           ((LsaWrapperImpl) wrapper).lsaHeader());
@@ -183,4 +231,13 @@ public class LsaQueueConsumer implements Runnable {
     public void setChannel(Channel channel) {
         this.channel = channel;
     }
+
+    /**
+     * Sets the timer of the processing of the LSA batches.
+     *
+     * @param batchTimer batch processing timer, or null
+     */
+    public void setBatchTimer(Timer batchTimer) {
+        this.batchTimer = batchTimer;
+    }
 }
\ No newline at end of file
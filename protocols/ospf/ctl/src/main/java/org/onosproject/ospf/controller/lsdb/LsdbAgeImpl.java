@@ -15,6 +15,7 @@
  */
 package org.onosproject.ospf.controller.lsdb;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Objects;
 import org.jboss.netty.channel.Channel;
 import org.onosproject.ospf.controller.LsaBin;
@@ -26,31 +27,41 @@ import org.onosproject.ospf.protocol.util.OspfParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Representation of LSDB Aging process.
+ * <p>
+ * LSAs are kept in a timing wheel of MAXAGE bins indexed by the age counter,
+ * so that aging an LSA does not move it between bins. Every second the LSAs
+ * due for checksum verification, refresh or max age processing are handed
+ * over to the queue consumer in one batch.
+ * </p>
  */
 public class LsdbAgeImpl implements LsdbAge {
 
     private static final Logger log =
             LoggerFactory.getLogger(LsdbAgeImpl.class);
-    protected static int ageCounter = 0;
+    private volatile int ageCounter = 0;
     private InternalAgeTimer dbAgeTimer;
     private ScheduledExecutorService exServiceage;
-    // creating age bins of MAXAGE
-    private Map<Integer, LsaBin> ageBins = new ConcurrentHashMap<>(OspfParameters.MAXAGE);
+    // creating age bins of MAXAGE, indexed by bin number
+    private final LsaBin[] ageBins = new LsaBin[OspfParameters.MAXAGE];
     private LsaBin maxAgeBin = new LsaBinImpl(OspfParameters.MAXAGE);
-    private int ageCounterRollOver = 0;
+    private volatile int ageCounterRollOver = 0;
     private Channel channel = null;
     private LsaQueueConsumer queueConsumer = null;
-    private BlockingQueue<LsaWrapper> lsaQueue = new ArrayBlockingQueue(1024);
+    private volatile Timer batchTimer;
+    // unbounded so that the aging timer never blocks on a busy consumer
+    private BlockingQueue<LsaWrapper> lsaQueue = new LinkedBlockingQueue<>();
     private OspfArea ospfArea = null;
 
 
@@ -62,8 +73,7 @@ public class LsdbAgeImpl implements LsdbAge {
     public LsdbAgeImpl(OspfArea ospfArea) {
         // create LSBin's in the HashMap.
         for (int i = 0; i < OspfParameters.MAXAGE; i++) {
-            LsaBin lsaBin = new LsaBinImpl(i);
-            ageBins.put(i, lsaBin);
+            ageBins[i] = new LsaBinImpl(i);
         }
         this.ospfArea = ospfArea;
     }
@@ -77,7 +87,7 @@ public class LsdbAgeImpl implements LsdbAge {
             return false;
         }
         LsdbAgeImpl that = (LsdbAgeImpl) o;
-        return Objects.equal(ageBins, that.ageBins) &&
+        return Arrays.equals(ageBins, that.ageBins) &&
                 Objects.equal(ageCounter, that.ageCounter) &&
                 Objects.equal(ageCounterRollOver, that.ageCounterRollOver) &&
                 Objects.equal(lsaQueue, that.lsaQueue);
@@ -85,7 +95,7 @@ public class LsdbAgeImpl implements LsdbAge {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(ageBins, ageCounter, ageCounterRollOver, lsaQueue);
+        return Objects.hashCode(Arrays.hashCode(ageBins), ageCounter, ageCounterRollOver, lsaQueue);
     }
 
     /**
@@ -96,8 +106,8 @@ public class LsdbAgeImpl implements LsdbAge {
      */
     @Override
     public void addLsaBin(Integer binKey, LsaBin lsaBin) {
-        if (!ageBins.containsKey(binKey)) {
-            ageBins.put(binKey, lsaBin);
+        if (isValidBin(binKey) && ageBins[binKey] == null) {
+            ageBins[binKey] = lsaBin;
         }
     }
 
@@ -109,8 +119,7 @@ public class LsdbAgeImpl implements LsdbAge {
      */
     @Override
     public LsaBin getLsaBin(Integer binKey) {
-
-        return ageBins.get(binKey);
+        return isValidBin(binKey) ? ageBins[binKey] : null;
     }
 
     /**
@@ -131,8 +140,8 @@ public class LsdbAgeImpl implements LsdbAge {
      */
     @Override
     public void removeLsaFromBin(LsaWrapper lsaWrapper) {
-        if (ageBins.containsKey(lsaWrapper.binNumber())) {
-            LsaBin lsaBin = ageBins.get(lsaWrapper.binNumber());
+        if (isValidBin(lsaWrapper.binNumber())) {
+            LsaBin lsaBin = ageBins[lsaWrapper.binNumber()];
             lsaBin.removeOspfLsa(((OspfAreaImpl) ospfArea).getLsaKey(((LsaWrapperImpl)
                     lsaWrapper).lsaHeader()), lsaWrapper);
         }
@@ -145,6 +154,7 @@ public class LsdbAgeImpl implements LsdbAge {
     public void startDbAging() {
         startDbAgeTimer();
         queueConsumer = new LsaQueueConsumer(lsaQueue, channel, ospfArea);
+        queueConsumer.setBatchTimer(batchTimer);
         new Thread(queueConsumer).start();
     }
 
@@ -178,48 +188,33 @@ public class LsdbAgeImpl implements LsdbAge {
         if (ageCounter == 0) {
             return;
         }
+        List<LsaWrapper> batch = new ArrayList<>();
         //Get from Age Bins
-        LsaBin lsaBin = ageBins.get(ageCounter - 1);
-        if (lsaBin == null) {
-            return;
-        }
-        Map lsaBinMap = lsaBin.listOfLsa();
-        for (Object key : lsaBinMap.keySet()) {
-            LsaWrapper lsa = (LsaWrapper) lsaBinMap.get(key);
+        LsaBin lsaBin = ageBins[ageCounter - 1];
+        for (Map.Entry<String, LsaWrapper> entry : lsaBin.listOfLsa().entrySet()) {
+            LsaWrapper lsa = entry.getValue();
             if (lsa.currentAge() == OspfParameters.MAXAGE) {
                 lsa.setLsaProcessing(OspfParameters.MAXAGELSA);
                 log.debug("Lsa picked for maxage flooding. Age Counter: {}, AgeCounterRollover: {}, " +
                                   "AgeCounterRollover WhenAddedToDb: {}, LSA Type: {}, LSA Key: {}",
-                          ageCounter, ageCounterRollOver, lsa.currentAge(), lsa.lsaType(), key);
-                //add it to lsaQueue for processing
-                try {
-                    lsaQueue.put(lsa);
-                    //remove from bin
-                    lsaBin.removeOspfLsa((String) key, lsa);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.debug("Error::LSDBAge::maxAgeLsa::{}", e.getMessage());
-                }
+                          ageCounter, ageCounterRollOver, lsa.currentAge(), lsa.lsaType(), entry.getKey());
+                batch.add(lsa);
+                //remove from bin
+                lsaBin.removeOspfLsa(entry.getKey(), lsa);
             }
         }
 
         //Get from maxAgeBin
-        Map lsaMaxAgeBinMap = maxAgeBin.listOfLsa();
-        for (Object key : lsaMaxAgeBinMap.keySet()) {
-            LsaWrapper lsa = (LsaWrapper) lsaMaxAgeBinMap.get(key);
+        for (Map.Entry<String, LsaWrapper> entry : maxAgeBin.listOfLsa().entrySet()) {
+            LsaWrapper lsa = entry.getValue();
             lsa.setLsaProcessing(OspfParameters.MAXAGELSA);
             log.debug("Lsa picked for maxage flooding. Age Counter: {}, LSA Type: {}, LSA Key: {}",
-                      ageCounter, lsa.lsaType(), key);
-            //add it to lsaQueue for processing
-            try {
-                lsaQueue.put(lsa);
-                //remove from bin
-                maxAgeBin.removeOspfLsa((String) key, lsa);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.debug("Error::LSDBAge::maxAgeLsa::{}", e.getMessage());
-            }
+                      ageCounter, lsa.lsaType(), entry.getKey());
+            batch.add(lsa);
+            //remove from bin
+            maxAgeBin.removeOspfLsa(entry.getKey(), lsa);
         }
+        lsaQueue.addAll(batch);
     }
 
 
@@ -234,27 +229,21 @@ public class LsdbAgeImpl implements LsdbAge {
         } else {
             binNumber = ageCounter - OspfParameters.LSREFRESHTIME;
         }
-        LsaBin lsaBin = ageBins.get(binNumber);
-        if (lsaBin == null) {
-            return;
-        }
-        Map lsaBinMap = lsaBin.listOfLsa();
-        for (Object key : lsaBinMap.keySet()) {
-            LsaWrapper lsa = (LsaWrapper) lsaBinMap.get(key);
-            try {
-                if (lsa.isSelfOriginated()) {
-                    log.debug("Lsa picked for refreshLsa. binNumber: {}, LSA Type: {}, LSA Key: {}",
-                              binNumber, lsa.lsaType(), key);
-                    lsa.setLsaProcessing(OspfParameters.REFRESHLSA);
-                    lsaQueue.put(lsa);
-                    //remove from bin
-                    lsaBin.removeOspfLsa((String) key, lsa);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.debug("Error::LSDBAge::refreshLsa::{}", e.getMessage());
+        LsaBin lsaBin = ageBins[binNumber];
+        List<LsaWrapper> batch = new ArrayList<>();
+        for (Map.Entry<String, LsaWrapper> entry : lsaBin.listOfLsa().entrySet()) {
+            LsaWrapper lsa = entry.getValue();
+            if (lsa.isSelfOriginated()) {
+                log.debug("Lsa picked for refreshLsa. binNumber: {}, LSA Type: {}, LSA Key: {}",
+                          binNumber, lsa.lsaType(), entry.getKey());
+                lsa.setLsaProcessing(OspfParameters.REFRESHLSA);
+                batch.add(lsa);
+                //remove from bin
+                lsaBin.removeOspfLsa(entry.getKey(), lsa);
             }
         }
+        // the consumer coalesces the refreshes of the same interface
+        lsaQueue.addAll(batch);
     }
 
     /**
@@ -262,24 +251,16 @@ public class LsdbAgeImpl implements LsdbAge {
      */
     public void checkAges() {
         //evry 5 min age counter + multiples of 300
+        List<LsaWrapper> batch = new ArrayList<>();
         for (int age = OspfParameters.CHECKAGE; age < OspfParameters.MAXAGE;
              age += OspfParameters.CHECKAGE) {
-            LsaBin lsaBin = ageBins.get(age2Bin(age));
-            if (lsaBin == null) {
-                continue;
-            }
-            Map lsaBinMap = lsaBin.listOfLsa();
-            for (Object key : lsaBinMap.keySet()) {
-                LsaWrapper lsa = (LsaWrapper) lsaBinMap.get(key);
+            LsaBin lsaBin = ageBins[age2Bin(age)];
+            for (LsaWrapper lsa : lsaBin.listOfLsa().values()) {
                 lsa.setLsaProcessing(OspfParameters.VERIFYCHECKSUM);
-                try {
-                    lsaQueue.put(lsa);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.debug("Error::LSDBAge::checkAges::{}", e.getMessage());
-                }
+                batch.add(lsa);
             }
         }
+        lsaQueue.addAll(batch);
     }
 
 
@@ -326,6 +307,18 @@ public class LsdbAgeImpl implements LsdbAge {
         }
     }
 
+    /**
+     * Sets the timer of the processing of the LSA batches.
+     *
+     * @param batchTimer batch processing timer, or null
+     */
+    public void setBatchTimer(Timer batchTimer) {
+        this.batchTimer = batchTimer;
+        if (queueConsumer != null) {
+            queueConsumer.setBatchTimer(batchTimer);
+        }
+    }
+
     /**
      * Gets the age counter.
      *
@@ -371,6 +364,10 @@ public class LsdbAgeImpl implements LsdbAge {
         }
     }
 
+    private boolean isValidBin(Integer binNumber) {
+        return binNumber != null && binNumber >= 0 && binNumber < ageBins.length;
+    }
+
     /**
      * Runnable task which runs every second and calls aging process.
      */
@@ -15,6 +15,7 @@
  */
 package org.onosproject.ospf.controller.lsdb;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Objects;
 import org.onosproject.ospf.controller.LsaBin;
 import org.onosproject.ospf.controller.LsaWrapper;
@@ -30,10 +31,10 @@ import org.onosproject.ospf.protocol.util.OspfParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -41,14 +42,14 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class OspfLsdbImpl implements OspfLsdb {
     private static final Logger log = LoggerFactory.getLogger(OspfLsdbImpl.class);
-    private Map routerLsas = new HashMap();
-    private Map networkLsas = new HashMap();
-    private Map summaryLsas = new HashMap();
-    private Map asbrSummaryLSAs = new HashMap();
-    private Map opaque9Lsas = new HashMap();
-    private Map opaque10Lsas = new HashMap();
-    private Map opaque11Lsas = new HashMap();
-    private Map externalLsas = new HashMap();
+    private Map routerLsas = new ConcurrentHashMap();
+    private Map networkLsas = new ConcurrentHashMap();
+    private Map summaryLsas = new ConcurrentHashMap();
+    private Map asbrSummaryLSAs = new ConcurrentHashMap();
+    private Map opaque9Lsas = new ConcurrentHashMap();
+    private Map opaque10Lsas = new ConcurrentHashMap();
+    private Map opaque11Lsas = new ConcurrentHashMap();
+    private Map externalLsas = new ConcurrentHashMap();
     private long routerLsaSeqNo = OspfParameters.STARTLSSEQUENCENUM;
     private long networkLsaSeqNo = OspfParameters.STARTLSSEQUENCENUM;
     private LsdbAge lsdbAge = null;
@@ -156,6 +157,27 @@ public class OspfLsdbImpl implements OspfLsdb {
         summList.add(header);
     }
 
+    /**
+     * Returns the number of LSAs in the link state database.
+     *
+     * @return number of LSAs
+     */
+    public int lsaCount() {
+        return routerLsas.size() + networkLsas.size() + summaryLsas.size() + asbrSummaryLSAs.size() +
+                opaque9Lsas.size() + opaque10Lsas.size() + opaque11Lsas.size() + externalLsas.size();
+    }
+
+    /**
+     * Sets the timer of the processing of the LSA batches of this database.
+     *
+     * @param batchTimer batch processing timer, or null
+     */
+    public void setBatchTimer(Timer batchTimer) {
+        if (lsdbAge instanceof LsdbAgeImpl) {
+            ((LsdbAgeImpl) lsdbAge).setBatchTimer(batchTimer);
+        }
+    }
+
     /**
      * Gets the LSDB LSA key from Lsa Header.
      *
@@ -16,10 +16,12 @@
 package org.onosproject.ospf.controller.impl;
 
 
+import com.codahale.metrics.MetricFilter;
 import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
 import org.onlab.packet.Ip4Address;
 import org.onosproject.ospf.controller.OspfArea;
 import org.onosproject.ospf.controller.OspfInterface;
@@ -86,6 +88,19 @@ public class OspfControllerImplTest {
         assertThat(ospfController, is(notNullValue()));
     }
 
+    /**
+     * Tests the LSDB size gauge and the processing timers are published on activation.
+     */
+    @Test
+    public void testActivateMetrics() throws Exception {
+        MetricsManager metricsService = new MetricsManager();
+        ospfController.metricsService = metricsService;
+        ospfController.activate();
+        assertThat(metricsService.getGauges(MetricFilter.ALL).size(), is(1));
+        assertThat(metricsService.getGauges(MetricFilter.ALL).values().iterator().next().getValue(), is(0));
+        assertThat(metricsService.getTimers(MetricFilter.ALL).size(), is(2));
+    }
+
     @Test(expected = Exception.class)
     public void testDeactivate() throws Exception {
         ospfController.activate();
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ospf.controller.impl;
+
+import com.codahale.metrics.Timer;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.ospf.controller.TopologyForDeviceAndLink;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.easymock.EasyMock.anyLong;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Unit test class for TopologyUpdateThrottle.
+ */
+public class TopologyUpdateThrottleTest {
+    private static final long INITIAL_DELAY = 10;
+    private static final long HOLD_TIME = 10_000;
+    private static final long MAX_HOLD_TIME = 30_000;
+
+    private Capture<Runnable> tasks;
+    private Capture<Long> delays;
+    private ScheduledFuture<?> future;
+    private final TopologyForDeviceAndLink topology = new TopologyForDeviceAndLinkImpl();
+    private AtomicInteger computations;
+    private TopologyUpdateThrottle throttle;
+
+    @Before
+    public void setUp() throws Exception {
+        tasks = Capture.newInstance(CaptureType.ALL);
+        delays = Capture.newInstance(CaptureType.ALL);
+        future = EasyMock.createNiceMock(ScheduledFuture.class);
+        ScheduledExecutorService executor = EasyMock.createMock(ScheduledExecutorService.class);
+        EasyMock.expect((ScheduledFuture) executor.schedule(capture(tasks), EasyMock.captureLong(delays),
+                                                           eq(TimeUnit.MILLISECONDS)))
+                .andReturn(future).anyTimes();
+        EasyMock.replay(executor, future);
+        computations = new AtomicInteger();
+        throttle = new TopologyUpdateThrottle(executor, INITIAL_DELAY, HOLD_TIME, MAX_HOLD_TIME);
+    }
+
+    private void request() {
+        throttle.request(topology, computations::incrementAndGet);
+    }
+
+    private void runLastScheduled() {
+        tasks.getValues().get(tasks.getValues().size() - 1).run();
+    }
+
+    private long lastDelay() {
+        return delays.getValues().get(delays.getValues().size() - 1);
+    }
+
+    /**
+     * Tests requests are coalesced into the pending computation.
+     */
+    @Test
+    public void testCoalescing() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            request();
+        }
+        assertThat(tasks.getValues().size(), is(1));
+        assertThat(lastDelay(), is(INITIAL_DELAY));
+
+        runLastScheduled();
+        assertThat(computations.get(), is(1));
+    }
+
+    /**
+     * Tests the requests of different neighbors are coalesced per topology.
+     */
+    @Test
+    public void testCoalescingPerTopology() throws Exception {
+        AtomicInteger otherComputations = new AtomicInteger();
+        TopologyForDeviceAndLink otherTopology = new TopologyForDeviceAndLinkImpl();
+        request();
+        throttle.request(topology, otherComputations::incrementAndGet);
+        throttle.request(otherTopology, otherComputations::incrementAndGet);
+        throttle.request(otherTopology, otherComputations::incrementAndGet);
+        assertThat(tasks.getValues().size(), is(1));
+
+        runLastScheduled();
+        assertThat(computations.get(), is(1));
+        assertThat(otherComputations.get(), is(1));
+    }
+
+    /**
+     * Tests the hold time doubles up to the maximum hold time.
+     */
+    @Test
+    public void testBackOff() throws Exception {
+        request();
+        assertThat(lastDelay(), is(INITIAL_DELAY));
+        runLastScheduled();
+
+        request();
+        assertThat(lastDelay(), greaterThan(HOLD_TIME / 2));
+        assertThat(lastDelay(), lessThanOrEqualTo(HOLD_TIME));
+        runLastScheduled();
+
+        request();
+        assertThat(lastDelay(), greaterThan(HOLD_TIME));
+        assertThat(lastDelay(), lessThanOrEqualTo(2 * HOLD_TIME));
+        runLastScheduled();
+
+        request();
+        assertThat(lastDelay(), greaterThan(2 * HOLD_TIME));
+        assertThat(lastDelay(), lessThanOrEqualTo(MAX_HOLD_TIME));
+        runLastScheduled();
+
+        request();
+        assertThat(lastDelay(), greaterThan(2 * HOLD_TIME));
+        assertThat(lastDelay(), lessThanOrEqualTo(MAX_HOLD_TIME));
+        assertThat(computations.get(), is(4));
+    }
+
+    /**
+     * Tests a failing computation does not prevent later ones.
+     */
+    @Test
+    public void testFailingComputation() throws Exception {
+        ScheduledExecutorService executor = EasyMock.createMock(ScheduledExecutorService.class);
+        EasyMock.expect((ScheduledFuture) executor.schedule(capture(tasks), anyLong(),
+                                                           eq(TimeUnit.MILLISECONDS)))
+                .andReturn(future).anyTimes();
+        EasyMock.replay(executor);
+        throttle = new TopologyUpdateThrottle(executor, INITIAL_DELAY, HOLD_TIME, MAX_HOLD_TIME);
+        Runnable failing = () -> {
+            computations.incrementAndGet();
+            throw new IllegalStateException("failure");
+        };
+
+        throttle.request(topology, failing);
+        throttle.request(new TopologyForDeviceAndLinkImpl(), failing);
+        runLastScheduled();
+        throttle.request(topology, failing);
+        runLastScheduled();
+        assertThat(computations.get(), is(3));
+    }
+
+    /**
+     * Tests the computations are timed.
+     */
+    @Test
+    public void testTimer() throws Exception {
+        Timer timer = new Timer();
+        throttle.setTimer(timer);
+        request();
+        throttle.request(new TopologyForDeviceAndLinkImpl(), computations::incrementAndGet);
+        runLastScheduled();
+        assertThat(timer.getCount(), is(2L));
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.onosproject.ospf.controller.lsdb;
 
+import com.codahale.metrics.Timer;
 import org.easymock.EasyMock;
 import org.jboss.netty.channel.Channel;
 import org.junit.After;
@@ -31,6 +32,7 @@ import org.onosproject.ospf.protocol.util.OspfInterfaceState;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -175,4 +177,33 @@ public class LsaQueueConsumerTest {
         assertThat(lsaQueueConsumer, is(notNullValue()));
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests the LSAs available in the queue are processed and timed as one batch.
+     */
+    @Test
+    public void testBatchTimer() throws Exception {
+        // stops the consumer once the queue is drained
+        blockingQueue = new LinkedBlockingQueue<LsaWrapper>() {
+            @Override
+            public LsaWrapper take() throws InterruptedException {
+                if (isEmpty()) {
+                    throw new InterruptedException();
+                }
+                return super.take();
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            lsaWrapper = new LsaWrapperImpl();
+            lsaWrapper.setLsaProcessing("none");
+            blockingQueue.add(lsaWrapper);
+        }
+        Timer timer = new Timer();
+        lsaQueueConsumer = new LsaQueueConsumer(blockingQueue, channel, new OspfAreaImpl());
+        lsaQueueConsumer.setBatchTimer(timer);
+        lsaQueueConsumer.run();
+        // clears the interrupt status restored by the consumer
+        Thread.interrupted();
+        assertThat(blockingQueue.isEmpty(), is(true));
+        assertThat(timer.getCount(), is(1L));
+    }
+}
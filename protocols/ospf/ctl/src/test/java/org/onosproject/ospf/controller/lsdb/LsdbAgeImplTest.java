@@ -25,6 +25,7 @@ import org.onosproject.ospf.controller.LsaBin;
 import org.onosproject.ospf.controller.OspfArea;
 import org.onosproject.ospf.controller.OspfLsaType;
 import org.onosproject.ospf.controller.area.OspfAreaImpl;
+import org.onosproject.ospf.protocol.util.OspfParameters;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -266,4 +267,34 @@ public class LsdbAgeImplTest {
         int age = lsdbAge.age2Bin(0);
         assertThat(age, is(notNullValue()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests getLsaBin() method with bin numbers outside of the age wheel.
+     */
+    @Test
+    public void testGetLsaBinOutOfRange() throws Exception {
+        assertThat(lsdbAge.getLsaBin(-1), is(nullValue()));
+        assertThat(lsdbAge.getLsaBin(OspfParameters.MAXAGE), is(nullValue()));
+        assertThat(lsdbAge.getLsaBin(OspfParameters.MAXAGE - 1).binNumber(), is(OspfParameters.MAXAGE - 1));
+    }
+
+    /**
+     * Tests refreshLsa() method hands over only self originated LSAs.
+     */
+    @Test
+    public void testRefreshLsaBatch() throws Exception {
+        LsaBin refreshBin = lsdbAge.getLsaBin(OspfParameters.LSREFRESHTIME);
+        LsaWrapperImpl selfOriginated = new LsaWrapperImpl();
+        selfOriginated.setIsSelfOriginated(true);
+        selfOriginated.setLsaType(OspfLsaType.ROUTER);
+        LsaWrapperImpl received = new LsaWrapperImpl();
+        received.setLsaType(OspfLsaType.ROUTER);
+        refreshBin.addOspfLsa("lsa1", selfOriginated);
+        refreshBin.addOspfLsa("lsa2", received);
+
+        lsdbAge.refreshLsa();
+        assertThat(refreshBin.ospfLsa("lsa1"), is(nullValue()));
+        assertThat(refreshBin.ospfLsa("lsa2"), is(notNullValue()));
+        assertThat(selfOriginated.lsaProcessing(), is(OspfParameters.REFRESHLSA));
+    }
+}
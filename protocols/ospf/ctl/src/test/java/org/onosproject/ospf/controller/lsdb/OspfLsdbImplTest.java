@@ -110,6 +110,21 @@ public class OspfLsdbImplTest {
         assertThat(ospfLsdb, is(notNullValue()));
     }
 
+    /**
+     * Tests lsaCount() method.
+     */
+    @Test
+    public void testLsaCount() throws Exception {
+        assertThat(ospfLsdb.lsaCount(), is(0));
+        routerLsa.setLsType(1);
+        ospfLsdb.addLsa(routerLsa, false, new OspfInterfaceImpl());
+        networkLsa.setLsType(2);
+        ospfLsdb.addLsa(networkLsa, false, new OspfInterfaceImpl());
+        assertThat(ospfLsdb.lsaCount(), is(2));
+        ospfLsdb.deleteLsa(routerLsa);
+        assertThat(ospfLsdb.lsaCount(), is(1));
+    }
+
     /**
      * Tests getAllLsaHeaders() method.
      */
@@ -26,6 +26,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.PortNumber;
@@ -112,7 +113,6 @@ import static org.onosproject.ovsdb.controller.OvsdbConstant.BRIDGE_CONTROLLER;
 import static org.onosproject.ovsdb.controller.OvsdbConstant.CONTROLLER;
 import static org.onosproject.ovsdb.controller.OvsdbConstant.DATABASENAME;
 import static org.onosproject.ovsdb.controller.OvsdbConstant.EXTERNAL_ID;
-import static org.onosproject.ovsdb.controller.OvsdbConstant.EXTERNAL_ID_INTERFACE_ID;
 import static org.onosproject.ovsdb.controller.OvsdbConstant.INTERFACE;
 import static org.onosproject.ovsdb.controller.OvsdbConstant.INTERFACES;
 import static org.onosproject.ovsdb.controller.OvsdbConstant.MIRROR;
@@ -137,6 +137,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
 
     private static final int TRANSACTCONFIG_TIMEOUT = 3; //sec
     private static final int OFPORT_ERROR_COMPARISON = 0;
+    private static final long REQUEST_TIMEOUT = 30; //sec
 
     private final Logger log = LoggerFactory.getLogger(DefaultOvsdbClient.class);
 
@@ -147,9 +148,9 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
     private Callback monitorCallBack;
     private OvsdbStore ovsdbStore = new OvsdbStore();
 
-    private final Map<String, String> requestMethod = Maps.newHashMap();
-    private final Map<String, SettableFuture<? extends Object>> requestResult = Maps.newHashMap();
-    private final Map<String, DatabaseSchema> schema = Maps.newHashMap();
+    private final OvsdbRequestTracker requests;
+    private final OvsdbRowIndexes indexes = new OvsdbRowIndexes();
+    private final Map<String, DatabaseSchema> schema = Maps.newConcurrentMap();
 
 
     /**
@@ -158,7 +159,19 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
      * @param nodeId ovsdb node id
      */
     public DefaultOvsdbClient(OvsdbNodeId nodeId) {
+        this(nodeId, REQUEST_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates an OvsdbClient with the given JSON-RPC request timeout.
+     *
+     * @param nodeId  ovsdb node id
+     * @param timeout time to wait for the response to a request
+     * @param unit    unit of the timeout
+     */
+    DefaultOvsdbClient(OvsdbNodeId nodeId, long timeout, TimeUnit unit) {
         this.nodeId = nodeId;
+        this.requests = new OvsdbRequestTracker(timeout, unit);
     }
 
     @Override
@@ -196,6 +209,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
     @Override
     public void nodeRemoved() {
         this.agent.removeConnectedNode(nodeId);
+        requests.failAll(new IllegalStateException("Disconnected from " + nodeId));
         channel.disconnect();
     }
 
@@ -264,6 +278,9 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
             return;
         }
         rowStore.deleteRow(uuid);
+        if (DATABASENAME.equals(dbName)) {
+            indexes.remove(tableName, uuid);
+        }
     }
 
     @Override
@@ -280,6 +297,9 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         rowStore.insertRow(uuid, row);
         tableStore.createOrUpdateTable(tableName, rowStore);
         ovsdbStore.createOrUpdateOvsdbStore(dbName, tableStore);
+        if (DATABASENAME.equals(dbName)) {
+            indexes.update(tableName, uuid, row);
+        }
     }
 
     /**
@@ -413,27 +433,11 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
 
     @Override
     public String getBridgeUuid(String bridgeName) {
-        DatabaseSchema dbSchema = schema.get(DATABASENAME);
-        OvsdbRowStore rowStore = getRowStore(DATABASENAME, BRIDGE);
-        if (rowStore == null) {
+        String uuid = indexes.bridgeUuid(bridgeName);
+        if (uuid == null) {
             log.debug("The bridge uuid is null");
-            return null;
-        }
-
-        ConcurrentMap<String, Row> bridgeTableRows = rowStore.getRowStore();
-        if (bridgeTableRows == null) {
-            log.debug("The bridge uuid is null");
-            return null;
-        }
-
-        for (String uuid : bridgeTableRows.keySet()) {
-            Bridge bridge = (Bridge) TableGenerator
-                    .getTable(dbSchema, bridgeTableRows.get(uuid), OvsdbTable.BRIDGE);
-            if (bridge.getName().equals(bridgeName)) {
-                return uuid;
-            }
         }
-        return null;
+        return uuid;
     }
 
     private String getOvsUuid(String dbName) {
@@ -621,15 +625,12 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         // general, put qos name in external_ids column of Qos Table if this qos
         // created by onos.
         ConcurrentMap<String, Row> qosTableRows = qosRowStore.getRowStore();
-        ConcurrentMap<String, Row> portTableRows = portRowStore.getRowStore();
         Row qosRow = qosTableRows.values().stream().filter(r -> {
             OvsdbMap ovsdbMap = (OvsdbMap) (r.getColumn(EXTERNAL_ID).data());
             return qosName.equals(ovsdbMap.map().get(QOS_EXTERNAL_ID_KEY));
         }).findFirst().orElse(null);
 
-        Row portRow = portTableRows.values().stream()
-                .filter(r -> r.getColumn("name").data().equals(portNumber.name()))
-                .findFirst().orElse(null);
+        Row portRow = getPortRow(portNumber.name());
         if (portRow != null && qosRow != null) {
             String qosId = qosRow.uuid().value();
             Uuid portUuid = portRow.uuid();
@@ -651,10 +652,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
             return;
         }
 
-        ConcurrentMap<String, Row> ovsTableRows = rowStore.getRowStore();
-        Row portRow = ovsTableRows.values().stream()
-                .filter(r -> r.getColumn("name").data().equals(portNumber.name()))
-                .findFirst().orElse(null);
+        Row portRow = getPortRow(portNumber.name());
         if (portRow == null) {
             log.warn("Couldn't find port {} in ovsdb port table.", portNumber.name());
             return;
@@ -678,6 +676,11 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         transactConfig(DATABASENAME, operations);
     }
 
+    private Row getPortRow(String portName) {
+        String uuid = indexes.portUuid(portName);
+        return uuid == null ? null : getRow(DATABASENAME, PORT, uuid);
+    }
+
     @Override
     public boolean createQos(OvsdbQos ovsdbQos) {
         DatabaseSchema dbSchema = schema.get(DATABASENAME);
@@ -1405,12 +1408,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         String id = java.util.UUID.randomUUID().toString();
         String getSchemaString = JsonRpcWriterUtil.getSchemaStr(id, dbnames);
 
-        SettableFuture<JsonNode> sf = SettableFuture.create();
-        requestResult.put(id, sf);
-        requestMethod.put(id, "getSchema");
-
-        channel.writeAndFlush(getSchemaString);
-        return sf;
+        return sendRequest(id, "getSchema", getSchemaString);
     }
 
     @Override
@@ -1418,12 +1416,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         String id = java.util.UUID.randomUUID().toString();
         String echoString = JsonRpcWriterUtil.echoStr(id);
 
-        SettableFuture<List<String>> sf = SettableFuture.create();
-        requestResult.put(id, sf);
-        requestMethod.put(id, "echo");
-
-        channel.writeAndFlush(echoString);
-        return sf;
+        return sendRequest(id, "echo", echoString);
     }
 
     @Override
@@ -1433,12 +1426,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         String monitorString = JsonRpcWriterUtil.monitorStr(id, monitorId,
                                                             dbSchema);
 
-        SettableFuture<JsonNode> sf = SettableFuture.create();
-        requestResult.put(id, sf);
-        requestMethod.put(id, "monitor");
-
-        channel.writeAndFlush(monitorString);
-        return sf;
+        return sendRequest(id, "monitor", monitorString);
     }
 
     @Override
@@ -1446,12 +1434,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         String id = java.util.UUID.randomUUID().toString();
         String listDbsString = JsonRpcWriterUtil.listDbsStr(id);
 
-        SettableFuture<List<String>> sf = SettableFuture.create();
-        requestResult.put(id, sf);
-        requestMethod.put(id, "listDbs");
-
-        channel.writeAndFlush(listDbsString);
-        return sf;
+        return sendRequest(id, "listDbs", listDbsString);
     }
 
     @Override
@@ -1461,28 +1444,42 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         String transactString = JsonRpcWriterUtil.transactStr(id, dbSchema,
                                                               operations);
 
-        SettableFuture<List<JsonNode>> sf = SettableFuture.create();
-        requestResult.put(id, sf);
-        requestMethod.put(id, "transact");
-        channel.writeAndFlush(transactString);
+        return sendRequest(id, "transact", transactString);
+    }
+
+    /**
+     * Sends a JSON-RPC request, whose future completes when the matching
+     * response is processed, the write fails or the request times out.
+     *
+     * @param id      request id
+     * @param method  request method, used to parse the result
+     * @param request encoded request
+     * @param <T>     type of the result
+     * @return future result of the request
+     */
+    private <T> ListenableFuture<T> sendRequest(String id, String method, String request) {
+        SettableFuture<T> sf = requests.register(id, method);
+        channel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                requests.fail(id, future.cause());
+            }
+        });
         return sf;
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
+    /**
+     * Returns the number of requests waiting for a response.
+     *
+     * @return number of pending requests
+     */
+    int pendingRequests() {
+        return requests.pendingCount();
+    }
+
     @Override
     public void processResult(JsonNode response) {
         log.debug("Handle result");
-        String requestId = response.get("id").asText();
-        SettableFuture sf = requestResult.get(requestId);
-        if (sf == null) {
-            log.debug("No such future to process");
-            return;
-        }
-        String methodName = requestMethod.get(requestId);
-        sf.set(FromJsonUtil.jsonResultParser(response, methodName));
-
-        requestResult.remove(requestId);
-        requestMethod.remove(requestId);
+        requests.complete(response.get("id").asText(), response);
     }
 
     @Override
@@ -1651,9 +1648,9 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
 
     @Override
     public Interface getInterface(String intf) {
-        return getInterfaces().stream()
-                .filter(ovsdbIntf -> ovsdbIntf.getName().equals(intf))
-                .findAny().orElse(null);
+        String uuid = indexes.interfaceUuid(intf);
+        Row row = uuid == null ? null : getRow(DATABASENAME, INTERFACE, uuid);
+        return row == null ? null : getInterface(row);
     }
 
     private Interface getInterface(Row row) {
@@ -1785,56 +1782,36 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
     public Set<OvsdbPort> getLocalPorts(Iterable<String> ifaceids) {
         Set<OvsdbPort> ovsdbPorts = new HashSet<>();
         OvsdbTableStore tableStore = getTableStore(DATABASENAME);
-        if (tableStore == null) {
-            return null;
-        }
-        OvsdbRowStore rowStore = tableStore.getRows(INTERFACE);
-        if (rowStore == null) {
+        if (tableStore == null || tableStore.getRows(INTERFACE) == null) {
             return null;
         }
-        ConcurrentMap<String, Row> rows = rowStore.getRowStore();
-        for (String uuid : rows.keySet()) {
-            Row row = getRow(DATABASENAME, INTERFACE, uuid);
-            DatabaseSchema dbSchema = getDatabaseSchema(DATABASENAME);
-            Interface intf = (Interface) TableGenerator
-                    .getTable(dbSchema, row, OvsdbTable.INTERFACE);
-            if (intf == null || getIfaceid(intf) == null) {
-                continue;
-            }
-            String portName = intf.getName();
-            if (portName == null) {
-                continue;
-            }
-            Set<String> ifaceidSet = Sets.newHashSet(ifaceids);
-            if (portName.startsWith(TYPEVXLAN) || !ifaceidSet.contains(getIfaceid(intf))) {
-                continue;
-            }
-            long ofPort = getOfPort(intf);
-            if (ofPort < 0) {
-                continue;
+        DatabaseSchema dbSchema = getDatabaseSchema(DATABASENAME);
+        for (String ifaceid : Sets.newHashSet(ifaceids)) {
+            for (String uuid : indexes.interfaceUuidsByIfaceId(ifaceid)) {
+                Row row = getRow(DATABASENAME, INTERFACE, uuid);
+                if (row == null) {
+                    continue;
+                }
+                Interface intf = (Interface) TableGenerator
+                        .getTable(dbSchema, row, OvsdbTable.INTERFACE);
+                if (intf == null) {
+                    continue;
+                }
+                String portName = intf.getName();
+                if (portName == null || portName.startsWith(TYPEVXLAN)) {
+                    continue;
+                }
+                long ofPort = getOfPort(intf);
+                if (ofPort < 0) {
+                    continue;
+                }
+                ovsdbPorts.add(new OvsdbPort(new OvsdbPortNumber(ofPort),
+                                             new OvsdbPortName(portName)));
             }
-            ovsdbPorts.add(new OvsdbPort(new OvsdbPortNumber(ofPort),
-                                         new OvsdbPortName(portName)));
         }
         return ovsdbPorts;
     }
 
-    private String getIfaceid(Interface intf) {
-        OvsdbMap ovsdbMap = (OvsdbMap) intf.getExternalIdsColumn().data();
-        @SuppressWarnings("unchecked")
-        Map<String, String> externalIds = ovsdbMap.map();
-        if (externalIds.isEmpty()) {
-            log.warn("The external_ids is null");
-            return null;
-        }
-        String ifaceid = externalIds.get(EXTERNAL_ID_INTERFACE_ID);
-        if (ifaceid == null) {
-            log.warn("The ifaceid is null");
-            return null;
-        }
-        return ifaceid;
-    }
-
     @Override
     public void disconnect() {
         channel.disconnect();
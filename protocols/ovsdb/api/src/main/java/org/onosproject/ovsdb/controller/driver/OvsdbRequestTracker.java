@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ovsdb.controller.driver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.ovsdb.rfc.utils.FromJsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Correlates the JSON-RPC requests sent to an ovsdb server with their
+ * responses. Requests not answered within the timeout fail with a
+ * {@link TimeoutException}.
+ */
+final class OvsdbRequestTracker {
+
+    private final Logger log = LoggerFactory.getLogger(OvsdbRequestTracker.class);
+
+    private final long timeoutMillis;
+    private final Map<String, PendingRequest> pending = Maps.newConcurrentMap();
+
+    /**
+     * Creates a request tracker.
+     *
+     * @param timeout time to wait for a response
+     * @param unit    unit of the timeout
+     */
+    OvsdbRequestTracker(long timeout, TimeUnit unit) {
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * Registers a request about to be sent.
+     *
+     * @param id     JSON-RPC request id
+     * @param method JSON-RPC method name
+     * @param <T>    type of the result
+     * @return future completed with the parsed result of the response
+     */
+    <T> SettableFuture<T> register(String id, String method) {
+        SettableFuture<T> future = SettableFuture.create();
+        PendingRequest request = new PendingRequest(method, future);
+        pending.put(id, request);
+        request.timeout = SharedScheduledExecutors.newTimeout(
+                () -> expire(id, request), timeoutMillis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    /**
+     * Completes the request matching the given response.
+     *
+     * @param id       JSON-RPC request id
+     * @param response JSON-RPC response
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    void complete(String id, JsonNode response) {
+        PendingRequest request = remove(id);
+        if (request == null) {
+            log.debug("No pending request {}, the response may have arrived after the timeout", id);
+            return;
+        }
+        ((SettableFuture) request.future).set(FromJsonUtil.jsonResultParser(response, request.method));
+    }
+
+    /**
+     * Fails the given request.
+     *
+     * @param id    JSON-RPC request id
+     * @param cause cause of the failure
+     */
+    void fail(String id, Throwable cause) {
+        PendingRequest request = remove(id);
+        if (request != null) {
+            request.future.setException(cause);
+        }
+    }
+
+    /**
+     * Fails all the pending requests, for instance when the connection is lost.
+     *
+     * @param cause cause of the failure
+     */
+    void failAll(Throwable cause) {
+        pending.keySet().forEach(id -> fail(id, cause));
+    }
+
+    /**
+     * Returns the number of requests waiting for a response.
+     *
+     * @return number of pending requests
+     */
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private PendingRequest remove(String id) {
+        PendingRequest request = pending.remove(id);
+        if (request != null && request.timeout != null) {
+            request.timeout.cancel(false);
+        }
+        return request;
+    }
+
+    private void expire(String id, PendingRequest request) {
+        if (pending.remove(id, request)) {
+            log.warn("No response to {} request {} within {} ms", request.method, id, timeoutMillis);
+            request.future.setException(new TimeoutException(
+                    "No response to " + request.method + " within " + timeoutMillis + " ms"));
+        }
+    }
+
+    private static final class PendingRequest {
+        private final String method;
+        private final SettableFuture<?> future;
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingRequest(String method, SettableFuture<?> future) {
+            this.method = method;
+            this.future = future;
+        }
+    }
+}
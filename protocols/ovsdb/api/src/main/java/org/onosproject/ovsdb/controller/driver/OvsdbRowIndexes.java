@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ovsdb.controller.driver;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.ovsdb.rfc.notation.Column;
+import org.onosproject.ovsdb.rfc.notation.OvsdbMap;
+import org.onosproject.ovsdb.rfc.notation.Row;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.onosproject.ovsdb.controller.OvsdbConstant.BRIDGE;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.EXTERNAL_ID;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.EXTERNAL_ID_INTERFACE_ID;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.INTERFACE;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.PORT;
+
+/**
+ * Secondary indexes over the rows of the Open_vSwitch database tables,
+ * updated incrementally as rows are stored or removed so that lookups by
+ * name or interface id do not scan the row stores.
+ */
+final class OvsdbRowIndexes {
+
+    private static final String NAME = "name";
+
+    private final RowIndex<String> bridgeByName = new RowIndex<>(OvsdbRowIndexes::name);
+    private final RowIndex<String> portByName = new RowIndex<>(OvsdbRowIndexes::name);
+    private final RowIndex<String> interfaceByName = new RowIndex<>(OvsdbRowIndexes::name);
+    private final RowIndex<String> interfaceByIfaceId = new RowIndex<>(OvsdbRowIndexes::ifaceId);
+
+    private final Map<String, List<RowIndex<?>>> indexes = Maps.newHashMap();
+
+    OvsdbRowIndexes() {
+        indexes.put(BRIDGE, ImmutableList.of(bridgeByName));
+        indexes.put(PORT, ImmutableList.of(portByName));
+        indexes.put(INTERFACE, ImmutableList.of(interfaceByName, interfaceByIfaceId));
+    }
+
+    /**
+     * Indexes a new or updated row.
+     *
+     * @param tableName table of the row
+     * @param uuid      uuid of the row
+     * @param row       new content of the row
+     */
+    void update(String tableName, String uuid, Row row) {
+        indexes.getOrDefault(tableName, ImmutableList.of()).forEach(index -> index.update(uuid, row));
+    }
+
+    /**
+     * Removes a row from the indexes.
+     *
+     * @param tableName table of the row
+     * @param uuid      uuid of the row
+     */
+    void remove(String tableName, String uuid) {
+        indexes.getOrDefault(tableName, ImmutableList.of()).forEach(index -> index.remove(uuid));
+    }
+
+    /**
+     * Returns the uuid of the bridge with the given name.
+     *
+     * @param name bridge name
+     * @return uuid, or null if there is no such bridge
+     */
+    String bridgeUuid(String name) {
+        return bridgeByName.first(name);
+    }
+
+    /**
+     * Returns the uuid of the port with the given name.
+     *
+     * @param name port name
+     * @return uuid, or null if there is no such port
+     */
+    String portUuid(String name) {
+        return portByName.first(name);
+    }
+
+    /**
+     * Returns the uuid of the interface with the given name.
+     *
+     * @param name interface name
+     * @return uuid, or null if there is no such interface
+     */
+    String interfaceUuid(String name) {
+        return interfaceByName.first(name);
+    }
+
+    /**
+     * Returns the uuids of the interfaces with the given iface-id external id.
+     *
+     * @param ifaceId interface id
+     * @return set of uuids, empty if there is no such interface
+     */
+    Set<String> interfaceUuidsByIfaceId(String ifaceId) {
+        return interfaceByIfaceId.all(ifaceId);
+    }
+
+    private static Object data(Row row, String columnName) {
+        Column column = row.getColumn(columnName);
+        return column == null ? null : column.data();
+    }
+
+    private static String name(Row row) {
+        Object name = data(row, NAME);
+        return name instanceof String ? (String) name : null;
+    }
+
+    private static String ifaceId(Row row) {
+        Object externalIds = data(row, EXTERNAL_ID);
+        if (!(externalIds instanceof OvsdbMap)) {
+            return null;
+        }
+        Object ifaceId = ((OvsdbMap) externalIds).map().get(EXTERNAL_ID_INTERFACE_ID);
+        return ifaceId == null ? null : ifaceId.toString();
+    }
+
+    /**
+     * Index from a key derived from the row content to the uuids of the rows.
+     * Lookups do not take any lock; updates are serialized.
+     */
+    private static final class RowIndex<K> {
+        private final Function<Row, K> keyFunction;
+        private final Map<K, Set<String>> uuidsByKey = Maps.newConcurrentMap();
+        private final Map<String, K> keyByUuid = Maps.newConcurrentMap();
+
+        private RowIndex(Function<Row, K> keyFunction) {
+            this.keyFunction = keyFunction;
+        }
+
+        private synchronized void update(String uuid, Row row) {
+            K key = keyFunction.apply(row);
+            K oldKey = keyByUuid.get(uuid);
+            if (key != null && key.equals(oldKey)) {
+                return;
+            }
+            remove(uuid);
+            if (key != null) {
+                keyByUuid.put(uuid, key);
+                uuidsByKey.computeIfAbsent(key, k -> Sets.newConcurrentHashSet()).add(uuid);
+            }
+        }
+
+        private synchronized void remove(String uuid) {
+            K oldKey = keyByUuid.remove(uuid);
+            if (oldKey != null) {
+                uuidsByKey.computeIfPresent(oldKey, (k, uuids) -> {
+                    uuids.remove(uuid);
+                    return uuids.isEmpty() ? null : uuids;
+                });
+            }
+        }
+
+        private String first(K key) {
+            Set<String> uuids = uuidsByKey.get(key);
+            return uuids == null ? null : uuids.stream().findFirst().orElse(null);
+        }
+
+        private Set<String> all(K key) {
+            Set<String> uuids = uuidsByKey.get(key);
+            return uuids == null ? ImmutableSet.of() : ImmutableSet.copyOf(uuids);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ovsdb.controller.driver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.ovsdb.controller.OvsdbClientService;
+import org.onosproject.ovsdb.controller.OvsdbNodeId;
+import org.onosproject.ovsdb.controller.OvsdbPort;
+import org.onosproject.ovsdb.rfc.message.TableUpdate;
+import org.onosproject.ovsdb.rfc.message.TableUpdates;
+import org.onosproject.ovsdb.rfc.notation.Row;
+import org.onosproject.ovsdb.rfc.notation.Uuid;
+import org.onosproject.ovsdb.rfc.schema.DatabaseSchema;
+import org.onosproject.ovsdb.rfc.utils.FromJsonUtil;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.DATABASENAME;
+
+/**
+ * Unit tests for DefaultOvsdbClient, talking to a local ovsdb stub server.
+ */
+public class DefaultOvsdbClientTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final OvsdbNodeId NODE_ID = new OvsdbNodeId(IpAddress.valueOf("10.0.0.1"), 6640);
+
+    private static final String SCHEMA = "{\"name\": \"Open_vSwitch\", \"version\": \"7.15.0\", \"tables\": {"
+            + "\"Bridge\": {\"columns\": {\"name\": {\"type\": \"string\"}}},"
+            + "\"Port\": {\"columns\": {\"name\": {\"type\": \"string\"}}},"
+            + "\"Interface\": {\"columns\": {\"name\": {\"type\": \"string\"},"
+            + " \"ofport\": {\"type\": {\"key\": \"integer\", \"min\": 0, \"max\": 1}},"
+            + " \"external_ids\": {\"type\": {\"key\": \"string\", \"value\": \"string\","
+            + " \"min\": 0, \"max\": \"unlimited\"}}}}}}";
+
+    private static final String BRIDGE_UUID = "2a7d1c4c-9d34-4ea5-a5bd-6b3c2a7c1a10";
+    private static final String PORT_UUID = "6bd9fd5e-1d5f-4c6d-8f3b-2c3c0c4e2a11";
+    private static final String INTF_UUID = "93b7a1c2-0f6e-4b6a-9e55-2f2a3d4b5c12";
+
+    private static final long TIMEOUT = 5000;
+    private static final long SHORT_TIMEOUT = 100;
+
+    private DefaultOvsdbClient client;
+    private OvsdbStubServer server;
+
+    @Before
+    public void setUp() {
+        client = new DefaultOvsdbClient(NODE_ID, TIMEOUT, TimeUnit.MILLISECONDS);
+        server = new OvsdbStubServer(client);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Tests the responses complete the matching requests.
+     */
+    @Test
+    public void testRequestResponse() throws Exception {
+        ListenableFuture<List<String>> dbs = client.listDbs();
+        ListenableFuture<List<String>> echo = client.echo();
+        assertThat(client.pendingRequests(), is(2));
+
+        assertThat(server.serve(), is(2));
+        assertThat(dbs.get(), is(ImmutableList.of(DATABASENAME)));
+        assertThat(echo.get(), is(Collections.emptyList()));
+        assertThat(client.pendingRequests(), is(0));
+    }
+
+    /**
+     * Tests concurrent requests answered out of order are correlated with
+     * their own responses.
+     */
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        int requests = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<ListenableFuture<JsonNode>>> sent = Lists.newArrayList();
+        for (int i = 0; i < requests; i++) {
+            sent.add(executor.submit(() -> client.getSchema(ImmutableList.of(DATABASENAME))));
+        }
+        List<ListenableFuture<JsonNode>> futures = Lists.newArrayList();
+        for (Future<ListenableFuture<JsonNode>> future : sent) {
+            futures.add(future.get());
+        }
+        executor.shutdown();
+
+        // the stub answers get_schema with the request id, in reverse order
+        List<JsonNode> received = server.receive();
+        assertThat(received.size(), is(requests));
+        Collections.reverse(received);
+        Set<String> ids = Sets.newHashSet();
+        for (JsonNode request : received) {
+            ids.add(request.get("id").asText());
+            server.reply(request, JsonNodeFactory.instance.textNode(request.get("id").asText()));
+        }
+
+        Set<String> results = Sets.newHashSet();
+        for (ListenableFuture<JsonNode> future : futures) {
+            results.add(future.get().asText());
+        }
+        assertThat(results, is(ids));
+        assertThat(client.pendingRequests(), is(0));
+    }
+
+    /**
+     * Tests an unanswered request times out and a late response is ignored.
+     */
+    @Test
+    public void testTimeout() throws Exception {
+        server.close();
+        client = new DefaultOvsdbClient(NODE_ID, SHORT_TIMEOUT, TimeUnit.MILLISECONDS);
+        server = new OvsdbStubServer(client);
+
+        ListenableFuture<List<String>> dbs = client.listDbs();
+        List<JsonNode> requests = server.receive();
+        try {
+            dbs.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            fail("the request should have timed out");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+        assertThat(client.pendingRequests(), is(0));
+
+        server.reply(requests.get(0), MAPPER.valueToTree(ImmutableList.of(DATABASENAME)));
+        assertThat(client.pendingRequests(), is(0));
+    }
+
+    /**
+     * Tests a request fails when it cannot be written to the channel.
+     */
+    @Test
+    public void testWriteFailure() throws Exception {
+        server.close();
+        ListenableFuture<List<String>> echo = client.echo();
+        try {
+            echo.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            fail("the request should have failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), notNullValue());
+        }
+        assertThat(client.pendingRequests(), is(0));
+    }
+
+    /**
+     * Tests pending requests fail when the node is removed.
+     */
+    @Test
+    public void testNodeRemoved() throws Exception {
+        client.setAgent(new OvsdbAgent() {
+            @Override
+            public void addConnectedNode(OvsdbNodeId nodeId, OvsdbClientService ovsdbClient) {
+            }
+
+            @Override
+            public void removeConnectedNode(OvsdbNodeId nodeId) {
+            }
+        });
+        ListenableFuture<List<String>> echo = client.echo();
+        client.nodeRemoved();
+        assertThat(echo.isDone(), is(true));
+        assertThat(client.pendingRequests(), is(0));
+    }
+
+    /**
+     * Tests the row indexes follow the monitor updates.
+     */
+    @Test
+    public void testRowIndexes() throws Exception {
+        ListenableFuture<DatabaseSchema> schema = client.getOvsdbSchema(DATABASENAME);
+        server.serve();
+        DatabaseSchema dbSchema = schema.get();
+
+        update(dbSchema, "{\"Bridge\": {\"" + BRIDGE_UUID + "\": {\"new\": {\"name\": \"br-int\"}}},"
+                + "\"Port\": {\"" + PORT_UUID + "\": {\"new\": {\"name\": \"tap1\"}}},"
+                + "\"Interface\": {\"" + INTF_UUID + "\": {\"new\": {\"name\": \"tap1\", \"ofport\": [\"set\", []],"
+                + " \"external_ids\": [\"map\", [[\"iface-id\", \"vm1\"]]]}}}}");
+        assertThat(client.getBridgeUuid("br-int"), is(BRIDGE_UUID));
+        assertThat(client.getBridgeUuid("br-ex"), nullValue());
+        assertThat(client.getInterface("tap1").getName(), is("tap1"));
+        assertThat(client.getLocalPorts(ImmutableList.of("vm1")).isEmpty(), is(true));
+
+        // the switch assigns the OpenFlow port number
+        update(dbSchema, "{\"Interface\": {\"" + INTF_UUID + "\": {\"new\": {\"name\": \"tap1\", \"ofport\": 3,"
+                + " \"external_ids\": [\"map\", [[\"iface-id\", \"vm1\"]]]}}}}");
+        Set<OvsdbPort> ports = client.getLocalPorts(ImmutableList.of("vm1", "vm2"));
+        assertThat(ports.size(), is(1));
+        assertThat(ports.iterator().next().portNumber().value(), is(3L));
+        assertThat(ports.iterator().next().portName().value(), is("tap1"));
+
+        // renamed
+        update(dbSchema, "{\"Interface\": {\"" + INTF_UUID + "\": {\"new\": {\"name\": \"tap2\", \"ofport\": 3,"
+                + " \"external_ids\": [\"map\", [[\"iface-id\", \"vm2\"]]]}}}}");
+        assertThat(client.getInterface("tap1"), nullValue());
+        assertThat(client.getInterface("tap2").getName(), is("tap2"));
+        assertThat(client.getLocalPorts(ImmutableList.of("vm1")).isEmpty(), is(true));
+        assertThat(client.getLocalPorts(ImmutableList.of("vm2")).size(), is(1));
+
+        // removed
+        update(dbSchema, "{\"Interface\": {\"" + INTF_UUID + "\": {\"old\": {\"name\": \"tap2\"}}},"
+                + "\"Bridge\": {\"" + BRIDGE_UUID + "\": {\"old\": {\"name\": \"br-int\"}}}}");
+        assertThat(client.getInterface("tap2"), nullValue());
+        assertThat(client.getLocalPorts(ImmutableList.of("vm2")).isEmpty(), is(true));
+        assertThat(client.getBridgeUuid("br-int"), nullValue());
+    }
+
+    /**
+     * Applies monitor updates the way the ovsdb controller does.
+     */
+    private void update(DatabaseSchema dbSchema, String updates) throws IOException {
+        TableUpdates tableUpdates = FromJsonUtil.jsonNodeToTableUpdates(MAPPER.readTree(updates), dbSchema);
+        for (String tableName : tableUpdates.result().keySet()) {
+            TableUpdate tableUpdate = tableUpdates.result().get(tableName);
+            for (Uuid uuid : (Set<Uuid>) tableUpdate.rows().keySet()) {
+                Row row = tableUpdate.getNew(uuid);
+                if (row == null) {
+                    client.removeRow(DATABASENAME, tableName, uuid.value());
+                } else {
+                    client.updateOvsdbStore(DATABASENAME, tableName, uuid.value(), row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Local ovsdb server stub, reading the JSON-RPC requests written by the
+     * client on an embedded channel and feeding the responses back to it.
+     * Requests may be written by several threads at once, so they are queued
+     * by the first outbound handler instead of the embedded channel buffer.
+     */
+    private static final class OvsdbStubServer {
+        private final Queue<String> outbound = new ConcurrentLinkedQueue<>();
+        private final EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                if (ctx.channel().isActive()) {
+                    outbound.add((String) msg);
+                    promise.setSuccess();
+                } else {
+                    promise.setFailure(new ClosedChannelException());
+                }
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+            }
+        });
+        private final DefaultOvsdbClient client;
+
+        private OvsdbStubServer(DefaultOvsdbClient client) {
+            this.client = client;
+            client.setChannel(channel);
+        }
+
+        private List<JsonNode> receive() throws IOException {
+            List<JsonNode> requests = Lists.newArrayList();
+            for (String request = outbound.poll(); request != null; request = outbound.poll()) {
+                requests.add(MAPPER.readTree(request));
+            }
+            return requests;
+        }
+
+        private void reply(JsonNode request, JsonNode result) {
+            ObjectNode response = MAPPER.createObjectNode();
+            response.set("id", request.get("id"));
+            response.set("result", result);
+            response.putNull("error");
+            client.processResult(response);
+        }
+
+        private int serve() throws IOException {
+            List<JsonNode> requests = receive();
+            for (JsonNode request : requests) {
+                switch (request.get("method").asText()) {
+                    case "get_schema":
+                        reply(request, MAPPER.readTree(SCHEMA));
+                        break;
+                    case "list_dbs":
+                        reply(request, MAPPER.valueToTree(ImmutableList.of(DATABASENAME)));
+                        break;
+                    default:
+                        reply(request, MAPPER.createArrayNode());
+                        break;
+                }
+            }
+            return requests.size();
+        }
+
+        private void close() {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.server.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.onosproject.incubator.net.tunnel.IpTunnelEndPoint;
+import org.onosproject.incubator.net.tunnel.Tunnel;
+import org.onosproject.pcep.server.LspKey;
+import org.onosproject.pcep.server.PccId;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onosproject.pcep.server.PcepAnnotationKeys.LOCAL_LSP_ID;
+import static org.onosproject.pcep.server.PcepAnnotationKeys.PLSP_ID;
+
+/**
+ * Index of the LSPs known by the PCE for one PCC, used to match the LSPs
+ * reported by the PCC during LSP DB sync.
+ * <p>
+ * Tunnels whose PLSP id is known are indexed by LSP key. PLSP id is not yet
+ * known for tunnels created at the PCE and not reported by the PCC yet, so
+ * those are indexed by symbolic path name. Matched tunnels are removed from
+ * the index, leaving the tunnels which were not reported by the PCC.
+ * </p>
+ */
+final class LspDbIndex {
+
+    private final Map<LspKey, Tunnel> lspByKey = new HashMap<>();
+    private final Map<String, Tunnel> lspByName = new HashMap<>();
+
+    /**
+     * Creates an index of the given tunnels having the PCC as ingress.
+     *
+     * @param pccId   PCC id
+     * @param tunnels tunnels known by the PCE
+     */
+    LspDbIndex(PccId pccId, Iterable<Tunnel> tunnels) {
+        for (Tunnel tunnel : tunnels) {
+            if (!(tunnel.src() instanceof IpTunnelEndPoint)
+                    || !((IpTunnelEndPoint) tunnel.src()).ip().equals(pccId.ipAddress())) {
+                continue;
+            }
+            String plspId = tunnel.annotations().value(PLSP_ID);
+            if (plspId != null) {
+                String localLspId = checkNotNull(tunnel.annotations().value(LOCAL_LSP_ID));
+                lspByKey.put(new LspKey(Integer.valueOf(plspId), Short.valueOf(localLspId)), tunnel);
+            } else {
+                lspByName.put(tunnel.tunnelName().value(), tunnel);
+            }
+        }
+    }
+
+    /**
+     * Finds and removes from the index the tunnel matching a reported LSP.
+     *
+     * @param lspKey   LSP key of the report
+     * @param pathName symbolic path name of the report, null if absent
+     * @return matching tunnel, null if the LSP is not known by the PCE
+     */
+    Tunnel remove(LspKey lspKey, byte[] pathName) {
+        Tunnel tunnel = lspByKey.remove(lspKey);
+        if (tunnel == null && pathName != null) {
+            tunnel = lspByName.remove(new String(pathName));
+        }
+        return tunnel;
+    }
+
+    /**
+     * Returns the tunnels which have not been matched.
+     *
+     * @return residual tunnels
+     */
+    List<Tunnel> residualTunnels() {
+        List<Tunnel> tunnels = new ArrayList<>(lspByKey.size() + lspByName.size());
+        tunnels.addAll(lspByKey.values());
+        tunnels.addAll(lspByName.values());
+        return tunnels;
+    }
+
+    /**
+     * Returns the number of tunnels not matched yet.
+     *
+     * @return number of tunnels
+     */
+    int size() {
+        return lspByKey.size() + lspByName.size();
+    }
+}
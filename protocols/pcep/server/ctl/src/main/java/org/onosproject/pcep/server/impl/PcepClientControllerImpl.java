@@ -20,8 +20,6 @@ import java.util.TreeMap;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.Set;
-import java.util.HashSet;
-import java.util.HashMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ListIterator;
@@ -29,6 +27,8 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -38,6 +38,7 @@ import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.packet.Ip4Address;
 import org.onlab.packet.IpAddress;
+import org.onlab.util.PredictableExecutor;
 import org.onosproject.incubator.net.resource.label.LabelResourceAdminService;
 import org.onosproject.incubator.net.resource.label.LabelResourceId;
 import org.onosproject.incubator.net.resource.label.LabelResourceService;
@@ -103,8 +104,8 @@ import org.onosproject.pcepio.types.SymbolicPathNameTlv;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Sets;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.util.Tools.groupedThreads;
 
 import static org.onosproject.pcep.server.PcepSyncStatus.IN_SYNC;
 import static org.onosproject.pcep.server.LspType.WITHOUT_SIGNALLING_AND_WITHOUT_SR;
@@ -164,14 +165,22 @@ public class PcepClientControllerImpl implements PcepClientController {
             new ConcurrentHashMap<>();
 
     protected PcepClientAgent agent = new PcepClientAgent();
-    protected Set<PcepClientListener> pcepClientListener = new HashSet<>();
+    protected Set<PcepClientListener> pcepClientListener = new CopyOnWriteArraySet<>();
 
-    protected Set<PcepEventListener> pcepEventListener = Sets.newHashSet();
-    protected Set<PcepNodeListener> pcepNodeListener = Sets.newHashSet();
+    protected Set<PcepEventListener> pcepEventListener = new CopyOnWriteArraySet<>();
+    protected Set<PcepNodeListener> pcepNodeListener = new CopyOnWriteArraySet<>();
 
     // LSR-id and device-id mapping for checking capability if L3 device is not
     // having its capability
-    private Map<String, DeviceId> lsrIdDeviceIdMap = new HashMap<>();
+    private Map<String, DeviceId> lsrIdDeviceIdMap = new ConcurrentHashMap<>();
+
+    // Messages of a PCC are processed in order, messages of different PCCs in parallel
+    private PredictableExecutor messageExecutor;
+
+    // Start time of the ongoing LSP DB sync, and outcome of the last one, per PCC
+    private final Map<PccId, Long> lspDbSyncStart = new ConcurrentHashMap<>();
+    private final Map<PccId, Long> lspDbSyncDuration = new ConcurrentHashMap<>();
+    private final Map<PccId, Integer> lspDbSyncLspCount = new ConcurrentHashMap<>();
 
     private final Controller ctrl = new Controller();
     public static final long GLOBAL_LABEL_SPACE_MIN = 4097;
@@ -190,6 +199,7 @@ public class PcepClientControllerImpl implements PcepClientController {
 
     @Activate
     public void activate() {
+        messageExecutor = new PredictableExecutor(groupedThreads("onos/pcep", "message-%d", log));
         ctrl.start(agent);
         crHandler = BasicPceccHandler.getInstance();
         crHandler.initialize(labelRsrcService, deviceService, pceStore, this);
@@ -218,6 +228,7 @@ public class PcepClientControllerImpl implements PcepClientController {
         linkService.removeListener(linkListener);
         netCfgService.removeListener(cfgListener);
         ctrl.stop();
+        messageExecutor.shutdown();
         log.info("Stopped");
     }
 
@@ -301,9 +312,34 @@ public class PcepClientControllerImpl implements PcepClientController {
         pcepNodeListener.remove(listener);
     }
 
+    /**
+     * Returns the duration of the last LSP DB sync of a PCC, from the first
+     * synchronization report to the end of the end of sync actions.
+     *
+     * @param pccId PCC id
+     * @return duration in milliseconds, -1 if no sync completed yet
+     */
+    public long lspDbSyncDuration(PccId pccId) {
+        return lspDbSyncDuration.getOrDefault(pccId, -1L);
+    }
+
+    /**
+     * Returns the number of LSPs reported during the last LSP DB sync of a PCC.
+     *
+     * @param pccId PCC id
+     * @return number of LSPs, -1 if no sync completed yet
+     */
+    public int lspDbSyncLspCount(PccId pccId) {
+        return lspDbSyncLspCount.getOrDefault(pccId, -1);
+    }
+
     @Override
     public void processClientMessage(PccId pccId, PcepMessage msg) {
         PcepClient pc = getClient(pccId);
+        if (pc == null) {
+            log.debug("Dropping {} message of disconnected PCC {}", msg.getType(), pccId);
+            return;
+        }
 
         switch (msg.getType()) {
         case NONE:
@@ -356,6 +392,7 @@ public class PcepClientControllerImpl implements PcepClientController {
                         if (pc.lspDbSyncStatus() != IN_SYNC) {
                             log.debug("LSP DB sync started for PCC {}", pc.getPccId().id().toString());
                             // Initialize LSP DB sync and temporary cache.
+                            lspDbSyncStart.put(pccId, System.nanoTime());
                             pc.setLspDbSyncStatus(IN_SYNC);
                             pc.initializeSyncMsgList(pccId);
                         }
@@ -369,6 +406,7 @@ public class PcepClientControllerImpl implements PcepClientController {
                                 || pc.lspDbSyncStatus() == NOT_SYNCED) {
                             // Set end of LSPDB sync.
                             log.debug("LSP DB sync completed for PCC {}", pc.getPccId().id().toString());
+                            lspDbSyncStart.putIfAbsent(pccId, System.nanoTime());
                             pc.setLspDbSyncStatus(SYNCED);
 
                             // Call packet provider to initiate label DB sync (only if PCECC capable).
@@ -921,7 +959,17 @@ public class PcepClientControllerImpl implements PcepClientController {
 
         @Override
         public void processPcepMessage(PccId pccId, PcepMessage m) {
-            processClientMessage(pccId, m);
+            if (messageExecutor == null) {
+                processClientMessage(pccId, m);
+                return;
+            }
+            messageExecutor.execute(() -> {
+                try {
+                    processClientMessage(pccId, m);
+                } catch (RuntimeException e) {
+                    log.error("Exception while processing {} message of PCC {}", m.getType(), pccId, e);
+                }
+            }, pccId.hashCode());
         }
 
         @Override
@@ -938,52 +986,32 @@ public class PcepClientControllerImpl implements PcepClientController {
             }
         }
 
-        @SuppressWarnings({ "unchecked", "rawtypes" })
         @Override
         public boolean analyzeSyncMsgList(PccId pccId) {
             PcepClient pc = getClient(pccId);
-            /*
-             * PLSP_ID is null while tunnel is created at PCE and PCInit msg carries it as 0. It is allocated by PCC and
-             * in that case it becomes the first PCRpt msg from PCC for this LSP, and hence symbolic path name must be
-             * carried in the PCRpt msg. Draft says: The SYMBOLIC-PATH-NAME TLV "MUST" be included in the LSP object in
-             * the LSP State Report (PCRpt) message when during a given PCEP session an LSP is "first" reported to a
-             * PCE. So two separate lists with separate keys are maintained.
-             */
-            Map<LspKey, Tunnel> preSyncLspDbByKey = new HashMap<>();
-            Map<String, Tunnel> preSyncLspDbByName = new HashMap<>();
-
-            // Query tunnel service and fetch all the tunnels with this PCC as ingress.
-            // Organize into two maps, with LSP key if known otherwise with symbolic path name, for quick search.
-            Collection<Tunnel> queriedTunnels = tunnelService.queryTunnel(Tunnel.Type.MPLS);
-            for (Tunnel tunnel : queriedTunnels) {
-                if (((IpTunnelEndPoint) tunnel.src()).ip().equals(pccId.ipAddress())) {
-                    String pLspId = tunnel.annotations().value(PLSP_ID);
-                    if (pLspId != null) {
-                        String localLspId = tunnel.annotations().value(LOCAL_LSP_ID);
-                        checkNotNull(localLspId);
-                        LspKey lspKey = new LspKey(Integer.valueOf(pLspId), Short.valueOf(localLspId));
-                        preSyncLspDbByKey.put(lspKey, tunnel);
-                    } else {
-                        preSyncLspDbByName.put(tunnel.tunnelName().value(), tunnel);
-                    }
-                }
+            if (pc == null) {
+                log.debug("PCC {} disconnected before the end of LSP DB sync", pccId);
+                lspDbSyncStart.remove(pccId);
+                return false;
             }
 
+            // Query tunnel service and index all the tunnels with this PCC as ingress, by LSP key if known
+            // otherwise by symbolic path name, for quick search.
+            LspDbIndex preSyncLspDb = new LspDbIndex(pccId, tunnelService.queryTunnel(Tunnel.Type.MPLS));
+
             List<PcepStateReport> syncStateRptList = pc.getSyncMsgList(pccId);
             if (syncStateRptList == null) {
                 // When there are no LSPs to sync, directly end-of-sync PCRpt will come and the
                 // list will be null.
-                syncStateRptList = Collections.EMPTY_LIST;
+                syncStateRptList = Collections.emptyList();
                 log.debug("No LSPs reported from PCC during sync.");
             }
 
-            Iterator<PcepStateReport> stateRptListIterator = syncStateRptList.iterator();
+            // Learned LSPs are handed over to the listeners in a single report at the end of the sync.
+            LinkedList<PcepStateReport> learnedLspRptList = new LinkedList<>();
 
             // For every report, fetch PLSP id, local LSP id and symbolic path name from the message.
-            while (stateRptListIterator.hasNext()) {
-                PcepStateReport stateRpt = stateRptListIterator.next();
-                Tunnel tunnel = null;
-
+            for (PcepStateReport stateRpt : syncStateRptList) {
                 PcepLspObject lspObj = stateRpt.getLspObject();
                 ListIterator<PcepValueType> listTlvIterator = lspObj.getOptionalTlv().listIterator();
                 StatefulIPv4LspIdentifiersTlv ipv4LspIdenTlv = null;
@@ -1006,21 +1034,15 @@ public class PcepClientControllerImpl implements PcepClientController {
                 }
 
                 if (ipv4LspIdenTlv == null) {
+                    lspDbSyncStart.remove(pccId);
                     return false;
                 }
 
+                // PCE tunnel matched with PCRpt LSP is removed from the index, as the residual non-matching
+                // tunnels will be processed at the end.
                 LspKey lspKeyOfRpt = new LspKey(lspObj.getPlspId(), ipv4LspIdenTlv.getLspId());
-                tunnel = preSyncLspDbByKey.get(lspKeyOfRpt);
-                // PCE tunnel is matched with PCRpt LSP. Now delete it from the preSyncLspDb list as the residual
-                // non-matching list will be processed at the end.
-                if (tunnel != null) {
-                    preSyncLspDbByKey.remove(lspKeyOfRpt);
-                } else if (pathNameTlv != null) {
-                    tunnel = preSyncLspDbByName.get(Arrays.toString(pathNameTlv.getValue()));
-                    if (tunnel != null) {
-                        preSyncLspDbByName.remove(tunnel.tunnelName().value());
-                    }
-                }
+                Tunnel tunnel = preSyncLspDb.remove(lspKeyOfRpt,
+                                                    pathNameTlv != null ? pathNameTlv.getValue() : null);
 
                 if (tunnel == null) {
                     // If remove flag is set, and tunnel is not known to PCE, ignore it.
@@ -1048,14 +1070,7 @@ public class PcepClientControllerImpl implements PcepClientController {
 
                 if (!lspObj.getCFlag()) {
                     // For learned LSP process both add/update PCRpt.
-                    LinkedList<PcepStateReport> llPcRptList = new LinkedList<>();
-                    llPcRptList.add(stateRpt);
-                    PcepMessage pcReportMsg = pc.factory().buildReportMsg().setStateReportList((llPcRptList))
-                            .build();
-
-                    for (PcepEventListener l : pcepEventListener) {
-                        l.handleMessage(pccId, pcReportMsg);
-                    }
+                    learnedLspRptList.add(stateRpt);
                     continue;
                 }
 
@@ -1071,17 +1086,27 @@ public class PcepClientControllerImpl implements PcepClientController {
                 }
             }
 
-            // Check which tunnels are extra at PCE that were not reported by PCC.
-            Map<Object, Tunnel> preSyncLspDb = (Map) preSyncLspDbByKey;
-            handleResidualTunnels(preSyncLspDb);
-            preSyncLspDbByKey = null;
+            if (!learnedLspRptList.isEmpty()) {
+                PcepMessage pcReportMsg = pc.factory().buildReportMsg().setStateReportList(learnedLspRptList)
+                        .build();
+                for (PcepEventListener l : pcepEventListener) {
+                    l.handleMessage(pccId, pcReportMsg);
+                }
+            }
 
-            preSyncLspDb = (Map) preSyncLspDbByName;
-            handleResidualTunnels(preSyncLspDb);
-            preSyncLspDbByName = null;
-            preSyncLspDb = null;
+            // Check which tunnels are extra at PCE that were not reported by PCC.
+            handleResidualTunnels(preSyncLspDb.residualTunnels());
 
             pc.removeSyncMsgList(pccId);
+
+            Long syncStart = lspDbSyncStart.remove(pccId);
+            if (syncStart != null) {
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - syncStart);
+                lspDbSyncDuration.put(pccId, duration);
+                lspDbSyncLspCount.put(pccId, syncStateRptList.size());
+                log.info("LSP DB sync of PCC {} completed with {} LSPs in {} ms",
+                         pccId, syncStateRptList.size(), duration);
+            }
             return true;
         }
 
@@ -1089,8 +1114,8 @@ public class PcepClientControllerImpl implements PcepClientController {
          * Go through the tunnels which are known by PCE but were not reported by PCC during LSP DB sync and take
          * appropriate actions.
          */
-        private void handleResidualTunnels(Map<Object, Tunnel> preSyncLspDb) {
-            for (Tunnel pceExtraTunnel : preSyncLspDb.values()) {
+        private void handleResidualTunnels(Collection<Tunnel> preSyncLspDb) {
+            for (Tunnel pceExtraTunnel : preSyncLspDb) {
                 if (pceExtraTunnel.annotations().value(PCE_INIT) == null
                         || "false".equalsIgnoreCase(pceExtraTunnel.annotations().value(PCE_INIT))) {
                     // PCC initiated tunnels should be removed from tunnel store.
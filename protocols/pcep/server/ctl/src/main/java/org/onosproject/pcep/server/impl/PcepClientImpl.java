@@ -18,9 +18,9 @@ package org.onosproject.pcep.server.impl;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.RejectedExecutionException;
@@ -267,7 +267,7 @@ public class PcepClientImpl implements PcepClientDriver {
 
     @Override
     public void initializeSyncMsgList(PccId pccId) {
-        List<PcepStateReport> rptMsgList = new LinkedList<>();
+        List<PcepStateReport> rptMsgList = new ArrayList<>();
         syncRptCache.put(pccId, rptMsgList);
     }
 
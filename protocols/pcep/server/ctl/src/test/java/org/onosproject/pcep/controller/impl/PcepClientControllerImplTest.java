@@ -16,6 +16,14 @@
 
 package org.onosproject.pcep.controller.impl;
 
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.pcep.server.PcepAnnotationKeys.LOCAL_LSP_ID;
+import static org.onosproject.pcep.server.PcepAnnotationKeys.PCE_INIT;
+import static org.onosproject.pcep.server.PcepAnnotationKeys.PLSP_ID;
+import static org.onosproject.pcep.server.PcepLspSyncAction.REMOVE;
 import static org.onosproject.pcep.server.PcepLspSyncAction.SEND_UPDATE;
 import static org.onosproject.pcep.server.PcepLspSyncAction.UNSTABLE;
 
@@ -25,7 +33,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
@@ -37,9 +49,12 @@ import org.jboss.netty.channel.ChannelPipeline;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.junit.TestUtils;
 import org.onlab.packet.IpAddress;
+import org.onlab.util.PredictableExecutor;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.incubator.net.tunnel.DefaultTunnel;
+import org.onosproject.incubator.net.tunnel.IpTunnelEndPoint;
 import org.onosproject.incubator.net.tunnel.Tunnel;
 import org.onosproject.incubator.net.tunnel.TunnelEndPoint;
 import org.onosproject.incubator.net.tunnel.TunnelId;
@@ -49,6 +64,7 @@ import org.onosproject.incubator.net.tunnel.TunnelService;
 import org.onosproject.incubator.net.tunnel.TunnelSubscription;
 import org.onosproject.incubator.net.tunnel.Tunnel.Type;
 import org.onosproject.net.Annotations;
+import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
 import org.onosproject.net.Path;
@@ -66,9 +82,15 @@ import org.onosproject.pcepio.exceptions.PcepOutOfBoundMessageException;
 import org.onosproject.pcepio.exceptions.PcepParseException;
 import org.onosproject.pcepio.protocol.PcepFactories;
 import org.onosproject.pcepio.protocol.PcepInitiateMsg;
+import org.onosproject.pcepio.protocol.PcepLspObject;
 import org.onosproject.pcepio.protocol.PcepMessage;
 import org.onosproject.pcepio.protocol.PcepMessageReader;
+import org.onosproject.pcepio.protocol.PcepReportMsg;
+import org.onosproject.pcepio.protocol.PcepStateReport;
 import org.onosproject.pcepio.protocol.PcepVersion;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.onosproject.pcepio.types.StatefulIPv4LspIdentifiersTlv;
+import org.onosproject.pcepio.types.SymbolicPathNameTlv;
 import com.google.common.collect.ImmutableSet;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -186,11 +208,166 @@ public class PcepClientControllerImplTest {
         pc.setLabelDbSyncStatus(PcepSyncStatus.SYNCED);
     }
 
+    /**
+     * Tests the LSPs reported during LSP DB sync are matched against the tunnels
+     * known by the PCE, and learned LSPs are reported in one message at the end
+     * of the sync.
+     */
+    @Test
+    public void lspDbSyncTest() throws PcepParseException {
+        PccId pccId = PccId.pccId(IpAddress.valueOf("1.1.1.1"));
+        PcepClientImpl pc = new PcepClientImpl();
+        pc.init(pccId, PcepVersion.PCEP_1, new PcepPacketStatsImpl());
+        pc.setChannel(channel);
+        pc.setAgent(controllerImpl.agent());
+        pc.setConnected(true);
+        pc.setCapability(new ClientCapability(false, true, true, true, true));
+        controllerImpl.agent().addConnectedClient(pccId, pc);
+
+        // Known and reported by PCC, matched by LSP key and by symbolic path name
+        tunnelService.setupTunnel(null, null, tunnel("T1", "1", "1", "true"), null);
+        tunnelService.setupTunnel(null, null, tunnel("T2", null, null, "true"), null);
+        // Known but not reported by PCC
+        tunnelService.setupTunnel(null, null, tunnel("T3", "3", "3", "false"), null);
+
+        LinkedList<PcepStateReport> reports = new LinkedList<>();
+        reports.add(stateReport(1, (short) 1, "T1", true, true));
+        reports.add(stateReport(2, (short) 2, "T2", true, true));
+        int learned = 100;
+        for (int i = 0; i < learned; i++) {
+            reports.add(stateReport(10 + i, (short) 1, "L" + i, true, false));
+        }
+        // End of sync marker
+        reports.add(stateReport(0, (short) 0, null, false, false));
+        PcepMessage report = pc.factory().buildReportMsg().setStateReportList(reports).build();
+
+        controllerImpl.processClientMessage(pccId, report);
+
+        PcepEventListenerAdapter adapter = (PcepEventListenerAdapter) listener;
+        assertThat(pc.lspDbSyncStatus(), is(PcepSyncStatus.SYNCED));
+        assertThat(adapter.handledMsg.size(), is(1));
+        assertThat(((PcepReportMsg) adapter.handledMsg.get(0)).getStateReportList().size(), is(learned));
+        assertThat(adapter.tunnelsToBeUpdatedToNw.size(), is(0));
+        assertThat(adapter.deletedFromNwTunnels.size(), is(0));
+        assertThat(adapter.removedTunnels.size(), is(1));
+        assertThat(adapter.removedTunnels.get(0).tunnelName().value(), is("T3"));
+        assertThat(((MockChannel) channel).msgsWritten().size(), is(0));
+        assertThat(pc.getSyncMsgList(pccId) == null, is(true));
+
+        assertThat(controllerImpl.lspDbSyncLspCount(pccId), is(learned + 2));
+        assertThat(controllerImpl.lspDbSyncDuration(pccId) >= 0, is(true));
+    }
+
+    /**
+     * Tests messages of a disconnected PCC are dropped.
+     */
+    @Test
+    public void disconnectedClientTest() throws PcepParseException {
+        PccId pccId = PccId.pccId(IpAddress.valueOf("2.2.2.2"));
+        LinkedList<PcepStateReport> reports = new LinkedList<>();
+        reports.add(stateReport(1, (short) 1, "T1", true, true));
+        PcepMessage report = PcepFactories.getFactory(PcepVersion.PCEP_1).buildReportMsg()
+                .setStateReportList(reports).build();
+
+        controllerImpl.processClientMessage(pccId, report);
+
+        assertThat(((PcepEventListenerAdapter) listener).handledMsg.size(), is(0));
+        assertThat(controllerImpl.lspDbSyncLspCount(pccId), is(-1));
+    }
+
+    /**
+     * Tests the messages of a PCC are processed in order when dispatched to
+     * the message executor, while different PCCs are processed in parallel.
+     */
+    @Test
+    public void messageOrderingTest() throws Exception {
+        PredictableExecutor executor = new PredictableExecutor(4, groupedThreads("onos/pcep", "test-%d"));
+        TestUtils.setField(controllerImpl, "messageExecutor", executor);
+        Map<PccId, List<Integer>> received = new ConcurrentHashMap<>();
+        PcepEventListener recorder = new PcepEventListenerAdapter() {
+            @Override
+            public void handleMessage(PccId pccId, PcepMessage msg) {
+                received.computeIfAbsent(pccId, k -> new ArrayList<>())
+                        .add(((PcepReportMsg) msg).getStateReportList().getFirst().getLspObject().getPlspId());
+            }
+        };
+        controllerImpl.addEventListener(recorder);
+
+        int clients = 8;
+        int messages = 200;
+        List<PcepClientImpl> pcs = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            PccId pccId = PccId.pccId(IpAddress.valueOf("10.0.0." + (i + 1)));
+            PcepClientImpl pc = new PcepClientImpl();
+            pc.init(pccId, PcepVersion.PCEP_1, new PcepPacketStatsImpl());
+            pc.setChannel(channel);
+            pc.setAgent(controllerImpl.agent());
+            pc.setConnected(true);
+            pc.setCapability(new ClientCapability(false, true, true, true, true));
+            controllerImpl.agent().addConnectedClient(pccId, pc);
+            pcs.add(pc);
+        }
+        for (int plspId = 1; plspId <= messages; plspId++) {
+            for (PcepClientImpl pc : pcs) {
+                LinkedList<PcepStateReport> reports = new LinkedList<>();
+                reports.add(stateReport(plspId, (short) 1, "L" + plspId, false, false));
+                controllerImpl.agent().processPcepMessage(pc.getPccId(),
+                        pc.factory().buildReportMsg().setStateReportList(reports).build());
+            }
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        controllerImpl.removeEventListener(recorder);
+        TestUtils.setField(controllerImpl, "messageExecutor", null);
+
+        assertThat(received.size(), is(clients));
+        for (PcepClientImpl pc : pcs) {
+            List<Integer> plspIds = received.get(pc.getPccId());
+            assertThat(plspIds.size(), is(messages));
+            for (int i = 0; i < messages; i++) {
+                assertThat(plspIds.get(i), is(i + 1));
+            }
+        }
+    }
+
+    private Tunnel tunnel(String name, String plspId, String localLspId, String pceInit) {
+        DefaultAnnotations.Builder annotations = DefaultAnnotations.builder().set(PCE_INIT, pceInit);
+        if (plspId != null) {
+            annotations.set(PLSP_ID, plspId).set(LOCAL_LSP_ID, localLspId);
+        }
+        return new DefaultTunnel(null, IpTunnelEndPoint.ipTunnelPoint(IpAddress.valueOf("1.1.1.1")),
+                                 IpTunnelEndPoint.ipTunnelPoint(IpAddress.valueOf("5.5.5.5")), Tunnel.Type.MPLS,
+                                 Tunnel.State.ACTIVE, null, null, TunnelName.tunnelName(name), null,
+                                 annotations.build());
+    }
+
+    private PcepStateReport stateReport(int plspId, short lspId, String name, boolean sync, boolean created) {
+        LinkedList<PcepValueType> tlvs = new LinkedList<>();
+        tlvs.add(new StatefulIPv4LspIdentifiersTlv(IpAddress.valueOf("1.1.1.1").getIp4Address().toInt(),
+                                                   lspId, (short) plspId, 0,
+                                                   IpAddress.valueOf("5.5.5.5").getIp4Address().toInt()));
+        if (name != null) {
+            tlvs.add(new SymbolicPathNameTlv(name.getBytes()));
+        }
+        PcepLspObject lspObj = createNiceMock(PcepLspObject.class);
+        expect(lspObj.getPlspId()).andReturn(plspId).anyTimes();
+        expect(lspObj.getSFlag()).andReturn(sync).anyTimes();
+        expect(lspObj.getCFlag()).andReturn(created).anyTimes();
+        // ACTIVE, same state as the tunnels known by the PCE
+        expect(lspObj.getOFlag()).andReturn((byte) 2).anyTimes();
+        expect(lspObj.getOptionalTlv()).andReturn(tlvs).anyTimes();
+        PcepStateReport stateRpt = createNiceMock(PcepStateReport.class);
+        expect(stateRpt.getLspObject()).andReturn(lspObj).anyTimes();
+        replay(lspObj, stateRpt);
+        return stateRpt;
+    }
+
     class PcepEventListenerAdapter implements PcepEventListener {
 
         public List<PcepMessage> handledMsg = new ArrayList<>();
         public List<Tunnel> tunnelsToBeUpdatedToNw = new ArrayList<>();
         public List<Tunnel> deletedFromNwTunnels = new ArrayList<>();
+        public List<Tunnel> removedTunnels = new ArrayList<>();
 
         @Override
         public void handleMessage(PccId pccId, PcepMessage msg) {
@@ -204,6 +381,8 @@ public class PcepClientControllerImplTest {
                 return;
             } else if (endOfSyncAction == UNSTABLE) {
                 deletedFromNwTunnels.add(tunnel);
+            } else if (endOfSyncAction == REMOVE) {
+                removedTunnels.add(tunnel);
             }
         }
     }
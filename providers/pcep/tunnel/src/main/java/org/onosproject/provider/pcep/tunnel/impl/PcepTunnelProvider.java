@@ -1306,31 +1306,13 @@ public class PcepTunnelProvider extends AbstractProvider implements TunnelProvid
                 log.debug("tunnel provider handle message {}", msg.getType().toString());
                 switch (msg.getType()) {
                 case REPORT:
-                    int srpId = 0;
-                    LinkedList<PcepStateReport> llStateReportList = null;
-                    llStateReportList = ((PcepReportMsg) msg).getStateReportList();
-                    ListIterator<PcepStateReport> listIterator = llStateReportList.listIterator();
-                    PcepSrpObject srpObj = null;
-                    PcepLspObject lspObj = null;
-                    while (listIterator.hasNext()) {
-                        PcepStateReport stateRpt = listIterator.next();
-                        srpObj = stateRpt.getSrpObject();
-                        lspObj = stateRpt.getLspObject();
-
-                        if (srpObj != null) {
-                            srpId = srpObj.getSrpID();
+                    // a report may carry many LSPs, one failing must not prevent handling the others
+                    for (PcepStateReport stateRpt : ((PcepReportMsg) msg).getStateReportList()) {
+                        try {
+                            handleStateReport(pccId, stateRpt);
+                        } catch (Exception e) {
+                            log.error("Exception occurred while processing state report {}", e.getMessage());
                         }
-
-                        log.debug("Plsp ID in handle message " + lspObj.getPlspId());
-                        log.debug("SRP ID in handle message " + srpId);
-
-                        if (!(pcepTunnelApiMapper.checkFromTunnelRequestQueue(srpId))) {
-                            // For PCRpt without matching SRP id.
-                            handleRptWithoutSrpId(stateRpt, pccId);
-                            continue;
-                        }
-
-                        handleReportMessage(srpId, lspObj, stateRpt);
                     }
                     break;
 
@@ -1342,6 +1324,29 @@ public class PcepTunnelProvider extends AbstractProvider implements TunnelProvid
             }
         }
 
+        /**
+         * Handles the state report of an LSP.
+         *
+         * @param pccId id of the pcc
+         * @param stateRpt state report of the LSP
+         */
+        private void handleStateReport(PccId pccId, PcepStateReport stateRpt) {
+            PcepSrpObject srpObj = stateRpt.getSrpObject();
+            PcepLspObject lspObj = stateRpt.getLspObject();
+            int srpId = srpObj != null ? srpObj.getSrpID() : 0;
+
+            log.debug("Plsp ID in handle message " + lspObj.getPlspId());
+            log.debug("SRP ID in handle message " + srpId);
+
+            if (!(pcepTunnelApiMapper.checkFromTunnelRequestQueue(srpId))) {
+                // For PCRpt without matching SRP id.
+                handleRptWithoutSrpId(stateRpt, pccId);
+                return;
+            }
+
+            handleReportMessage(srpId, lspObj, stateRpt);
+        }
+
         /**
          * Handles report message for setup/update/delete tunnel request.
          *
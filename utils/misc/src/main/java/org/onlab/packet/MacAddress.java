@@ -27,6 +27,8 @@ import java.util.regex.Pattern;
 public class MacAddress {
 
     private static final Pattern MAC_PATTERN = Pattern.compile("^([0-9A-Fa-f]{2}[:]){5}([0-9A-Fa-f]{2})$");
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
      * First MAC address in ONOS OUI range.
      */
@@ -259,7 +261,7 @@ public class MacAddress {
             if (builder.length() > 0) {
                 builder.append(':');
             }
-            builder.append(String.format("%02X", b & 0xFF));
+            appendHex(builder, b);
         }
         return builder.toString();
     }
@@ -271,11 +273,16 @@ public class MacAddress {
     public String toStringNoColon() {
         final StringBuilder builder = new StringBuilder();
         for (final byte b : this.address) {
-            builder.append(String.format("%02X", b & 0xFF));
+            appendHex(builder, b);
         }
         return builder.toString();
     }
 
+    // Appends the two upper case hex digits of the given byte
+    private static void appendHex(StringBuilder builder, byte b) {
+        builder.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+
     private static boolean isValid(final String mac) {
         Matcher matcher = MAC_PATTERN.matcher(mac);
         return matcher.matches();
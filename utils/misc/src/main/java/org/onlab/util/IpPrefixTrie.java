@@ -0,0 +1,408 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Path-compressed binary trie mapping IP prefixes of a single IP version to
+ * values, supporting exact and longest prefix match lookups.
+ * <p>
+ * Prefixes are stored as primitive 128-bit keys rather than as objects or
+ * strings. Lookups and iteration do not take any lock and may run
+ * concurrently with updates; updates are serialized amongst themselves.
+ * Iteration is weakly consistent.
+ * </p>
+ *
+ * @param <V> type of the values
+ */
+public final class IpPrefixTrie<V> {
+
+    private final IpAddress.Version version;
+    private final Node<V> root = new Node<>(0L, 0L, 0, null);
+    private volatile int size;
+
+    /**
+     * Creates an empty trie for prefixes of the given IP version.
+     *
+     * @param version IP version of the prefixes
+     */
+    public IpPrefixTrie(IpAddress.Version version) {
+        this.version = checkNotNull(version);
+    }
+
+    /**
+     * Returns the IP version of the prefixes in this trie.
+     *
+     * @return IP version
+     */
+    public IpAddress.Version version() {
+        return version;
+    }
+
+    /**
+     * Returns the number of prefixes in this trie.
+     *
+     * @return number of prefixes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this trie contains no prefixes.
+     *
+     * @return true if the trie is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Associates the given value with the given prefix.
+     *
+     * @param prefix IP prefix
+     * @param value value to associate with the prefix
+     * @return value previously associated with the prefix, or null
+     */
+    public synchronized V put(IpPrefix prefix, V value) {
+        checkNotNull(value);
+        byte[] octets = octets(prefix);
+        return insert(toLong(octets, 0), toLong(octets, Long.BYTES), prefix.prefixLength(), value);
+    }
+
+    /**
+     * Associates the given value with the given prefix, unless the prefix is
+     * already associated with a value.
+     *
+     * @param prefix IP prefix
+     * @param value value to associate with the prefix
+     * @return value currently associated with the prefix, or null if the
+     * given value was associated with it
+     */
+    public synchronized V putIfAbsent(IpPrefix prefix, V value) {
+        V current = get(prefix);
+        return current != null ? current : put(prefix, value);
+    }
+
+    /**
+     * Associates all the given values with their prefixes, as a single
+     * batch of updates.
+     *
+     * @param values values keyed by prefix
+     */
+    public synchronized void putAll(Map<IpPrefix, ? extends V> values) {
+        values.forEach((prefix, value) -> {
+            checkNotNull(value);
+            byte[] octets = octets(prefix);
+            insert(toLong(octets, 0), toLong(octets, Long.BYTES), prefix.prefixLength(), value);
+        });
+    }
+
+    /**
+     * Removes the given prefix from this trie.
+     *
+     * @param prefix IP prefix
+     * @return value previously associated with the prefix, or null
+     */
+    public synchronized V remove(IpPrefix prefix) {
+        byte[] octets = octets(prefix);
+        long hi = toLong(octets, 0);
+        long lo = toLong(octets, Long.BYTES);
+        int len = prefix.prefixLength();
+
+        Node<V> grandParent = null;
+        Node<V> parent = null;
+        Node<V> node = root;
+        while (node != null && node.len < len) {
+            grandParent = parent;
+            parent = node;
+            node = node.child(bit(hi, lo, node.len));
+            if (node != null && !node.matches(hi, lo, Math.min(node.len, len))) {
+                return null;
+            }
+        }
+        if (node == null || node.len != len || node.value == null) {
+            return null;
+        }
+
+        V old = node.value;
+        node.value = null;
+        size--;
+
+        if (node == root) {
+            return old;
+        }
+        if (node.left != null && node.right != null) {
+            // still needed as a branching point
+            return old;
+        }
+        Node<V> replacement = node.left != null ? node.left : node.right;
+        parent.setChild(bit(hi, lo, parent.len), replacement);
+
+        // collapse a parent that is neither a prefix nor a branching point
+        if (replacement == null && parent != root && parent.value == null) {
+            Node<V> sibling = parent.left != null ? parent.left : parent.right;
+            grandParent.setChild(bit(hi, lo, grandParent.len), sibling);
+        }
+        return old;
+    }
+
+    /**
+     * Returns the value associated with exactly the given prefix.
+     *
+     * @param prefix IP prefix
+     * @return value associated with the prefix, or null
+     */
+    public V get(IpPrefix prefix) {
+        byte[] octets = octets(prefix);
+        long hi = toLong(octets, 0);
+        long lo = toLong(octets, Long.BYTES);
+        int len = prefix.prefixLength();
+
+        Node<V> node = root;
+        while (node != null && node.len < len) {
+            node = node.child(bit(hi, lo, node.len));
+            if (node != null && !node.matches(hi, lo, Math.min(node.len, len))) {
+                return null;
+            }
+        }
+        return node != null && node.len == len ? node.value : null;
+    }
+
+    /**
+     * Returns the value associated with the most specific prefix that
+     * contains the given address.
+     *
+     * @param address IP address
+     * @return value of the longest matching prefix, or null if none matches
+     */
+    public V longestPrefixMatch(IpAddress address) {
+        return longestPrefixMatch(address.toIpPrefix());
+    }
+
+    /**
+     * Returns the value associated with the most specific prefix that
+     * contains the given prefix, including the prefix itself.
+     *
+     * @param prefix IP prefix
+     * @return value of the longest matching prefix, or null if none matches
+     */
+    public V longestPrefixMatch(IpPrefix prefix) {
+        byte[] octets = octets(prefix);
+        long hi = toLong(octets, 0);
+        long lo = toLong(octets, Long.BYTES);
+        int len = prefix.prefixLength();
+
+        V best = root.value;
+        Node<V> node = root;
+        while (node.len < len) {
+            node = node.child(bit(hi, lo, node.len));
+            if (node == null || node.len > len || !node.matches(hi, lo, node.len)) {
+                break;
+            }
+            V value = node.value;
+            if (value != null) {
+                best = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the values in this trie, ordered by prefix bits with less
+     * specific prefixes first.
+     *
+     * @return list of values
+     */
+    public List<V> values() {
+        return collect(root);
+    }
+
+    /**
+     * Returns the values associated with the given prefix and with all the
+     * more specific prefixes it contains, less specific prefixes first.
+     *
+     * @param prefix IP prefix
+     * @return list of values
+     */
+    public List<V> valuesCoveredBy(IpPrefix prefix) {
+        byte[] octets = octets(prefix);
+        long hi = toLong(octets, 0);
+        long lo = toLong(octets, Long.BYTES);
+        int len = prefix.prefixLength();
+
+        // the first node at or below the prefix roots the covered subtree
+        Node<V> node = root;
+        while (node != null && node.len < len) {
+            node = node.child(bit(hi, lo, node.len));
+        }
+        if (node == null || !node.matches(hi, lo, len)) {
+            return new ArrayList<>();
+        }
+        return collect(node);
+    }
+
+    /**
+     * Removes all the prefixes from this trie.
+     */
+    public synchronized void clear() {
+        root.value = null;
+        root.left = null;
+        root.right = null;
+        size = 0;
+    }
+
+    private List<V> collect(Node<V> top) {
+        List<V> values = new ArrayList<>();
+        Deque<Node<V>> stack = new ArrayDeque<>();
+        stack.push(top);
+        while (!stack.isEmpty()) {
+            Node<V> node = stack.pop();
+            V value = node.value;
+            if (value != null) {
+                values.add(value);
+            }
+            Node<V> right = node.right;
+            if (right != null) {
+                stack.push(right);
+            }
+            Node<V> left = node.left;
+            if (left != null) {
+                stack.push(left);
+            }
+        }
+        return values;
+    }
+
+    // Must be called with the trie lock held.
+    private V insert(long hi, long lo, int len, V value) {
+        Node<V> node = root;
+        while (true) {
+            if (node.len == len) {
+                V old = node.value;
+                node.value = value;
+                if (old == null) {
+                    size++;
+                }
+                return old;
+            }
+            int bit = bit(hi, lo, node.len);
+            Node<V> child = node.child(bit);
+            if (child == null) {
+                node.setChild(bit, new Node<>(hi, lo, len, value));
+                size++;
+                return null;
+            }
+            int common = commonLength(child.hi, child.lo, hi, lo, Math.min(child.len, len));
+            if (common == child.len) {
+                node = child;
+                continue;
+            }
+            // new nodes are fully linked before being published to readers
+            if (common == len) {
+                Node<V> inserted = new Node<>(hi, lo, len, value);
+                inserted.setChild(bit(child.hi, child.lo, len), child);
+                node.setChild(bit, inserted);
+            } else {
+                Node<V> branch = new Node<>(hi, lo, common, null);
+                branch.setChild(bit(child.hi, child.lo, common), child);
+                branch.setChild(bit(hi, lo, common), new Node<>(hi, lo, len, value));
+                node.setChild(bit, branch);
+            }
+            size++;
+            return null;
+        }
+    }
+
+    private byte[] octets(IpPrefix prefix) {
+        checkArgument(prefix.version() == version,
+                      "Prefix %s is not an %s prefix", prefix, version);
+        return prefix.address().toOctets();
+    }
+
+    private static long toLong(byte[] octets, int offset) {
+        long value = 0L;
+        for (int i = 0; i < Long.BYTES; i++) {
+            int index = offset + i;
+            value = (value << Byte.SIZE) | (index < octets.length ? (octets[index] & 0xff) : 0);
+        }
+        return value;
+    }
+
+    private static int bit(long hi, long lo, int index) {
+        return index < Long.SIZE ? (int) (hi >>> (Long.SIZE - 1 - index)) & 1
+                : (int) (lo >>> (2 * Long.SIZE - 1 - index)) & 1;
+    }
+
+    private static int commonLength(long hi1, long lo1, long hi2, long lo2, int max) {
+        long diff = hi1 ^ hi2;
+        if (diff != 0) {
+            return Math.min(Long.numberOfLeadingZeros(diff), max);
+        }
+        diff = lo1 ^ lo2;
+        if (diff != 0) {
+            return Math.min(Long.SIZE + Long.numberOfLeadingZeros(diff), max);
+        }
+        return max;
+    }
+
+    /**
+     * Trie node holding a prefix of len bits of the 128-bit key (hi, lo).
+     * Nodes without a value are branching points only.
+     */
+    private static final class Node<V> {
+        private final long hi;
+        private final long lo;
+        private final int len;
+        private volatile V value;
+        private volatile Node<V> left;
+        private volatile Node<V> right;
+
+        private Node(long hi, long lo, int len, V value) {
+            this.hi = hi;
+            this.lo = lo;
+            this.len = len;
+            this.value = value;
+        }
+
+        private Node<V> child(int bit) {
+            return bit == 0 ? left : right;
+        }
+
+        private void setChild(int bit, Node<V> child) {
+            if (bit == 0) {
+                left = child;
+            } else {
+                right = child;
+            }
+        }
+
+        private boolean matches(long keyHi, long keyLo, int length) {
+            return commonLength(hi, lo, keyHi, keyLo, length) == length;
+        }
+    }
+}
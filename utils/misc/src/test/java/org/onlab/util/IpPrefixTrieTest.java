@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for IpPrefixTrie.
+ */
+public class IpPrefixTrieTest {
+
+    private static final IpPrefix DEFAULT4 = IpPrefix.valueOf("0.0.0.0/0");
+    private static final IpPrefix P8 = IpPrefix.valueOf("10.0.0.0/8");
+    private static final IpPrefix P16 = IpPrefix.valueOf("10.1.0.0/16");
+    private static final IpPrefix P24 = IpPrefix.valueOf("10.1.1.0/24");
+    private static final IpPrefix P24B = IpPrefix.valueOf("10.1.2.0/24");
+    private static final IpPrefix P32 = IpPrefix.valueOf("10.1.1.1/32");
+
+    @Test
+    public void testExactMatch() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        assertTrue(trie.isEmpty());
+        assertNull(trie.put(P24, "p24"));
+        assertNull(trie.put(P8, "p8"));
+        assertNull(trie.put(P32, "p32"));
+        assertEquals("p24", trie.put(P24, "p24'"));
+        assertEquals(3, trie.size());
+
+        assertEquals("p8", trie.get(P8));
+        assertEquals("p24'", trie.get(P24));
+        assertEquals("p32", trie.get(P32));
+        assertNull(trie.get(P16));
+        assertNull(trie.get(P24B));
+        assertNull(trie.get(DEFAULT4));
+    }
+
+    @Test
+    public void testLongestPrefixMatch() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        trie.putAll(ImmutableMap.of(P8, "p8", P24, "p24", P24B, "p24b"));
+
+        assertEquals("p24", trie.longestPrefixMatch(IpAddress.valueOf("10.1.1.7")));
+        assertEquals("p24b", trie.longestPrefixMatch(IpAddress.valueOf("10.1.2.7")));
+        assertEquals("p8", trie.longestPrefixMatch(IpAddress.valueOf("10.1.3.7")));
+        assertEquals("p8", trie.longestPrefixMatch(P16));
+        assertNull(trie.longestPrefixMatch(IpAddress.valueOf("11.0.0.1")));
+
+        trie.put(DEFAULT4, "default");
+        assertEquals("default", trie.longestPrefixMatch(IpAddress.valueOf("11.0.0.1")));
+    }
+
+    @Test
+    public void testRemove() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        trie.putAll(ImmutableMap.of(P8, "p8", P24, "p24", P24B, "p24b", P32, "p32"));
+
+        assertNull(trie.remove(P16));
+        assertEquals("p24", trie.remove(P24));
+        assertNull(trie.remove(P24));
+        assertEquals(3, trie.size());
+        assertEquals("p32", trie.longestPrefixMatch(IpAddress.valueOf("10.1.1.1")));
+        assertEquals("p8", trie.longestPrefixMatch(IpAddress.valueOf("10.1.1.2")));
+
+        assertEquals("p32", trie.remove(P32));
+        assertEquals("p24b", trie.remove(P24B));
+        assertEquals("p8", trie.remove(P8));
+        assertTrue(trie.isEmpty());
+        assertTrue(trie.values().isEmpty());
+        assertNull(trie.longestPrefixMatch(IpAddress.valueOf("10.1.1.1")));
+    }
+
+    @Test
+    public void testValuesOrder() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        trie.put(P32, "p32");
+        trie.put(P24B, "p24b");
+        trie.put(P8, "p8");
+        trie.put(P24, "p24");
+        trie.put(DEFAULT4, "default");
+        assertEquals(ImmutableList.of("default", "p8", "p24", "p32", "p24b"), trie.values());
+    }
+
+    @Test
+    public void testValuesCoveredBy() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        trie.putAll(ImmutableMap.of(DEFAULT4, "default", P8, "p8", P24, "p24", P24B, "p24b", P32, "p32"));
+
+        assertEquals(ImmutableList.of("p8", "p24", "p32", "p24b"), trie.valuesCoveredBy(P8));
+        assertEquals(ImmutableList.of("p24", "p32", "p24b"), trie.valuesCoveredBy(P16));
+        assertEquals(ImmutableList.of("p24", "p32"), trie.valuesCoveredBy(P24));
+        assertEquals(ImmutableList.of("p32"), trie.valuesCoveredBy(P32));
+        assertTrue(trie.valuesCoveredBy(IpPrefix.valueOf("10.1.3.0/24")).isEmpty());
+        assertTrue(trie.valuesCoveredBy(IpPrefix.valueOf("11.0.0.0/8")).isEmpty());
+        assertEquals(trie.values(), trie.valuesCoveredBy(DEFAULT4));
+    }
+
+    @Test
+    public void testPutIfAbsentAndClear() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        assertNull(trie.putIfAbsent(P24, "p24"));
+        assertEquals("p24", trie.putIfAbsent(P24, "p24'"));
+        assertEquals("p24", trie.get(P24));
+
+        trie.put(DEFAULT4, "default");
+        trie.clear();
+        assertTrue(trie.isEmpty());
+        assertNull(trie.get(P24));
+        assertNull(trie.longestPrefixMatch(P32));
+        assertNull(trie.putIfAbsent(P24, "p24'"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void testIp6() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET6);
+        trie.put(IpPrefix.valueOf("2001:db8::/32"), "p32");
+        trie.put(IpPrefix.valueOf("2001:db8:0:0:1::/80"), "p80");
+        trie.put(IpPrefix.valueOf("2001:db8::1/128"), "p128");
+
+        assertEquals("p128", trie.longestPrefixMatch(IpAddress.valueOf("2001:db8::1")));
+        assertEquals("p80", trie.longestPrefixMatch(IpAddress.valueOf("2001:db8::1:0:0:1")));
+        assertEquals("p32", trie.longestPrefixMatch(IpAddress.valueOf("2001:db8::2")));
+        assertNull(trie.longestPrefixMatch(IpAddress.valueOf("2001:db9::1")));
+        assertEquals("p80", trie.get(IpPrefix.valueOf("2001:db8:0:0:1::/80")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongVersion() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET6);
+        trie.put(P8, "p8");
+    }
+
+    /**
+     * Compares the trie against a linear scan over random prefixes and
+     * addresses, interleaving insertions and removals.
+     */
+    @Test
+    public void testRandomAgainstLinearScan() {
+        Random random = new Random(42);
+        IpPrefixTrie<IpPrefix> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        Map<IpPrefix, IpPrefix> reference = new HashMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            // use a narrow address space so that prefixes overlap
+            IpPrefix prefix = IpPrefix.valueOf(0x0a000000 | random.nextInt(1 << 12) << 12,
+                                               8 + random.nextInt(25));
+            if (random.nextInt(4) == 0) {
+                assertEquals(reference.remove(prefix), trie.remove(prefix));
+            } else {
+                assertEquals(reference.put(prefix, prefix), trie.put(prefix, prefix));
+            }
+        }
+        assertEquals(reference.size(), trie.size());
+        assertEquals(reference.size(), trie.values().size());
+
+        for (int i = 0; i < 5000; i++) {
+            IpAddress address = IpAddress.valueOf(0x0a000000 | random.nextInt(1 << 24));
+            IpPrefix expected = null;
+            for (IpPrefix prefix : reference.keySet()) {
+                if (prefix.contains(address) && (expected == null
+                        || prefix.prefixLength() > expected.prefixLength())) {
+                    expected = prefix;
+                }
+            }
+            assertEquals(expected, trie.longestPrefixMatch(address));
+        }
+    }
+}
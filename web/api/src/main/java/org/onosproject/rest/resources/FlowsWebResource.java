@@ -19,6 +19,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.app.ApplicationService;
@@ -30,6 +32,7 @@ import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.IndexTableId;
+import org.onosproject.net.flow.TableId;
 import org.onosproject.rest.AbstractWebResource;
 
 import javax.ws.rs.Consumes;
@@ -49,6 +52,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
 
 import static org.onlab.util.Tools.nullIsIllegal;
@@ -72,30 +76,54 @@ public class FlowsWebResource extends AbstractWebResource {
     private static final String FLOWS = "flows";
     private static final String DEVICE_ID = "deviceId";
     private static final String FLOW_ID = "flowId";
+    private static final String INVALID_STATE = "Invalid flow entry state: ";
+    private static final String FLOW_ID_PADDING = "0000000000000000";
 
     /**
-     * Gets all flow entries. Returns array of all flow rules in the system.
+     * Gets all flow entries. Returns array of all flow rules in the system,
+     * optionally filtered by device, application, state and table.
+     * <p>
+     * When a limit is given, at most limit flow entries are returned, ordered
+     * by device and flow identifier, along with the cursor of the next page
+     * if there are more flow entries.
+     * </p>
      *
+     * @param deviceId device identifier
+     * @param appId    application name
+     * @param state    flow entry state
+     * @param tableId  table identifier
+     * @param cursor   cursor of the page, as returned with the previous page
+     * @param limit    maximum number of flow entries to return
      * @return 200 OK with a collection of flows
      * @onos.rsModel FlowEntries
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getFlows() {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
-        FlowRuleService service = get(FlowRuleService.class);
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (Device device : devices) {
-            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (FlowEntry entry : flowEntries) {
-                    flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                }
-            }
+    public Response getFlows(@QueryParam("deviceId") String deviceId,
+                             @QueryParam("appId") String appId,
+                             @QueryParam("state") String state,
+                             @QueryParam("tableId") Integer tableId,
+                             @QueryParam("cursor") String cursor,
+                             @QueryParam("limit") Integer limit) {
+        Iterable<FlowEntry> flowEntries = deviceId != null ?
+                deviceFlowEntries(DeviceId.deviceId(deviceId)) : allFlowEntries();
+
+        Predicate<FlowEntry> filter = entry -> true;
+        if (appId != null) {
+            ApplicationService appService = get(ApplicationService.class);
+            short id = nullIsNotFound(appService.getId(appId), APP_ID_NOT_FOUND).id();
+            filter = filter.and(entry -> entry.appId() == id);
+        }
+        if (state != null) {
+            FlowEntry.FlowEntryState flowState = flowEntryState(state);
+            filter = filter.and(entry -> entry.state() == flowState);
+        }
+        if (tableId != null) {
+            TableId table = IndexTableId.of(tableId);
+            filter = filter.and(entry -> table.equals(entry.table()));
         }
 
-        return ok(root).build();
+        return ok(flowPage(Iterables.filter(flowEntries, filter::test), cursor, limit)).build();
     }
 
      /**
@@ -108,23 +136,11 @@ public class FlowsWebResource extends AbstractWebResource {
     @Produces(MediaType.APPLICATION_JSON)
     @Path("pending")
     public Response getPendingFlows() {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
-        FlowRuleService service = get(FlowRuleService.class);
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (Device device : devices) {
-            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (FlowEntry entry : flowEntries) {
-                    if ((entry.state() == FlowEntry.FlowEntryState.PENDING_ADD) ||
-                       (entry.state() == FlowEntry.FlowEntryState.PENDING_REMOVE)) {
-                       flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                    }
-                }
-            }
-        }
+        Iterable<FlowEntry> flowEntries = Iterables.filter(allFlowEntries(), entry ->
+                entry.state() == FlowEntry.FlowEntryState.PENDING_ADD ||
+                        entry.state() == FlowEntry.FlowEntryState.PENDING_REMOVE);
 
-        return ok(root).build();
+        return ok(flowPage(flowEntries, null, null)).build();
     }
 
      /**
@@ -137,22 +153,11 @@ public class FlowsWebResource extends AbstractWebResource {
     @Produces(MediaType.APPLICATION_JSON)
     @Path("table/{tableId}")
     public Response getTableFlows(@PathParam("tableId") int tableId) {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
-        FlowRuleService service = get(FlowRuleService.class);
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (Device device : devices) {
-            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (FlowEntry entry : flowEntries) {
-                    if (((IndexTableId) entry.table()).id() == tableId) {
-                       flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                    }
-                }
-            }
-        }
+        TableId table = IndexTableId.of(tableId);
+        Iterable<FlowEntry> flowEntries =
+                Iterables.filter(allFlowEntries(), entry -> table.equals(entry.table()));
 
-        return ok(root).build();
+        return ok(flowPage(flowEntries, null, null)).build();
     }
 
     /**
@@ -201,6 +206,8 @@ public class FlowsWebResource extends AbstractWebResource {
      * specified device.
      *
      * @param deviceId device identifier
+     * @param cursor   cursor of the page, as returned with the previous page
+     * @param limit    maximum number of flow entries to return
      * @return 200 OK with a collection of flows of given device
      * @onos.rsModel FlowEntries
      */
@@ -208,19 +215,16 @@ public class FlowsWebResource extends AbstractWebResource {
     @Produces(MediaType.APPLICATION_JSON)
     // TODO: we need to add "/device" suffix to the path to differentiate with appId
     @Path("{deviceId}")
-    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId) {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
+    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId,
+                                      @QueryParam("cursor") String cursor,
+                                      @QueryParam("limit") Integer limit) {
         Iterable<FlowEntry> flowEntries =
                 get(FlowRuleService.class).getFlowEntries(DeviceId.deviceId(deviceId));
 
         if (flowEntries == null || !flowEntries.iterator().hasNext()) {
             throw new ItemNotFoundException(DEVICE_NOT_FOUND);
         }
-        for (FlowEntry entry : flowEntries) {
-            flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-        }
-        return ok(root).build();
+        return ok(flowPage(flowEntries, cursor, limit)).build();
     }
 
     /**
@@ -237,42 +241,37 @@ public class FlowsWebResource extends AbstractWebResource {
     @Path("{deviceId}/{flowId}")
     public Response getFlowByDeviceIdAndFlowId(@PathParam("deviceId") String deviceId,
                                                @PathParam("flowId") long flowId) {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
         Iterable<FlowEntry> flowEntries =
                 get(FlowRuleService.class).getFlowEntries(DeviceId.deviceId(deviceId));
 
         if (flowEntries == null || !flowEntries.iterator().hasNext()) {
             throw new ItemNotFoundException(DEVICE_NOT_FOUND);
         }
-        for (FlowEntry entry : flowEntries) {
-            if (entry.id().value() == flowId) {
-                flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-            }
-        }
-        return ok(root).build();
+        return ok(flowPage(Iterables.filter(flowEntries, entry -> entry.id().value() == flowId),
+                           null, null)).build();
     }
 
     /**
      * Gets flow rules generated by an application.
      * Returns the flow rule specified by the application id.
      *
-     * @param appId application identifier
+     * @param appId  application identifier
+     * @param cursor cursor of the page, as returned with the previous page
+     * @param limit  maximum number of flow entries to return
      * @return 200 OK with a collection of flows of given application id
      * @onos.rsModel FlowRules
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("application/{appId}")
-    public Response getFlowByAppId(@PathParam("appId") String appId) {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
+    public Response getFlowByAppId(@PathParam("appId") String appId,
+                                   @QueryParam("cursor") String cursor,
+                                   @QueryParam("limit") Integer limit) {
         ApplicationService appService = get(ApplicationService.class);
         ApplicationId idInstant = nullIsNotFound(appService.getId(appId), APP_ID_NOT_FOUND);
         Iterable<FlowEntry> flowEntries = get(FlowRuleService.class).getFlowEntriesById(idInstant);
 
-        flowEntries.forEach(flow -> flowsNode.add(codec(FlowEntry.class).encode(flow, this)));
-        return ok(root).build();
+        return ok(flowPage(flowEntries, cursor, limit)).build();
     }
 
 
@@ -411,4 +410,40 @@ public class FlowsWebResource extends AbstractWebResource {
         service.removeFlowRules(rulesToRemove.toArray(new FlowEntry[0]));
         return Response.noContent().build();
     }
+
+    /**
+     * Returns the flow entries of all the devices, fetched device by device
+     * while they are iterated.
+     *
+     * @return flow entries
+     */
+    private Iterable<FlowEntry> allFlowEntries() {
+        Iterable<Device> devices = get(DeviceService.class).getDevices();
+        return Iterables.concat(Iterables.transform(devices, device -> deviceFlowEntries(device.id())));
+    }
+
+    private Iterable<FlowEntry> deviceFlowEntries(DeviceId deviceId) {
+        Iterable<FlowEntry> flowEntries = get(FlowRuleService.class).getFlowEntries(deviceId);
+        return flowEntries != null ? flowEntries : ImmutableList.of();
+    }
+
+    private JsonArrayStream<FlowEntry> flowPage(Iterable<FlowEntry> flowEntries,
+                                                String cursor, Integer limit) {
+        return JsonArrayStream.page(this, codec(FlowEntry.class), FLOWS, flowEntries,
+                                    FlowsWebResource::cursorKey, cursor, limit);
+    }
+
+    private static FlowEntry.FlowEntryState flowEntryState(String state) {
+        try {
+            return FlowEntry.FlowEntryState.valueOf(state.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_STATE + state, e);
+        }
+    }
+
+    // orders the flow entries by device, then by flow identifier
+    private static String cursorKey(FlowEntry entry) {
+        String flowId = Long.toHexString(entry.id().value());
+        return entry.deviceId() + "/" + FLOW_ID_PADDING.substring(flowId.length()) + flowId;
+    }
 }
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import org.onlab.util.HexString;
 import org.onosproject.codec.JsonCodec;
 import org.onosproject.net.Device;
@@ -41,6 +42,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -50,6 +52,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 import static org.onlab.util.Tools.nullIsNotFound;
@@ -67,10 +70,13 @@ public class GroupsWebResource extends AbstractWebResource {
 
     private static final String DEVICE_INVALID = "Invalid deviceId in group creation request";
     private static final String GROUP_NOT_FOUND = "Group was not found";
+    private static final String INVALID_STATE = "Invalid group state: ";
+    private static final String GROUPS = "groups";
+    private static final String GROUP_ID_PADDING = "00000000";
 
     private final GroupService groupService = get(GroupService.class);
     private final ObjectNode root = mapper().createObjectNode();
-    private final ArrayNode groupsNode = root.putArray("groups");
+    private final ArrayNode groupsNode = root.putArray(GROUPS);
 
     private GroupKey createKey(String appCookieString) {
         if (!appCookieString.startsWith("0x")) {
@@ -81,41 +87,67 @@ public class GroupsWebResource extends AbstractWebResource {
     }
 
     /**
-     * Returns all groups of all devices.
+     * Returns all groups of all devices, optionally filtered by device,
+     * application and state.
+     * <p>
+     * When a limit is given, at most limit groups are returned, ordered by
+     * device and group identifier, along with the cursor of the next page if
+     * there are more groups.
+     * </p>
      *
+     * @param deviceId device identifier
+     * @param appId    application name
+     * @param state    group state
+     * @param cursor   cursor of the page, as returned with the previous page
+     * @param limit    maximum number of groups to return
      * @return 200 OK with array of all the groups in the system
      * @onos.rsModel Groups
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getGroups() {
-        final Iterable<Device> devices = get(DeviceService.class).getDevices();
-        devices.forEach(device -> {
-            final Iterable<Group> groups = groupService.getGroups(device.id());
-            if (groups != null) {
-                groups.forEach(group -> groupsNode.add(codec(Group.class).encode(group, this)));
-            }
-        });
+    public Response getGroups(@QueryParam("deviceId") String deviceId,
+                              @QueryParam("appId") String appId,
+                              @QueryParam("state") String state,
+                              @QueryParam("cursor") String cursor,
+                              @QueryParam("limit") Integer limit) {
+        Iterable<Group> groups;
+        if (deviceId != null) {
+            groups = deviceGroups(DeviceId.deviceId(deviceId));
+        } else {
+            Iterable<Device> devices = get(DeviceService.class).getDevices();
+            groups = Iterables.concat(Iterables.transform(devices, device -> deviceGroups(device.id())));
+        }
 
-        return ok(root).build();
+        Predicate<Group> filter = group -> true;
+        if (appId != null) {
+            filter = filter.and(group -> group.appId() != null && appId.equals(group.appId().name()));
+        }
+        if (state != null) {
+            Group.GroupState groupState = groupState(state);
+            filter = filter.and(group -> group.state() == groupState);
+        }
+
+        return ok(groupPage(Iterables.filter(groups, filter::test), cursor, limit)).build();
     }
 
     /**
      * Returns all groups associated with the given device.
      *
      * @param deviceId device identifier
+     * @param cursor   cursor of the page, as returned with the previous page
+     * @param limit    maximum number of groups to return
      * @return 200 OK with array of all the groups in the system
      * @onos.rsModel Groups
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("{deviceId}")
-    public Response getGroupsByDeviceId(@PathParam("deviceId") String deviceId) {
+    public Response getGroupsByDeviceId(@PathParam("deviceId") String deviceId,
+                                        @QueryParam("cursor") String cursor,
+                                        @QueryParam("limit") Integer limit) {
         final Iterable<Group> groups = groupService.getGroups(DeviceId.deviceId(deviceId));
 
-        groups.forEach(group -> groupsNode.add(codec(Group.class).encode(group, this)));
-
-        return ok(root).build();
+        return ok(groupPage(groups, cursor, limit)).build();
     }
 
     /**
@@ -314,4 +346,28 @@ public class GroupsWebResource extends AbstractWebResource {
                 .noContent()
                 .build();
     }
+
+    private Iterable<Group> deviceGroups(DeviceId deviceId) {
+        Iterable<Group> groups = groupService.getGroups(deviceId);
+        return groups != null ? groups : ImmutableList.of();
+    }
+
+    private JsonArrayStream<Group> groupPage(Iterable<Group> groups, String cursor, Integer limit) {
+        return JsonArrayStream.page(this, codec(Group.class), GROUPS, groups,
+                                    GroupsWebResource::cursorKey, cursor, limit);
+    }
+
+    private static Group.GroupState groupState(String state) {
+        try {
+            return Group.GroupState.valueOf(state.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_STATE + state, e);
+        }
+    }
+
+    // orders the groups by device, then by group identifier
+    private static String cursorKey(Group group) {
+        String groupId = Integer.toHexString(group.id().id());
+        return group.deviceId() + "/" + GROUP_ID_PADDING.substring(groupId.length()) + groupId;
+    }
 }
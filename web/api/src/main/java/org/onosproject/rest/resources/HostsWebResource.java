@@ -23,6 +23,7 @@ import org.onlab.packet.MacAddress;
 import org.onlab.packet.VlanId;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
@@ -43,6 +44,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -69,21 +71,32 @@ public class HostsWebResource extends AbstractWebResource {
     @Context
     private UriInfo uriInfo;
     private static final String HOST_NOT_FOUND = "Host is not found";
+    private static final String HOSTS = "hosts";
     private static final String[] REMOVAL_KEYS = {"mac", "vlan", "locations", "ipAddresses"};
 
     /**
      * Get all end-station hosts.
-     * Returns array of all known end-station hosts.
+     * Returns array of all known end-station hosts, optionally only those
+     * connected to the given device. When a limit is given, at most limit
+     * hosts are returned, ordered by host identifier, along with the cursor
+     * of the next page if there are more hosts.
      *
+     * @param deviceId device identifier
+     * @param cursor   cursor of the page, as returned with the previous page
+     * @param limit    maximum number of hosts to return
      * @return 200 OK with array of all known end-station hosts.
      * @onos.rsModel Hosts
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getHosts() {
-        final Iterable<Host> hosts = get(HostService.class).getHosts();
-        final ObjectNode root = encodeArray(Host.class, "hosts", hosts);
-        return ok(root).build();
+    public Response getHosts(@QueryParam("deviceId") String deviceId,
+                             @QueryParam("cursor") String cursor,
+                             @QueryParam("limit") Integer limit) {
+        HostService service = get(HostService.class);
+        final Iterable<Host> hosts = deviceId == null ? service.getHosts() :
+                service.getConnectedHosts(DeviceId.deviceId(deviceId));
+        return ok(JsonArrayStream.page(this, codec(Host.class), HOSTS, hosts,
+                                       host -> host.id().toString(), cursor, limit)).build();
     }
 
     /**
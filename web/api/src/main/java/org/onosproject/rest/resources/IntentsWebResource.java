@@ -17,6 +17,7 @@ package org.onosproject.rest.resources;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Iterables;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.flow.FlowEntry;
@@ -43,6 +44,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -55,6 +57,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import static org.onlab.util.Tools.nullIsNotFound;
 import static org.onlab.util.Tools.readTreeFromStream;
@@ -85,23 +88,45 @@ public class IntentsWebResource extends AbstractWebResource {
     private static final String INTENT_PATHS = "paths";
     private static final String INTENT_TYPE = "type";
     private static final String INTENT_NOT_FOUND = "Intent is not found";
+    private static final String INVALID_STATE = "Invalid intent state: ";
+    private static final String INTENTS = "intents";
 
     @Context
     private UriInfo uriInfo;
 
     /**
      * Gets all intents.
-     * Returns array containing all the intents in the system.
+     * Returns array containing all the intents in the system, optionally
+     * filtered by application and state. When a limit is given, at most limit
+     * intents are returned, ordered by application and key, along with the
+     * cursor of the next page if there are more intents.
      *
+     * @param appId  application name
+     * @param state  intent state
+     * @param cursor cursor of the page, as returned with the previous page
+     * @param limit  maximum number of intents to return
      * @return 200 OK with array of all the intents in the system
      * @onos.rsModel Intents
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getIntents() {
-        final Iterable<Intent> intents = get(IntentService.class).getIntents();
-        final ObjectNode root = encodeArray(Intent.class, "intents", intents);
-        return ok(root).build();
+    public Response getIntents(@QueryParam("appId") String appId,
+                               @QueryParam("state") String state,
+                               @QueryParam("cursor") String cursor,
+                               @QueryParam("limit") Integer limit) {
+        IntentService service = get(IntentService.class);
+        Predicate<Intent> filter = intent -> true;
+        if (appId != null) {
+            filter = filter.and(intent -> appId.equals(intent.appId().name()));
+        }
+        if (state != null) {
+            IntentState intentState = intentState(state);
+            filter = filter.and(intent -> service.getIntentState(intent.key()) == intentState);
+        }
+
+        final Iterable<Intent> intents = Iterables.filter(service.getIntents(), filter::test);
+        return ok(JsonArrayStream.page(this, codec(Intent.class), INTENTS, intents,
+                                       IntentsWebResource::cursorKey, cursor, limit)).build();
     }
 
 
@@ -370,4 +395,17 @@ public class IntentsWebResource extends AbstractWebResource {
         }
         return Response.noContent().build();
     }
+
+    private static IntentState intentState(String state) {
+        try {
+            return IntentState.valueOf(state.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_STATE + state, e);
+        }
+    }
+
+    // orders the intents by application, then by key
+    private static String cursorKey(Intent intent) {
+        return intent.appId().name() + "/" + intent.key();
+    }
 }
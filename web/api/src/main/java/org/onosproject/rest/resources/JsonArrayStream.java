@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.rest.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.onosproject.codec.CodecContext;
+import org.onosproject.codec.JsonCodec;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Streams a JSON object holding an array of entities to the response,
+ * encoding the entities one at a time rather than building the whole
+ * response as a JSON tree in memory.
+ * <p>
+ * Entities may be returned by pages: the entities are then ordered by their
+ * cursor key, at most limit of them are returned after the given cursor and
+ * the object holds the cursor of the next page, if any, under
+ * {@value #NEXT_CURSOR}. Only the entities of the requested page are held in
+ * memory.
+ * </p>
+ *
+ * @param <T> type of the entities
+ */
+final class JsonArrayStream<T> implements StreamingOutput {
+
+    /**
+     * Name of the field holding the cursor of the next page.
+     */
+    static final String NEXT_CURSOR = "nextCursor";
+
+    private static final String INVALID_LIMIT = "Limit must be a positive number";
+
+    private final CodecContext context;
+    private final JsonCodec<T> codec;
+    private final String field;
+    private final Iterable<T> entities;
+    private final String nextCursor;
+
+    private JsonArrayStream(CodecContext context, JsonCodec<T> codec, String field,
+                            Iterable<T> entities, String nextCursor) {
+        this.context = context;
+        this.codec = codec;
+        this.field = field;
+        this.entities = entities;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns a stream of all the given entities, in iteration order.
+     *
+     * @param context  codec context
+     * @param codec    codec of the entities
+     * @param field    field holding the array
+     * @param entities entities to encode, iterated while streaming
+     * @param <T>      type of the entities
+     * @return JSON stream
+     */
+    static <T> JsonArrayStream<T> of(CodecContext context, JsonCodec<T> codec,
+                                     String field, Iterable<T> entities) {
+        return new JsonArrayStream<>(context, codec, field, entities, null);
+    }
+
+    /**
+     * Returns a stream of a page of the given entities, or of all the given
+     * entities if no limit is given.
+     *
+     * @param context   codec context
+     * @param codec     codec of the entities
+     * @param field     field holding the array
+     * @param entities  entities to page through
+     * @param cursorKey function giving the unique cursor key of an entity
+     * @param cursor    cursor key of the last entity of the previous page,
+     *                  or null for the first page
+     * @param limit     maximum number of entities of the page, or null
+     * @param <T>       type of the entities
+     * @return JSON stream
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    static <T> JsonArrayStream<T> page(CodecContext context, JsonCodec<T> codec,
+                                       String field, Iterable<T> entities,
+                                       Function<T, String> cursorKey,
+                                       String cursor, Integer limit) {
+        if (limit == null) {
+            return of(context, codec, field, entities);
+        }
+        checkArgument(limit > 0, INVALID_LIMIT);
+
+        // keeps the limit + 1 entities with the smallest keys after the cursor,
+        // the extra one telling whether there is a next page
+        PriorityQueue<Map.Entry<String, T>> smallest =
+                new PriorityQueue<>(Map.Entry.<String, T>comparingByKey().reversed());
+        for (T entity : entities) {
+            String key = cursorKey.apply(entity);
+            if (cursor != null && key.compareTo(cursor) <= 0) {
+                continue;
+            }
+            if (smallest.size() > limit && key.compareTo(smallest.peek().getKey()) >= 0) {
+                continue;
+            }
+            smallest.add(Maps.immutableEntry(key, entity));
+            if (smallest.size() > limit + 1) {
+                smallest.poll();
+            }
+        }
+
+        List<Map.Entry<String, T>> sorted = new ArrayList<>(smallest);
+        sorted.sort(Map.Entry.comparingByKey());
+        String next = null;
+        if (sorted.size() > limit) {
+            sorted = sorted.subList(0, limit);
+            next = sorted.get(limit - 1).getKey();
+        }
+        return new JsonArrayStream<>(context, codec, field,
+                                     Lists.transform(sorted, Map.Entry::getValue), next);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (JsonGenerator generator = context.mapper().getFactory().createGenerator(output)) {
+            // the container closes the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeFieldName(field);
+            codec.encode(entities, generator, context);
+            if (nextCursor != null) {
+                generator.writeStringField(NEXT_CURSOR, nextCursor);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -64,7 +64,7 @@ public class LinksWebResource extends AbstractWebResource {
         } else {
             links = service.getLinks();
         }
-        return ok(encodeArray(Link.class, "links", links)).build();
+        return ok(JsonArrayStream.of(this, codec(Link.class), "links", links)).build();
     }
 
     private Iterable<Link> getConnectPointLinks(ConnectPoint point,
@@ -51,6 +51,7 @@ import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.flow.criteria.Criterion;
 import org.onosproject.net.flow.instructions.Instruction;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
@@ -656,6 +657,71 @@ public class FlowsResourceTest extends ResourceTest {
         assertThat(jsonFlows, hasFlow(flow4));
     }
 
+    /**
+     * Tests the result of the rest api GET filtered by device and state.
+     */
+    @Test
+    public void testFlowsFiltered() {
+        setupMockFlows();
+        expect(mockDeviceService.getDevices())
+                .andReturn(ImmutableSet.of(device1, device2)).anyTimes();
+        replay(mockFlowService);
+        replay(mockDeviceService);
+        final WebTarget wt = target();
+
+        String response = wt.path("flows").queryParam("deviceId", deviceId2.toString())
+                .request().get(String.class);
+        JsonArray jsonFlows = Json.parse(response).asObject().get("flows").asArray();
+        assertThat(jsonFlows.size(), is(2));
+        assertThat(jsonFlows, hasFlow(flow3));
+        assertThat(jsonFlows, hasFlow(flow4));
+
+        response = wt.path("flows").queryParam("state", "added").request().get(String.class);
+        jsonFlows = Json.parse(response).asObject().get("flows").asArray();
+        assertThat(jsonFlows.size(), is(4));
+
+        response = wt.path("flows").queryParam("state", "PENDING_ADD").request().get(String.class);
+        assertThat(response, is("{\"flows\":[]}"));
+
+        try {
+            wt.path("flows").queryParam("state", "bogus").request().get(String.class);
+            fail("GET of an invalid state did not throw an exception");
+        } catch (BadRequestException ex) {
+            assertThat(ex.getMessage(), containsString("HTTP 400 Bad Request"));
+        }
+    }
+
+    /**
+     * Tests the result of the rest api GET paged with a cursor.
+     */
+    @Test
+    public void testFlowsPaged() {
+        setupMockFlows();
+        expect(mockDeviceService.getDevices())
+                .andReturn(ImmutableSet.of(device1, device2)).anyTimes();
+        replay(mockFlowService);
+        replay(mockDeviceService);
+        final WebTarget wt = target();
+
+        String response = wt.path("flows").queryParam("limit", 3).request().get(String.class);
+        JsonObject result = Json.parse(response).asObject();
+        assertThat(result.names(), hasSize(2));
+        JsonArray jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows.size(), is(3));
+        assertThat(jsonFlows, hasFlow(flow1));
+        assertThat(jsonFlows, hasFlow(flow2));
+        assertThat(jsonFlows, hasFlow(flow3));
+
+        String cursor = result.get("nextCursor").asString();
+        response = wt.path("flows").queryParam("limit", 3).queryParam("cursor", cursor)
+                .request().get(String.class);
+        result = Json.parse(response).asObject();
+        assertThat(result.names(), hasSize(1));
+        jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows.size(), is(1));
+        assertThat(jsonFlows, hasFlow(flow4));
+    }
+
     /**
      * Tests the result of a rest api GET for a device.
      */
@@ -140,6 +140,7 @@ public class TrafficMonitor extends TrafficMonitorBase {
                 break;
 
             case RELATED_INTENTS:
+                unsubscribe();
                 if (selectedNodes.none()) {
                     clearAll();
                 } else {
@@ -17,28 +17,23 @@
 
 package org.onosproject.ui.impl;
 
-import org.onosproject.incubator.net.PortStatisticsService.MetricType;
-import org.onosproject.net.DefaultEdgeLink;
+import com.google.common.collect.ImmutableSet;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.Link;
 import org.onosproject.net.statistic.Load;
 import org.onosproject.ui.impl.topo.util.ServicesBundle;
+import org.onosproject.ui.impl.topo.util.TrafficAggregator;
 import org.onosproject.ui.impl.topo.util.TrafficLink;
-import org.onosproject.ui.impl.topo.util.TrafficLinkMap;
+import org.onosproject.ui.impl.topo.util.TrafficLink.StatsType;
 import org.onosproject.ui.topo.AbstractTopoMonitor;
 import org.onosproject.ui.topo.Highlights;
-import org.onosproject.ui.topo.TopoUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 
-import static org.onosproject.incubator.net.PortStatisticsService.MetricType.BYTES;
-import static org.onosproject.incubator.net.PortStatisticsService.MetricType.PACKETS;
-import static org.onosproject.net.DefaultEdgeLink.createEdgeLinks;
 import static org.onosproject.ui.impl.TrafficMonitorBase.Mode.IDLE;
 
 /**
@@ -48,9 +43,6 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    // 4 Kilo Bytes as threshold
-    protected static final double BPS_THRESHOLD = 4 * TopoUtils.N_KILO;
-
 
     /**
      * Designates the different modes of operation.
@@ -80,8 +72,9 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
      */
     protected Mode mode = Mode.IDLE;
 
-    private final Timer timer;
+    private Timer timer = null;
     private TimerTask trafficTask = null;
+    private TrafficAggregator.Subscription subscription = null;
 
     /**
      * Constructs the monitor, initializing the task period and
@@ -94,14 +87,15 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
                                  ServicesBundle servicesBundle) {
         this.trafficPeriod = trafficPeriod;
         this.services = servicesBundle;
-        timer = new Timer("uiTopo-" + getClass().getSimpleName());
     }
 
     /**
      * Initiates monitoring of traffic for a given mode.
      * This causes a background traffic task to be
      * scheduled to repeatedly compute and transmit the appropriate traffic
-     * data to the client.
+     * data to the client. The traffic on all links is computed once per
+     * period by the shared {@link TrafficAggregator} for all the sessions
+     * monitoring it.
      * <p>
      * The monitoring mode is expected to be one of:
      * <ul>
@@ -120,19 +114,19 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
 
             case ALL_FLOW_TRAFFIC_BYTES:
                 clearSelection();
-                scheduleTask();
+                subscribe(StatsType.FLOW_STATS);
                 sendAllFlowTraffic();
                 break;
 
             case ALL_PORT_TRAFFIC_BIT_PS:
                 clearSelection();
-                scheduleTask();
+                subscribe(StatsType.PORT_STATS);
                 sendAllPortTrafficBits();
                 break;
 
             case ALL_PORT_TRAFFIC_PKT_PS:
                 clearSelection();
-                scheduleTask();
+                subscribe(StatsType.PORT_PACKET_STATS);
                 sendAllPortTrafficPackets();
                 break;
 
@@ -200,11 +194,16 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     }
 
     /**
-     * Schedules the background monitor task to run.
+     * Schedules the background monitor task to run, for the modes specific
+     * to this session.
      */
     protected synchronized void scheduleTask() {
+        unsubscribe();
         if (trafficTask == null) {
             log.debug("Starting up background traffic task...");
+            if (timer == null) {
+                timer = new Timer("uiTopo-" + getClass().getSimpleName());
+            }
             trafficTask = new TrafficUpdateTask();
             timer.schedule(trafficTask, trafficPeriod, trafficPeriod);
         } else {
@@ -213,13 +212,45 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     }
 
     /**
-     * Cancels the background monitor task.
+     * Cancels the background monitor task, or the subscription to the
+     * shared traffic aggregator.
      */
     protected synchronized void cancelTask() {
+        unsubscribe();
         if (trafficTask != null) {
             trafficTask.cancel();
             trafficTask = null;
         }
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    /**
+     * Subscribes to the traffic computed by the shared aggregator for the
+     * given type of statistics, in place of the background monitor task.
+     *
+     * @param type type of statistics
+     */
+    protected synchronized void subscribe(StatsType type) {
+        if (subscription != null && subscription.type() == type) {
+            return;
+        }
+        cancelTask();
+        log.debug("Subscribing to shared {} traffic", type);
+        subscription = TrafficAggregator.subscribe(trafficPeriod, services, type,
+                                                   this::sendSharedTraffic);
+    }
+
+    /**
+     * Cancels the subscription to the shared traffic aggregator, if any.
+     */
+    protected synchronized void unsubscribe() {
+        if (subscription != null) {
+            subscription.cancel();
+            subscription = null;
+        }
     }
 
     /**
@@ -247,8 +278,14 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     protected Highlights trafficSummary(TrafficLink.StatsType type) {
         Highlights highlights = new Highlights();
 
+        TrafficAggregator.Subscription current;
+        synchronized (this) {
+            current = subscription;
+        }
         // TODO: consider whether a map would be better...
-        Set<TrafficLink> linksWithTraffic = computeLinksWithTraffic(type);
+        // no traffic to show once the mode changed and the subscription is cancelled
+        Set<TrafficLink> linksWithTraffic = current != null && current.type() == type ?
+                current.snapshot() : ImmutableSet.of();
 
         Set<TrafficLink> aggregatedLinks = doAggregation(linksWithTraffic);
 
@@ -258,75 +295,6 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
         return highlights;
     }
 
-    /**
-     * Generates a set of "traffic links" encapsulating information about the
-     * traffic on each link (that is deemed to have traffic).
-     *
-     * @param type the type of statistics to be displayed
-     * @return the set of links with traffic
-     */
-    protected Set<TrafficLink> computeLinksWithTraffic(TrafficLink.StatsType type) {
-        TrafficLinkMap linkMap = new TrafficLinkMap();
-        compileLinks(linkMap);
-        addEdgeLinks(linkMap);
-
-        Set<TrafficLink> linksWithTraffic = new HashSet<>();
-
-        for (TrafficLink tlink : linkMap.biLinks()) {
-            if (type == TrafficLink.StatsType.FLOW_STATS) {
-                attachFlowLoad(tlink);
-            } else if (type == TrafficLink.StatsType.PORT_STATS) {
-                attachPortLoad(tlink, BYTES);
-            } else if (type == TrafficLink.StatsType.PORT_PACKET_STATS) {
-                attachPortLoad(tlink, PACKETS);
-            }
-
-            // we only want to report on links deemed to have traffic
-            if (tlink.hasTraffic()) {
-                linksWithTraffic.add(tlink);
-            }
-        }
-        return linksWithTraffic;
-    }
-
-    /**
-     * Iterates across the set of links in the topology and generates the
-     * appropriate set of traffic links.
-     *
-     * @param linkMap link map to augment with traffic links
-     */
-    protected void compileLinks(TrafficLinkMap linkMap) {
-        services.link().getLinks().forEach(linkMap::add);
-    }
-
-    /**
-     * Iterates across the set of hosts in the topology and generates the
-     * appropriate set of traffic links for the edge links.
-     *
-     * @param linkMap link map to augment with traffic links
-     */
-    protected void addEdgeLinks(TrafficLinkMap linkMap) {
-        services.host().getHosts().forEach(host -> {
-            // Ingress edge links
-            Set<DefaultEdgeLink> edgeLinks = createEdgeLinks(host, true);
-            edgeLinks.forEach(linkMap::add);
-            // Egress edge links
-            edgeLinks = createEdgeLinks(host, false);
-            edgeLinks.forEach(linkMap::add);
-        });
-    }
-
-    /**
-     * Processes the given traffic link to attach the "flow load" attributed
-     * to the underlying topology links.
-     *
-     * @param link the traffic link to process
-     */
-    protected void attachFlowLoad(TrafficLink link) {
-        link.addLoad(getLinkFlowLoad(link.one()));
-        link.addLoad(getLinkFlowLoad(link.two()));
-    }
-
     /**
      * Returns the load for the given link, as determined by the statistics
      * service. May return null.
@@ -341,42 +309,6 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
         return null;
     }
 
-    /**
-     * Processes the given traffic link to attach the "port load" attributed
-     * to the underlying topology links, for the specified metric type (either
-     * bytes/sec or packets/sec).
-     *
-     * @param link       the traffic link to process
-     * @param metricType the metric type (bytes or packets)
-     */
-    protected void attachPortLoad(TrafficLink link, MetricType metricType) {
-        // For bi-directional traffic links, use
-        // the max link rate of either direction
-        // (we choose 'one' since we know that is never null)
-        Link one = link.one();
-        Load egressSrc = services.portStats().load(one.src(), metricType);
-        Load egressDst = services.portStats().load(one.dst(), metricType);
-        link.addLoad(maxLoad(egressSrc, egressDst), metricType == BYTES ? BPS_THRESHOLD : 0);
-    }
-
-    /**
-     * Returns the load with the greatest rate.
-     *
-     * @param a load a
-     * @param b load b
-     * @return the larger of the two
-     */
-    protected Load maxLoad(Load a, Load b) {
-        if (a == null) {
-            return b;
-        }
-        if (b == null) {
-            return a;
-        }
-        return a.rate() > b.rate() ? a : b;
-    }
-
-
     /**
      * Subclasses (well, Traffic2Monitor really) can override this method and
      * process the traffic links before generating the highlights object.
@@ -396,21 +328,34 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     // =======================================================================
     // === Background Task
 
+    // Sends the traffic computed by the shared aggregator to the client
+    private void sendSharedTraffic() {
+        Mode current;
+        synchronized (this) {
+            current = mode;
+        }
+        switch (current) {
+            case ALL_FLOW_TRAFFIC_BYTES:
+                sendAllFlowTraffic();
+                break;
+            case ALL_PORT_TRAFFIC_BIT_PS:
+                sendAllPortTrafficBits();
+                break;
+            case ALL_PORT_TRAFFIC_PKT_PS:
+                sendAllPortTrafficPackets();
+                break;
+            default:
+                // the mode changed since the traffic was computed
+                break;
+        }
+    }
+
     // Provides periodic update of traffic information to the client
     private class TrafficUpdateTask extends TimerTask {
         @Override
         public void run() {
             try {
                 switch (mode) {
-                    case ALL_FLOW_TRAFFIC_BYTES:
-                        sendAllFlowTraffic();
-                        break;
-                    case ALL_PORT_TRAFFIC_BIT_PS:
-                        sendAllPortTrafficBits();
-                        break;
-                    case ALL_PORT_TRAFFIC_PKT_PS:
-                        sendAllPortTrafficPackets();
-                        break;
                     case DEV_LINK_FLOWS:
                         sendDeviceLinkFlows();
                         break;
@@ -419,9 +364,10 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
                         break;
 
                     default:
-                        // RELATED_INTENTS and IDLE modes should never invoke
-                        // the background task, but if they do, they have
-                        // nothing to do
+                        // the all traffic modes are served by the shared
+                        // aggregator; RELATED_INTENTS and IDLE modes should
+                        // never invoke the background task, but if they do,
+                        // they have nothing to do
                         break;
                 }
 
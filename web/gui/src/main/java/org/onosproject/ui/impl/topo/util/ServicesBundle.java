@@ -16,6 +16,7 @@
 
 package org.onosproject.ui.impl.topo.util;
 
+import org.onlab.metrics.MetricsService;
 import org.onlab.osgi.ServiceDirectory;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.incubator.net.PortStatisticsService;
@@ -53,6 +54,7 @@ public class ServicesBundle {
     private FlowRuleService flowService;
     private StatisticService flowStatsService;
     private PortStatisticsService portStatsService;
+    private MetricsService metricsService;
 
 
     /**
@@ -78,6 +80,7 @@ public class ServicesBundle {
         flowService = directory.get(FlowRuleService.class);
         flowStatsService = directory.get(StatisticService.class);
         portStatsService = directory.get(PortStatisticsService.class);
+        metricsService = directory.get(MetricsService.class);
     }
 
     /**
@@ -196,4 +199,13 @@ public class ServicesBundle {
     public PortStatisticsService portStats() {
         return portStatsService;
     }
+
+    /**
+     * Returns a reference to the metrics service.
+     *
+     * @return metrics service reference
+     */
+    public MetricsService metrics() {
+        return metricsService;
+    }
 }
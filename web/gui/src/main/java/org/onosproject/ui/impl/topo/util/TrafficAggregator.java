@@ -0,0 +1,437 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ui.impl.topo.util;
+
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.SharedExecutors;
+import org.onosproject.core.MetricsHelper;
+import org.onosproject.incubator.net.PortStatisticsService.MetricType;
+import org.onosproject.net.DefaultEdgeLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.statistic.Load;
+import org.onosproject.ui.impl.topo.util.TrafficLink.StatsType;
+import org.onosproject.ui.topo.TopoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.incubator.net.PortStatisticsService.MetricType.BYTES;
+import static org.onosproject.incubator.net.PortStatisticsService.MetricType.PACKETS;
+import static org.onosproject.net.DefaultEdgeLink.createEdgeLinks;
+
+/**
+ * Computes the traffic on all the links of the network once per period for
+ * all the topology view sessions monitoring it, rather than once per session.
+ * <p>
+ * Sessions subscribe for a type of statistics and are notified each time a
+ * new snapshot of the links with traffic is available. A session still busy
+ * sending a previous snapshot to a slow client is notified again only once it
+ * is done, and then reads the latest snapshot: snapshots are conflated rather
+ * than queued for slow clients.
+ * </p>
+ * <p>
+ * Sessions share an aggregator as long as they use the same period and the
+ * same services; the aggregator is discarded once its last subscription is
+ * cancelled. The time taken to compute each period is published as a timer
+ * of the metrics service.
+ * </p>
+ */
+public final class TrafficAggregator implements MetricsHelper {
+
+    /**
+     * Minimum rate for a link to be deemed to have traffic: 4 Kilo Bytes.
+     */
+    public static final double BPS_THRESHOLD = 4 * TopoUtils.N_KILO;
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficAggregator.class);
+
+    private static final String METRICS_COMPONENT = "GUI";
+    private static final String METRICS_FEATURE = "trafficAggregator";
+
+    // guards the aggregators and is always acquired before an aggregator lock
+    private static final Map<Key, TrafficAggregator> AGGREGATORS = Maps.newHashMap();
+
+    private final Key key;
+    private final long period;
+    private final ServicesBundle services;
+    private final Executor notifier;
+
+    private final Map<StatsType, Set<Subscription>> subscriptions = Maps.newConcurrentMap();
+    private final Map<StatsType, Set<TrafficLink>> snapshots = Maps.newConcurrentMap();
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> task;
+
+    private final Timer computeTimer;
+    private final AtomicLong periodCount = new AtomicLong();
+    private final AtomicLong conflatedCount = new AtomicLong();
+
+    /**
+     * Subscribes for the snapshots of the given type of statistics computed
+     * by the aggregator shared by the sessions using the given period and
+     * services.
+     *
+     * @param period   period of the computation, in milliseconds
+     * @param services bundle of services
+     * @param type     type of statistics
+     * @param listener notified each time a new snapshot is available
+     * @return the subscription
+     */
+    public static Subscription subscribe(long period, ServicesBundle services,
+                                         StatsType type, Runnable listener) {
+        synchronized (AGGREGATORS) {
+            return AGGREGATORS.computeIfAbsent(new Key(period, services), k -> new TrafficAggregator(
+                    period, services, SharedExecutors.getPoolThreadExecutor())).subscribe(type, listener);
+        }
+    }
+
+    /**
+     * Returns the number of aggregators shared by the sessions.
+     *
+     * @return number of shared aggregators
+     */
+    static int sharedCount() {
+        synchronized (AGGREGATORS) {
+            return AGGREGATORS.size();
+        }
+    }
+
+    // discards the shared aggregator if it has no subscriber left
+    private static void discard(TrafficAggregator aggregator) {
+        synchronized (AGGREGATORS) {
+            synchronized (aggregator) {
+                if (aggregator.subscriptions.isEmpty()) {
+                    AGGREGATORS.remove(aggregator.key, aggregator);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a traffic aggregator.
+     *
+     * @param period   period of the computation, in milliseconds
+     * @param services bundle of services
+     * @param notifier executor notifying the subscribers
+     */
+    TrafficAggregator(long period, ServicesBundle services, Executor notifier) {
+        checkArgument(period > 0, "Period must be positive");
+        this.key = new Key(period, services);
+        this.period = period;
+        this.services = services;
+        this.notifier = notifier;
+        this.computeTimer = createTimer(METRICS_COMPONENT, METRICS_FEATURE, "computePeriod" + period + "ms");
+    }
+
+    @Override
+    public MetricsService metricsService() {
+        return services.metrics();
+    }
+
+    /**
+     * Subscribes for the snapshots of the given type of statistics. The
+     * computation runs as long as there is at least one subscriber.
+     *
+     * @param type     type of statistics
+     * @param listener notified each time a new snapshot is available
+     * @return the subscription
+     */
+    public synchronized Subscription subscribe(StatsType type, Runnable listener) {
+        Subscription subscription = new Subscription(type, listener);
+        subscriptions.computeIfAbsent(type, t -> new CopyOnWriteArraySet<>()).add(subscription);
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(
+                    groupedThreads("onos/gui", "traffic-aggregator", log));
+            task = executor.scheduleAtFixedRate(this::computeAll, period, period,
+                                                TimeUnit.MILLISECONDS);
+        }
+        return subscription;
+    }
+
+    /**
+     * Returns the latest snapshot of the links with traffic for the given
+     * type of statistics, computing it if there is none yet.
+     *
+     * @param type type of statistics
+     * @return links deemed to have traffic
+     */
+    public Set<TrafficLink> snapshot(StatsType type) {
+        Set<TrafficLink> snapshot = snapshots.get(type);
+        return snapshot != null ? snapshot : compute(type);
+    }
+
+    /**
+     * Returns the number of periods computed.
+     *
+     * @return number of periods
+     */
+    public long periodCount() {
+        return periodCount.get();
+    }
+
+    /**
+     * Returns the number of notifications skipped because the subscriber
+     * was still processing a previous one.
+     *
+     * @return number of conflated notifications
+     */
+    public long conflatedCount() {
+        return conflatedCount.get();
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        synchronized (this) {
+            Set<Subscription> subscribers = subscriptions.get(subscription.type);
+            if (subscribers == null || !subscribers.remove(subscription)) {
+                return;
+            }
+            if (subscribers.isEmpty()) {
+                // do not serve a stale snapshot to later subscribers
+                subscriptions.remove(subscription.type);
+                snapshots.remove(subscription.type);
+            }
+            if (!subscriptions.isEmpty()) {
+                return;
+            }
+            if (executor != null) {
+                task.cancel(false);
+                executor.shutdown();
+                executor = null;
+                task = null;
+            }
+        }
+        discard(this);
+    }
+
+    // runs on the aggregator thread, once per period
+    private void computeAll() {
+        Timer.Context timer = startTimer(computeTimer);
+        for (StatsType type : StatsType.values()) {
+            Set<Subscription> subscribers = subscriptions.get(type);
+            if (subscribers == null || subscribers.isEmpty()) {
+                continue;
+            }
+            try {
+                compute(type);
+                subscribers.forEach(Subscription::notifyListener);
+            } catch (RuntimeException e) {
+                log.warn("Unable to compute {} traffic", type, e);
+            }
+        }
+        stopTimer(timer);
+        log.debug("Traffic period {} computed, {} notifications conflated so far",
+                  periodCount.incrementAndGet(), conflatedCount);
+    }
+
+    private Set<TrafficLink> compute(StatsType type) {
+        Set<TrafficLink> snapshot = computeLinksWithTraffic(type);
+        synchronized (this) {
+            if (subscriptions.containsKey(type)) {
+                snapshots.put(type, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    // =======================================================================
+    // === Methods for computing traffic on links
+
+    private Set<TrafficLink> computeLinksWithTraffic(StatsType type) {
+        TrafficLinkMap linkMap = new TrafficLinkMap();
+        services.link().getLinks().forEach(linkMap::add);
+        addEdgeLinks(linkMap);
+
+        ImmutableSet.Builder<TrafficLink> linksWithTraffic = ImmutableSet.builder();
+
+        for (TrafficLink tlink : linkMap.biLinks()) {
+            if (type == StatsType.FLOW_STATS) {
+                attachFlowLoad(tlink);
+            } else if (type == StatsType.PORT_STATS) {
+                attachPortLoad(tlink, BYTES);
+            } else if (type == StatsType.PORT_PACKET_STATS) {
+                attachPortLoad(tlink, PACKETS);
+            }
+
+            // we only want to report on links deemed to have traffic
+            if (tlink.hasTraffic()) {
+                linksWithTraffic.add(tlink);
+            }
+        }
+        return linksWithTraffic.build();
+    }
+
+    private void addEdgeLinks(TrafficLinkMap linkMap) {
+        services.host().getHosts().forEach(host -> {
+            // Ingress edge links
+            Set<DefaultEdgeLink> edgeLinks = createEdgeLinks(host, true);
+            edgeLinks.forEach(linkMap::add);
+            // Egress edge links
+            edgeLinks = createEdgeLinks(host, false);
+            edgeLinks.forEach(linkMap::add);
+        });
+    }
+
+    private void attachFlowLoad(TrafficLink link) {
+        link.addLoad(getLinkFlowLoad(link.one()));
+        link.addLoad(getLinkFlowLoad(link.two()));
+    }
+
+    private Load getLinkFlowLoad(Link link) {
+        if (link != null && link.src().elementId() instanceof DeviceId) {
+            return services.flowStats().load(link);
+        }
+        return null;
+    }
+
+    private void attachPortLoad(TrafficLink link, MetricType metricType) {
+        // For bi-directional traffic links, use
+        // the max link rate of either direction
+        // (we choose 'one' since we know that is never null)
+        Link one = link.one();
+        Load egressSrc = services.portStats().load(one.src(), metricType);
+        Load egressDst = services.portStats().load(one.dst(), metricType);
+        link.addLoad(maxLoad(egressSrc, egressDst), metricType == BYTES ? BPS_THRESHOLD : 0);
+    }
+
+    private static Load maxLoad(Load a, Load b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.rate() > b.rate() ? a : b;
+    }
+
+    /**
+     * Subscription of a session to the snapshots of a type of statistics.
+     */
+    public final class Subscription {
+        private final StatsType type;
+        private final Runnable listener;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicBoolean pending = new AtomicBoolean();
+
+        private Subscription(StatsType type, Runnable listener) {
+            this.type = type;
+            this.listener = listener;
+        }
+
+        /**
+         * Returns the type of statistics subscribed to.
+         *
+         * @return type of statistics
+         */
+        public StatsType type() {
+            return type;
+        }
+
+        /**
+         * Returns the latest snapshot of the links with traffic for the type
+         * of statistics subscribed to.
+         *
+         * @return links deemed to have traffic
+         */
+        public Set<TrafficLink> snapshot() {
+            return TrafficAggregator.this.snapshot(type);
+        }
+
+        /**
+         * Cancels the subscription.
+         */
+        public void cancel() {
+            unsubscribe(this);
+        }
+
+        private void notifyListener() {
+            if (pending.getAndSet(true)) {
+                conflatedCount.incrementAndGet();
+                return;
+            }
+            if (running.compareAndSet(false, true)) {
+                notifier.execute(this::drain);
+            }
+        }
+
+        // notifies the listener until no new snapshot arrived meanwhile,
+        // never running concurrently for the same subscription
+        private void drain() {
+            do {
+                while (pending.getAndSet(false)) {
+                    try {
+                        listener.run();
+                    } catch (RuntimeException e) {
+                        log.warn("Unable to send traffic to {} subscriber", type, e);
+                    }
+                }
+                running.set(false);
+            } while (pending.get() && running.compareAndSet(false, true));
+        }
+    }
+
+    /**
+     * Identifies the aggregator shared by the sessions using the same period
+     * and the same instances of the services computing the traffic.
+     */
+    private static final class Key {
+        private final long period;
+        private final List<Object> services;
+
+        private Key(long period, ServicesBundle services) {
+            this.period = period;
+            this.services = Arrays.asList(services.link(), services.host(), services.flowStats(),
+                                          services.portStats(), services.metrics());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(period, services);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            return period == that.period && Objects.equals(services, that.services);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ui.impl.topo.util;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
+import org.onlab.metrics.MetricsService;
+import org.onlab.osgi.ServiceDirectory;
+import org.onosproject.incubator.net.PortStatisticsService;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Host;
+import org.onosproject.net.Link;
+import org.onosproject.net.host.HostService;
+import org.onosproject.net.host.HostServiceAdapter;
+import org.onosproject.net.link.LinkService;
+import org.onosproject.net.link.LinkServiceAdapter;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.statistic.DefaultLoad;
+import org.onosproject.net.statistic.Load;
+import org.onosproject.net.statistic.StatisticService;
+import org.onosproject.net.statistic.StatisticServiceAdapter;
+import org.onosproject.ui.impl.AbstractUiImplTest;
+import org.onosproject.ui.impl.topo.util.TrafficLink.StatsType;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.DeviceId.deviceId;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Unit tests for {@link TrafficAggregator}.
+ */
+public class TrafficAggregatorTest extends AbstractUiImplTest {
+
+    private static final long PERIOD = 20;
+    private static final long TIMEOUT = 5000;
+
+    private static final Link LINK = DefaultLink.builder()
+            .providerId(new ProviderId("of", "foo"))
+            .src(new ConnectPoint(deviceId("of:1"), portNumber(1)))
+            .dst(new ConnectPoint(deviceId("of:2"), portNumber(2)))
+            .type(Link.Type.DIRECT)
+            .build();
+
+    private final AtomicInteger computations = new AtomicInteger();
+    private final MetricsService metricsService = new MetricsManager();
+    private ExecutorService notifier;
+    private TrafficAggregator aggregator;
+
+    private class TestLinkService extends LinkServiceAdapter {
+        @Override
+        public Iterable<Link> getLinks() {
+            computations.incrementAndGet();
+            return ImmutableList.of(LINK);
+        }
+    }
+
+    private static class TestHostService extends HostServiceAdapter {
+        @Override
+        public Iterable<Host> getHosts() {
+            return ImmutableSet.of();
+        }
+    }
+
+    private static class TestPortStatisticsService implements PortStatisticsService {
+        @Override
+        public Load load(ConnectPoint connectPoint) {
+            return new DefaultLoad(1_000_000, 0);
+        }
+    }
+
+    private class TestServiceDirectory implements ServiceDirectory {
+        private final Map<Class<?>, Object> services = ImmutableMap.of(
+                LinkService.class, new TestLinkService(),
+                HostService.class, new TestHostService(),
+                StatisticService.class, new StatisticServiceAdapter(),
+                PortStatisticsService.class, new TestPortStatisticsService(),
+                MetricsService.class, metricsService);
+
+        @Override
+        public <T> T get(Class<T> serviceClass) {
+            return serviceClass.cast(services.get(serviceClass));
+        }
+    }
+
+    @Before
+    public void setUp() {
+        notifier = Executors.newCachedThreadPool();
+        aggregator = new TrafficAggregator(PERIOD, new ServicesBundle(new TestServiceDirectory()),
+                                           notifier);
+    }
+
+    @After
+    public void tearDown() {
+        notifier.shutdownNow();
+    }
+
+    @Test
+    public void sharedComputation() throws InterruptedException {
+        title("sharedComputation");
+
+        CountDownLatch first = new CountDownLatch(3);
+        CountDownLatch second = new CountDownLatch(3);
+        TrafficAggregator.Subscription s1 = aggregator.subscribe(StatsType.PORT_STATS, first::countDown);
+        TrafficAggregator.Subscription s2 = aggregator.subscribe(StatsType.PORT_STATS, second::countDown);
+        assertTrue("no traffic notified", first.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue("no traffic notified", second.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        assertEquals("bad snapshot", ImmutableSet.of(LINK), ImmutableSet.of(
+                aggregator.snapshot(StatsType.PORT_STATS).iterator().next().one()));
+
+        s1.cancel();
+        s2.cancel();
+        Thread.sleep(5 * PERIOD);
+        Timer timer = metricsService.getTimers(MetricFilter.ALL).values().iterator().next();
+        print("%d computations in %d periods, %.0f ns each on average", computations.get(),
+              aggregator.periodCount(), timer.getSnapshot().getMean());
+
+        // computed once per period, not once per subscriber
+        assertEquals("bad computation count", aggregator.periodCount(), computations.get());
+        assertEquals("bad timed period count", aggregator.periodCount(), timer.getCount());
+
+        // no more periods once all subscribers are gone
+        long periods = aggregator.periodCount();
+        Thread.sleep(5 * PERIOD);
+        assertEquals("computation not stopped", periods, aggregator.periodCount());
+    }
+
+    @Test
+    public void sharedAggregators() {
+        title("sharedAggregators");
+
+        ServiceDirectory directory = new TestServiceDirectory();
+        TrafficAggregator.Subscription s1 = TrafficAggregator.subscribe(
+                PERIOD, new ServicesBundle(directory), StatsType.PORT_STATS, () -> { });
+        TrafficAggregator.Subscription s2 = TrafficAggregator.subscribe(
+                PERIOD, new ServicesBundle(directory), StatsType.FLOW_STATS, () -> { });
+        TrafficAggregator.Subscription s3 = TrafficAggregator.subscribe(
+                2 * PERIOD, new ServicesBundle(directory), StatsType.PORT_STATS, () -> { });
+        TrafficAggregator.Subscription s4 = TrafficAggregator.subscribe(
+                PERIOD, new ServicesBundle(new TestServiceDirectory()), StatsType.PORT_STATS, () -> { });
+        // shared by the sessions using the same period and services
+        assertEquals("bad aggregator count", 3, TrafficAggregator.sharedCount());
+
+        s1.cancel();
+        assertEquals("aggregator discarded too early", 3, TrafficAggregator.sharedCount());
+        s2.cancel();
+        assertEquals("aggregator not discarded", 2, TrafficAggregator.sharedCount());
+        s3.cancel();
+        s4.cancel();
+        assertEquals("aggregators not discarded", 0, TrafficAggregator.sharedCount());
+
+        // cancelling again has no effect
+        s1.cancel();
+        assertEquals("bad aggregator count", 0, TrafficAggregator.sharedCount());
+    }
+
+    @Test
+    public void snapshotWithoutSubscriber() {
+        title("snapshotWithoutSubscriber");
+
+        assertEquals("bad snapshot size", 1, aggregator.snapshot(StatsType.PORT_STATS).size());
+        assertEquals("bad snapshot size", 1, aggregator.snapshot(StatsType.PORT_STATS).size());
+        // not cached for later subscribers, as it would become stale
+        assertEquals("bad computation count", 2, computations.get());
+        assertEquals("bad period count", 0, aggregator.periodCount());
+    }
+
+    @Test
+    public void slowSubscriber() throws InterruptedException {
+        title("slowSubscriber");
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch slowNotified = new CountDownLatch(2);
+        AtomicInteger concurrentCalls = new AtomicInteger();
+        AtomicInteger maxConcurrentCalls = new AtomicInteger();
+        TrafficAggregator.Subscription slow = aggregator.subscribe(StatsType.PORT_STATS, () -> {
+            maxConcurrentCalls.accumulateAndGet(concurrentCalls.incrementAndGet(), Math::max);
+            try {
+                release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrentCalls.decrementAndGet();
+            slowNotified.countDown();
+        });
+        CountDownLatch fast = new CountDownLatch(10);
+        TrafficAggregator.Subscription quick = aggregator.subscribe(StatsType.PORT_STATS, fast::countDown);
+
+        assertTrue("no traffic notified", fast.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("bad slow notifications", 2, slowNotified.getCount());
+        assertTrue("notifications not conflated", aggregator.conflatedCount() > 0);
+
+        release.countDown();
+        assertTrue("slow subscriber not notified", slowNotified.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("concurrent notifications", 1, maxConcurrentCalls.get());
+
+        slow.cancel();
+        quick.cancel();
+    }
+}